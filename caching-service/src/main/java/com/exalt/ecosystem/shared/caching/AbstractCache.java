@@ -0,0 +1,667 @@
+package com.exalt.ecosystem.shared.caching;
+
+import com.exalt.ecosystem.shared.caching.CacheException.ErrorCode;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Base class for cache implementations.
+ * Provides the operations that can be expressed through the single-key and
+ * bulk primitives: typed reads, single-flight loading and bulk loading.
+ * <p>
+ * Loads through {@code getOrPut} and {@code getOrPutAsync} are
+ * single-flight: while a key is being loaded, other callers in the same
+ * process wait on the same future instead of invoking their own supplier.
+ * <p>
+ * With {@code refreshAfterSeconds} configured, a load that finds an entry
+ * due for refresh (see {@link #isRefreshDue(Object)}) returns it and
+ * reloads it in the background, sharing the same single-flight
+ * registration, so a popular key is reloaded once instead of making
+ * every caller wait when it expires.
+ * <p>
+ * Keys that an {@code Optional} loader of {@code getOrPutOptional} finds
+ * absent are remembered in a {@link NegativeCache} with its own TTL and
+ * capacity. Implementations forget them when keys are written or removed
+ * or the cache is cleared, through {@link #forgetAbsent(Object)} and its
+ * variants. A put must forget the key too: otherwise the absence outlives
+ * the value, and once the value is evicted or expires the key reads as
+ * absent without calling the loader.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+public abstract class AbstractCache<K, V> implements Cache<K, V> {
+    protected final String name;
+    protected final CacheConfig config;
+    protected final StatsCounter statsCounter;
+    private final Map<K, CompletableFuture<V>> inFlightLoads = new ConcurrentHashMap<>();
+    private final NegativeCache<K> absentKeys;
+    
+    /**
+     * Creates a new cache with the specified name and configuration.
+     *
+     * @param name   The name of the cache
+     * @param config The cache configuration
+     */
+    protected AbstractCache(String name, CacheConfig config) {
+        this.name = name;
+        this.config = config;
+        this.statsCounter = StatsCounter.forConfig(config);
+        this.absentKeys = new NegativeCache<>(config);
+    }
+    
+    /**
+     * Checks whether a cached entry is old enough to be refreshed in the
+     * background. Caches that do not track entry age never refresh.
+     *
+     * @param key The cache key, which was just found in the cache
+     * @return true if the entry is older than {@code refreshAfterSeconds}
+     */
+    protected boolean isRefreshDue(K key) {
+        return false;
+    }
+    
+    /**
+     * Caches a value produced by a loader. Separate from {@code put} so
+     * caches can tell loaded values, which the source already has, from
+     * writes made by callers.
+     *
+     * @param key      The cache key
+     * @param value    The loaded value
+     * @param ttl      Time to live duration, or -1 to use the configured default
+     * @param timeUnit Time unit for the TTL
+     * @throws CacheException if an error occurs during the operation
+     */
+    protected void putLoaded(K key, V value, long ttl, TimeUnit timeUnit) throws CacheException {
+        if (ttl > 0) {
+            put(key, value, ttl, timeUnit);
+        } else {
+            put(key, value);
+        }
+    }
+    
+    /**
+     * Caches the values produced by a bulk loader.
+     *
+     * @param entries The loaded values by key
+     * @throws CacheException if an error occurs during the operation
+     * @see #putLoaded(Object, Object, long, TimeUnit)
+     */
+    protected void putAllLoaded(Map<K, V> entries) throws CacheException {
+        putAll(entries);
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(K key, Class<T> clazz) throws CacheException {
+        V value = get(key);
+        
+        if (value == null) {
+            return null;
+        }
+        
+        if (clazz.isInstance(value)) {
+            return (T) value;
+        } else {
+            throw new CacheException(
+                ErrorCode.TYPE_MISMATCH,
+                "Cached value is not of the expected type. Expected: " + clazz.getName() + 
+                ", Actual: " + value.getClass().getName()
+            );
+        }
+    }
+    
+    @Override
+    public V getOrPut(K key, Supplier<V> supplier) throws CacheException {
+        return load(key, supplier, -1, null);
+    }
+    
+    @Override
+    public V getOrPut(K key, Supplier<V> supplier, long ttl, TimeUnit timeUnit) throws CacheException {
+        if (ttl <= 0) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "TTL must be positive");
+        }
+        
+        return load(key, supplier, ttl, timeUnit);
+    }
+    
+    @Override
+    public Optional<V> getOrPutOptional(K key, Supplier<Optional<V>> loader) throws CacheException {
+        return loadOptional(key, loader, -1, null);
+    }
+    
+    @Override
+    public Optional<V> getOrPutOptional(K key, Supplier<Optional<V>> loader, long ttl, TimeUnit timeUnit)
+            throws CacheException {
+        if (ttl <= 0) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "TTL must be positive");
+        }
+        
+        return loadOptional(key, loader, ttl, timeUnit);
+    }
+    
+    @Override
+    public CompletableFuture<V> getOrPutAsync(K key, Function<K, CompletableFuture<V>> loader)
+            throws CacheException {
+        V value = get(key);
+        
+        if (value != null) {
+            if (shouldRefresh(key)) {
+                refreshAsync(key, value, loader);
+            }
+            return CompletableFuture.completedFuture(value);
+        }
+        
+        return loadAsync(key, loader);
+    }
+    
+    @Override
+    public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) throws CacheException {
+        Map<K, V> result = getAll(keys);
+        
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (!result.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        
+        if (missing.isEmpty()) {
+            return result;
+        }
+        
+        long start = System.nanoTime();
+        Map<K, V> loaded;
+        try {
+            loaded = loader.apply(Collections.unmodifiableSet(missing));
+        } catch (RuntimeException e) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+        
+        if (loaded == null) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+            return result;
+        }
+        
+        statsCounter.recordLoadSuccess(System.nanoTime() - start);
+        if (loaded.isEmpty()) {
+            return result;
+        }
+        
+        Map<K, V> found = new LinkedHashMap<>();
+        for (Map.Entry<K, V> entry : loaded.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                found.put(entry.getKey(), entry.getValue());
+            }
+        }
+        
+        putAllLoaded(found);
+        result.putAll(found);
+        return result;
+    }
+    
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+    
+    @Override
+    public StatsCounter getStatsCounter() {
+        return statsCounter;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Gets a value without recording a hit or miss. Used to re-check a key
+     * whose miss has already been counted.
+     *
+     * @param key The cache key
+     * @return The cached value, or null if not found or expired
+     * @throws CacheException if an error occurs during the operation
+     */
+    protected abstract V getQuietly(K key) throws CacheException;
+    
+    /**
+     * Forgets that a key was found absent. Called when a key is removed,
+     * since removals often invalidate a key whose source just changed.
+     *
+     * @param key The cache key
+     */
+    protected void forgetAbsent(K key) {
+        absentKeys.remove(key);
+    }
+    
+    /**
+     * Forgets that several keys were found absent.
+     *
+     * @param keys The cache keys
+     */
+    protected void forgetAbsent(Collection<K> keys) {
+        absentKeys.removeAll(keys);
+    }
+    
+    /**
+     * Forgets all keys found absent. Called when the cache is cleared.
+     */
+    protected void forgetAllAbsent() {
+        absentKeys.clear();
+    }
+    
+    /**
+     * Validates the keys and values of a batch before any of it is stored.
+     *
+     * @param entries The values to cache by key
+     * @throws CacheException if the batch, a key or a value is null
+     */
+    protected void validateEntries(Map<K, V> entries) throws CacheException {
+        if (entries == null) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Cache entries cannot be null");
+        }
+        
+        for (Map.Entry<K, V> entry : entries.entrySet()) {
+            if (entry.getKey() == null) {
+                throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
+            }
+            if (entry.getValue() == null) {
+                throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Cache value cannot be null");
+            }
+        }
+    }
+    
+    /**
+     * Loads a missing value through the supplier, making sure only one
+     * supplier runs per key at a time. If the load in flight is an
+     * {@code Optional} load that finds the key absent, the supplier runs
+     * after it, since it must always produce a value.
+     *
+     * @param key      The cache key
+     * @param supplier A supplier to provide the value if not found in cache
+     * @param ttl      Time to live duration, or -1 to use the configured default
+     * @param timeUnit Time unit for the TTL
+     * @return The cached or newly supplied value
+     * @throws CacheException if the supplier fails or its value cannot be cached
+     */
+    private V load(K key, Supplier<V> supplier, long ttl, TimeUnit timeUnit) throws CacheException {
+        V value = get(key);
+        
+        if (value != null) {
+            if (shouldRefresh(key)) {
+                refresh(key, value, supplier, ttl, timeUnit);
+            }
+            return value;
+        }
+        
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inFlight;
+        
+        while ((inFlight = inFlightLoads.putIfAbsent(key, future)) != null) {
+            value = await(inFlight);
+            if (value != null) {
+                return value;
+            }
+            // An Optional load found the key absent, which does not answer this caller
+        }
+        
+        try {
+            // Another load may have finished between the miss and the registration
+            value = getQuietly(key);
+            
+            if (value == null) {
+                value = loadAndPut(key, supplier, ttl, timeUnit);
+            }
+            
+            future.complete(value);
+            return value;
+        } catch (CacheException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, future);
+        }
+    }
+    
+    /**
+     * Loads a missing value through an asynchronous loader, sharing a load
+     * already in flight for the key. If that load is an {@code Optional}
+     * load that finds the key absent, the loader runs after it.
+     *
+     * @param key    The cache key
+     * @param loader The loader to provide the value
+     * @return A future completed with the loaded value
+     * @throws CacheException if the loader does not start a load
+     */
+    private CompletableFuture<V> loadAsync(K key, Function<K, CompletableFuture<V>> loader) throws CacheException {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = inFlightLoads.putIfAbsent(key, future);
+        
+        if (inFlight != null) {
+            // A dependent future, so callers cannot complete the shared one
+            return inFlight.thenCompose(loaded -> loaded != null
+                ? CompletableFuture.completedFuture(loaded)
+                : retryLoadAsync(key, loader));
+        }
+        
+        CompletableFuture<V> loading;
+        long start = System.nanoTime();
+        try {
+            // Another load may have finished between the miss and the registration
+            V value = getQuietly(key);
+            if (value != null) {
+                future.complete(value);
+                inFlightLoads.remove(key, future);
+                return future.copy();
+            }
+            
+            loading = loader.apply(key);
+            if (loading == null) {
+                throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Cache loader returned no future");
+            }
+        } catch (CacheException | RuntimeException e) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+            future.completeExceptionally(e);
+            inFlightLoads.remove(key, future);
+            throw e;
+        }
+        
+        loading.whenComplete((loaded, error) -> completeAsyncLoad(key, future, start, loaded, error));
+        
+        return future.copy();
+    }
+    
+    private CompletableFuture<V> retryLoadAsync(K key, Function<K, CompletableFuture<V>> loader) {
+        try {
+            return loadAsync(key, loader);
+        } catch (CacheException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Loads a missing value through an {@code Optional} loader, sharing the
+     * single-flight registration of {@link #load}. A key found absent is
+     * remembered, and concurrent callers waiting on its load see null;
+     * the registration is removed before they are woken, so waiting
+     * {@code getOrPut} callers can register a load of their own.
+     *
+     * @param key      The cache key
+     * @param loader   The loader to call if the key is neither cached nor known absent
+     * @param ttl      Time to live duration, or -1 to use the configured default
+     * @param timeUnit Time unit for the TTL
+     * @return The cached or loaded value, or an empty Optional if the key is absent
+     * @throws CacheException if the loader fails or its value cannot be cached
+     */
+    private Optional<V> loadOptional(K key, Supplier<Optional<V>> loader, long ttl, TimeUnit timeUnit)
+            throws CacheException {
+        V value = get(key);
+        
+        if (value != null) {
+            return Optional.of(value);
+        }
+        
+        if (absentKeys.contains(key)) {
+            statsCounter.recordNegativeHits(1);
+            return Optional.empty();
+        }
+        
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = inFlightLoads.putIfAbsent(key, future);
+        
+        if (inFlight != null) {
+            return Optional.ofNullable(await(inFlight));
+        }
+        
+        try {
+            // Another load may have finished between the miss and the registration
+            value = getQuietly(key);
+            
+            if (value == null && !absentKeys.contains(key)) {
+                value = loadOptionalAndPut(key, loader, ttl, timeUnit);
+            }
+        } catch (CacheException | RuntimeException e) {
+            inFlightLoads.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        
+        inFlightLoads.remove(key, future);
+        future.complete(value);
+        return Optional.ofNullable(value);
+    }
+    
+    /**
+     * Runs an {@code Optional} loader and caches its value, or remembers
+     * the key as absent, recording the load time. An empty result counts
+     * as a load that produced no value.
+     *
+     * @return The loaded value, or null if the key is absent
+     */
+    private V loadOptionalAndPut(K key, Supplier<Optional<V>> loader, long ttl, TimeUnit timeUnit)
+            throws CacheException {
+        long start = System.nanoTime();
+        try {
+            Optional<V> loaded = loader.get();
+            
+            if (loaded == null || loaded.isEmpty()) {
+                absentKeys.add(key);
+                statsCounter.recordLoadFailure(System.nanoTime() - start);
+                return null;
+            }
+            
+            putLoaded(key, loaded.get(), ttl, timeUnit);
+            statsCounter.recordLoadSuccess(System.nanoTime() - start);
+            return loaded.get();
+        } catch (CacheException | RuntimeException e) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+    
+    private boolean shouldRefresh(K key) {
+        return config.getRefreshAfterSeconds() > 0 && !inFlightLoads.containsKey(key) && isRefreshDue(key);
+    }
+    
+    /**
+     * Reloads a key in the background unless a load for it is already in
+     * flight. A failed reload leaves the current value in place, so it
+     * keeps being served until it expires.
+     *
+     * @param key      The cache key
+     * @param current  The value currently cached
+     * @param supplier A supplier to provide the new value
+     * @param ttl      Time to live duration, or -1 to use the configured default
+     * @param timeUnit Time unit for the TTL
+     */
+    private void refresh(K key, V current, Supplier<V> supplier, long ttl, TimeUnit timeUnit) {
+        submitRefresh(key, current, future -> {
+            try {
+                future.complete(loadAndPut(key, supplier, ttl, timeUnit));
+            } catch (CacheException | RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                inFlightLoads.remove(key, future);
+            }
+        });
+    }
+    
+    /**
+     * Reloads a key in the background through an asynchronous loader.
+     * The refresh executor only starts the load; completing it is chained
+     * on the loader's future, so no refresh thread waits for the load,
+     * which may itself run on the refresh executor.
+     *
+     * @param key     The cache key
+     * @param current The value currently cached
+     * @param loader  The loader to provide the new value
+     */
+    private void refreshAsync(K key, V current, Function<K, CompletableFuture<V>> loader) {
+        submitRefresh(key, current, future -> {
+            long start = System.nanoTime();
+            CompletableFuture<V> loading;
+            try {
+                loading = loader.apply(key);
+                if (loading == null) {
+                    throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Cache loader returned no future");
+                }
+            } catch (CacheException | RuntimeException e) {
+                statsCounter.recordLoadFailure(System.nanoTime() - start);
+                future.completeExceptionally(e);
+                inFlightLoads.remove(key, future);
+                return;
+            }
+            loading.whenComplete((loaded, error) -> completeAsyncLoad(key, future, start, loaded, error));
+        });
+    }
+    
+    /**
+     * Registers a background reload of a key and hands it to the refresh
+     * executor, unless a load for the key is already in flight. The task
+     * must complete the future and remove its registration.
+     *
+     * @param key     The cache key
+     * @param current The value currently cached
+     * @param task    Reloads the key and completes the registered future
+     */
+    private void submitRefresh(K key, V current, Consumer<CompletableFuture<V>> task) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        if (inFlightLoads.putIfAbsent(key, future) != null) {
+            return;
+        }
+        
+        Executor executor = config.getRefreshExecutor() != null
+            ? config.getRefreshExecutor()
+            : DefaultRefreshExecutor.INSTANCE;
+        try {
+            executor.execute(() -> task.accept(future));
+        } catch (RejectedExecutionException e) {
+            // The executor is saturated; skip this refresh, a later read will retry it
+            inFlightLoads.remove(key, future);
+            future.complete(current);
+        }
+    }
+    
+    /**
+     * Caches the result of an asynchronous load and completes its
+     * single-flight registration, recording the load time.
+     *
+     * @param key    The cache key
+     * @param future The registered future of the load
+     * @param start  The time the load started, from {@link System#nanoTime()}
+     * @param loaded The loaded value, if the load succeeded
+     * @param error  The failure of the load, or null
+     */
+    private void completeAsyncLoad(K key, CompletableFuture<V> future, long start, V loaded, Throwable error) {
+        try {
+            if (error != null) {
+                statsCounter.recordLoadFailure(System.nanoTime() - start);
+                future.completeExceptionally(error);
+            } else {
+                putLoaded(key, loaded, -1, null);
+                statsCounter.recordLoadSuccess(System.nanoTime() - start);
+                future.complete(loaded);
+            }
+        } catch (CacheException | RuntimeException e) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+            future.completeExceptionally(e);
+        } finally {
+            inFlightLoads.remove(key, future);
+        }
+    }
+    
+    /**
+     * Runs the supplier and caches its value, recording the load time.
+     */
+    private V loadAndPut(K key, Supplier<V> supplier, long ttl, TimeUnit timeUnit) throws CacheException {
+        long start = System.nanoTime();
+        try {
+            V value = supplier.get();
+            putLoaded(key, value, ttl, timeUnit);
+            
+            statsCounter.recordLoadSuccess(System.nanoTime() - start);
+            return value;
+        } catch (CacheException | RuntimeException e) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+    
+    /**
+     * Waits for a load started by another caller.
+     *
+     * @param inFlight The in-flight load
+     * @return The loaded value
+     * @throws CacheException if the load failed or the wait was interrupted
+     */
+    private V await(CompletableFuture<V> inFlight) throws CacheException {
+        try {
+            return inFlight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Interrupted while waiting for cache load", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                ? e.getCause().getCause()
+                : e.getCause();
+            
+            if (cause instanceof CacheException) {
+                CacheException loadFailure = (CacheException) cause;
+                throw new CacheException(loadFailure.getErrorCode(), loadFailure.getMessage(), loadFailure);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Cache load failed: " + cause.getMessage(), cause);
+        }
+    }
+    
+    /**
+     * Executor for background refreshes of caches that do not configure
+     * their own. Created on first use, with a few daemon threads and a
+     * bounded queue; refreshes beyond the queue are rejected and skipped.
+     */
+    private static final class DefaultRefreshExecutor {
+        private static final int MAX_QUEUED_REFRESHES = 1024;
+        private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+        
+        static final ThreadPoolExecutor INSTANCE = createExecutor();
+        
+        private static ThreadPoolExecutor createExecutor() {
+            int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_REFRESHES),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + THREAD_COUNT.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+            );
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
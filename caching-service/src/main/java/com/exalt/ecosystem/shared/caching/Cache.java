@@ -1,6 +1,12 @@
 package com.exalt.ecosystem.shared.caching;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
@@ -10,7 +16,7 @@ import java.util.function.Supplier;
  * @param <K> Type of the cache key
  * @param <V> Type of the cached value
  */
-public interface Cache<K, V> {
+public interface Cache<K, V> extends AutoCloseable {
     
     /**
      * Gets a value from the cache.
@@ -34,6 +40,8 @@ public interface Cache<K, V> {
     
     /**
      * Gets a value from the cache or puts the value if not found.
+     * Concurrent callers for the same missing key share a single supplier
+     * invocation; the others wait for its result.
      *
      * @param key      The cache key
      * @param supplier A supplier to provide the value if not found in cache
@@ -44,6 +52,8 @@ public interface Cache<K, V> {
     
     /**
      * Gets a value from the cache or puts the value if not found, with a TTL.
+     * Concurrent callers for the same missing key share a single supplier
+     * invocation; the others wait for its result.
      *
      * @param key      The cache key
      * @param supplier A supplier to provide the value if not found in cache
@@ -54,6 +64,49 @@ public interface Cache<K, V> {
      */
     V getOrPut(K key, Supplier<V> supplier, long ttl, TimeUnit timeUnit) throws CacheException;
     
+    /**
+     * Gets a value from the cache or loads it if not found, remembering
+     * keys the loader reports absent. An empty result is kept for
+     * {@code negativeTtlSeconds}, within its own {@code negativeMaxSize}
+     * budget, and lookups of the key return it without calling the loader
+     * until it expires or the key is removed. Concurrent callers for the
+     * same missing key share a single loader invocation.
+     *
+     * @param key    The cache key
+     * @param loader A loader returning the value, or an empty Optional if there is none
+     * @return The cached or loaded value, or an empty Optional if the key is absent
+     * @throws CacheException if an error occurs during the operation
+     */
+    Optional<V> getOrPutOptional(K key, Supplier<Optional<V>> loader) throws CacheException;
+    
+    /**
+     * Gets a value from the cache or loads it if not found, with a TTL for
+     * the loaded value, remembering keys the loader reports absent.
+     *
+     * @param key      The cache key
+     * @param loader   A loader returning the value, or an empty Optional if there is none
+     * @param ttl      Time to live duration of a loaded value
+     * @param timeUnit Time unit for the TTL
+     * @return The cached or loaded value, or an empty Optional if the key is absent
+     * @throws CacheException if an error occurs during the operation
+     * @see #getOrPutOptional(Object, Supplier)
+     */
+    Optional<V> getOrPutOptional(K key, Supplier<Optional<V>> loader, long ttl, TimeUnit timeUnit)
+            throws CacheException;
+    
+    /**
+     * Gets a value from the cache or loads it asynchronously if not found.
+     * At most one load runs per key at a time; concurrent callers receive
+     * futures that complete with the same result.
+     *
+     * @param key    The cache key
+     * @param loader A function that starts loading the value for the key
+     * @return A future completed with the cached or loaded value, or
+     *         exceptionally if the load fails
+     * @throws CacheException if the key is invalid or the cache cannot be read
+     */
+    CompletableFuture<V> getOrPutAsync(K key, Function<K, CompletableFuture<V>> loader) throws CacheException;
+    
     /**
      * Puts a value in the cache.
      *
@@ -74,6 +127,45 @@ public interface Cache<K, V> {
      */
     void put(K key, V value, long ttl, TimeUnit timeUnit) throws CacheException;
     
+    /**
+     * Gets several values from the cache in one operation.
+     *
+     * @param keys The cache keys
+     * @return The cached values by key; keys that are missing or expired are absent
+     * @throws CacheException if an error occurs during the operation
+     */
+    Map<K, V> getAll(Collection<K> keys) throws CacheException;
+    
+    /**
+     * Gets several values from the cache, loading all missing keys with a
+     * single call to the bulk loader. The loaded values are cached.
+     *
+     * @param keys   The cache keys
+     * @param loader A function that loads the values for the missing keys;
+     *               keys it cannot resolve may be left out of its result
+     * @return The cached and loaded values by key
+     * @throws CacheException if an error occurs during the operation
+     */
+    Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) throws CacheException;
+    
+    /**
+     * Puts several values in the cache in one operation.
+     *
+     * @param entries The values to cache by key
+     * @throws CacheException if an error occurs during the operation
+     */
+    void putAll(Map<K, V> entries) throws CacheException;
+    
+    /**
+     * Puts several values in the cache in one operation with a TTL.
+     *
+     * @param entries  The values to cache by key
+     * @param ttl      Time to live duration
+     * @param timeUnit Time unit for the TTL
+     * @throws CacheException if an error occurs during the operation
+     */
+    void putAll(Map<K, V> entries, long ttl, TimeUnit timeUnit) throws CacheException;
+    
     /**
      * Checks if a key exists in the cache.
      *
@@ -92,6 +184,15 @@ public interface Cache<K, V> {
      */
     boolean remove(K key) throws CacheException;
     
+    /**
+     * Removes several values from the cache in one operation.
+     *
+     * @param keys The cache keys
+     * @return The number of keys that were found and removed
+     * @throws CacheException if an error occurs during the operation
+     */
+    int removeAll(Collection<K> keys) throws CacheException;
+    
     /**
      * Clears all entries from the cache.
      *
@@ -107,10 +208,38 @@ public interface Cache<K, V> {
      */
     long size() throws CacheException;
     
+    /**
+     * Gets a snapshot of this cache's statistics.
+     * Statistics are only recorded when {@link CacheConfig#isRecordStats()}
+     * is enabled; otherwise every counter is zero.
+     *
+     * @return The cache statistics
+     */
+    CacheStats stats();
+    
+    /**
+     * Gets the counter this cache records its statistics in, from which
+     * single counters can be read without taking a {@link #stats()}
+     * snapshot. Callers only read from it.
+     *
+     * @return The statistics counter
+     */
+    StatsCounter getStatsCounter();
+    
     /**
      * Gets the name of this cache.
      *
      * @return The cache name
      */
     String getName();
+    
+    /**
+     * Releases resources held by this cache, such as remote connections.
+     * The cached data itself is left untouched.
+     *
+     * @throws CacheException if an error occurs while releasing resources
+     */
+    @Override
+    default void close() throws CacheException {
+    }
 }
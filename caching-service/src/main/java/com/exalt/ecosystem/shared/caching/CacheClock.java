@@ -0,0 +1,44 @@
+package com.exalt.ecosystem.shared.caching;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coarse wall clock shared by all caches.
+ * <p>
+ * A daemon thread refreshes a volatile timestamp every millisecond, so
+ * reading the time on the cache hot path is a plain memory read instead
+ * of a call to {@link System#currentTimeMillis()}.
+ */
+public final class CacheClock {
+    
+    /** Refresh interval of the cached timestamp in milliseconds */
+    public static final long RESOLUTION_MILLIS = 1;
+    
+    private static volatile long now = System.currentTimeMillis();
+    
+    static {
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(
+            () -> now = System.currentTimeMillis(),
+            RESOLUTION_MILLIS, RESOLUTION_MILLIS, TimeUnit.MILLISECONDS
+        );
+    }
+    
+    private CacheClock() {
+    }
+    
+    /**
+     * Gets the current time, accurate to within {@link #RESOLUTION_MILLIS}.
+     *
+     * @return The current time in milliseconds since epoch
+     */
+    public static long currentTimeMillis() {
+        return now;
+    }
+}
@@ -1,5 +1,8 @@
 package com.exalt.ecosystem.shared.caching;
 
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+
 /**
  * Configuration class for cache instances.
  * Contains settings for cache behavior such as expiration, eviction policy, etc.
@@ -9,16 +12,38 @@ public class CacheConfig {
     // Common cache settings
     private int initialCapacity = 100;
     private int maxSize = 1000;
+    private long maxWeight = -1; // -1 means capacity is bounded by maxSize
+    private Weigher<?, ?> weigher;
     private boolean recordStats = false;
     private long defaultTtlSeconds = -1; // -1 means no default expiration
+    private long refreshAfterSeconds = -1; // -1 means entries are only reloaded once expired
+    private Executor refreshExecutor;
+    private long negativeTtlSeconds = 30;
+    private int negativeMaxSize = 1000; // 0 disables negative caching
     private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
     
+    // In-memory storage settings
+    private StorageMode storageMode = StorageMode.ON_HEAP;
+    private long offHeapCapacityBytes = 64L * 1024 * 1024;
+    private int offHeapSlabSizeBytes = 1024 * 1024;
+    private Path snapshotDirectory;
+    private long snapshotIntervalSeconds = -1; // -1 means snapshots are only written on close
+    private int eventBufferSize = 8192;
+    private CacheWriter<?, ?> cacheWriter;
+    private long writeBehindIntervalMillis = 1000;
+    private int writeBehindBatchSize = 100;
+    
     // Specific settings for different cache types
     private String connectionString;
     private int connectionTimeout = 2000;
     private String username;
     private String password;
     private boolean useSsl = false;
+    private CacheSerializer<?> keySerializer;
+    private CacheSerializer<?> valueSerializer;
+    
+    // Tiered cache settings
+    private long nearCacheTtlSeconds = -1; // -1 means the local tier follows the default TTL
     
     /**
      * Supported cache eviction policies.
@@ -34,6 +59,16 @@ public class CacheConfig {
         RANDOM
     }
     
+    /**
+     * Where in-memory caches keep their values.
+     */
+    public enum StorageMode {
+        /** Values are kept as objects on the Java heap */
+        ON_HEAP,
+        /** Values are serialized into direct memory outside the Java heap; keys stay on-heap */
+        OFF_HEAP
+    }
+    
     /**
      * Default constructor with default settings.
      */
@@ -51,6 +86,43 @@ public class CacheConfig {
         this.maxSize = maxSize;
     }
     
+    /**
+     * Creates a copy of a configuration. Hooks such as the writer and
+     * serializers are shared, not copied.
+     *
+     * @param other The configuration to copy
+     */
+    public CacheConfig(CacheConfig other) {
+        this.initialCapacity = other.initialCapacity;
+        this.maxSize = other.maxSize;
+        this.maxWeight = other.maxWeight;
+        this.weigher = other.weigher;
+        this.recordStats = other.recordStats;
+        this.defaultTtlSeconds = other.defaultTtlSeconds;
+        this.refreshAfterSeconds = other.refreshAfterSeconds;
+        this.refreshExecutor = other.refreshExecutor;
+        this.negativeTtlSeconds = other.negativeTtlSeconds;
+        this.negativeMaxSize = other.negativeMaxSize;
+        this.evictionPolicy = other.evictionPolicy;
+        this.storageMode = other.storageMode;
+        this.offHeapCapacityBytes = other.offHeapCapacityBytes;
+        this.offHeapSlabSizeBytes = other.offHeapSlabSizeBytes;
+        this.snapshotDirectory = other.snapshotDirectory;
+        this.snapshotIntervalSeconds = other.snapshotIntervalSeconds;
+        this.eventBufferSize = other.eventBufferSize;
+        this.cacheWriter = other.cacheWriter;
+        this.writeBehindIntervalMillis = other.writeBehindIntervalMillis;
+        this.writeBehindBatchSize = other.writeBehindBatchSize;
+        this.connectionString = other.connectionString;
+        this.connectionTimeout = other.connectionTimeout;
+        this.username = other.username;
+        this.password = other.password;
+        this.useSsl = other.useSsl;
+        this.keySerializer = other.keySerializer;
+        this.valueSerializer = other.valueSerializer;
+        this.nearCacheTtlSeconds = other.nearCacheTtlSeconds;
+    }
+    
     /**
      * Gets the initial capacity of the cache.
      *
@@ -91,6 +163,47 @@ public class CacheConfig {
         return this;
     }
     
+    /**
+     * Gets the maximum total weight of the cache.
+     *
+     * @return The maximum weight, or -1 if capacity is bounded by entry count
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+    
+    /**
+     * Sets the maximum total weight of the cache. When set, in-memory caches
+     * evict by the summed weight of their entries and ignore {@code maxSize}.
+     *
+     * @param maxWeight The maximum weight, or -1 to bound capacity by entry count
+     * @return This config instance for chaining
+     */
+    public CacheConfig setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+        return this;
+    }
+    
+    /**
+     * Gets the weigher used to compute entry weights.
+     *
+     * @return The weigher, or null to use {@link Weighers#estimating()}
+     */
+    public Weigher<?, ?> getWeigher() {
+        return weigher;
+    }
+    
+    /**
+     * Sets the weigher used to compute entry weights when {@code maxWeight} is set.
+     *
+     * @param weigher The weigher
+     * @return This config instance for chaining
+     */
+    public CacheConfig setWeigher(Weigher<?, ?> weigher) {
+        this.weigher = weigher;
+        return this;
+    }
+    
     /**
      * Checks if statistics recording is enabled.
      *
@@ -131,6 +244,98 @@ public class CacheConfig {
         return this;
     }
     
+    /**
+     * Gets the age after which a cached entry is reloaded in the background.
+     *
+     * @return The refresh age in seconds, or -1 if entries are not refreshed
+     */
+    public long getRefreshAfterSeconds() {
+        return refreshAfterSeconds;
+    }
+    
+    /**
+     * Sets the age after which a cached entry is reloaded in the background.
+     * When {@code getOrPut} or {@code getOrPutAsync} finds an entry older
+     * than this, it returns the entry right away and reloads it
+     * asynchronously through the same supplier or loader. Until the reload
+     * succeeds the current value keeps being served, up to its TTL. Should
+     * be shorter than the TTL; supported by in-memory caches.
+     *
+     * @param refreshAfterSeconds The refresh age in seconds, or -1 to disable refreshing
+     * @return This config instance for chaining
+     */
+    public CacheConfig setRefreshAfterSeconds(long refreshAfterSeconds) {
+        this.refreshAfterSeconds = refreshAfterSeconds;
+        return this;
+    }
+    
+    /**
+     * Gets the executor that runs background refreshes.
+     *
+     * @return The refresh executor, or null to use a shared bounded executor
+     */
+    public Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+    
+    /**
+     * Sets the executor that runs background refreshes. Refreshes rejected
+     * by the executor are skipped, so a bounded executor caps the reload
+     * load on the backing service.
+     *
+     * @param refreshExecutor The refresh executor, or null to use a shared bounded executor
+     * @return This config instance for chaining
+     */
+    public CacheConfig setRefreshExecutor(Executor refreshExecutor) {
+        this.refreshExecutor = refreshExecutor;
+        return this;
+    }
+    
+    /**
+     * Gets how long a key that a loader found absent is remembered.
+     *
+     * @return The negative TTL in seconds
+     */
+    public long getNegativeTtlSeconds() {
+        return negativeTtlSeconds;
+    }
+    
+    /**
+     * Sets how long a key that an {@code Optional} loader of
+     * {@code getOrPutOptional} found absent is remembered, so that lookups
+     * of the key skip the loader. Usually much shorter than the TTL of
+     * values, since a missing record may be created at any time.
+     *
+     * @param negativeTtlSeconds The negative TTL in seconds
+     * @return This config instance for chaining
+     */
+    public CacheConfig setNegativeTtlSeconds(long negativeTtlSeconds) {
+        this.negativeTtlSeconds = negativeTtlSeconds;
+        return this;
+    }
+    
+    /**
+     * Gets the maximum number of absent keys remembered.
+     *
+     * @return The negative capacity
+     */
+    public int getNegativeMaxSize() {
+        return negativeMaxSize;
+    }
+    
+    /**
+     * Sets the maximum number of absent keys remembered. Absent keys have
+     * their own budget, separate from {@code maxSize}, so a burst of
+     * lookups for missing keys never evicts cached values.
+     *
+     * @param negativeMaxSize The negative capacity, or 0 to disable negative caching
+     * @return This config instance for chaining
+     */
+    public CacheConfig setNegativeMaxSize(int negativeMaxSize) {
+        this.negativeMaxSize = negativeMaxSize;
+        return this;
+    }
+    
     /**
      * Gets the eviction policy.
      *
@@ -151,6 +356,201 @@ public class CacheConfig {
         return this;
     }
     
+    /**
+     * Gets where in-memory caches keep their values.
+     *
+     * @return The storage mode
+     */
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+    
+    /**
+     * Sets where in-memory caches keep their values. Off-heap values are
+     * serialized with the value serializer on every put and deserialized
+     * on every get, which trades CPU for a smaller, faster-to-collect heap.
+     *
+     * @param storageMode The storage mode
+     * @return This config instance for chaining
+     */
+    public CacheConfig setStorageMode(StorageMode storageMode) {
+        this.storageMode = storageMode;
+        return this;
+    }
+    
+    /**
+     * Gets the amount of direct memory an off-heap cache may reserve.
+     *
+     * @return The off-heap capacity in bytes
+     */
+    public long getOffHeapCapacityBytes() {
+        return offHeapCapacityBytes;
+    }
+    
+    /**
+     * Sets the amount of direct memory an off-heap cache may reserve. The
+     * cache evicts entries when its slabs are full, in addition to the
+     * {@code maxSize} or {@code maxWeight} bound. The JVM's
+     * {@code -XX:MaxDirectMemorySize} must leave room for it.
+     *
+     * @param offHeapCapacityBytes The off-heap capacity in bytes
+     * @return This config instance for chaining
+     */
+    public CacheConfig setOffHeapCapacityBytes(long offHeapCapacityBytes) {
+        this.offHeapCapacityBytes = offHeapCapacityBytes;
+        return this;
+    }
+    
+    /**
+     * Gets the size of the slabs off-heap memory is reserved in.
+     *
+     * @return The slab size in bytes
+     */
+    public int getOffHeapSlabSizeBytes() {
+        return offHeapSlabSizeBytes;
+    }
+    
+    /**
+     * Sets the size of the slabs off-heap memory is reserved in. This is
+     * also the largest serialized value an off-heap cache accepts.
+     *
+     * @param offHeapSlabSizeBytes The slab size in bytes
+     * @return This config instance for chaining
+     */
+    public CacheConfig setOffHeapSlabSizeBytes(int offHeapSlabSizeBytes) {
+        this.offHeapSlabSizeBytes = offHeapSlabSizeBytes;
+        return this;
+    }
+    
+    /**
+     * Gets the directory in-memory caches are snapshotted to.
+     *
+     * @return The snapshot directory, or null if snapshots are disabled
+     */
+    public Path getSnapshotDirectory() {
+        return snapshotDirectory;
+    }
+    
+    /**
+     * Sets the directory in-memory caches are snapshotted to. The
+     * {@code InMemoryCacheFactory} writes each cache to
+     * {@code <directory>/<cache name>.snapshot} when it is closed, and a
+     * newly created cache reloads the unexpired entries of its snapshot
+     * in the background. Keys and values are encoded with the key and
+     * value serializers, defaulting to Java serialization.
+     *
+     * @param snapshotDirectory The snapshot directory, or null to disable snapshots
+     * @return This config instance for chaining
+     */
+    public CacheConfig setSnapshotDirectory(Path snapshotDirectory) {
+        this.snapshotDirectory = snapshotDirectory;
+        return this;
+    }
+    
+    /**
+     * Gets the interval between periodic snapshots.
+     *
+     * @return The interval in seconds, or -1 if snapshots are only written on close
+     */
+    public long getSnapshotIntervalSeconds() {
+        return snapshotIntervalSeconds;
+    }
+    
+    /**
+     * Sets the interval between periodic snapshots, which limits what is
+     * lost when a process stops without closing its cache factory.
+     *
+     * @param snapshotIntervalSeconds The interval in seconds, or -1 to only snapshot on close
+     * @return This config instance for chaining
+     */
+    public CacheConfig setSnapshotIntervalSeconds(long snapshotIntervalSeconds) {
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        return this;
+    }
+    
+    /**
+     * Gets the number of undelivered listener events an in-memory cache buffers.
+     *
+     * @return The event buffer size
+     */
+    public int getEventBufferSize() {
+        return eventBufferSize;
+    }
+    
+    /**
+     * Sets the number of undelivered listener events an in-memory cache
+     * buffers. Events published while the buffer is full are dropped.
+     * Rounded up to a power of two.
+     *
+     * @param eventBufferSize The event buffer size
+     * @return This config instance for chaining
+     */
+    public CacheConfig setEventBufferSize(int eventBufferSize) {
+        this.eventBufferSize = eventBufferSize;
+        return this;
+    }
+    
+    /**
+     * Gets the writer that in-memory caches write behind to.
+     *
+     * @return The cache writer, or null if writes are not persisted
+     */
+    public CacheWriter<?, ?> getCacheWriter() {
+        return cacheWriter;
+    }
+    
+    /**
+     * Sets the writer that in-memory caches write behind to.
+     *
+     * @param cacheWriter The cache writer, or null to not persist writes
+     * @return This config instance for chaining
+     */
+    public CacheConfig setCacheWriter(CacheWriter<?, ?> cacheWriter) {
+        this.cacheWriter = cacheWriter;
+        return this;
+    }
+    
+    /**
+     * Gets the interval between write-behind flushes.
+     *
+     * @return The flush interval in milliseconds
+     */
+    public long getWriteBehindIntervalMillis() {
+        return writeBehindIntervalMillis;
+    }
+    
+    /**
+     * Sets the interval between write-behind flushes. Writes to the same
+     * key within an interval are coalesced into one.
+     *
+     * @param writeBehindIntervalMillis The flush interval in milliseconds
+     * @return This config instance for chaining
+     */
+    public CacheConfig setWriteBehindIntervalMillis(long writeBehindIntervalMillis) {
+        this.writeBehindIntervalMillis = writeBehindIntervalMillis;
+        return this;
+    }
+    
+    /**
+     * Gets the maximum number of keys passed to the writer in one call.
+     *
+     * @return The write-behind batch size
+     */
+    public int getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+    
+    /**
+     * Sets the maximum number of keys passed to the writer in one call.
+     *
+     * @param writeBehindBatchSize The write-behind batch size
+     * @return This config instance for chaining
+     */
+    public CacheConfig setWriteBehindBatchSize(int writeBehindBatchSize) {
+        this.writeBehindBatchSize = writeBehindBatchSize;
+        return this;
+    }
+    
     /**
      * Gets the connection string for remote caches.
      *
@@ -250,4 +650,67 @@ public class CacheConfig {
         this.useSsl = useSsl;
         return this;
     }
+    
+    /**
+     * Gets the serializer used to encode keys for remote caches and snapshots.
+     *
+     * @return The key serializer, or null to use the key's string form for
+     *         remote caches and Java serialization for snapshots
+     */
+    public CacheSerializer<?> getKeySerializer() {
+        return keySerializer;
+    }
+    
+    /**
+     * Sets the serializer used to encode keys for remote caches and snapshots.
+     *
+     * @param keySerializer The key serializer
+     * @return This config instance for chaining
+     */
+    public CacheConfig setKeySerializer(CacheSerializer<?> keySerializer) {
+        this.keySerializer = keySerializer;
+        return this;
+    }
+    
+    /**
+     * Gets the serializer used to encode values for remote and off-heap caches and snapshots.
+     *
+     * @return The value serializer, or null to use Java serialization
+     */
+    public CacheSerializer<?> getValueSerializer() {
+        return valueSerializer;
+    }
+    
+    /**
+     * Sets the serializer used to encode values for remote and off-heap caches and snapshots.
+     *
+     * @param valueSerializer The value serializer
+     * @return This config instance for chaining
+     */
+    public CacheConfig setValueSerializer(CacheSerializer<?> valueSerializer) {
+        this.valueSerializer = valueSerializer;
+        return this;
+    }
+    
+    /**
+     * Gets how long a tiered cache keeps an entry in its local tier.
+     *
+     * @return The local tier TTL in seconds, or -1 to follow the default TTL
+     */
+    public long getNearCacheTtlSeconds() {
+        return nearCacheTtlSeconds;
+    }
+    
+    /**
+     * Sets how long a tiered cache keeps an entry in its local tier.
+     * Bounds how long a local copy can stay stale if an invalidation
+     * message is lost.
+     *
+     * @param nearCacheTtlSeconds The local tier TTL in seconds, or -1 to follow the default TTL
+     * @return This config instance for chaining
+     */
+    public CacheConfig setNearCacheTtlSeconds(long nearCacheTtlSeconds) {
+        this.nearCacheTtlSeconds = nearCacheTtlSeconds;
+        return this;
+    }
 }
@@ -4,6 +4,7 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Represents a cache entry with value and metadata.
+ * Timestamps come from the coarse {@link CacheClock}.
  *
  * @param <T> Type of the cached value
  */
@@ -11,6 +12,7 @@ public class CacheEntry<T> {
     private final T value;
     private final long expirationTime;
     private final long creationTime;
+    private final int weight;
     
     /**
      * Creates a new cache entry with no expiration.
@@ -29,9 +31,22 @@ public class CacheEntry<T> {
      * @param timeUnit Time unit for the TTL
      */
     public CacheEntry(T value, long ttl, TimeUnit timeUnit) {
+        this(value, ttl, timeUnit, 1);
+    }
+    
+    /**
+     * Creates a new cache entry with specified expiration and weight.
+     *
+     * @param value    The value to cache
+     * @param ttl      Time to live duration, or -1 for no expiration
+     * @param timeUnit Time unit for the TTL
+     * @param weight   The weight of the entry for weight-bounded caches
+     */
+    public CacheEntry(T value, long ttl, TimeUnit timeUnit, int weight) {
         this.value = value;
-        this.creationTime = System.currentTimeMillis();
+        this.creationTime = CacheClock.currentTimeMillis();
         this.expirationTime = ttl < 0 ? -1 : this.creationTime + timeUnit.toMillis(ttl);
+        this.weight = weight;
     }
     
     /**
@@ -52,6 +67,15 @@ public class CacheEntry<T> {
         return expirationTime;
     }
     
+    /**
+     * Gets the weight of the entry.
+     *
+     * @return The weight, 1 unless a weigher assigned one
+     */
+    public int getWeight() {
+        return weight;
+    }
+    
     /**
      * Gets the creation time in milliseconds since epoch.
      *
@@ -67,6 +91,16 @@ public class CacheEntry<T> {
      * @return true if expired, false otherwise
      */
     public boolean isExpired() {
-        return expirationTime > 0 && System.currentTimeMillis() > expirationTime;
+        return isExpired(CacheClock.currentTimeMillis());
+    }
+    
+    /**
+     * Checks if this cache entry has expired at the given time.
+     *
+     * @param now The current time in milliseconds since epoch
+     * @return true if expired, false otherwise
+     */
+    public boolean isExpired(long now) {
+        return expirationTime > 0 && now > expirationTime;
     }
 }
@@ -0,0 +1,93 @@
+package com.exalt.ecosystem.shared.caching;
+
+/**
+ * A change to a cache entry, delivered to {@link CacheListener}s.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+public final class CacheEvent<K, V> {
+    
+    /**
+     * Kinds of entry changes.
+     */
+    public enum Type {
+        /** A value was stored for a key that had none */
+        CREATED,
+        /** A value replaced the previous value of a key */
+        UPDATED,
+        /** An entry was removed by the caller through remove, removeAll or clear */
+        REMOVED,
+        /** An entry was evicted because the cache was full */
+        EVICTED,
+        /** An entry was removed because its TTL elapsed */
+        EXPIRED
+    }
+    
+    private final String cacheName;
+    private final Type type;
+    private final K key;
+    private final V value;
+    
+    /**
+     * Creates a new cache event.
+     *
+     * @param cacheName The name of the cache
+     * @param type      The kind of change
+     * @param key       The key of the entry
+     * @param value     The new value for created and updated entries, the
+     *                  last value otherwise
+     */
+    public CacheEvent(String cacheName, Type type, K key, V value) {
+        this.cacheName = cacheName;
+        this.type = type;
+        this.key = key;
+        this.value = value;
+    }
+    
+    /**
+     * Gets the name of the cache the entry belongs to.
+     *
+     * @return The cache name
+     */
+    public String getCacheName() {
+        return cacheName;
+    }
+    
+    /**
+     * Gets the kind of change.
+     *
+     * @return The event type
+     */
+    public Type getType() {
+        return type;
+    }
+    
+    /**
+     * Gets the key of the entry.
+     *
+     * @return The cache key
+     */
+    public K getKey() {
+        return key;
+    }
+    
+    /**
+     * Gets the new value for created and updated entries, or the last value
+     * of removed, evicted and expired entries.
+     *
+     * @return The value, or null if it could not be read
+     */
+    public V getValue() {
+        return value;
+    }
+    
+    @Override
+    public String toString() {
+        return "CacheEvent{" +
+            "cacheName='" + cacheName + '\'' +
+            ", type=" + type +
+            ", key=" + key +
+            '}';
+    }
+}
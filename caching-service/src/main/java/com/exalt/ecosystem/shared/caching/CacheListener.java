@@ -0,0 +1,24 @@
+package com.exalt.ecosystem.shared.caching;
+
+/**
+ * Receives the changes made to the entries of a cache.
+ * <p>
+ * Events are delivered asynchronously on a dispatcher thread, in the
+ * order the changes were made, so a slow listener never delays cache
+ * operations. If listeners fall behind far enough to fill the event
+ * buffer, further events are dropped and counted instead of blocking
+ * the cache.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+@FunctionalInterface
+public interface CacheListener<K, V> {
+    
+    /**
+     * Handles a cache event. Exceptions are logged and do not stop delivery.
+     *
+     * @param event The event
+     */
+    void onEvent(CacheEvent<K, V> event);
+}
@@ -2,6 +2,10 @@ package com.exalt.ecosystem.shared.caching;
 
 import com.exalt.ecosystem.shared.caching.local.InMemoryCacheFactory;
 import com.exalt.ecosystem.shared.caching.redis.RedisCacheFactory;
+import com.exalt.ecosystem.shared.caching.redis.ShardedCacheFactory;
+import com.exalt.ecosystem.shared.caching.tiered.TieredCacheFactory;
+
+import java.util.List;
 
 /**
  * Main entry point for the cache library.
@@ -28,6 +32,28 @@ public class CacheManager {
         return new RedisCacheFactory();
     }
     
+    /**
+     * Creates a cache factory for caches sharded over several Redis
+     * servers with consistent hashing.
+     *
+     * @param nodeAddresses The Redis connection strings of the servers
+     * @return A sharded cache factory
+     */
+    public static ShardedCacheFactory forSharded(List<String> nodeAddresses) {
+        return new ShardedCacheFactory(nodeAddresses);
+    }
+    
+    /**
+     * Creates a cache factory for tiered caching: an in-memory near cache
+     * in front of Redis, kept consistent across nodes through pub/sub
+     * invalidation.
+     *
+     * @return A tiered cache factory
+     */
+    public static CacheFactory forTiered() {
+        return new TieredCacheFactory();
+    }
+    
     /**
      * Creates a cache factory for the specified cache type.
      *
@@ -40,6 +66,8 @@ public class CacheManager {
                 return forInMemory();
             case REDIS:
                 return forRedis();
+            case TIERED:
+                return forTiered();
             default:
                 throw new IllegalArgumentException("Unsupported cache type: " + cacheType);
         }
@@ -66,6 +94,7 @@ public class CacheManager {
      */
     public enum CacheType {
         IN_MEMORY,
-        REDIS
+        REDIS,
+        TIERED
     }
 }
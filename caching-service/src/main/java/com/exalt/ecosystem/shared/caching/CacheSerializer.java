@@ -0,0 +1,28 @@
+package com.exalt.ecosystem.shared.caching;
+
+/**
+ * Converts cache keys or values to and from bytes for caches that store
+ * data outside the Java heap, such as Redis.
+ *
+ * @param <T> Type of the serialized object
+ */
+public interface CacheSerializer<T> {
+    
+    /**
+     * Serializes an object.
+     *
+     * @param value The object to serialize
+     * @return The serialized bytes
+     * @throws CacheException if the object cannot be serialized
+     */
+    byte[] serialize(T value) throws CacheException;
+    
+    /**
+     * Deserializes an object.
+     *
+     * @param bytes The serialized bytes
+     * @return The deserialized object
+     * @throws CacheException if the bytes cannot be deserialized
+     */
+    T deserialize(byte[] bytes) throws CacheException;
+}
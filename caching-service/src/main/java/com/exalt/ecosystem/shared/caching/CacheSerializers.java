@@ -0,0 +1,96 @@
+package com.exalt.ecosystem.shared.caching;
+
+import com.exalt.ecosystem.shared.caching.CacheException.ErrorCode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Built-in {@link CacheSerializer} implementations.
+ */
+public final class CacheSerializers {
+    
+    private static final CacheSerializer<String> STRING = new CacheSerializer<>() {
+        @Override
+        public byte[] serialize(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+        
+        @Override
+        public String deserialize(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+    
+    private static final CacheSerializer<byte[]> BYTES = new CacheSerializer<>() {
+        @Override
+        public byte[] serialize(byte[] value) {
+            return value;
+        }
+        
+        @Override
+        public byte[] deserialize(byte[] bytes) {
+            return bytes;
+        }
+    };
+    
+    private static final CacheSerializer<Object> JAVA = new CacheSerializer<>() {
+        @Override
+        public byte[] serialize(Object value) throws CacheException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(value);
+            } catch (IOException e) {
+                throw new CacheException(ErrorCode.SERIALIZATION_ERROR,
+                    "Failed to serialize value of type " + value.getClass().getName(), e);
+            }
+            return bytes.toByteArray();
+        }
+        
+        @Override
+        public Object deserialize(byte[] bytes) throws CacheException {
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return in.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new CacheException(ErrorCode.SERIALIZATION_ERROR, "Failed to deserialize value", e);
+            }
+        }
+    };
+    
+    private CacheSerializers() {
+    }
+    
+    /**
+     * Gets a serializer that encodes strings as UTF-8.
+     *
+     * @return The string serializer
+     */
+    public static CacheSerializer<String> string() {
+        return STRING;
+    }
+    
+    /**
+     * Gets a serializer that passes byte arrays through unchanged.
+     *
+     * @return The byte array serializer
+     */
+    public static CacheSerializer<byte[]> bytes() {
+        return BYTES;
+    }
+    
+    /**
+     * Gets a serializer that uses Java object serialization.
+     * Values must implement {@link java.io.Serializable}.
+     *
+     * @param <T> Type of the serialized object
+     * @return The Java serialization serializer
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CacheSerializer<T> java() {
+        return (CacheSerializer<T>) JAVA;
+    }
+}
@@ -0,0 +1,279 @@
+package com.exalt.ecosystem.shared.caching;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of a cache's statistics.
+ * <p>
+ * Counters only grow, so the activity in an interval is the difference of
+ * two snapshots; see {@link #minus(CacheStats)}. Caches only record
+ * statistics when {@link CacheConfig#isRecordStats()} is enabled, and
+ * report {@link #empty()} otherwise.
+ */
+public final class CacheStats {
+    
+    private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, new long[RemovalCause.values().length]);
+    
+    private final long hitCount;
+    private final long missCount;
+    private final long negativeHitCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTimeNanos;
+    private final long[] removalCounts;
+    
+    /**
+     * Creates a new statistics snapshot.
+     *
+     * @param hitCount           Lookups that found a value
+     * @param missCount          Lookups that found no value
+     * @param loadSuccessCount   Loads that produced a value
+     * @param loadFailureCount   Loads that failed or produced no value
+     * @param totalLoadTimeNanos Time spent loading, in nanoseconds
+     * @param removalCounts      Removals indexed by {@link RemovalCause#ordinal()}
+     */
+    public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                      long totalLoadTimeNanos, long[] removalCounts) {
+        this(hitCount, missCount, 0, loadSuccessCount, loadFailureCount, totalLoadTimeNanos, removalCounts);
+    }
+    
+    /**
+     * Creates a new statistics snapshot.
+     *
+     * @param hitCount           Lookups that found a value
+     * @param missCount          Lookups that found no value
+     * @param negativeHitCount   Misses that found the key remembered as absent
+     * @param loadSuccessCount   Loads that produced a value
+     * @param loadFailureCount   Loads that failed or produced no value
+     * @param totalLoadTimeNanos Time spent loading, in nanoseconds
+     * @param removalCounts      Removals indexed by {@link RemovalCause#ordinal()}
+     */
+    public CacheStats(long hitCount, long missCount, long negativeHitCount, long loadSuccessCount,
+                      long loadFailureCount, long totalLoadTimeNanos, long[] removalCounts) {
+        if (removalCounts.length != RemovalCause.values().length) {
+            throw new IllegalArgumentException("Expected one removal count per RemovalCause");
+        }
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.negativeHitCount = negativeHitCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTimeNanos = totalLoadTimeNanos;
+        this.removalCounts = removalCounts.clone();
+    }
+    
+    /**
+     * Gets a snapshot with all counters at zero.
+     *
+     * @return The empty snapshot
+     */
+    public static CacheStats empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Gets the number of lookups that found a value.
+     *
+     * @return The hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+    
+    /**
+     * Gets the number of lookups that found no value.
+     *
+     * @return The miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+    
+    /**
+     * Gets the number of misses that found the key remembered as absent,
+     * and so were answered without calling the loader. Included in the
+     * miss count.
+     *
+     * @return The negative hit count
+     */
+    public long getNegativeHitCount() {
+        return negativeHitCount;
+    }
+    
+    /**
+     * Gets the total number of lookups.
+     *
+     * @return The number of hits plus misses
+     */
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+    
+    /**
+     * Gets the share of lookups that found a value.
+     *
+     * @return The hit rate, or 1.0 if there were no lookups
+     */
+    public double getHitRate() {
+        long requests = getRequestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+    
+    /**
+     * Gets the share of lookups that found no value.
+     *
+     * @return The miss rate, or 0.0 if there were no lookups
+     */
+    public double getMissRate() {
+        long requests = getRequestCount();
+        return requests == 0 ? 0.0 : (double) missCount / requests;
+    }
+    
+    /**
+     * Gets the number of loads that produced a value.
+     *
+     * @return The load success count
+     */
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+    
+    /**
+     * Gets the number of loads that failed or produced no value.
+     *
+     * @return The load failure count
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+    
+    /**
+     * Gets the total number of loads.
+     *
+     * @return The number of successful plus failed loads
+     */
+    public long getLoadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+    
+    /**
+     * Gets the time spent loading values, successful or not.
+     *
+     * @return The total load time in nanoseconds
+     */
+    public long getTotalLoadTimeNanos() {
+        return totalLoadTimeNanos;
+    }
+    
+    /**
+     * Gets the average time a load took.
+     *
+     * @return The average load time in nanoseconds, or 0.0 if there were no loads
+     */
+    public double getAverageLoadPenaltyNanos() {
+        long loads = getLoadCount();
+        return loads == 0 ? 0.0 : (double) totalLoadTimeNanos / loads;
+    }
+    
+    /**
+     * Gets the number of entries removed for a given cause.
+     *
+     * @param cause The removal cause
+     * @return The removal count
+     */
+    public long getRemovalCount(RemovalCause cause) {
+        return removalCounts[cause.ordinal()];
+    }
+    
+    /**
+     * Gets the number of entries evicted because the cache was full.
+     *
+     * @return The size-based eviction count
+     */
+    public long getEvictionCount() {
+        return getRemovalCount(RemovalCause.SIZE);
+    }
+    
+    /**
+     * Gets the number of entries removed because their TTL elapsed.
+     *
+     * @return The expiration count
+     */
+    public long getExpirationCount() {
+        return getRemovalCount(RemovalCause.EXPIRED);
+    }
+    
+    /**
+     * Computes the activity between an earlier snapshot and this one.
+     *
+     * @param other The earlier snapshot
+     * @return A snapshot holding the differences, floored at zero
+     */
+    public CacheStats minus(CacheStats other) {
+        long[] removals = new long[removalCounts.length];
+        for (int i = 0; i < removals.length; i++) {
+            removals[i] = Math.max(0, removalCounts[i] - other.removalCounts[i]);
+        }
+        
+        return new CacheStats(
+            Math.max(0, hitCount - other.hitCount),
+            Math.max(0, missCount - other.missCount),
+            Math.max(0, negativeHitCount - other.negativeHitCount),
+            Math.max(0, loadSuccessCount - other.loadSuccessCount),
+            Math.max(0, loadFailureCount - other.loadFailureCount),
+            Math.max(0, totalLoadTimeNanos - other.totalLoadTimeNanos),
+            removals
+        );
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder removals = new StringBuilder();
+        for (RemovalCause cause : RemovalCause.values()) {
+            if (removals.length() > 0) {
+                removals.append(", ");
+            }
+            removals.append(cause).append('=').append(getRemovalCount(cause));
+        }
+        
+        return "CacheStats{" +
+            "hitCount=" + hitCount +
+            ", missCount=" + missCount +
+            ", negativeHitCount=" + negativeHitCount +
+            ", loadSuccessCount=" + loadSuccessCount +
+            ", loadFailureCount=" + loadFailureCount +
+            ", totalLoadTimeNanos=" + totalLoadTimeNanos +
+            ", removals={" + removals + '}' +
+            '}';
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheStats)) {
+            return false;
+        }
+        CacheStats other = (CacheStats) o;
+        return hitCount == other.hitCount
+            && missCount == other.missCount
+            && negativeHitCount == other.negativeHitCount
+            && loadSuccessCount == other.loadSuccessCount
+            && loadFailureCount == other.loadFailureCount
+            && totalLoadTimeNanos == other.totalLoadTimeNanos
+            && Arrays.equals(removalCounts, other.removalCounts);
+    }
+    
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(hitCount);
+        result = 31 * result + Long.hashCode(missCount);
+        result = 31 * result + Long.hashCode(negativeHitCount);
+        result = 31 * result + Long.hashCode(loadSuccessCount);
+        result = 31 * result + Long.hashCode(loadFailureCount);
+        result = 31 * result + Long.hashCode(totalLoadTimeNanos);
+        result = 31 * result + Arrays.hashCode(removalCounts);
+        return result;
+    }
+}
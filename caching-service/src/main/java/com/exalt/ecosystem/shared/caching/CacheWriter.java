@@ -0,0 +1,36 @@
+package com.exalt.ecosystem.shared.caching;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Persists cache writes to a backing store, such as a database.
+ * <p>
+ * Caches call the writer behind the caller's back: explicit puts and
+ * removes are queued, repeated writes to the same key are coalesced into
+ * the latest one, and the queue is flushed in batches on a schedule and
+ * when the cache is closed. Values loaded through {@code getOrPut} and
+ * the loader variant of {@code getAll}, evictions, expirations and
+ * {@code clear} are not written.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+public interface CacheWriter<K, V> {
+    
+    /**
+     * Writes a batch of entries.
+     *
+     * @param entries The latest values by key
+     * @throws CacheException if the batch could not be written; it is retried on the next flush
+     */
+    void writeAll(Map<K, V> entries) throws CacheException;
+    
+    /**
+     * Deletes a batch of keys.
+     *
+     * @param keys The removed keys
+     * @throws CacheException if the batch could not be deleted; it is retried on the next flush
+     */
+    void deleteAll(Collection<K> keys) throws CacheException;
+}
@@ -0,0 +1,130 @@
+package com.exalt.ecosystem.shared.caching;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers keys that a loader found absent, for a short TTL and up to a
+ * fixed number of keys.
+ * <p>
+ * Kept apart from the cached values, so absent keys have their own TTL
+ * and capacity and never evict values. When full, the oldest remembered
+ * keys are forgotten first. Lookups and additions are lock-free.
+ *
+ * @param <K> Type of the cache key
+ */
+final class NegativeCache<K> {
+    
+    private final long ttlMillis;
+    private final int maxSize;
+    private final Map<K, Absence> absences = new ConcurrentHashMap<>();
+    private final Queue<Map.Entry<K, Absence>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    
+    /**
+     * Creates a negative cache from the negative TTL and capacity of a configuration.
+     *
+     * @param config The cache configuration
+     */
+    NegativeCache(CacheConfig config) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(config.getNegativeTtlSeconds());
+        this.maxSize = config.getNegativeMaxSize();
+    }
+    
+    /**
+     * Checks whether a key is remembered as absent.
+     *
+     * @param key The cache key
+     * @return true if the key was found absent less than the negative TTL ago
+     */
+    boolean contains(K key) {
+        if (maxSize <= 0) {
+            return false;
+        }
+        
+        Absence absence = absences.get(key);
+        if (absence == null) {
+            return false;
+        }
+        if (absence.expirationTime <= CacheClock.currentTimeMillis()) {
+            absences.remove(key, absence);
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Remembers a key as absent, forgetting the oldest keys if over capacity.
+     *
+     * @param key The cache key
+     */
+    void add(K key) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            return;
+        }
+        
+        Absence absence = new Absence(CacheClock.currentTimeMillis() + ttlMillis);
+        absences.put(key, absence);
+        insertionOrder.offer(new AbstractMap.SimpleImmutableEntry<>(key, absence));
+        queued.incrementAndGet();
+        
+        // The queue also holds keys forgotten since; trim it so it stays proportional to the capacity
+        while (absences.size() > maxSize || queued.get() > 2 * maxSize) {
+            Map.Entry<K, Absence> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            queued.decrementAndGet();
+            absences.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+    
+    /**
+     * Forgets a key, for example because it was removed to invalidate it.
+     *
+     * @param key The cache key
+     */
+    void remove(K key) {
+        if (key != null) {
+            absences.remove(key);
+        }
+    }
+    
+    /**
+     * Forgets several keys.
+     *
+     * @param keys The cache keys
+     */
+    void removeAll(Collection<K> keys) {
+        if (keys != null && !absences.isEmpty()) {
+            for (K key : keys) {
+                remove(key);
+            }
+        }
+    }
+    
+    /**
+     * Forgets all keys.
+     */
+    void clear() {
+        absences.clear();
+    }
+    
+    /**
+     * Expiration time of a remembered key. Compared by identity, so that
+     * trimming the queue only forgets the entry it queued.
+     */
+    private static final class Absence {
+        final long expirationTime;
+        
+        Absence(long expirationTime) {
+            this.expirationTime = expirationTime;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.exalt.ecosystem.shared.caching;
+
+/**
+ * The reason an entry was removed from a cache.
+ */
+public enum RemovalCause {
+    /** Removed by the caller through remove, removeAll or clear */
+    EXPLICIT(false),
+    /** Overwritten by a put for the same key */
+    REPLACED(false),
+    /** Evicted by the eviction policy because the cache was full */
+    SIZE(true),
+    /** Removed because its TTL elapsed */
+    EXPIRED(true);
+    
+    private final boolean eviction;
+    
+    RemovalCause(boolean eviction) {
+        this.eviction = eviction;
+    }
+    
+    /**
+     * Checks if the removal was decided by the cache rather than the caller.
+     *
+     * @return true for size-based eviction and expiration, false otherwise
+     */
+    public boolean isEviction() {
+        return eviction;
+    }
+}
@@ -0,0 +1,310 @@
+package com.exalt.ecosystem.shared.caching;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the statistics of a cache.
+ * <p>
+ * The recording counter is built from {@link LongAdder}s, which stripe
+ * updates across cells under contention, so recording never becomes a
+ * point of contention on the read path. When statistics are disabled,
+ * {@link #disabled()} ignores every update. Single counters can be read
+ * without taking a {@link #snapshot()} of all of them.
+ */
+public interface StatsCounter {
+    
+    /**
+     * Records lookups that found a value.
+     *
+     * @param count The number of hits
+     */
+    void recordHits(int count);
+    
+    /**
+     * Records lookups that found no value.
+     *
+     * @param count The number of misses
+     */
+    void recordMisses(int count);
+    
+    /**
+     * Records lookups that found a key remembered as absent and so skipped
+     * the loader. These lookups are recorded as misses as well.
+     *
+     * @param count The number of negative hits
+     */
+    void recordNegativeHits(int count);
+    
+    /**
+     * Records a load that produced a value.
+     *
+     * @param loadTimeNanos The time the load took, in nanoseconds
+     */
+    void recordLoadSuccess(long loadTimeNanos);
+    
+    /**
+     * Records a load that failed or produced no value.
+     *
+     * @param loadTimeNanos The time the load took, in nanoseconds
+     */
+    void recordLoadFailure(long loadTimeNanos);
+    
+    /**
+     * Records removed entries.
+     *
+     * @param cause The removal cause
+     * @param count The number of removed entries
+     */
+    void recordRemovals(RemovalCause cause, int count);
+    
+    /**
+     * Gets the number of lookups that found a value.
+     *
+     * @return The hit count
+     */
+    long getHitCount();
+    
+    /**
+     * Gets the number of lookups that found no value.
+     *
+     * @return The miss count
+     */
+    long getMissCount();
+    
+    /**
+     * Gets the number of misses answered from the remembered absent keys.
+     *
+     * @return The negative hit count
+     */
+    long getNegativeHitCount();
+    
+    /**
+     * Gets the number of loads that produced a value.
+     *
+     * @return The load success count
+     */
+    long getLoadSuccessCount();
+    
+    /**
+     * Gets the number of loads that failed or produced no value.
+     *
+     * @return The load failure count
+     */
+    long getLoadFailureCount();
+    
+    /**
+     * Gets the time spent in all loads.
+     *
+     * @return The total load time in nanoseconds
+     */
+    long getTotalLoadTimeNanos();
+    
+    /**
+     * Gets the number of entries removed for a cause.
+     *
+     * @param cause The removal cause
+     * @return The removal count
+     */
+    long getRemovalCount(RemovalCause cause);
+    
+    /**
+     * Takes a snapshot of the counters.
+     *
+     * @return The current statistics
+     */
+    CacheStats snapshot();
+    
+    /**
+     * Creates the counter matching a configuration's {@code recordStats} flag.
+     *
+     * @param config The cache configuration
+     * @return A recording counter, or the disabled counter
+     */
+    static StatsCounter forConfig(CacheConfig config) {
+        return config.isRecordStats() ? new ConcurrentStatsCounter() : disabled();
+    }
+    
+    /**
+     * Gets a counter that ignores all updates.
+     *
+     * @return The disabled counter
+     */
+    static StatsCounter disabled() {
+        return DisabledStatsCounter.INSTANCE;
+    }
+    
+    /**
+     * Counter backed by striped {@link LongAdder}s.
+     */
+    final class ConcurrentStatsCounter implements StatsCounter {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder negativeHits = new LongAdder();
+        private final LongAdder loadSuccesses = new LongAdder();
+        private final LongAdder loadFailures = new LongAdder();
+        private final LongAdder totalLoadTime = new LongAdder();
+        private final LongAdder[] removals = new LongAdder[RemovalCause.values().length];
+        
+        ConcurrentStatsCounter() {
+            for (int i = 0; i < removals.length; i++) {
+                removals[i] = new LongAdder();
+            }
+        }
+        
+        @Override
+        public void recordHits(int count) {
+            hits.add(count);
+        }
+        
+        @Override
+        public void recordMisses(int count) {
+            misses.add(count);
+        }
+        
+        @Override
+        public void recordNegativeHits(int count) {
+            negativeHits.add(count);
+        }
+        
+        @Override
+        public void recordLoadSuccess(long loadTimeNanos) {
+            loadSuccesses.increment();
+            totalLoadTime.add(loadTimeNanos);
+        }
+        
+        @Override
+        public void recordLoadFailure(long loadTimeNanos) {
+            loadFailures.increment();
+            totalLoadTime.add(loadTimeNanos);
+        }
+        
+        @Override
+        public void recordRemovals(RemovalCause cause, int count) {
+            removals[cause.ordinal()].add(count);
+        }
+        
+        @Override
+        public long getHitCount() {
+            return hits.sum();
+        }
+        
+        @Override
+        public long getMissCount() {
+            return misses.sum();
+        }
+        
+        @Override
+        public long getNegativeHitCount() {
+            return negativeHits.sum();
+        }
+        
+        @Override
+        public long getLoadSuccessCount() {
+            return loadSuccesses.sum();
+        }
+        
+        @Override
+        public long getLoadFailureCount() {
+            return loadFailures.sum();
+        }
+        
+        @Override
+        public long getTotalLoadTimeNanos() {
+            return totalLoadTime.sum();
+        }
+        
+        @Override
+        public long getRemovalCount(RemovalCause cause) {
+            return removals[cause.ordinal()].sum();
+        }
+        
+        @Override
+        public CacheStats snapshot() {
+            long[] removalCounts = new long[removals.length];
+            for (int i = 0; i < removals.length; i++) {
+                removalCounts[i] = removals[i].sum();
+            }
+            
+            return new CacheStats(
+                hits.sum(),
+                misses.sum(),
+                negativeHits.sum(),
+                loadSuccesses.sum(),
+                loadFailures.sum(),
+                totalLoadTime.sum(),
+                removalCounts
+            );
+        }
+    }
+    
+    /**
+     * Counter used when statistics are disabled.
+     */
+    enum DisabledStatsCounter implements StatsCounter {
+        INSTANCE;
+        
+        @Override
+        public void recordHits(int count) {
+        }
+        
+        @Override
+        public void recordMisses(int count) {
+        }
+        
+        @Override
+        public void recordNegativeHits(int count) {
+        }
+        
+        @Override
+        public void recordLoadSuccess(long loadTimeNanos) {
+        }
+        
+        @Override
+        public void recordLoadFailure(long loadTimeNanos) {
+        }
+        
+        @Override
+        public void recordRemovals(RemovalCause cause, int count) {
+        }
+        
+        @Override
+        public long getHitCount() {
+            return 0;
+        }
+        
+        @Override
+        public long getMissCount() {
+            return 0;
+        }
+        
+        @Override
+        public long getNegativeHitCount() {
+            return 0;
+        }
+        
+        @Override
+        public long getLoadSuccessCount() {
+            return 0;
+        }
+        
+        @Override
+        public long getLoadFailureCount() {
+            return 0;
+        }
+        
+        @Override
+        public long getTotalLoadTimeNanos() {
+            return 0;
+        }
+        
+        @Override
+        public long getRemovalCount(RemovalCause cause) {
+            return 0;
+        }
+        
+        @Override
+        public CacheStats snapshot() {
+            return CacheStats.empty();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.exalt.ecosystem.shared.caching;
+
+/**
+ * Computes the weight of a cache entry for caches bounded by
+ * {@link CacheConfig#getMaxWeight()}. Weights are in whatever unit the
+ * maximum weight uses, typically bytes.
+ * <p>
+ * The weight is computed once when the entry is stored and must not be
+ * negative. It should be cheap to compute because it runs on every put.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+    
+    /**
+     * Computes the weight of an entry.
+     *
+     * @param key   The cache key
+     * @param value The cached value
+     * @return The weight, zero or more
+     */
+    int weigh(K key, V value);
+}
@@ -0,0 +1,175 @@
+package com.exalt.ecosystem.shared.caching;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BigIntegerNode;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Built-in {@link Weigher} implementations.
+ */
+public final class Weighers {
+    
+    /** Heap held per entry by the cache itself: map node, CacheEntry and bookkeeping */
+    static final int ENTRY_OVERHEAD_BYTES = 96;
+    
+    /** Estimate used for values of types the estimator does not know */
+    static final int UNKNOWN_OBJECT_BYTES = 64;
+    
+    private static final int OBJECT_HEADER_BYTES = 16;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int STRING_BYTES = 24;
+    private static final int MAP_ENTRY_BYTES = 40;
+    private static final int MAP_BYTES = 64;
+    private static final int LIST_BYTES = 24;
+    
+    private static final Weigher<Object, Object> SINGLETON = (key, value) -> 1;
+    
+    private static final Weigher<Object, Object> ESTIMATING = (key, value) -> {
+        long bytes = ENTRY_OVERHEAD_BYTES + estimateBytes(key) + estimateBytes(value);
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    };
+    
+    private Weighers() {
+    }
+    
+    /**
+     * Gets a weigher that gives every entry a weight of one, so the maximum
+     * weight acts as an entry count.
+     *
+     * @param <K> Type of the cache key
+     * @param <V> Type of the cached value
+     * @return The singleton weigher
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Weigher<K, V> singleton() {
+        return (Weigher<K, V>) SINGLETON;
+    }
+    
+    /**
+     * Gets a weigher that estimates the retained heap of an entry in bytes.
+     * <p>
+     * Strings, byte arrays, Jackson {@link JsonNode} trees, boxed primitives
+     * and collections or maps of those are measured by walking them;
+     * other objects count as {@value #UNKNOWN_OBJECT_BYTES} bytes. The
+     * estimate assumes a 64-bit JVM with compressed references and is meant
+     * for budgeting, not exact accounting.
+     *
+     * @param <K> Type of the cache key
+     * @param <V> Type of the cached value
+     * @return The estimating weigher
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Weigher<K, V> estimating() {
+        return (Weigher<K, V>) ESTIMATING;
+    }
+    
+    /**
+     * Estimates the retained heap of an object in bytes.
+     *
+     * @param object The object, may be null
+     * @return The estimated size in bytes
+     */
+    static long estimateBytes(Object object) {
+        if (object == null) {
+            return 0;
+        }
+        if (object instanceof String) {
+            return stringBytes((String) object);
+        }
+        if (object instanceof byte[]) {
+            return align(ARRAY_HEADER_BYTES + ((byte[]) object).length);
+        }
+        if (object instanceof char[]) {
+            return align(ARRAY_HEADER_BYTES + 2L * ((char[]) object).length);
+        }
+        if (object instanceof JsonNode) {
+            return jsonBytes((JsonNode) object);
+        }
+        if (object instanceof Long || object instanceof Double) {
+            return 24;
+        }
+        if (object instanceof Number || object instanceof Boolean || object instanceof Character) {
+            return 16;
+        }
+        if (object instanceof Iterable) {
+            long bytes = LIST_BYTES + ARRAY_HEADER_BYTES;
+            for (Object element : (Iterable<?>) object) {
+                bytes += REFERENCE_BYTES + estimateBytes(element);
+            }
+            return align(bytes);
+        }
+        if (object instanceof Map) {
+            long bytes = MAP_BYTES;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+                bytes += MAP_ENTRY_BYTES + estimateBytes(entry.getKey()) + estimateBytes(entry.getValue());
+            }
+            return bytes;
+        }
+        return UNKNOWN_OBJECT_BYTES;
+    }
+    
+    /**
+     * Estimates a string, which stores one byte per character when all
+     * characters are Latin-1 and two otherwise.
+     */
+    private static long stringBytes(String value) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return STRING_BYTES + align(ARRAY_HEADER_BYTES + (long) bytesPerChar * value.length());
+    }
+    
+    private static long jsonBytes(JsonNode node) {
+        if (node instanceof ObjectNode) {
+            long bytes = OBJECT_HEADER_BYTES + MAP_BYTES;
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                bytes += MAP_ENTRY_BYTES + stringBytes(field.getKey()) + jsonBytes(field.getValue());
+            }
+            return bytes;
+        }
+        if (node instanceof ArrayNode) {
+            long bytes = OBJECT_HEADER_BYTES + LIST_BYTES + align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * node.size());
+            for (JsonNode element : node) {
+                bytes += jsonBytes(element);
+            }
+            return bytes;
+        }
+        if (node instanceof TextNode) {
+            return OBJECT_HEADER_BYTES + stringBytes(node.textValue());
+        }
+        if (node instanceof BinaryNode) {
+            return OBJECT_HEADER_BYTES + align(ARRAY_HEADER_BYTES + ((BinaryNode) node).binaryValue().length);
+        }
+        if (node instanceof LongNode || node instanceof DoubleNode) {
+            return 24;
+        }
+        if (node instanceof BigIntegerNode || node instanceof DecimalNode) {
+            return OBJECT_HEADER_BYTES + 48;
+        }
+        if (node.isNumber()) {
+            return 16;
+        }
+        // Booleans, nulls and missing nodes are shared singletons
+        return node.isBoolean() || node.isNull() || node.isMissingNode() ? 0 : UNKNOWN_OBJECT_BYTES;
+    }
+    
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
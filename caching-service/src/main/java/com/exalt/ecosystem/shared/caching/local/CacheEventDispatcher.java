@@ -0,0 +1,146 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import com.exalt.ecosystem.shared.caching.CacheEvent;
+import com.exalt.ecosystem.shared.caching.CacheListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers cache events to listeners on a dedicated daemon thread.
+ * <p>
+ * Events pass through a bounded single-producer, single-consumer ring
+ * buffer. The owning cache publishes while holding its eviction lock, so
+ * there is only ever one producer, and publishing is a couple of ordered
+ * writes that never wait: when the buffer is full the event is dropped
+ * and counted. The consumer parks while the buffer is empty.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+final class CacheEventDispatcher<K, V> {
+    
+    /** Longest the consumer parks before re-checking the buffer */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private final String cacheName;
+    private final List<CacheListener<K, V>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicReferenceArray<CacheEvent<K, V>> buffer;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread consumer;
+    private volatile boolean parked;
+    private volatile boolean running = true;
+    
+    /**
+     * Creates a dispatcher and starts its thread.
+     *
+     * @param cacheName  The name of the cache, for event and thread names
+     * @param bufferSize The event buffer size, rounded up to a power of two
+     */
+    CacheEventDispatcher(String cacheName, int bufferSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize) - 1) << 1;
+        this.cacheName = cacheName;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.consumer = new Thread(this::drain, "cache-events-" + cacheName);
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+    
+    void addListener(CacheListener<K, V> listener) {
+        listeners.add(listener);
+    }
+    
+    boolean removeListener(CacheListener<K, V> listener) {
+        return listeners.remove(listener);
+    }
+    
+    boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+    
+    /**
+     * Gets the number of events dropped because the buffer was full.
+     *
+     * @return The dropped event count
+     */
+    long droppedCount() {
+        return dropped.sum();
+    }
+    
+    /**
+     * Queues an event for delivery. Must only be called by one thread at a time.
+     *
+     * @param type  The kind of change
+     * @param key   The key of the entry
+     * @param value The value carried by the event
+     */
+    void publish(CacheEvent.Type type, K key, V value) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            dropped.increment();
+            return;
+        }
+        
+        buffer.lazySet((int) t & mask, new CacheEvent<>(cacheName, type, key, value));
+        // A full volatile write, so the check of parked below cannot pass it
+        tail.set(t + 1);
+        
+        if (parked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+    
+    /**
+     * Delivers the events already buffered and stops the dispatcher thread.
+     */
+    void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void drain() {
+        while (true) {
+            long h = head.get();
+            if (h == tail.get()) {
+                if (!running) {
+                    return;
+                }
+                parked = true;
+                // Re-check after announcing the park so a concurrent publish is not missed
+                if (h == tail.get() && running) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                }
+                parked = false;
+                continue;
+            }
+            
+            int index = (int) h & mask;
+            CacheEvent<K, V> event = buffer.get(index);
+            buffer.lazySet(index, null);
+            head.lazySet(h + 1);
+            
+            for (CacheListener<K, V> listener : listeners) {
+                try {
+                    listener.onEvent(event);
+                } catch (RuntimeException e) {
+                    // Log the error but keep delivering to other listeners
+                    System.err.println("Error in listener of cache '" + cacheName + "': " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import com.exalt.ecosystem.shared.caching.CacheClock;
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheException.ErrorCode;
+import com.exalt.ecosystem.shared.caching.CacheSerializer;
+import com.exalt.ecosystem.shared.caching.CacheSerializers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Writes an {@link InMemoryCache} to a binary snapshot file and restores
+ * it from one.
+ * <p>
+ * The file starts with a magic number, a format version and the time it
+ * was written, followed by one record per entry: the expiration time,
+ * then the length-prefixed serialized key and value. It ends with the
+ * entry count and a CRC32 of everything before the checksum. Snapshots
+ * are written sequentially to a temporary file that atomically replaces
+ * the previous snapshot, so a crash mid-write leaves the old one intact.
+ * <p>
+ * Restoring maps the file into memory in windows and reads it
+ * sequentially. The checksum and header are verified before any entry is
+ * applied, so a truncated, corrupt or unknown-version file is rejected
+ * as a whole. Expired entries are skipped, and restored entries never
+ * replace keys cached since startup or evict live entries. Keys written
+ * or removed while the restore runs are remembered by the cache from the
+ * moment the snapshot is created and are skipped as well.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+final class CacheSnapshot<K, V> {
+    
+    static final int MAGIC = 0x49435348; // "ICSH"
+    static final short VERSION = 1;
+    
+    private static final int HEADER_BYTES = Integer.BYTES + Short.BYTES + Long.BYTES;
+    private static final int TRAILER_BYTES = Long.BYTES + Long.BYTES;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    private static final long MAP_WINDOW_BYTES = 64L << 20;
+    
+    private final Path file;
+    private final InMemoryCache<K, V> cache;
+    private final CacheSerializer<K> keySerializer;
+    private final CacheSerializer<V> valueSerializer;
+    private volatile boolean restored;
+    private volatile boolean stopped;
+    
+    /**
+     * Creates the snapshot of a cache. The cache remembers the keys written
+     * or removed from now on until {@link #restore()} has run.
+     *
+     * @param file   The snapshot file
+     * @param cache  The cache to snapshot
+     * @param config The cache configuration supplying the serializers
+     */
+    @SuppressWarnings("unchecked")
+    CacheSnapshot(Path file, InMemoryCache<K, V> cache, CacheConfig config) {
+        this.file = file;
+        this.cache = cache;
+        this.keySerializer = config.getKeySerializer() != null
+            ? (CacheSerializer<K>) config.getKeySerializer()
+            : CacheSerializers.java();
+        this.valueSerializer = config.getValueSerializer() != null
+            ? (CacheSerializer<V>) config.getValueSerializer()
+            : CacheSerializers.java();
+        cache.beginRestore();
+    }
+    
+    /**
+     * Gets the path of the snapshot file of a cache.
+     *
+     * @param directory The snapshot directory
+     * @param cacheName The name of the cache
+     * @return The snapshot file
+     */
+    static Path fileFor(Path directory, String cacheName) {
+        return directory.resolve(cacheName.replaceAll("[^A-Za-z0-9._-]", "_") + ".snapshot");
+    }
+    
+    /**
+     * Checks whether restoring has finished, successfully or not. A cache
+     * whose restore was stopped early is not written back, so that its
+     * previous snapshot is kept.
+     *
+     * @return true if the snapshot may be overwritten
+     */
+    boolean isRestored() {
+        return restored;
+    }
+    
+    /**
+     * Stops a restore in progress after the entry being applied.
+     */
+    void stop() {
+        stopped = true;
+    }
+    
+    /**
+     * Loads the unexpired entries of the snapshot file into the cache.
+     * Does nothing if there is no snapshot yet.
+     *
+     * @return The number of restored entries
+     * @throws IOException    if the file cannot be read
+     * @throws CacheException if the file is corrupt or an entry cannot be deserialized
+     */
+    long restore() throws IOException, CacheException {
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) {
+                throw corrupt("is truncated");
+            }
+            
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+            channel.read(trailer, size - TRAILER_BYTES);
+            trailer.flip();
+            long entryCount = trailer.getLong();
+            long checksum = trailer.getLong();
+            if (checksum(channel, size - Long.BYTES) != checksum) {
+                throw corrupt("has a checksum mismatch");
+            }
+            
+            MappedInput in = new MappedInput(channel, size - TRAILER_BYTES);
+            if (in.readInt() != MAGIC) {
+                throw corrupt("is not a cache snapshot");
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw corrupt("has unsupported format version " + version);
+            }
+            in.readLong(); // written at
+            
+            long now = CacheClock.currentTimeMillis();
+            for (long i = 0; i < entryCount && !stopped; i++) {
+                long expirationTime = in.readLong();
+                byte[] key = in.readBytes();
+                byte[] value = in.readBytes();
+                if (expirationTime > 0 && expirationTime <= now) {
+                    continue;
+                }
+                if (!cache.restore(keySerializer.deserialize(key), valueSerializer.deserialize(value), expirationTime)) {
+                    break; // The cache is full
+                }
+                count++;
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing to restore
+        } finally {
+            cache.endRestore();
+            restored = !stopped;
+        }
+        return count;
+    }
+    
+    /**
+     * Writes the live entries of the cache to the snapshot file.
+     *
+     * @return The number of written entries
+     * @throws IOException    if the file cannot be written
+     * @throws CacheException if an entry cannot be serialized
+     */
+    synchronized long write() throws IOException, CacheException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        
+        long count;
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.putShort(VERSION);
+            out.putLong(CacheClock.currentTimeMillis());
+            
+            long[] written = {0};
+            cache.forEachEntry((key, value, expirationTime) -> {
+                out.putLong(expirationTime);
+                out.putBytes(keySerializer.serialize(key));
+                out.putBytes(valueSerializer.serialize(value));
+                written[0]++;
+            });
+            count = written[0];
+            
+            out.putLong(count);
+            out.finish();
+            channel.force(false);
+        }
+        
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+    
+    private CacheException corrupt(String problem) {
+        return new CacheException(ErrorCode.SERIALIZATION_ERROR, "Snapshot " + file + " " + problem);
+    }
+    
+    /**
+     * Computes the CRC32 of the first {@code length} bytes of a file.
+     */
+    private static long checksum(FileChannel channel, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        for (long position = 0; position < length; position += MAP_WINDOW_BYTES) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW_BYTES, length - position)));
+        }
+        return crc.getValue();
+    }
+    
+    /**
+     * Sequential reader over a file mapped in fixed-size windows.
+     */
+    private static final class MappedInput {
+        private final FileChannel channel;
+        private final long end;
+        private final byte[] scratch = new byte[Long.BYTES];
+        private MappedByteBuffer window;
+        private long windowEnd;
+        
+        MappedInput(FileChannel channel, long end) {
+            this.channel = channel;
+            this.end = end;
+        }
+        
+        int readInt() throws IOException, CacheException {
+            readFully(scratch, Integer.BYTES);
+            return ByteBuffer.wrap(scratch).getInt();
+        }
+        
+        short readShort() throws IOException, CacheException {
+            readFully(scratch, Short.BYTES);
+            return ByteBuffer.wrap(scratch).getShort();
+        }
+        
+        long readLong() throws IOException, CacheException {
+            readFully(scratch, Long.BYTES);
+            return ByteBuffer.wrap(scratch).getLong();
+        }
+        
+        byte[] readBytes() throws IOException, CacheException {
+            int length = readInt();
+            if (length < 0 || length > end) {
+                throw new CacheException(ErrorCode.SERIALIZATION_ERROR, "Snapshot record has invalid length " + length);
+            }
+            byte[] bytes = new byte[length];
+            readFully(bytes, length);
+            return bytes;
+        }
+        
+        private void readFully(byte[] target, int length) throws IOException, CacheException {
+            int offset = 0;
+            while (offset < length) {
+                if (window == null || !window.hasRemaining()) {
+                    if (windowEnd >= end) {
+                        throw new CacheException(ErrorCode.SERIALIZATION_ERROR, "Snapshot ended in the middle of a record");
+                    }
+                    long size = Math.min(MAP_WINDOW_BYTES, end - windowEnd);
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, size);
+                    windowEnd += size;
+                }
+                int chunk = Math.min(length - offset, window.remaining());
+                window.get(target, offset, chunk);
+                offset += chunk;
+            }
+        }
+    }
+    
+    /**
+     * Sequential writer through a direct buffer that keeps a running CRC32
+     * and appends it on {@link #finish()}.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+        private final CRC32 crc = new CRC32();
+        
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+        
+        void putShort(short value) throws IOException {
+            ensure(Short.BYTES);
+            buffer.putShort(value);
+        }
+        
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+        
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+        
+        void putBytes(byte[] bytes) throws IOException {
+            putInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int chunk = Math.min(bytes.length - offset, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+        
+        /**
+         * Appends the checksum of everything written so far and flushes.
+         */
+        void finish() throws IOException {
+            flush();
+            buffer.putLong(crc.getValue());
+            buffer.flip();
+            writeBuffer();
+        }
+        
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+        
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            writeBuffer();
+        }
+        
+        private void writeBuffer() throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import com.exalt.ecosystem.shared.caching.CacheConfig.EvictionPolicy;
+
+/**
+ * Bookkeeping structure that decides which key to evict when an
+ * {@link InMemoryCache} reaches its capacity.
+ * <p>
+ * Every operation runs in amortized O(1) time so that the put path never
+ * has to walk the cache contents. Implementations are not thread-safe;
+ * the owning cache serializes access through its eviction lock.
+ *
+ * @param <K> Type of the cache key
+ */
+interface EvictionStrategy<K> {
+    
+    /**
+     * Records that a key was added to the cache.
+     * Recording a key that is already tracked counts as an access.
+     *
+     * @param key The inserted key
+     */
+    void recordInsert(K key);
+    
+    /**
+     * Records that a key was read or overwritten.
+     * Keys that are not tracked are ignored.
+     *
+     * @param key The accessed key
+     */
+    void recordAccess(K key);
+    
+    /**
+     * Stops tracking a key that was removed from the cache.
+     *
+     * @param key The removed key
+     */
+    void recordRemoval(K key);
+    
+    /**
+     * Selects the next key to evict and stops tracking it.
+     *
+     * @return The victim key, or null if nothing is tracked
+     */
+    K pollVictim();
+    
+    /**
+     * Stops tracking all keys.
+     */
+    void clear();
+    
+    /**
+     * Creates the strategy matching an eviction policy.
+     *
+     * @param <K>             Type of the cache key
+     * @param policy          The configured eviction policy
+     * @param initialCapacity Expected number of tracked keys
+     * @return A new eviction strategy
+     */
+    static <K> EvictionStrategy<K> forPolicy(EvictionPolicy policy, int initialCapacity) {
+        if (policy == null) {
+            return new RandomEvictionStrategy<>(initialCapacity);
+        }
+        
+        switch (policy) {
+            case LRU:
+                return new OrderedEvictionStrategy<>(initialCapacity, true);
+            case LFU:
+                return new LfuEvictionStrategy<>(initialCapacity);
+            case FIFO:
+                return new OrderedEvictionStrategy<>(initialCapacity, false);
+            case RANDOM:
+            default:
+                return new RandomEvictionStrategy<>(initialCapacity);
+        }
+    }
+}
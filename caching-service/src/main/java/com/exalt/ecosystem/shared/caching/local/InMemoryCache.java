@@ -1,27 +1,80 @@
 package com.exalt.ecosystem.shared.caching.local;
 
-import com.exalt.ecosystem.shared.caching.Cache;
+import com.exalt.ecosystem.shared.caching.AbstractCache;
+import com.exalt.ecosystem.shared.caching.CacheClock;
 import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheConfig.StorageMode;
 import com.exalt.ecosystem.shared.caching.CacheException;
 import com.exalt.ecosystem.shared.caching.CacheException.ErrorCode;
 import com.exalt.ecosystem.shared.caching.CacheEntry;
+import com.exalt.ecosystem.shared.caching.CacheEvent;
+import com.exalt.ecosystem.shared.caching.CacheListener;
+import com.exalt.ecosystem.shared.caching.CacheSerializer;
+import com.exalt.ecosystem.shared.caching.CacheSerializers;
+import com.exalt.ecosystem.shared.caching.CacheWriter;
+import com.exalt.ecosystem.shared.caching.RemovalCause;
+import com.exalt.ecosystem.shared.caching.Weigher;
+import com.exalt.ecosystem.shared.caching.Weighers;
+import com.exalt.ecosystem.shared.caching.local.OffHeapStore.OffHeapEntry;
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Supplier;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * In-memory implementation of the Cache interface.
  * Stores cache entries in memory using a ConcurrentHashMap.
+ * <p>
+ * Reads are lock-free. Writes update the map and the eviction policy
+ * bookkeeping under a single lock, and every policy selects its victim
+ * in constant time, so writes never scan the cache contents.
+ * <p>
+ * Entries with a TTL are indexed in a {@link TimerWheel}. Expired entries
+ * are removed proactively in time proportional to the number that expired,
+ * piggy-backed on cache operations and on {@link #cleanUp()}, which the
+ * {@link InMemoryCacheFactory} runs periodically in the background.
+ * <p>
+ * Capacity is bounded by entry count ({@code maxSize}), or, when
+ * {@code maxWeight} is set, by the summed weight of the entries as
+ * computed by the configured {@link Weigher} (by default an estimate of
+ * the retained heap in bytes). A single entry heavier than
+ * {@code maxWeight} is rejected.
+ * <p>
+ * With {@link StorageMode#OFF_HEAP} values are serialized into slabs of
+ * direct memory managed by an {@link OffHeapStore}, and deserialized on
+ * every read. Only the key index and small entry headers stay on the
+ * heap, which keeps large caches from inflating the old generation.
+ * <p>
+ * Registered {@link CacheListener}s receive an event for every created,
+ * updated, removed, evicted and expired entry. Events are handed to a
+ * {@link CacheEventDispatcher} that delivers them on its own thread, so
+ * slow listeners never hold up cache operations; events that do not fit
+ * in its buffer are dropped and counted. With a {@link CacheWriter}
+ * configured, puts and removes are queued in a {@link WriteBehindQueue}
+ * and written to the backing store in batches.
  *
  * @param <K> Type of the cache key
  * @param <V> Type of the cached value
  */
-public class InMemoryCache<K, V> implements Cache<K, V> {
-    private final String name;
-    private final CacheConfig config;
+public class InMemoryCache<K, V> extends AbstractCache<K, V> {
     private final Map<K, CacheEntry<V>> cache;
+    private final EvictionStrategy<K> evictionStrategy;
+    private final TimerWheel<K> timerWheel;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Weigher<K, V> weigher;
+    private final OffHeapStore<V> offHeapStore;
+    private final WriteBehindQueue<K, V> writeBehind;
+    private volatile CacheEventDispatcher<K, V> dispatcher;
+    private long totalWeight;
+    /** Keys written or removed while a snapshot is restored, or null if none is; guarded by the eviction lock */
+    private Set<K> changedDuringRestore;
+    private boolean clearedDuringRestore;
     
     /**
      * Creates a new in-memory cache with the specified name and configuration.
@@ -30,116 +83,74 @@ public class InMemoryCache<K, V> implements Cache<K, V> {
      * @param config The cache configuration
      */
     public InMemoryCache(String name, CacheConfig config) {
-        this.name = name;
-        this.config = config;
+        super(name, config);
         this.cache = new ConcurrentHashMap<>(config.getInitialCapacity());
+        this.evictionStrategy = EvictionStrategy.forPolicy(
+            config.getEvictionPolicy(), config.getInitialCapacity());
+        this.timerWheel = new TimerWheel<>(CacheClock.currentTimeMillis());
+        this.weigher = config.getMaxWeight() > 0 ? weigherFor(config) : null;
+        this.offHeapStore = config.getStorageMode() == StorageMode.OFF_HEAP ? offHeapStoreFor(config) : null;
+        this.writeBehind = config.getCacheWriter() != null ? writeBehindFor(name, config) : null;
     }
     
     @Override
     public V get(K key) throws CacheException {
-        if (key == null) {
-            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
-        }
-        
-        CacheEntry<V> entry = cache.get(key);
+        V value = getQuietly(key);
         
-        if (entry == null) {
-            return null;
-        }
-        
-        // Check if entry has expired
-        if (entry.isExpired()) {
-            cache.remove(key);
-            return null;
+        if (value == null) {
+            statsCounter.recordMisses(1);
+        } else {
+            statsCounter.recordHits(1);
         }
         
-        return entry.getValue();
+        return value;
     }
     
     @Override
-    @SuppressWarnings("unchecked")
-    public <T> T get(K key, Class<T> clazz) throws CacheException {
-        V value = get(key);
-        
-        if (value == null) {
-            return null;
-        }
-        
-        if (clazz.isInstance(value)) {
-            return (T) value;
-        } else {
-            throw new CacheException(
-                ErrorCode.TYPE_MISMATCH,
-                "Cached value is not of the expected type. Expected: " + clazz.getName() + 
-                ", Actual: " + value.getClass().getName()
-            );
-        }
+    public void put(K key, V value) throws CacheException {
+        storeValue(key, value, -1, null, true);
     }
     
     @Override
-    public V getOrPut(K key, Supplier<V> supplier) throws CacheException {
-        V value = get(key);
-        
-        if (value == null) {
-            value = supplier.get();
-            put(key, value);
+    public void put(K key, V value, long ttl, TimeUnit timeUnit) throws CacheException {
+        if (ttl <= 0) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "TTL must be positive");
         }
         
-        return value;
+        storeValue(key, value, ttl, timeUnit, true);
     }
     
     @Override
-    public V getOrPut(K key, Supplier<V> supplier, long ttl, TimeUnit timeUnit) throws CacheException {
-        V value = get(key);
+    public Map<K, V> getAll(Collection<K> keys) throws CacheException {
+        if (keys == null) {
+            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache keys cannot be null");
+        }
         
-        if (value == null) {
-            value = supplier.get();
-            put(key, value, ttl, timeUnit);
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
         }
         
-        return value;
+        return result;
     }
     
     @Override
-    public void put(K key, V value) throws CacheException {
-        if (key == null) {
-            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
-        }
-        
-        if (value == null) {
-            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Cache value cannot be null");
-        }
-        
-        // Check if max size is reached
-        evictIfNeeded();
-        
-        // Use default TTL if specified in config
-        long ttl = config.getDefaultTtlSeconds();
-        if (ttl > 0) {
-            put(key, value, ttl, TimeUnit.SECONDS);
-        } else {
-            cache.put(key, new CacheEntry<>(value));
-        }
+    public void putAll(Map<K, V> entries) throws CacheException {
+        storeValues(entries, -1, null, true);
     }
     
     @Override
-    public void put(K key, V value, long ttl, TimeUnit timeUnit) throws CacheException {
-        if (key == null) {
-            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
-        }
-        
-        if (value == null) {
-            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Cache value cannot be null");
-        }
+    public void putAll(Map<K, V> entries, long ttl, TimeUnit timeUnit) throws CacheException {
+        validateEntries(entries);
         
         if (ttl <= 0) {
             throw new CacheException(ErrorCode.UNKNOWN_ERROR, "TTL must be positive");
         }
         
-        // Check if max size is reached
-        evictIfNeeded();
-        
-        cache.put(key, new CacheEntry<>(value, ttl, timeUnit));
+        storeValues(entries, ttl, timeUnit, true);
     }
     
     @Override
@@ -156,7 +167,7 @@ public class InMemoryCache<K, V> implements Cache<K, V> {
         
         // Check if entry has expired
         if (entry.isExpired()) {
-            cache.remove(key);
+            removeExpired(key, entry);
             return false;
         }
         
@@ -169,124 +180,786 @@ public class InMemoryCache<K, V> implements Cache<K, V> {
             throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
         }
         
-        return cache.remove(key) != null;
+        forgetAbsent(key);
+        evictionLock.lock();
+        try {
+            if (writeBehind != null) {
+                writeBehind.delete(key);
+            }
+            recordChange(key);
+            
+            CacheEntry<V> removed = cache.remove(key);
+            if (removed == null) {
+                return false;
+            }
+            notify(CacheEvent.Type.REMOVED, key, removed);
+            discard(removed);
+            evictionStrategy.recordRemoval(key);
+            timerWheel.deschedule(key);
+            statsCounter.recordRemovals(RemovalCause.EXPLICIT, 1);
+            return true;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    @Override
+    public int removeAll(Collection<K> keys) throws CacheException {
+        if (keys == null) {
+            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache keys cannot be null");
+        }
+        
+        forgetAbsent(keys);
+        int removed = 0;
+        evictionLock.lock();
+        try {
+            for (K key : keys) {
+                if (key == null) {
+                    continue;
+                }
+                if (writeBehind != null) {
+                    writeBehind.delete(key);
+                }
+                recordChange(key);
+                
+                CacheEntry<V> entry = cache.remove(key);
+                if (entry != null) {
+                    notify(CacheEvent.Type.REMOVED, key, entry);
+                    discard(entry);
+                    evictionStrategy.recordRemoval(key);
+                    timerWheel.deschedule(key);
+                    removed++;
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        
+        statsCounter.recordRemovals(RemovalCause.EXPLICIT, removed);
+        return removed;
     }
     
     @Override
     public void clear() throws CacheException {
-        cache.clear();
+        forgetAllAbsent();
+        evictionLock.lock();
+        try {
+            statsCounter.recordRemovals(RemovalCause.EXPLICIT, cache.size());
+            for (Map.Entry<K, CacheEntry<V>> entry : cache.entrySet()) {
+                notify(CacheEvent.Type.REMOVED, entry.getKey(), entry.getValue());
+                discard(entry.getValue());
+            }
+            cache.clear();
+            evictionStrategy.clear();
+            timerWheel.clear();
+            if (changedDuringRestore != null) {
+                clearedDuringRestore = true;
+            }
+        } finally {
+            evictionLock.unlock();
+        }
     }
     
     @Override
     public long size() throws CacheException {
-        // Remove expired entries first to get an accurate count
-        removeExpiredEntries();
+        // Drop entries that are due first; this only touches expired entries
+        cleanUp();
         return cache.size();
     }
     
     @Override
-    public String getName() {
-        return name;
+    protected V getQuietly(K key) throws CacheException {
+        if (key == null) {
+            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
+        }
+        
+        while (true) {
+            CacheEntry<V> entry = cache.get(key);
+            
+            if (entry == null) {
+                return null;
+            }
+            
+            // Check if entry has expired
+            if (entry.isExpired()) {
+                removeExpired(key, entry);
+                return null;
+            }
+            
+            V value = valueOf(entry);
+            if (value != null) {
+                recordRead(key);
+                return value;
+            }
+            // The off-heap entry was replaced or evicted while being read; look it up again
+        }
+    }
+    
+    @Override
+    protected void putLoaded(K key, V value, long ttl, TimeUnit timeUnit) throws CacheException {
+        storeValue(key, value, ttl, timeUnit, false);
+    }
+    
+    @Override
+    protected void putAllLoaded(Map<K, V> entries) throws CacheException {
+        storeValues(entries, -1, null, false);
+    }
+    
+    @Override
+    protected boolean isRefreshDue(K key) {
+        CacheEntry<V> entry = cache.get(key);
+        long refreshAfterMillis = TimeUnit.SECONDS.toMillis(config.getRefreshAfterSeconds());
+        return entry != null && CacheClock.currentTimeMillis() - entry.getCreationTime() >= refreshAfterMillis;
+    }
+    
+    /**
+     * Flushes the write-behind queue and stops delivering events once the
+     * events already buffered have been delivered. The cached entries are
+     * kept.
+     *
+     * @throws CacheException if the writer fails the final flush
+     */
+    @Override
+    public void close() throws CacheException {
+        CacheEventDispatcher<K, V> events;
+        synchronized (this) {
+            events = dispatcher;
+            dispatcher = null;
+        }
+        
+        try {
+            if (writeBehind != null) {
+                writeBehind.close();
+            }
+        } finally {
+            if (events != null) {
+                events.close();
+            }
+        }
+    }
+    
+    /**
+     * Registers a listener for the entry events of this cache. Listeners
+     * are called on the event thread of the cache, one event at a time.
+     *
+     * @param listener The listener to add
+     */
+    public synchronized void addListener(CacheListener<K, V> listener) {
+        if (dispatcher == null) {
+            dispatcher = new CacheEventDispatcher<>(name, config.getEventBufferSize());
+        }
+        dispatcher.addListener(listener);
+    }
+    
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The listener to remove
+     * @return true if the listener was registered
+     */
+    public synchronized boolean removeListener(CacheListener<K, V> listener) {
+        return dispatcher != null && dispatcher.removeListener(listener);
+    }
+    
+    /**
+     * Gets the number of events dropped because listeners fell behind.
+     *
+     * @return The dropped event count
+     */
+    public long droppedEventCount() {
+        CacheEventDispatcher<K, V> events = dispatcher;
+        return events == null ? 0 : events.droppedCount();
     }
     
     /**
-     * Removes all expired entries from the cache.
+     * Gets the summed weight of the entries in the cache.
+     * Without {@code maxWeight} every entry weighs one.
+     *
+     * @return The total weight
+     */
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            expireEntries();
+            return totalWeight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /**
+     * Gets the amount of direct memory held by off-heap values.
+     *
+     * @return The bytes in allocated chunks, or 0 for on-heap storage
+     */
+    public long offHeapUsedBytes() {
+        evictionLock.lock();
+        try {
+            return offHeapStore == null ? 0 : offHeapStore.usedBytes();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /**
+     * Visits the unexpired entries of the cache, for writing a snapshot.
+     * The iteration is weakly consistent with concurrent updates.
+     *
+     * @param visitor The visitor to call for each entry
+     * @throws IOException    if the visitor fails to write an entry
+     * @throws CacheException if an off-heap value cannot be read or the visitor fails
      */
-    private void removeExpiredEntries() {
-        for (Map.Entry<K, CacheEntry<V>> entry : cache.entrySet()) {
-            if (entry.getValue().isExpired()) {
-                cache.remove(entry.getKey());
+    void forEachEntry(EntryVisitor<K, V> visitor) throws IOException, CacheException {
+        long now = CacheClock.currentTimeMillis();
+        for (Map.Entry<K, CacheEntry<V>> mapping : cache.entrySet()) {
+            CacheEntry<V> entry = mapping.getValue();
+            if (entry.isExpired(now)) {
+                continue;
             }
+            V value = valueOf(entry);
+            if (value != null) {
+                visitor.visit(mapping.getKey(), value, entry.getExpirationTime());
+            }
+        }
+    }
+    
+    /**
+     * Starts remembering the keys that are written or removed, so that a
+     * snapshot restored in the background does not bring back a value the
+     * application has replaced or removed in the meantime.
+     */
+    void beginRestore() {
+        evictionLock.lock();
+        try {
+            changedDuringRestore = new HashSet<>();
+            clearedDuringRestore = false;
+        } finally {
+            evictionLock.unlock();
         }
     }
     
     /**
-     * Evicts entries if the cache size exceeds the maximum size.
+     * Forgets the keys remembered since {@link #beginRestore()}.
      */
-    private void evictIfNeeded() {
-        // First, remove expired entries
-        removeExpiredEntries();
+    void endRestore() {
+        evictionLock.lock();
+        try {
+            changedDuringRestore = null;
+            clearedDuringRestore = false;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /**
+     * Adds an entry read from a snapshot, unless the key has been written or
+     * removed since the restore began, the cache has been cleared since, or
+     * the entry does not fit without evicting.
+     *
+     * @param key            The cache key
+     * @param value          The value
+     * @param expirationTime The expiration time in milliseconds since epoch, or -1 if it never expires
+     * @return false if the cache is full, true otherwise
+     * @throws CacheException if the value cannot be weighed or stored
+     */
+    boolean restore(K key, V value, long expirationTime) throws CacheException {
+        long ttl = -1;
+        if (expirationTime > 0) {
+            ttl = expirationTime - CacheClock.currentTimeMillis();
+            if (ttl <= 0) {
+                return true;
+            }
+        }
+        
+        int weight = weigher == null ? 1 : weigh(key, value);
+        byte[] bytes = offHeapStore == null ? null : offHeapStore.serialize(value);
         
-        if (cache.size() >= config.getMaxSize()) {
-            // If still too large, apply eviction policy
-            switch (config.getEvictionPolicy()) {
-                case LRU:
-                    evictLRU();
-                    break;
-                case LFU:
-                    evictLFU();
-                    break;
-                case FIFO:
-                    evictFIFO();
-                    break;
-                case RANDOM:
-                    evictRandom();
-                    break;
-                default:
-                    evictRandom(); // Default to random if unknown policy
+        evictionLock.lock();
+        try {
+            expireEntries();
+            
+            if (cache.containsKey(key) || clearedDuringRestore
+                    || changedDuringRestore != null && changedDuringRestore.contains(key)) {
+                return true;
+            }
+            if (isOverCapacity(1, weight)) {
+                return false;
+            }
+            
+            CacheEntry<V> entry = bytes == null
+                ? new CacheEntry<>(value, ttl, TimeUnit.MILLISECONDS, weight)
+                : offHeapStore.allocate(bytes, ttl, TimeUnit.MILLISECONDS, weight);
+            if (entry == null) {
+                return false;
             }
+            storeEntry(key, entry);
+            return true;
+        } finally {
+            evictionLock.unlock();
         }
     }
     
     /**
-     * Evicts the least recently used entry.
-     * Note: This is a simplified implementation. A real LRU cache would 
-     * track access times for all entries.
+     * Drops the entry of a key without publishing an event, recording a
+     * removal or queueing a delete for the cache writer. For callers that
+     * discard a copy they cached themselves, such as a near cache whose
+     * local copy may be stale.
+     *
+     * @param key The cache key
+     * @return true if an entry was dropped
+     */
+    public boolean invalidate(K key) {
+        evictionLock.lock();
+        try {
+            recordChange(key);
+            CacheEntry<V> removed = cache.remove(key);
+            if (removed == null) {
+                return false;
+            }
+            discard(removed);
+            evictionStrategy.recordRemoval(key);
+            timerWheel.deschedule(key);
+            return true;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /**
+     * Removes entries whose TTL has elapsed.
+     * The cost is proportional to the number of expired entries, not to the cache size.
      */
-    private void evictLRU() {
-        // For this simplified implementation, just remove the first entry
-        // A real LRU would use a LinkedHashMap or similar structure
-        if (!cache.isEmpty()) {
-            K keyToRemove = cache.keySet().iterator().next();
-            cache.remove(keyToRemove);
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            expireEntries();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /**
+     * Validates and stores a value, applying the default TTL when none is given.
+     *
+     * @param key         The cache key
+     * @param value       The value to cache
+     * @param ttl         Time to live duration, or -1 to use the configured default
+     * @param timeUnit    Time unit for the TTL
+     * @param writeBehind Whether to queue the value for the cache writer
+     */
+    private void storeValue(K key, V value, long ttl, TimeUnit timeUnit, boolean writeBehind) throws CacheException {
+        if (key == null) {
+            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
+        }
+        
+        if (value == null) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Cache value cannot be null");
         }
+        
+        if (ttl <= 0) {
+            // Use default TTL if specified in config
+            long defaultTtl = config.getDefaultTtlSeconds();
+            ttl = defaultTtl > 0 ? defaultTtl : -1;
+            timeUnit = TimeUnit.SECONDS;
+        }
+        
+        putEntry(key, newEntry(key, value, ttl, timeUnit), writeBehind ? value : null);
+        forgetAbsent(key);
     }
     
     /**
-     * Evicts the least frequently used entry.
-     * Note: This is a simplified implementation. A real LFU cache would 
-     * track access counts for all entries.
+     * Validates and stores a batch of values, applying the default TTL when none is given.
+     *
+     * @param entries     The values to cache by key
+     * @param ttl         Time to live duration, or -1 to use the configured default
+     * @param timeUnit    Time unit for the TTL
+     * @param writeBehind Whether to queue the values for the cache writer
      */
-    private void evictLFU() {
-        // For this simplified implementation, just remove the first entry
-        // A real LFU would track access counts
-        if (!cache.isEmpty()) {
-            K keyToRemove = cache.keySet().iterator().next();
-            cache.remove(keyToRemove);
+    private void storeValues(Map<K, V> entries, long ttl, TimeUnit timeUnit, boolean writeBehind) throws CacheException {
+        validateEntries(entries);
+        
+        if (ttl <= 0) {
+            // Use default TTL if specified in config
+            long defaultTtl = config.getDefaultTtlSeconds();
+            ttl = defaultTtl > 0 ? defaultTtl : -1;
+            timeUnit = TimeUnit.SECONDS;
         }
+        
+        putEntries(newEntries(entries, ttl, timeUnit), writeBehind ? entries : null);
+        forgetAbsent(entries.keySet());
     }
     
     /**
-     * Evicts the oldest entry (first in, first out).
+     * Stores an entry, evicting according to the configured policy if the
+     * cache is full. Bookkeeping is constant time, so the cost of a put does
+     * not depend on the number of cached entries.
+     * <p>
+     * The value is queued for the writer under the same lock that stores
+     * it, so the writer sees concurrent writes to a key in the order the
+     * cache applied them.
+     *
+     * @param key          The cache key
+     * @param entry        The entry to store
+     * @param writtenValue The value to write behind, or null if it is not written
      */
-    private void evictFIFO() {
-        // Similar to LRU in this simplified implementation
-        if (!cache.isEmpty()) {
-            K keyToRemove = cache.keySet().iterator().next();
-            cache.remove(keyToRemove);
+    private void putEntry(K key, CacheEntry<V> entry, V writtenValue) {
+        evictionLock.lock();
+        try {
+            expireEntries();
+            
+            CacheEntry<V> existing = cache.get(key);
+            if (existing == null) {
+                evictIfNeeded(1, entry.getWeight());
+            } else {
+                evictIfNeeded(0, entry.getWeight() - existing.getWeight());
+            }
+            
+            storeEntry(key, entry);
+            recordChange(key);
+            if (writeBehind != null && writtenValue != null) {
+                writeBehind.write(key, writtenValue);
+            }
+        } finally {
+            evictionLock.unlock();
         }
     }
     
     /**
-     * Evicts a random entry.
+     * Stores a batch of entries under a single lock acquisition, making
+     * room for all new keys with one eviction pass.
+     *
+     * @param entries       The entries to store by key
+     * @param writtenValues The values to write behind by key, or null if they are not written
      */
-    private void evictRandom() {
-        if (!cache.isEmpty()) {
-            int randomIndex = (int) (Math.random() * cache.size());
-            K keyToRemove = null;
-            int i = 0;
+    private void putEntries(Map<K, CacheEntry<V>> entries, Map<K, V> writtenValues) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        
+        evictionLock.lock();
+        try {
+            expireEntries();
             
-            for (K key : cache.keySet()) {
-                if (i == randomIndex) {
-                    keyToRemove = key;
-                    break;
+            int newKeys = 0;
+            long addedWeight = 0;
+            for (Map.Entry<K, CacheEntry<V>> entry : entries.entrySet()) {
+                CacheEntry<V> existing = cache.get(entry.getKey());
+                addedWeight += entry.getValue().getWeight();
+                if (existing == null) {
+                    newKeys++;
+                } else {
+                    addedWeight -= existing.getWeight();
                 }
-                i++;
+            }
+            evictIfNeeded(newKeys, addedWeight);
+            
+            for (Map.Entry<K, CacheEntry<V>> entry : entries.entrySet()) {
+                storeEntry(entry.getKey(), entry.getValue());
+                recordChange(entry.getKey());
+            }
+            if (writeBehind != null && writtenValues != null) {
+                writtenValues.forEach(writeBehind::write);
             }
             
-            if (keyToRemove != null) {
-                cache.remove(keyToRemove);
+            // A batch larger than the whole cache can still overflow it
+            evictIfNeeded(0, 0);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /**
+     * Remembers a written or removed key while a snapshot is restored.
+     * Must be called while holding the eviction lock.
+     *
+     * @param key The cache key
+     */
+    private void recordChange(K key) {
+        if (changedDuringRestore != null) {
+            changedDuringRestore.add(key);
+        }
+    }
+    
+    /**
+     * Maps an entry and updates the eviction and expiration bookkeeping.
+     * Must be called while holding the eviction lock.
+     *
+     * @param key   The cache key
+     * @param entry The entry to store
+     */
+    private void storeEntry(K key, CacheEntry<V> entry) {
+        CacheEntry<V> previous = cache.put(key, entry);
+        totalWeight += entry.getWeight();
+        if (previous == null) {
+            notify(CacheEvent.Type.CREATED, key, entry);
+            evictionStrategy.recordInsert(key);
+        } else {
+            boolean expired = previous.isExpired();
+            if (expired) {
+                notify(CacheEvent.Type.EXPIRED, key, previous);
+                notify(CacheEvent.Type.CREATED, key, entry);
+            } else {
+                notify(CacheEvent.Type.UPDATED, key, entry);
+            }
+            discard(previous);
+            evictionStrategy.recordAccess(key);
+            statsCounter.recordRemovals(expired ? RemovalCause.EXPIRED : RemovalCause.REPLACED, 1);
+        }
+        
+        if (entry.getExpirationTime() > 0) {
+            timerWheel.schedule(key, entry.getExpirationTime());
+        } else {
+            timerWheel.deschedule(key);
+        }
+    }
+    
+    /**
+     * Removes an expired entry only if it is still mapped to the given key.
+     *
+     * @param key   The cache key
+     * @param entry The expired entry expected to be mapped to the key
+     */
+    private void removeExpired(K key, CacheEntry<V> entry) {
+        evictionLock.lock();
+        try {
+            if (cache.remove(key, entry)) {
+                notify(CacheEvent.Type.EXPIRED, key, entry);
+                discard(entry);
+                evictionStrategy.recordRemoval(key);
+                timerWheel.deschedule(key);
+                statsCounter.recordRemovals(RemovalCause.EXPIRED, 1);
             }
+        } finally {
+            evictionLock.unlock();
         }
     }
+    
+    /**
+     * Records a read for the eviction policy.
+     * Reads never block on the eviction lock: if a writer currently holds
+     * it the access is simply not recorded, which only makes LRU and LFU
+     * ordering slightly approximate under heavy contention.
+     *
+     * @param key The key that was read
+     */
+    private void recordRead(K key) {
+        if (evictionLock.tryLock()) {
+            try {
+                expireEntries();
+                evictionStrategy.recordAccess(key);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Evicts entries until there is room for the given new entries.
+     * Must be called while holding the eviction lock.
+     *
+     * @param incomingEntries The number of entries about to be added
+     * @param incomingWeight  The weight about to be added, net of replaced entries
+     */
+    private void evictIfNeeded(int incomingEntries, long incomingWeight) {
+        while (isOverCapacity(incomingEntries, incomingWeight) && evictOne()) {
+            // Keep evicting until the new entries fit
+        }
+    }
+    
+    /**
+     * Evicts the entry chosen by the eviction policy.
+     * Must be called while holding the eviction lock.
+     *
+     * @return false if there was nothing left to evict
+     */
+    private boolean evictOne() {
+        K victim = evictionStrategy.pollVictim();
+        if (victim == null) {
+            return false;
+        }
+        CacheEntry<V> evicted = cache.remove(victim);
+        if (evicted != null) {
+            notify(CacheEvent.Type.EVICTED, victim, evicted);
+            discard(evicted);
+            statsCounter.recordRemovals(RemovalCause.SIZE, 1);
+        }
+        timerWheel.deschedule(victim);
+        return true;
+    }
+    
+    /**
+     * Publishes an event for an entry if listeners are registered. Must be
+     * called while holding the eviction lock, before the entry is discarded.
+     *
+     * @param type  The kind of change
+     * @param key   The cache key
+     * @param entry The entry whose value the event carries
+     */
+    private void notify(CacheEvent.Type type, K key, CacheEntry<V> entry) {
+        CacheEventDispatcher<K, V> events = dispatcher;
+        if (events == null || !events.hasListeners()) {
+            return;
+        }
+        
+        V value;
+        try {
+            value = valueOf(entry);
+        } catch (CacheException e) {
+            value = null; // The off-heap value cannot be deserialized; publish the event without it
+        }
+        events.publish(type, key, value);
+    }
+    
+    /**
+     * Releases the weight and any off-heap memory of an entry that has
+     * been unmapped. Must be called while holding the eviction lock.
+     *
+     * @param entry The unmapped entry
+     */
+    private void discard(CacheEntry<V> entry) {
+        totalWeight -= entry.getWeight();
+        if (offHeapStore != null) {
+            offHeapStore.release((OffHeapEntry<V>) entry);
+        }
+    }
+    
+    /**
+     * Gets the value of an entry, reading it from off-heap memory if needed.
+     *
+     * @return The value, or null if the off-heap entry has been freed
+     */
+    private V valueOf(CacheEntry<V> entry) throws CacheException {
+        if (offHeapStore == null) {
+            return entry.getValue();
+        }
+        return offHeapStore.read((OffHeapEntry<V>) entry);
+    }
+    
+    private boolean isOverCapacity(int incomingEntries, long incomingWeight) {
+        if (weigher != null) {
+            return totalWeight + incomingWeight > config.getMaxWeight();
+        }
+        return cache.size() + incomingEntries > config.getMaxSize();
+    }
+    
+    /**
+     * Creates entries for a batch, releasing any off-heap memory already
+     * allocated for the batch if one of them cannot be created.
+     */
+    private Map<K, CacheEntry<V>> newEntries(Map<K, V> entries, long ttl, TimeUnit timeUnit) throws CacheException {
+        Map<K, CacheEntry<V>> batch = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<K, V> entry : entries.entrySet()) {
+                batch.put(entry.getKey(), newEntry(entry.getKey(), entry.getValue(), ttl, timeUnit));
+            }
+        } catch (CacheException | RuntimeException e) {
+            if (offHeapStore != null) {
+                evictionLock.lock();
+                try {
+                    for (CacheEntry<V> created : batch.values()) {
+                        offHeapStore.release((OffHeapEntry<V>) created);
+                    }
+                } finally {
+                    evictionLock.unlock();
+                }
+            }
+            throw e;
+        }
+        return batch;
+    }
+    
+    /**
+     * Creates an entry, weighing it if the cache is bounded by weight and
+     * copying the value off-heap if the cache stores values off-heap.
+     *
+     * @throws CacheException if the entry alone exceeds the maximum weight or the off-heap capacity
+     */
+    private CacheEntry<V> newEntry(K key, V value, long ttl, TimeUnit timeUnit) throws CacheException {
+        int weight = weigher == null ? 1 : weigh(key, value);
+        
+        if (offHeapStore == null) {
+            return new CacheEntry<>(value, ttl, timeUnit, weight);
+        }
+        
+        // Serialize outside the lock; only the copy into the slab is serialized
+        byte[] bytes = offHeapStore.serialize(value);
+        evictionLock.lock();
+        try {
+            while (true) {
+                OffHeapEntry<V> entry = offHeapStore.allocate(bytes, ttl, timeUnit, weight);
+                if (entry != null) {
+                    return entry;
+                }
+                if (!evictOne()) {
+                    throw new CacheException(
+                        ErrorCode.CAPACITY_EXCEEDED,
+                        "Off-heap storage of cache '" + name + "' has no room for a value of " + bytes.length + " bytes"
+                    );
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    private int weigh(K key, V value) throws CacheException {
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Weigher returned a negative weight for key " + key);
+        }
+        if (weight > config.getMaxWeight()) {
+            throw new CacheException(
+                ErrorCode.CAPACITY_EXCEEDED,
+                "Entry weight " + weight + " exceeds the maximum weight " + config.getMaxWeight() + " of cache '" + name + "'"
+            );
+        }
+        return weight;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <K, V> Weigher<K, V> weigherFor(CacheConfig config) {
+        return config.getWeigher() != null ? (Weigher<K, V>) config.getWeigher() : Weighers.estimating();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <K, V> WriteBehindQueue<K, V> writeBehindFor(String name, CacheConfig config) {
+        return new WriteBehindQueue<>(name, (CacheWriter<K, V>) config.getCacheWriter(),
+            config.getWriteBehindIntervalMillis(), config.getWriteBehindBatchSize());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <V> OffHeapStore<V> offHeapStoreFor(CacheConfig config) {
+        CacheSerializer<V> serializer = config.getValueSerializer() != null
+            ? (CacheSerializer<V>) config.getValueSerializer()
+            : CacheSerializers.java();
+        return new OffHeapStore<>(serializer, config.getOffHeapCapacityBytes(), config.getOffHeapSlabSizeBytes());
+    }
+    
+    /**
+     * Advances the timer wheel and removes the entries that became due.
+     * Must be called while holding the eviction lock.
+     */
+    private void expireEntries() {
+        long now = CacheClock.currentTimeMillis();
+        timerWheel.advance(now, key -> {
+            CacheEntry<V> entry = cache.get(key);
+            if (entry != null && entry.isExpired(now) && cache.remove(key, entry)) {
+                notify(CacheEvent.Type.EXPIRED, key, entry);
+                discard(entry);
+                evictionStrategy.recordRemoval(key);
+                statsCounter.recordRemovals(RemovalCause.EXPIRED, 1);
+            }
+        });
+    }
+    
+    /**
+     * Receives the entries of the cache when writing a snapshot.
+     *
+     * @param <K> Type of the cache key
+     * @param <V> Type of the cached value
+     */
+    @FunctionalInterface
+    interface EntryVisitor<K, V> {
+        void visit(K key, V value, long expirationTime) throws IOException, CacheException;
+    }
 }
@@ -5,15 +5,47 @@ import com.exalt.ecosystem.shared.caching.CacheConfig;
 import com.exalt.ecosystem.shared.caching.CacheException;
 import com.exalt.ecosystem.shared.caching.CacheFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Factory for creating in-memory cache instances.
+ * Runs a background maintenance task per cache that removes expired entries,
+ * so idle caches do not keep expired values reachable.
+ * <p>
+ * Caches configured with a snapshot directory are written to a
+ * {@link CacheSnapshot} when the factory is closed, and optionally at a
+ * fixed interval. Creating such a cache starts restoring its snapshot in
+ * the background, so the cache is usable at once and fills up while
+ * the process starts.
  */
 public class InMemoryCacheFactory implements CacheFactory {
     
+    /** Interval between background clean-up runs of each cache */
+    private static final long CLEANUP_INTERVAL_MILLIS = 1000;
+    
     private final Map<String, Cache<?, ?>> caches = new ConcurrentHashMap<>();
+    private final Map<String, ScheduledFuture<?>> cleanupTasks = new ConcurrentHashMap<>();
+    private final Map<String, CacheSnapshot<?, ?>> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, ScheduledFuture<?>> snapshotTasks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenanceExecutor =
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "in-memory-cache-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    private final ScheduledExecutorService snapshotExecutor =
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "in-memory-cache-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
     
     @Override
     @SuppressWarnings("unchecked")
@@ -39,8 +71,14 @@ public class InMemoryCacheFactory implements CacheFactory {
             );
         }
         
-        Cache<K, V> cache = new InMemoryCache<>(name, config);
+        InMemoryCache<K, V> cache = new InMemoryCache<>(name, config);
         caches.put(name, cache);
+        cleanupTasks.put(name, maintenanceExecutor.scheduleWithFixedDelay(
+            cache::cleanUp, CLEANUP_INTERVAL_MILLIS, CLEANUP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS));
+        
+        if (config.getSnapshotDirectory() != null) {
+            startSnapshots(name, cache, config);
+        }
         
         return cache;
     }
@@ -81,9 +119,16 @@ public class InMemoryCacheFactory implements CacheFactory {
         }
         
         Cache<?, ?> cache = caches.remove(name);
+        ScheduledFuture<?> cleanupTask = cleanupTasks.remove(name);
+        
+        if (cleanupTask != null) {
+            cleanupTask.cancel(false);
+        }
+        stopSnapshots(name);
         
         if (cache != null) {
             try {
+                cache.close();
                 cache.clear();
                 return true;
             } catch (CacheException e) {
@@ -113,7 +158,13 @@ public class InMemoryCacheFactory implements CacheFactory {
     @Override
     public void close() throws CacheException {
         for (Map.Entry<String, Cache<?, ?>> entry : caches.entrySet()) {
+            CacheSnapshot<?, ?> snapshot = stopSnapshots(entry.getKey());
+            if (snapshot != null && snapshot.isRestored()) {
+                writeSnapshot(entry.getKey(), snapshot);
+            }
+            
             try {
+                entry.getValue().close();
                 entry.getValue().clear();
             } catch (CacheException e) {
                 // Log the error but continue closing other caches
@@ -122,5 +173,63 @@ public class InMemoryCacheFactory implements CacheFactory {
         }
         
         caches.clear();
+        cleanupTasks.clear();
+        maintenanceExecutor.shutdownNow();
+        snapshotExecutor.shutdownNow();
+    }
+    
+    /**
+     * Starts restoring a cache from its snapshot and schedules periodic
+     * snapshots if configured. Periodic snapshots wait until the restore
+     * has finished, so they never overwrite a snapshot with a partial one.
+     */
+    private <K, V> void startSnapshots(String name, InMemoryCache<K, V> cache, CacheConfig config) {
+        Path file = CacheSnapshot.fileFor(config.getSnapshotDirectory(), name);
+        CacheSnapshot<K, V> snapshot = new CacheSnapshot<>(file, cache, config);
+        snapshots.put(name, snapshot);
+        
+        snapshotExecutor.execute(() -> {
+            try {
+                snapshot.restore();
+            } catch (IOException | CacheException | RuntimeException e) {
+                System.err.println("Error restoring cache '" + name + "' from " + file + ": " + e.getMessage());
+            }
+        });
+        
+        long interval = config.getSnapshotIntervalSeconds();
+        if (interval > 0) {
+            snapshotTasks.put(name, snapshotExecutor.scheduleWithFixedDelay(() -> {
+                if (snapshot.isRestored()) {
+                    writeSnapshot(name, snapshot);
+                }
+            }, interval, interval, TimeUnit.SECONDS));
+        }
+    }
+    
+    /**
+     * Stops the restore and periodic snapshots of a cache.
+     *
+     * @return The snapshot of the cache, or null if it has none
+     */
+    private CacheSnapshot<?, ?> stopSnapshots(String name) {
+        ScheduledFuture<?> snapshotTask = snapshotTasks.remove(name);
+        if (snapshotTask != null) {
+            snapshotTask.cancel(false);
+        }
+        
+        CacheSnapshot<?, ?> snapshot = snapshots.remove(name);
+        if (snapshot != null) {
+            snapshot.stop();
+        }
+        return snapshot;
+    }
+    
+    private void writeSnapshot(String name, CacheSnapshot<?, ?> snapshot) {
+        try {
+            snapshot.write();
+        } catch (IOException | CacheException | RuntimeException e) {
+            // Log the error but keep the previous snapshot
+            System.err.println("Error writing snapshot of cache '" + name + "': " + e.getMessage());
+        }
     }
 }
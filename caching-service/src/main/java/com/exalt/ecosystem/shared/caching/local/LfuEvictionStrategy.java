@@ -0,0 +1,153 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Constant-time LFU eviction.
+ * <p>
+ * Keys are grouped into buckets of equal access frequency, and the buckets
+ * form a list sorted by ascending frequency. An access moves a key to the
+ * neighbouring bucket, and the victim is the oldest key of the first bucket.
+ * Ties are therefore broken in FIFO order.
+ *
+ * @param <K> Type of the cache key
+ */
+final class LfuEvictionStrategy<K> implements EvictionStrategy<K> {
+    
+    private final Map<K, Bucket<K>> buckets;
+    private Bucket<K> head;
+    
+    /**
+     * Creates a new LFU strategy.
+     *
+     * @param initialCapacity Expected number of tracked keys
+     */
+    LfuEvictionStrategy(int initialCapacity) {
+        this.buckets = new HashMap<>(Math.max(16, initialCapacity));
+    }
+    
+    @Override
+    public void recordInsert(K key) {
+        if (buckets.containsKey(key)) {
+            recordAccess(key);
+            return;
+        }
+        
+        Bucket<K> first = head;
+        if (first == null || first.frequency != 1) {
+            first = new Bucket<>(1);
+            linkAfter(null, first);
+        }
+        
+        first.keys.add(key);
+        buckets.put(key, first);
+    }
+    
+    @Override
+    public void recordAccess(K key) {
+        Bucket<K> current = buckets.get(key);
+        if (current == null) {
+            return;
+        }
+        
+        Bucket<K> next = current.next;
+        if (next == null || next.frequency != current.frequency + 1) {
+            next = new Bucket<>(current.frequency + 1);
+            linkAfter(current, next);
+        }
+        
+        next.keys.add(key);
+        buckets.put(key, next);
+        removeFromBucket(current, key);
+    }
+    
+    @Override
+    public void recordRemoval(K key) {
+        Bucket<K> bucket = buckets.remove(key);
+        if (bucket != null) {
+            removeFromBucket(bucket, key);
+        }
+    }
+    
+    @Override
+    public K pollVictim() {
+        if (head == null) {
+            return null;
+        }
+        
+        Bucket<K> bucket = head;
+        Iterator<K> iterator = bucket.keys.iterator();
+        K victim = iterator.next();
+        iterator.remove();
+        if (bucket.keys.isEmpty()) {
+            unlink(bucket);
+        }
+        
+        buckets.remove(victim);
+        return victim;
+    }
+    
+    @Override
+    public void clear() {
+        buckets.clear();
+        head = null;
+    }
+    
+    private void removeFromBucket(Bucket<K> bucket, K key) {
+        bucket.keys.remove(key);
+        if (bucket.keys.isEmpty()) {
+            unlink(bucket);
+        }
+    }
+    
+    /**
+     * Inserts a bucket after the given one, or at the head when {@code previous} is null.
+     */
+    private void linkAfter(Bucket<K> previous, Bucket<K> bucket) {
+        Bucket<K> next = previous == null ? head : previous.next;
+        bucket.prev = previous;
+        bucket.next = next;
+        
+        if (next != null) {
+            next.prev = bucket;
+        }
+        
+        if (previous == null) {
+            head = bucket;
+        } else {
+            previous.next = bucket;
+        }
+    }
+    
+    private void unlink(Bucket<K> bucket) {
+        if (bucket.prev == null) {
+            head = bucket.next;
+        } else {
+            bucket.prev.next = bucket.next;
+        }
+        
+        if (bucket.next != null) {
+            bucket.next.prev = bucket.prev;
+        }
+        
+        bucket.prev = null;
+        bucket.next = null;
+    }
+    
+    /**
+     * Keys sharing the same access frequency, in insertion order.
+     */
+    private static final class Bucket<K> {
+        private final long frequency;
+        private final LinkedHashSet<K> keys = new LinkedHashSet<>();
+        private Bucket<K> prev;
+        private Bucket<K> next;
+        
+        private Bucket(long frequency) {
+            this.frequency = frequency;
+        }
+    }
+}
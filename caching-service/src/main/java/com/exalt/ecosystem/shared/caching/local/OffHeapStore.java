@@ -0,0 +1,285 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import com.exalt.ecosystem.shared.caching.CacheEntry;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheException.ErrorCode;
+import com.exalt.ecosystem.shared.caching.CacheSerializer;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Slab allocator that keeps serialized cache values in direct memory.
+ * <p>
+ * Memory is reserved in fixed-size slabs of direct {@link ByteBuffer}s,
+ * up to the configured capacity. A slab is carved into equal chunks of
+ * one size class; size classes grow by a factor of 1.25 from
+ * {@value #MIN_CHUNK_SIZE} bytes up to the slab size, so a value wastes
+ * at most a fifth of its chunk. Freed chunks go back on their slab's
+ * free list, and a slab whose chunks are all free returns to a shared
+ * pool where any size class can claim it.
+ * <p>
+ * Reads do not lock. Every chunk has a generation that is bumped when it
+ * is freed; a read copies the bytes and then checks that the generation
+ * still matches the entry, so a read racing with a free and reuse of the
+ * chunk reports the value as gone instead of returning foreign bytes.
+ * <p>
+ * Allocation and freeing are not thread-safe; the owning cache
+ * serializes them through its eviction lock.
+ *
+ * @param <V> Type of the cached value
+ */
+final class OffHeapStore<V> {
+    
+    static final int MIN_CHUNK_SIZE = 64;
+    
+    private static final double GROWTH_FACTOR = 1.25;
+    
+    private final CacheSerializer<V> serializer;
+    private final int slabSize;
+    private final long maxSlabs;
+    private final int[] chunkSizes;
+    private final List<ArrayDeque<Slab>> partialSlabs;
+    private final ArrayDeque<Slab> emptySlabs = new ArrayDeque<>();
+    private long slabCount;
+    private long usedBytes;
+    
+    /**
+     * Creates a new off-heap store.
+     *
+     * @param serializer    The serializer for values
+     * @param capacityBytes The maximum amount of direct memory to reserve
+     * @param slabSize      The size of each slab, which bounds the largest value
+     */
+    OffHeapStore(CacheSerializer<V> serializer, long capacityBytes, int slabSize) {
+        if (slabSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Slab size must be at least " + MIN_CHUNK_SIZE + " bytes");
+        }
+        if (capacityBytes < slabSize) {
+            throw new IllegalArgumentException("Off-heap capacity must hold at least one slab");
+        }
+        this.serializer = serializer;
+        this.slabSize = slabSize;
+        this.maxSlabs = capacityBytes / slabSize;
+        this.chunkSizes = chunkSizes(slabSize);
+        this.partialSlabs = new ArrayList<>(chunkSizes.length);
+        for (int i = 0; i < chunkSizes.length; i++) {
+            partialSlabs.add(new ArrayDeque<>());
+        }
+    }
+    
+    /**
+     * Serializes a value, checking that it fits in a slab.
+     *
+     * @param value The value to serialize
+     * @return The serialized bytes
+     * @throws CacheException if the value cannot be serialized or is larger than a slab
+     */
+    byte[] serialize(V value) throws CacheException {
+        byte[] bytes = serializer.serialize(value);
+        if (bytes.length > slabSize) {
+            throw new CacheException(
+                ErrorCode.CAPACITY_EXCEEDED,
+                "Serialized value of " + bytes.length + " bytes exceeds the off-heap slab size of " + slabSize + " bytes"
+            );
+        }
+        return bytes;
+    }
+    
+    /**
+     * Copies serialized bytes into a free chunk.
+     *
+     * @param bytes    The serialized value
+     * @param ttl      Time to live duration, or -1 for no expiration
+     * @param timeUnit Time unit for the TTL
+     * @param weight   The weight of the entry
+     * @return The entry referencing the chunk, or null if no chunk of the
+     *         required size class is free and the capacity is exhausted
+     */
+    OffHeapEntry<V> allocate(byte[] bytes, long ttl, TimeUnit timeUnit, int weight) {
+        int sizeClass = sizeClass(bytes.length);
+        ArrayDeque<Slab> partial = partialSlabs.get(sizeClass);
+        
+        Slab slab = partial.peekFirst();
+        if (slab == null) {
+            slab = emptySlabs.pollFirst();
+            if (slab == null) {
+                if (slabCount >= maxSlabs) {
+                    return null;
+                }
+                slab = new Slab(ByteBuffer.allocateDirect(slabSize));
+                slabCount++;
+            }
+            slab.assign(sizeClass, chunkSizes[sizeClass]);
+            partial.addFirst(slab);
+        }
+        
+        int chunk = slab.freeChunks[--slab.freeCount];
+        if (slab.freeCount == 0) {
+            partial.pollFirst();
+        }
+        usedBytes += slab.chunkSize;
+        
+        slab.buffer.put(chunk * slab.chunkSize, bytes);
+        return new OffHeapEntry<>(slab, chunk, slab.generations.get(chunk), bytes.length, ttl, timeUnit, weight);
+    }
+    
+    /**
+     * Reads and deserializes the value of an entry.
+     *
+     * @param entry The entry to read
+     * @return The value, or null if the entry's chunk has been freed
+     * @throws CacheException if the value cannot be deserialized
+     */
+    V read(OffHeapEntry<V> entry) throws CacheException {
+        Slab slab = entry.slab;
+        AtomicIntegerArray generations = slab.generations;
+        if (generations.get(entry.chunk) != entry.generation) {
+            return null;
+        }
+        
+        byte[] bytes = new byte[entry.length];
+        slab.buffer.get(entry.offset, bytes);
+        
+        // The copy must complete before the generation is checked again
+        VarHandle.acquireFence();
+        if (generations.get(entry.chunk) != entry.generation) {
+            return null;
+        }
+        
+        return serializer.deserialize(bytes);
+    }
+    
+    /**
+     * Frees the chunk of an entry. The entry must no longer be reachable
+     * from the cache; concurrent readers that still hold it will see it as gone.
+     *
+     * @param entry The entry to free
+     */
+    void release(OffHeapEntry<V> entry) {
+        Slab slab = entry.slab;
+        if (slab.generations.get(entry.chunk) != entry.generation) {
+            return;
+        }
+        slab.generations.incrementAndGet(entry.chunk);
+        usedBytes -= slab.chunkSize;
+        
+        slab.freeChunks[slab.freeCount++] = entry.chunk;
+        if (slab.freeCount == 1) {
+            partialSlabs.get(slab.sizeClass).addFirst(slab);
+        }
+        if (slab.freeCount == slab.chunkCount) {
+            partialSlabs.get(slab.sizeClass).remove(slab);
+            emptySlabs.addFirst(slab);
+        }
+    }
+    
+    /**
+     * Gets the number of bytes held by allocated chunks.
+     *
+     * @return The used bytes, including the unused tail of each chunk
+     */
+    long usedBytes() {
+        return usedBytes;
+    }
+    
+    /**
+     * Gets the amount of direct memory reserved in slabs.
+     *
+     * @return The reserved bytes
+     */
+    long reservedBytes() {
+        return slabCount * slabSize;
+    }
+    
+    private int sizeClass(int length) {
+        int index = Arrays.binarySearch(chunkSizes, Math.max(length, 1));
+        return index >= 0 ? index : -index - 1;
+    }
+    
+    private static int[] chunkSizes(int slabSize) {
+        List<Integer> sizes = new ArrayList<>();
+        long size = MIN_CHUNK_SIZE;
+        while (size < slabSize) {
+            sizes.add((int) size);
+            // Keep chunks 8-byte aligned
+            size = Math.max(size + 8, ((long) (size * GROWTH_FACTOR) + 7) & ~7L);
+        }
+        sizes.add(slabSize);
+        return sizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    /**
+     * A slab of direct memory carved into chunks of a single size class.
+     */
+    static final class Slab {
+        final ByteBuffer buffer;
+        int sizeClass;
+        int chunkSize;
+        int chunkCount;
+        int[] freeChunks;
+        int freeCount;
+        
+        /**
+         * Chunk generations, indexed by chunk number. Counters are carried
+         * over when the slab changes size class so that they never repeat.
+         */
+        volatile AtomicIntegerArray generations = new AtomicIntegerArray(0);
+        
+        Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+        
+        /**
+         * Assigns this slab, which must have no allocated chunks, to a size class.
+         */
+        void assign(int sizeClass, int chunkSize) {
+            this.sizeClass = sizeClass;
+            this.chunkSize = chunkSize;
+            this.chunkCount = buffer.capacity() / chunkSize;
+            this.freeChunks = new int[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                freeChunks[i] = chunkCount - 1 - i;
+            }
+            this.freeCount = chunkCount;
+            
+            AtomicIntegerArray previous = generations;
+            if (previous.length() < chunkCount) {
+                AtomicIntegerArray grown = new AtomicIntegerArray(chunkCount);
+                for (int i = 0; i < previous.length(); i++) {
+                    grown.set(i, previous.get(i));
+                }
+                generations = grown;
+            }
+        }
+    }
+    
+    /**
+     * A cache entry whose value lives in a chunk of a slab.
+     * {@link #getValue()} returns null; the value is read through the store.
+     *
+     * @param <V> Type of the cached value
+     */
+    static final class OffHeapEntry<V> extends CacheEntry<V> {
+        private final Slab slab;
+        private final int chunk;
+        private final int generation;
+        private final int offset;
+        private final int length;
+        
+        OffHeapEntry(Slab slab, int chunk, int generation, int length, long ttl, TimeUnit timeUnit, int weight) {
+            super(null, ttl, timeUnit, weight);
+            this.slab = slab;
+            this.chunk = chunk;
+            this.generation = generation;
+            this.offset = chunk * slab.chunkSize;
+            this.length = length;
+        }
+    }
+}
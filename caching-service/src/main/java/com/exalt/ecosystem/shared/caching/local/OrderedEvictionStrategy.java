@@ -0,0 +1,65 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * LRU and FIFO eviction backed by a {@link LinkedHashMap}.
+ * <p>
+ * In access order the head of the map is the least recently used key;
+ * in insertion order it is the oldest key. Both lookups and reordering
+ * are constant time.
+ *
+ * @param <K> Type of the cache key
+ */
+final class OrderedEvictionStrategy<K> implements EvictionStrategy<K> {
+    
+    private final LinkedHashMap<K, Boolean> order;
+    private final boolean accessOrder;
+    
+    /**
+     * Creates a new ordered strategy.
+     *
+     * @param initialCapacity Expected number of tracked keys
+     * @param accessOrder     true for LRU ordering, false for FIFO ordering
+     */
+    OrderedEvictionStrategy(int initialCapacity, boolean accessOrder) {
+        this.order = new LinkedHashMap<>(Math.max(16, initialCapacity), 0.75f, accessOrder);
+        this.accessOrder = accessOrder;
+    }
+    
+    @Override
+    public void recordInsert(K key) {
+        order.put(key, Boolean.TRUE);
+    }
+    
+    @Override
+    public void recordAccess(K key) {
+        if (accessOrder) {
+            // get() moves the key to the tail when the map is access ordered
+            order.get(key);
+        }
+    }
+    
+    @Override
+    public void recordRemoval(K key) {
+        order.remove(key);
+    }
+    
+    @Override
+    public K pollVictim() {
+        Iterator<K> iterator = order.keySet().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        
+        K victim = iterator.next();
+        iterator.remove();
+        return victim;
+    }
+    
+    @Override
+    public void clear() {
+        order.clear();
+    }
+}
@@ -0,0 +1,81 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random replacement in constant time.
+ * <p>
+ * Keys live in a dense list with a reverse index, so a random slot can be
+ * chosen directly and removals swap the last key into the freed slot.
+ *
+ * @param <K> Type of the cache key
+ */
+final class RandomEvictionStrategy<K> implements EvictionStrategy<K> {
+    
+    private final List<K> keys;
+    private final Map<K, Integer> positions;
+    
+    /**
+     * Creates a new random strategy.
+     *
+     * @param initialCapacity Expected number of tracked keys
+     */
+    RandomEvictionStrategy(int initialCapacity) {
+        this.keys = new ArrayList<>(Math.max(16, initialCapacity));
+        this.positions = new HashMap<>(Math.max(16, initialCapacity));
+    }
+    
+    @Override
+    public void recordInsert(K key) {
+        if (!positions.containsKey(key)) {
+            positions.put(key, keys.size());
+            keys.add(key);
+        }
+    }
+    
+    @Override
+    public void recordAccess(K key) {
+        // Access history does not influence random replacement
+    }
+    
+    @Override
+    public void recordRemoval(K key) {
+        Integer position = positions.remove(key);
+        if (position != null) {
+            removeAt(position);
+        }
+    }
+    
+    @Override
+    public K pollVictim() {
+        if (keys.isEmpty()) {
+            return null;
+        }
+        
+        int position = ThreadLocalRandom.current().nextInt(keys.size());
+        K victim = keys.get(position);
+        positions.remove(victim);
+        removeAt(position);
+        return victim;
+    }
+    
+    @Override
+    public void clear() {
+        keys.clear();
+        positions.clear();
+    }
+    
+    private void removeAt(int position) {
+        int lastIndex = keys.size() - 1;
+        K last = keys.remove(lastIndex);
+        
+        if (position != lastIndex) {
+            keys.set(position, last);
+            positions.put(last, position);
+        }
+    }
+}
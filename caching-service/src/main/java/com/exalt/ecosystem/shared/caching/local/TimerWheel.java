@@ -0,0 +1,204 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel that indexes keys by expiration time.
+ * <p>
+ * Each level is a ring of buckets covering a power-of-two span of
+ * milliseconds. Scheduling and descheduling are constant time, and
+ * advancing the wheel only visits the buckets whose span has elapsed,
+ * so expiring entries costs time proportional to the number of expired
+ * (or cascaded) keys rather than to the cache size. Keys fire at most
+ * one level-0 span ({@value #LEVEL_ZERO_SPAN_MILLIS} ms) late.
+ * <p>
+ * Not thread-safe; the owning cache serializes access through its
+ * eviction lock.
+ *
+ * @param <K> Type of the cache key
+ */
+final class TimerWheel<K> {
+    
+    static final long LEVEL_ZERO_SPAN_MILLIS = 1L << 6;
+    
+    /** Buckets per level; each must be a power of two */
+    private static final int[] BUCKETS = {64, 64, 64, 64};
+    
+    /** Bit shift giving the bucket span of each level: ~64ms, ~4s, ~4.4m, ~4.7h */
+    private static final int[] SHIFTS = {6, 12, 18, 24};
+    
+    private final Node<K>[][] wheel;
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private long now;
+    
+    /**
+     * Creates a new timer wheel.
+     *
+     * @param nowMillis The current time in milliseconds since epoch
+     */
+    @SuppressWarnings("unchecked")
+    TimerWheel(long nowMillis) {
+        this.now = nowMillis;
+        this.wheel = new Node[BUCKETS.length][];
+        for (int level = 0; level < BUCKETS.length; level++) {
+            wheel[level] = new Node[BUCKETS[level]];
+            for (int i = 0; i < BUCKETS[level]; i++) {
+                wheel[level][i] = Node.sentinel();
+            }
+        }
+    }
+    
+    /**
+     * Schedules a key to expire at the given time, replacing any earlier schedule.
+     *
+     * @param key            The cache key
+     * @param expirationTime The expiration time in milliseconds since epoch
+     */
+    void schedule(K key, long expirationTime) {
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            node = new Node<>(key);
+            nodes.put(key, node);
+        } else {
+            node.unlink();
+        }
+        
+        node.time = expirationTime;
+        link(findBucket(expirationTime), node);
+    }
+    
+    /**
+     * Removes a key from the wheel.
+     *
+     * @param key The cache key
+     */
+    void deschedule(K key) {
+        Node<K> node = nodes.remove(key);
+        if (node != null) {
+            node.unlink();
+        }
+    }
+    
+    /**
+     * Advances the wheel to the given time, handing every key whose
+     * expiration time has passed to the consumer.
+     *
+     * @param nowMillis The current time in milliseconds since epoch
+     * @param expired   Receives the expired keys, which are no longer scheduled
+     */
+    void advance(long nowMillis, Consumer<K> expired) {
+        long previous = now;
+        if (nowMillis <= previous) {
+            return;
+        }
+        now = nowMillis;
+        
+        for (int level = 0; level < SHIFTS.length; level++) {
+            long previousTicks = previous >>> SHIFTS[level];
+            long currentTicks = nowMillis >>> SHIFTS[level];
+            long delta = currentTicks - previousTicks;
+            if (delta <= 0) {
+                break;
+            }
+            expire(level, previousTicks, delta, expired);
+        }
+    }
+    
+    /**
+     * Removes all keys from the wheel.
+     */
+    void clear() {
+        for (Node<K>[] buckets : wheel) {
+            for (Node<K> sentinel : buckets) {
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+            }
+        }
+        nodes.clear();
+    }
+    
+    private void expire(int level, long previousTicks, long delta, Consumer<K> expired) {
+        Node<K>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(1 + delta, buckets.length);
+        int start = (int) (previousTicks & mask);
+        
+        for (int i = start; i < start + steps; i++) {
+            Node<K> sentinel = buckets[i & mask];
+            Node<K> node = sentinel.next;
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            
+            while (node != sentinel) {
+                Node<K> next = node.next;
+                node.prev = null;
+                node.next = null;
+                
+                if (node.time < now) {
+                    nodes.remove(node.key);
+                    expired.accept(node.key);
+                } else {
+                    // Cascade into a finer-grained bucket
+                    link(findBucket(node.time), node);
+                }
+                node = next;
+            }
+        }
+    }
+    
+    private Node<K> findBucket(long time) {
+        long target = Math.max(time, now);
+        long duration = target - now;
+        int last = SHIFTS.length - 1;
+        
+        for (int level = 0; level < last; level++) {
+            if (duration < (1L << SHIFTS[level + 1])) {
+                long ticks = target >>> SHIFTS[level];
+                return wheel[level][(int) (ticks & (BUCKETS[level] - 1))];
+            }
+        }
+        
+        // Anything beyond the wheel horizon waits in the farthest bucket and cascades later
+        long ticks = Math.min(target >>> SHIFTS[last], (now >>> SHIFTS[last]) + BUCKETS[last] - 1);
+        return wheel[last][(int) (ticks & (BUCKETS[last] - 1))];
+    }
+    
+    private static <K> void link(Node<K> sentinel, Node<K> node) {
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+    
+    /**
+     * Entry in a bucket's circular doubly linked list.
+     */
+    private static final class Node<K> {
+        private final K key;
+        private long time;
+        private Node<K> prev;
+        private Node<K> next;
+        
+        private Node(K key) {
+            this.key = key;
+        }
+        
+        private static <K> Node<K> sentinel() {
+            Node<K> sentinel = new Node<>(null);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+        
+        private void unlink() {
+            if (prev != null) {
+                prev.next = next;
+                next.prev = prev;
+                prev = null;
+                next = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheWriter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues the writes and removals of a cache for a {@link CacheWriter}.
+ * <p>
+ * Pending operations are kept in a map holding the latest operation per
+ * key, so any number of writes to a key between two flushes reach the
+ * writer as one. Flushes run on a schedule and pass the writer batches
+ * of at most {@code writeBehindBatchSize} keys. A batch the writer fails
+ * is queued again unless the key has been written since, and retried on
+ * the next flush.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+final class WriteBehindQueue<K, V> {
+    
+    /** Pending operation of a removed key */
+    private static final Object DELETE = new Object();
+    
+    private final String cacheName;
+    private final CacheWriter<K, V> writer;
+    private final int batchSize;
+    private final Map<K, Object> pending = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> flushTask;
+    
+    /**
+     * Creates a queue and schedules its flushes.
+     *
+     * @param cacheName       The name of the cache, for error messages
+     * @param writer          The writer to flush to
+     * @param intervalMillis  The interval between flushes in milliseconds
+     * @param batchSize       The maximum number of keys per writer call
+     */
+    WriteBehindQueue(String cacheName, CacheWriter<K, V> writer, long intervalMillis, int batchSize) {
+        this.cacheName = cacheName;
+        this.writer = writer;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushTask = Scheduler.INSTANCE.scheduleWithFixedDelay(
+            this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    void write(K key, V value) {
+        pending.put(key, value);
+    }
+    
+    void delete(K key) {
+        pending.put(key, DELETE);
+    }
+    
+    /**
+     * Gets the number of keys waiting to be flushed.
+     *
+     * @return The pending key count
+     */
+    int pendingCount() {
+        return pending.size();
+    }
+    
+    /**
+     * Passes the pending operations to the writer. An operation is only
+     * claimed if it is still the latest one for its key, so writes that
+     * arrive during the flush are kept for the next one.
+     *
+     * @throws CacheException if the writer failed a batch; the failed keys stay queued
+     */
+    @SuppressWarnings("unchecked")
+    synchronized void flush() throws CacheException {
+        Map<K, V> writes = new LinkedHashMap<>();
+        List<K> deletes = new ArrayList<>();
+        CacheException failure = null;
+        
+        for (Map.Entry<K, Object> operation : pending.entrySet()) {
+            if (!pending.remove(operation.getKey(), operation.getValue())) {
+                continue;
+            }
+            if (operation.getValue() == DELETE) {
+                deletes.add(operation.getKey());
+            } else {
+                writes.put(operation.getKey(), (V) operation.getValue());
+            }
+            
+            if (writes.size() >= batchSize) {
+                failure = writeBatch(writes, failure);
+                writes = new LinkedHashMap<>();
+            }
+            if (deletes.size() >= batchSize) {
+                failure = deleteBatch(deletes, failure);
+                deletes = new ArrayList<>();
+            }
+        }
+        
+        if (!writes.isEmpty()) {
+            failure = writeBatch(writes, failure);
+        }
+        if (!deletes.isEmpty()) {
+            failure = deleteBatch(deletes, failure);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    /**
+     * Stops the scheduled flushes and flushes what is still queued.
+     *
+     * @throws CacheException if the writer failed the final flush
+     */
+    void close() throws CacheException {
+        flushTask.cancel(false);
+        flush();
+    }
+    
+    private CacheException writeBatch(Map<K, V> batch, CacheException failure) {
+        try {
+            writer.writeAll(batch);
+            return failure;
+        } catch (CacheException | RuntimeException e) {
+            batch.forEach(pending::putIfAbsent);
+            return failureOf(failure, e);
+        }
+    }
+    
+    private CacheException deleteBatch(List<K> batch, CacheException failure) {
+        try {
+            writer.deleteAll(batch);
+            return failure;
+        } catch (CacheException | RuntimeException e) {
+            for (K key : batch) {
+                pending.putIfAbsent(key, DELETE);
+            }
+            return failureOf(failure, e);
+        }
+    }
+    
+    private CacheException failureOf(CacheException previous, Exception e) {
+        if (previous != null) {
+            return previous;
+        }
+        return e instanceof CacheException
+            ? (CacheException) e
+            : new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Write-behind of cache '" + cacheName + "' failed: " + e.getMessage(), e);
+    }
+    
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (CacheException | RuntimeException e) {
+            // Log the error; the failed keys are retried on the next flush
+            System.err.println("Error writing behind cache '" + cacheName + "': " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Scheduler shared by the write-behind queues of all caches. Created on
+     * first use, with a single daemon thread.
+     */
+    private static final class Scheduler {
+        static final ScheduledExecutorService INSTANCE = createScheduler();
+        
+        private static ScheduledExecutorService createScheduler() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "in-memory-cache-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.exalt.ecosystem.shared.caching.metrics;
+
+import com.exalt.ecosystem.shared.caching.Cache;
+import com.exalt.ecosystem.shared.caching.CacheStats;
+import com.exalt.ecosystem.shared.caching.RemovalCause;
+import com.exalt.ecosystem.shared.caching.StatsCounter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exports a cache's {@link CacheStats} as Micrometer meters, tagged with
+ * {@code cache=<cache name>}.
+ * <ul>
+ *   <li>{@code cache.gets} with {@code result=hit|miss}</li>
+ *   <li>{@code cache.negative.hits}, misses answered from the remembered absent keys</li>
+ *   <li>{@code cache.loads} with {@code result=success|failure}</li>
+ *   <li>{@code cache.load.duration}, a timer over all loads</li>
+ *   <li>{@code cache.evictions} with {@code cause=size|expired}</li>
+ *   <li>{@code cache.removals} with {@code cause=explicit|replaced}</li>
+ * </ul>
+ * The meters read the counters lazily when the registry publishes, so
+ * binding adds no cost to cache operations. Each meter reads its own
+ * counter from the cache's {@link StatsCounter} rather than taking a
+ * full snapshot. They stay at zero unless the
+ * cache was created with {@code recordStats} enabled. The entry count is
+ * not exported because it requires a key scan for remote caches.
+ */
+public class CacheMetrics implements MeterBinder {
+    
+    private final StatsCounter stats;
+    private final Iterable<Tag> tags;
+    
+    /**
+     * Creates a binder for a cache.
+     *
+     * @param cache The cache to monitor
+     * @param tags  Additional tags applied to every meter
+     */
+    public CacheMetrics(Cache<?, ?> cache, Iterable<Tag> tags) {
+        this.stats = cache.getStatsCounter();
+        this.tags = Tags.of(tags).and("cache", cache.getName());
+    }
+    
+    /**
+     * Binds the metrics of a cache to a registry.
+     *
+     * @param <C>      The type of the cache
+     * @param registry The registry to bind to
+     * @param cache    The cache to monitor
+     * @param tags     Additional tags as key-value pairs
+     * @return The monitored cache
+     */
+    public static <C extends Cache<?, ?>> C monitor(MeterRegistry registry, C cache, String... tags) {
+        new CacheMetrics(cache, Tags.of(tags)).bindTo(registry);
+        return cache;
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "cache.gets", "result", "hit", "Lookups that found a value", StatsCounter::getHitCount);
+        counter(registry, "cache.gets", "result", "miss", "Lookups that found no value", StatsCounter::getMissCount);
+        FunctionCounter.builder("cache.negative.hits", stats, StatsCounter::getNegativeHitCount)
+            .tags(tags)
+            .description("Misses answered from the remembered absent keys without loading")
+            .register(registry);
+        counter(registry, "cache.loads", "result", "success", "Loads that produced a value",
+            StatsCounter::getLoadSuccessCount);
+        counter(registry, "cache.loads", "result", "failure", "Loads that failed or produced no value",
+            StatsCounter::getLoadFailureCount);
+        
+        FunctionTimer.builder("cache.load.duration", stats,
+                s -> s.getLoadSuccessCount() + s.getLoadFailureCount(),
+                StatsCounter::getTotalLoadTimeNanos,
+                TimeUnit.NANOSECONDS)
+            .tags(tags)
+            .description("Time spent loading values into the cache")
+            .register(registry);
+        
+        for (RemovalCause cause : RemovalCause.values()) {
+            String name = cause.isEviction() ? "cache.evictions" : "cache.removals";
+            counter(registry, name, "cause", cause.name().toLowerCase(Locale.ROOT),
+                "Entries removed from the cache by cause", s -> s.getRemovalCount(cause));
+        }
+    }
+    
+    private void counter(MeterRegistry registry, String name, String tagKey, String tagValue,
+                         String description, ToDoubleFunction<StatsCounter> value) {
+        FunctionCounter.builder(name, stats, value)
+            .tags(tags)
+            .tag(tagKey, tagValue)
+            .description(description)
+            .register(registry);
+    }
+}
@@ -0,0 +1,138 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable consistent-hash ring mapping keys to nodes.
+ * <p>
+ * Every node is placed on the ring at {@code virtualNodes} points derived
+ * from its id, and a key belongs to the node owning the first point at or
+ * after the key's hash. Adding a node therefore only moves the keys that
+ * now fall just before its points, about {@code 1/(n+1)} of them, and
+ * removing one only moves the keys it owned. Many points per node keep
+ * the share of each node close to even.
+ * <p>
+ * Placement depends only on the node ids, so every process configured
+ * with the same nodes routes keys the same way. Points are kept in sorted
+ * arrays and looked up with a binary search.
+ */
+final class ConsistentHashRing {
+    
+    /** Default number of points per node, enough for a few percent of imbalance */
+    static final int DEFAULT_VIRTUAL_NODES = 160;
+    
+    private final List<String> nodes;
+    private final int virtualNodes;
+    private final long[] points;
+    private final String[] owners;
+    
+    /**
+     * Creates a ring of the given nodes.
+     *
+     * @param nodes        The node ids
+     * @param virtualNodes The number of points per node
+     */
+    ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive");
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        this.virtualNodes = virtualNodes;
+        
+        long[] hashes = new long[this.nodes.size() * virtualNodes];
+        String[] hashOwners = new String[hashes.length];
+        Integer[] order = new Integer[hashes.length];
+        for (int n = 0; n < this.nodes.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int index = n * virtualNodes + v;
+                hashes[index] = hash((this.nodes.get(n) + "#" + v).getBytes(StandardCharsets.UTF_8));
+                hashOwners[index] = this.nodes.get(n);
+                order[index] = index;
+            }
+        }
+        
+        // Break the (unlikely) tie of two equal points by node id, so placement never depends on node order
+        Arrays.sort(order, (a, b) -> hashes[a] != hashes[b]
+            ? Long.compare(hashes[a], hashes[b])
+            : hashOwners[a].compareTo(hashOwners[b]));
+        this.points = new long[hashes.length];
+        this.owners = new String[hashes.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = hashOwners[order[i]];
+        }
+    }
+    
+    /**
+     * Gets the node ids of the ring.
+     *
+     * @return The node ids, in the order they were added
+     */
+    List<String> nodes() {
+        return nodes;
+    }
+    
+    /**
+     * Creates a ring with one more node.
+     *
+     * @param node The node id to add
+     * @return The new ring
+     */
+    ConsistentHashRing withNode(String node) {
+        List<String> changed = new ArrayList<>(nodes);
+        changed.add(node);
+        return new ConsistentHashRing(changed, virtualNodes);
+    }
+    
+    /**
+     * Creates a ring without a node.
+     *
+     * @param node The node id to remove
+     * @return The new ring
+     */
+    ConsistentHashRing withoutNode(String node) {
+        List<String> changed = new ArrayList<>(nodes);
+        changed.remove(node);
+        return new ConsistentHashRing(changed, virtualNodes);
+    }
+    
+    /**
+     * Gets the node owning a key.
+     *
+     * @param key The encoded key
+     * @return The node id, or null if the ring is empty
+     */
+    String nodeFor(byte[] key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+    
+    /**
+     * Hashes bytes to 64 bits: FNV-1a, followed by the MurmurHash3
+     * finalizer so that similar keys spread over the whole ring.
+     */
+    static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe1a85b7bL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
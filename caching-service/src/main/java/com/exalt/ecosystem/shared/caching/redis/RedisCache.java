@@ -1,97 +1,646 @@
 package com.exalt.ecosystem.shared.caching.redis;
 
-import com.exalt.ecosystem.shared.caching.Cache;
+import com.exalt.ecosystem.shared.caching.AbstractCache;
 import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheEntry;
 import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheException.ErrorCode;
+import com.exalt.ecosystem.shared.caching.CacheSerializer;
+import com.exalt.ecosystem.shared.caching.CacheSerializers;
+import com.exalt.ecosystem.shared.caching.RemovalCause;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisConnectionException;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Supplier;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 
 /**
  * Redis implementation of the Cache interface.
- * This is a simplified implementation for compilation purposes.
+ * <p>
+ * All commands go through one asynchronous Lettuce connection, so
+ * concurrent callers are pipelined on the wire instead of waiting for each
+ * other's round-trips. Automatic flushing is disabled: every operation
+ * queues its commands and flushes once, and bulk operations flush every
+ * {@value #PIPELINE_BATCH_SIZE} commands, so a batch reaches Redis in as
+ * few socket writes as possible.
+ * <p>
+ * Entries are stored under {@code <cache name>:<serialized key>}. Keys are
+ * encoded with the configured key serializer, or as the UTF-8 form of
+ * {@code String.valueOf(key)} when none is set; values default to Java
+ * serialization.
  *
  * @param <K> Type of the cache key
  * @param <V> Type of the cached value
  */
-public class RedisCache<K, V> implements Cache<K, V> {
-    private final String name;
-    private final CacheConfig config;
+public class RedisCache<K, V> extends AbstractCache<K, V> {
+    
+    /** Maximum number of commands or keys sent before the pipeline is flushed */
+    static final int PIPELINE_BATCH_SIZE = 512;
+    
+    private static final long SCAN_COUNT = 1000;
+    private static final String DEFAULT_CONNECTION_STRING = "redis://localhost:6379";
+    
+    private final byte[] keyPrefix;
+    private final CacheSerializer<K> keySerializer;
+    private final CacheSerializer<V> valueSerializer;
+    private final Duration timeout;
+    private final RedisClient client;
+    private final StatefulRedisConnection<byte[], byte[]> connection;
+    private final RedisAsyncCommands<byte[], byte[]> commands;
     
     /**
      * Creates a new Redis cache with the specified name and configuration.
+     * Connects using the configuration's connection string, timeout,
+     * credentials and SSL setting.
      *
      * @param name   The name of the cache
      * @param config The cache configuration
+     * @throws CacheException if the connection to Redis cannot be established
+     */
+    public RedisCache(String name, CacheConfig config) throws CacheException {
+        this(name, config, config.getConnectionString());
+    }
+    
+    /**
+     * Creates a new Redis cache connected to a given server rather than
+     * the configuration's connection string, as one shard of a
+     * {@link ShardedRedisCache}.
+     *
+     * @param name             The name of the cache
+     * @param config           The cache configuration
+     * @param connectionString The server to connect to
+     * @throws CacheException if the connection to Redis cannot be established
      */
-    public RedisCache(String name, CacheConfig config) {
-        this.name = name;
-        this.config = config;
-        // TODO: Initialize Redis connection
+    @SuppressWarnings("unchecked")
+    RedisCache(String name, CacheConfig config, String connectionString) throws CacheException {
+        super(name, config);
+        this.keyPrefix = (name + ":").getBytes(StandardCharsets.UTF_8);
+        this.keySerializer = (CacheSerializer<K>) config.getKeySerializer();
+        this.valueSerializer = config.getValueSerializer() != null
+            ? (CacheSerializer<V>) config.getValueSerializer()
+            : CacheSerializers.java();
+        this.timeout = Duration.ofMillis(config.getConnectionTimeout());
+        
+        this.client = createClient(config, connectionString, timeout);
+        
+        try {
+            this.connection = client.connect(ByteArrayCodec.INSTANCE);
+        } catch (RedisException e) {
+            client.shutdown();
+            throw new CacheException(
+                ErrorCode.CONNECTION_ERROR,
+                "Failed to connect to Redis for cache '" + name + "': " + e.getMessage(),
+                e
+            );
+        }
+        
+        connection.setAutoFlushCommands(false);
+        this.commands = connection.async();
     }
     
     @Override
     public V get(K key) throws CacheException {
-        // TODO: Implement Redis get operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        V value = getQuietly(key);
+        
+        if (value == null) {
+            statsCounter.recordMisses(1);
+        } else {
+            statsCounter.recordHits(1);
+        }
+        
+        return value;
     }
     
     @Override
-    public <T> T get(K key, Class<T> clazz) throws CacheException {
-        // TODO: Implement Redis get with type operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+    public Map<K, V> getAll(Collection<K> keys) throws CacheException {
+        if (keys == null) {
+            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache keys cannot be null");
+        }
+        
+        List<K> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        List<RedisFuture<List<KeyValue<byte[], byte[]>>>> futures = new ArrayList<>();
+        
+        try {
+            for (int from = 0; from < distinctKeys.size(); from += PIPELINE_BATCH_SIZE) {
+                List<K> chunk = distinctKeys.subList(from, Math.min(from + PIPELINE_BATCH_SIZE, distinctKeys.size()));
+                futures.add(commands.mget(encodeKeys(chunk)));
+            }
+            connection.flushCommands();
+        } catch (RedisException e) {
+            throw translate(e);
+        }
+        
+        Map<K, V> result = new LinkedHashMap<>();
+        int index = 0;
+        for (RedisFuture<List<KeyValue<byte[], byte[]>>> future : futures) {
+            for (KeyValue<byte[], byte[]> keyValue : await(future)) {
+                K key = distinctKeys.get(index++);
+                if (keyValue.hasValue()) {
+                    result.put(key, valueSerializer.deserialize(keyValue.getValue()));
+                }
+            }
+        }
+        
+        statsCounter.recordHits(result.size());
+        statsCounter.recordMisses(distinctKeys.size() - result.size());
+        return result;
     }
     
-    @Override
-    public V getOrPut(K key, Supplier<V> supplier) throws CacheException {
-        // TODO: Implement Redis getOrPut operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+    /**
+     * Gets a value together with its remaining time to live. The GET and
+     * PTTL commands are flushed together, so this costs one round-trip like
+     * {@link #get(Object)}.
+     *
+     * @param key The cache key
+     * @return An entry expiring when the Redis key does, or null if the key is absent
+     * @throws CacheException if a command fails
+     */
+    public CacheEntry<V> getEntry(K key) throws CacheException {
+        byte[] encodedKey = encodeKey(key);
+        RedisFuture<byte[]> value;
+        RedisFuture<Long> ttl;
+        try {
+            value = commands.get(encodedKey);
+            ttl = commands.pttl(encodedKey);
+            connection.flushCommands();
+        } catch (RedisException e) {
+            throw translate(e);
+        }
+        
+        CacheEntry<V> entry = toEntry(await(value), await(ttl));
+        if (entry == null) {
+            statsCounter.recordMisses(1);
+        } else {
+            statsCounter.recordHits(1);
+        }
+        return entry;
     }
     
-    @Override
-    public V getOrPut(K key, Supplier<V> supplier, long ttl, TimeUnit timeUnit) throws CacheException {
-        // TODO: Implement Redis getOrPut with TTL operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+    /**
+     * Gets the values of several keys together with their remaining time to
+     * live. Each MGET is pipelined with a PTTL per key of its batch.
+     *
+     * @param keys The cache keys
+     * @return Entries expiring when their Redis keys do, for the keys that are present
+     * @throws CacheException if a command fails
+     */
+    public Map<K, CacheEntry<V>> getAllEntries(Collection<K> keys) throws CacheException {
+        if (keys == null) {
+            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache keys cannot be null");
+        }
+        
+        List<K> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        List<RedisFuture<List<KeyValue<byte[], byte[]>>>> values = new ArrayList<>();
+        List<RedisFuture<Long>> ttls = new ArrayList<>(distinctKeys.size());
+        
+        try {
+            for (int from = 0; from < distinctKeys.size(); from += PIPELINE_BATCH_SIZE) {
+                byte[][] chunk = encodeKeys(distinctKeys.subList(from, Math.min(from + PIPELINE_BATCH_SIZE, distinctKeys.size())));
+                values.add(commands.mget(chunk));
+                for (byte[] encodedKey : chunk) {
+                    ttls.add(commands.pttl(encodedKey));
+                }
+                connection.flushCommands();
+            }
+        } catch (RedisException e) {
+            throw translate(e);
+        }
+        
+        Map<K, CacheEntry<V>> result = new LinkedHashMap<>();
+        int index = 0;
+        for (RedisFuture<List<KeyValue<byte[], byte[]>>> future : values) {
+            for (KeyValue<byte[], byte[]> keyValue : await(future)) {
+                CacheEntry<V> entry = toEntry(keyValue.hasValue() ? keyValue.getValue() : null, await(ttls.get(index)));
+                if (entry != null) {
+                    result.put(distinctKeys.get(index), entry);
+                }
+                index++;
+            }
+        }
+        
+        statsCounter.recordHits(result.size());
+        statsCounter.recordMisses(distinctKeys.size() - result.size());
+        return result;
     }
     
     @Override
     public void put(K key, V value) throws CacheException {
-        // TODO: Implement Redis put operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        // Use default TTL if specified in config
+        long ttl = config.getDefaultTtlSeconds();
+        if (ttl > 0) {
+            put(key, value, ttl, TimeUnit.SECONDS);
+            return;
+        }
+        
+        byte[] encodedKey = encodeKey(key);
+        byte[] encodedValue = encodeValue(value);
+        execute(redis -> redis.set(encodedKey, encodedValue));
+        forgetAbsent(key);
     }
     
     @Override
     public void put(K key, V value, long ttl, TimeUnit timeUnit) throws CacheException {
-        // TODO: Implement Redis put with TTL operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        if (ttl <= 0) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "TTL must be positive");
+        }
+        
+        byte[] encodedKey = encodeKey(key);
+        byte[] encodedValue = encodeValue(value);
+        SetArgs expiry = SetArgs.Builder.px(timeUnit.toMillis(ttl));
+        execute(redis -> redis.set(encodedKey, encodedValue, expiry));
+        forgetAbsent(key);
+    }
+    
+    @Override
+    public void putAll(Map<K, V> entries) throws CacheException {
+        long ttl = config.getDefaultTtlSeconds();
+        if (ttl > 0) {
+            putAll(entries, ttl, TimeUnit.SECONDS);
+            return;
+        }
+        
+        validateEntries(entries);
+        
+        List<RedisFuture<String>> futures = new ArrayList<>();
+        Map<byte[], byte[]> chunk = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<K, V> entry : entries.entrySet()) {
+                chunk.put(encodeKey(entry.getKey()), encodeValue(entry.getValue()));
+                if (chunk.size() == PIPELINE_BATCH_SIZE) {
+                    futures.add(commands.mset(chunk));
+                    chunk = new LinkedHashMap<>();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                futures.add(commands.mset(chunk));
+            }
+            connection.flushCommands();
+        } catch (RedisException e) {
+            throw translate(e);
+        }
+        
+        awaitAll(futures);
+        forgetAbsent(entries.keySet());
+    }
+    
+    @Override
+    public void putAll(Map<K, V> entries, long ttl, TimeUnit timeUnit) throws CacheException {
+        validateEntries(entries);
+        
+        if (ttl <= 0) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "TTL must be positive");
+        }
+        
+        // MSET cannot carry a TTL, so pipeline one SET PX per entry instead
+        SetArgs expiry = SetArgs.Builder.px(timeUnit.toMillis(ttl));
+        List<RedisFuture<String>> futures = new ArrayList<>(entries.size());
+        try {
+            for (Map.Entry<K, V> entry : entries.entrySet()) {
+                futures.add(commands.set(encodeKey(entry.getKey()), encodeValue(entry.getValue()), expiry));
+                if (futures.size() % PIPELINE_BATCH_SIZE == 0) {
+                    connection.flushCommands();
+                }
+            }
+            connection.flushCommands();
+        } catch (RedisException e) {
+            throw translate(e);
+        }
+        
+        awaitAll(futures);
+        forgetAbsent(entries.keySet());
     }
     
     @Override
     public boolean containsKey(K key) throws CacheException {
-        // TODO: Implement Redis containsKey operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        byte[] encodedKey = encodeKey(key);
+        Long count = execute(redis -> redis.exists(encodedKey));
+        return count != null && count > 0;
     }
     
     @Override
     public boolean remove(K key) throws CacheException {
-        // TODO: Implement Redis remove operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        byte[] encodedKey = encodeKey(key);
+        forgetAbsent(key);
+        Long removed = execute(redis -> redis.del(encodedKey));
+        
+        if (removed != null && removed > 0) {
+            statsCounter.recordRemovals(RemovalCause.EXPLICIT, 1);
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public int removeAll(Collection<K> keys) throws CacheException {
+        if (keys == null) {
+            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache keys cannot be null");
+        }
+        
+        forgetAbsent(keys);
+        List<K> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        List<RedisFuture<Long>> futures = new ArrayList<>();
+        try {
+            for (int from = 0; from < distinctKeys.size(); from += PIPELINE_BATCH_SIZE) {
+                List<K> chunk = distinctKeys.subList(from, Math.min(from + PIPELINE_BATCH_SIZE, distinctKeys.size()));
+                futures.add(commands.del(encodeKeys(chunk)));
+            }
+            connection.flushCommands();
+        } catch (RedisException e) {
+            throw translate(e);
+        }
+        
+        int removed = 0;
+        for (RedisFuture<Long> future : futures) {
+            removed += await(future).intValue();
+        }
+        
+        statsCounter.recordRemovals(RemovalCause.EXPLICIT, removed);
+        return removed;
     }
     
     @Override
     public void clear() throws CacheException {
-        // TODO: Implement Redis clear operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        forgetAllAbsent();
+        ScanArgs scanArgs = ScanArgs.Builder.matches(keyPattern()).limit(SCAN_COUNT);
+        KeyScanCursor<byte[]> cursor = execute(redis -> redis.scan(ScanCursor.INITIAL, scanArgs));
+        
+        while (true) {
+            byte[][] keys = cursor.getKeys().toArray(new byte[0][]);
+            if (keys.length > 0) {
+                Long removed = execute(redis -> redis.del(keys));
+                statsCounter.recordRemovals(RemovalCause.EXPLICIT, removed == null ? 0 : removed.intValue());
+            }
+            if (cursor.isFinished()) {
+                break;
+            }
+            ScanCursor position = cursor;
+            cursor = execute(redis -> redis.scan(position, scanArgs));
+        }
     }
     
+    @Override
+    protected V getQuietly(K key) throws CacheException {
+        byte[] encodedKey = encodeKey(key);
+        byte[] value = execute(redis -> redis.get(encodedKey));
+        return value == null ? null : valueSerializer.deserialize(value);
+    }
+    
+    /**
+     * Counts the entries of this cache.
+     * Redis has no per-prefix counter, so this walks the cache's keys with
+     * SCAN and should not be called on hot paths.
+     */
     @Override
     public long size() throws CacheException {
-        // TODO: Implement Redis size operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        ScanArgs scanArgs = ScanArgs.Builder.matches(keyPattern()).limit(SCAN_COUNT);
+        KeyScanCursor<byte[]> cursor = execute(redis -> redis.scan(ScanCursor.INITIAL, scanArgs));
+        long size = cursor.getKeys().size();
+        
+        while (!cursor.isFinished()) {
+            ScanCursor position = cursor;
+            cursor = execute(redis -> redis.scan(position, scanArgs));
+            size += cursor.getKeys().size();
+        }
+        
+        return size;
     }
     
     @Override
-    public String getName() {
-        return name;
+    public void close() throws CacheException {
+        try {
+            connection.close();
+        } finally {
+            client.shutdown();
+        }
+    }
+    
+    /**
+     * Deletes the keys of this cache that match a filter, walking them
+     * with SCAN. Used to drop the entries a shard no longer owns after the
+     * shards are rebalanced; the removals are not counted as evictions or
+     * explicit removals.
+     *
+     * @param filter Selects the encoded keys to delete
+     * @return The number of deleted keys
+     * @throws CacheException if a command fails
+     */
+    long removeKeysIf(Predicate<byte[]> filter) throws CacheException {
+        ScanArgs scanArgs = ScanArgs.Builder.matches(keyPattern()).limit(SCAN_COUNT);
+        KeyScanCursor<byte[]> cursor = execute(redis -> redis.scan(ScanCursor.INITIAL, scanArgs));
+        long removed = 0;
+        
+        while (true) {
+            byte[][] keys = cursor.getKeys().stream().filter(filter).toArray(byte[][]::new);
+            if (keys.length > 0) {
+                Long count = execute(redis -> redis.del(keys));
+                removed += count == null ? 0 : count;
+            }
+            if (cursor.isFinished()) {
+                return removed;
+            }
+            ScanCursor position = cursor;
+            cursor = execute(redis -> redis.scan(position, scanArgs));
+        }
+    }
+    
+    /**
+     * Encodes a key, including the cache name prefix.
+     *
+     * @param key The cache key
+     * @return The Redis key
+     * @throws CacheException if the key is null or cannot be serialized
+     */
+    byte[] encodeKey(K key) throws CacheException {
+        if (key == null) {
+            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
+        }
+        
+        byte[] serialized = keySerializer != null
+            ? keySerializer.serialize(key)
+            : String.valueOf(key).getBytes(StandardCharsets.UTF_8);
+        
+        byte[] encoded = new byte[keyPrefix.length + serialized.length];
+        System.arraycopy(keyPrefix, 0, encoded, 0, keyPrefix.length);
+        System.arraycopy(serialized, 0, encoded, keyPrefix.length, serialized.length);
+        return encoded;
+    }
+    
+    private byte[][] encodeKeys(List<K> keys) throws CacheException {
+        byte[][] encoded = new byte[keys.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = encodeKey(keys.get(i));
+        }
+        return encoded;
+    }
+    
+    private byte[] encodeValue(V value) throws CacheException {
+        if (value == null) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Cache value cannot be null");
+        }
+        return valueSerializer.serialize(value);
+    }
+    
+    /**
+     * Combines a GET reply with the PTTL reply sent right after it.
+     *
+     * @param value     The stored value, or null if the key is absent
+     * @param ttlMillis The remaining TTL: -1 without expiration, -2 once the key is gone
+     * @return The entry, or null if the key is absent or expired between the two commands
+     */
+    private CacheEntry<V> toEntry(byte[] value, Long ttlMillis) throws CacheException {
+        if (value == null || ttlMillis == null || ttlMillis == -2) {
+            return null;
+        }
+        
+        V decoded = valueSerializer.deserialize(value);
+        return ttlMillis < 0
+            ? new CacheEntry<>(decoded)
+            : new CacheEntry<>(decoded, ttlMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Builds a SCAN pattern matching every key of this cache.
+     */
+    private String keyPattern() {
+        StringBuilder pattern = new StringBuilder();
+        for (char c : name.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append(":*").toString();
+    }
+    
+    /**
+     * Sends a single command, flushes the pipeline and waits for the reply.
+     */
+    private <T> T execute(Command<T> command) throws CacheException {
+        RedisFuture<T> future;
+        try {
+            future = command.dispatch(commands);
+            connection.flushCommands();
+        } catch (RedisException e) {
+            throw translate(e);
+        }
+        return await(future);
+    }
+    
+    private <T> void awaitAll(List<RedisFuture<T>> futures) throws CacheException {
+        for (RedisFuture<T> future : futures) {
+            await(future);
+        }
+    }
+    
+    private <T> T await(RedisFuture<T> future) throws CacheException {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new CacheException(
+                ErrorCode.TIMEOUT_ERROR,
+                "Redis command timed out after " + timeout.toMillis() + "ms for cache '" + name + "'",
+                e
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Interrupted while waiting for Redis", e);
+        } catch (ExecutionException e) {
+            throw translate(e.getCause());
+        }
+    }
+    
+    private CacheException translate(Throwable error) {
+        if (error instanceof RedisConnectionException) {
+            return new CacheException(ErrorCode.CONNECTION_ERROR, "Redis connection failed: " + error.getMessage(), error);
+        }
+        if (error instanceof RedisCommandTimeoutException) {
+            return new CacheException(ErrorCode.TIMEOUT_ERROR, "Redis command timed out: " + error.getMessage(), error);
+        }
+        return new CacheException(ErrorCode.UNKNOWN_ERROR, "Redis command failed: " + error.getMessage(), error);
+    }
+    
+    /**
+     * A single Redis command issued on the asynchronous API.
+     */
+    @FunctionalInterface
+    private interface Command<T> {
+        RedisFuture<T> dispatch(RedisAsyncCommands<byte[], byte[]> redis);
+    }
+    
+    /**
+     * Creates a Redis client for the configuration's connection string,
+     * credentials and SSL setting.
+     *
+     * @param config  The cache configuration
+     * @param timeout The connect and command timeout
+     * @return A new, unconnected client
+     */
+    static RedisClient createClient(CacheConfig config, Duration timeout) {
+        return createClient(config, config.getConnectionString(), timeout);
+    }
+    
+    /**
+     * Creates a Redis client for a given server, with the configuration's
+     * credentials and SSL setting.
+     *
+     * @param config           The cache configuration
+     * @param connectionString The server to connect to, or null for the default
+     * @param timeout          The connect and command timeout
+     * @return A new, unconnected client
+     */
+    static RedisClient createClient(CacheConfig config, String connectionString, Duration timeout) {
+        RedisClient client = RedisClient.create(toRedisUri(config, connectionString, timeout));
+        client.setOptions(ClientOptions.builder()
+            .autoReconnect(true)
+            .protocolVersion(ProtocolVersion.RESP2)
+            .socketOptions(SocketOptions.builder().connectTimeout(timeout).build())
+            .build());
+        return client;
+    }
+    
+    private static RedisURI toRedisUri(CacheConfig config, String connectionString, Duration timeout) {
+        if (connectionString == null || connectionString.isEmpty()) {
+            connectionString = DEFAULT_CONNECTION_STRING;
+        } else if (!connectionString.contains("://")) {
+            connectionString = "redis://" + connectionString;
+        }
+        
+        RedisURI uri = RedisURI.create(connectionString);
+        uri.setTimeout(timeout);
+        if (config.isUseSsl()) {
+            uri.setSsl(true);
+        }
+        if (config.getPassword() != null) {
+            if (config.getUsername() != null) {
+                uri.setUsername(config.getUsername());
+            }
+            uri.setPassword(config.getPassword().toCharArray());
+        }
+        return uri;
     }
 }
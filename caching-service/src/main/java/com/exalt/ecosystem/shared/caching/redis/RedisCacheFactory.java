@@ -10,6 +10,8 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Factory for creating Redis cache instances.
+ * Each cache holds its own pipelined connection, which is released when the
+ * cache is removed or the factory is closed.
  */
 public class RedisCacheFactory implements CacheFactory {
     
@@ -85,6 +87,7 @@ public class RedisCacheFactory implements CacheFactory {
         if (cache != null) {
             try {
                 cache.clear();
+                cache.close();
                 return true;
             } catch (CacheException e) {
                 throw new CacheException(
@@ -110,14 +113,19 @@ public class RedisCacheFactory implements CacheFactory {
         return caches.containsKey(name);
     }
     
+    /**
+     * Closes the connections of all caches created by this factory.
+     * Unlike {@link #removeCache(String)}, the data stays in Redis because it
+     * is shared with other instances of the service.
+     */
     @Override
     public void close() throws CacheException {
         for (Map.Entry<String, Cache<?, ?>> entry : caches.entrySet()) {
             try {
-                entry.getValue().clear();
+                entry.getValue().close();
             } catch (CacheException e) {
                 // Log the error but continue closing other caches
-                System.err.println("Error clearing cache '" + entry.getKey() + "': " + e.getMessage());
+                System.err.println("Error closing cache '" + entry.getKey() + "': " + e.getMessage());
             }
         }
         
@@ -0,0 +1,110 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheException.ErrorCode;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * A Redis pub/sub channel carrying binary messages between service instances.
+ * <p>
+ * A subscriber connection receives messages on Lettuce's event loop and
+ * hands them to the listener, which should return quickly. A separate
+ * connection publishes, because a connection in subscriber mode cannot
+ * issue other commands. Delivery is at-most-once: messages published while
+ * a subscriber is reconnecting are lost.
+ */
+public class RedisMessageChannel implements AutoCloseable {
+    
+    private final byte[] channel;
+    private final Duration timeout;
+    private final RedisClient client;
+    private final StatefulRedisPubSubConnection<byte[], byte[]> subscriber;
+    private final StatefulRedisConnection<byte[], byte[]> publisher;
+    
+    /**
+     * Connects to Redis and subscribes to a channel.
+     *
+     * @param channelName The channel name
+     * @param config      The configuration holding the connection settings
+     * @param listener    Receives the payload of every message on the channel
+     * @throws CacheException if the connection or subscription fails
+     */
+    public RedisMessageChannel(String channelName, CacheConfig config, Consumer<byte[]> listener)
+            throws CacheException {
+        this.channel = channelName.getBytes(StandardCharsets.UTF_8);
+        this.timeout = Duration.ofMillis(config.getConnectionTimeout());
+        this.client = RedisCache.createClient(config, timeout);
+        
+        try {
+            this.subscriber = client.connectPubSub(ByteArrayCodec.INSTANCE);
+            subscriber.addListener(new RedisPubSubAdapter<>() {
+                @Override
+                public void message(byte[] source, byte[] message) {
+                    if (Arrays.equals(channel, source)) {
+                        listener.accept(message);
+                    }
+                }
+            });
+            subscriber.async().subscribe(channel).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            this.publisher = client.connect(ByteArrayCodec.INSTANCE);
+        } catch (RedisException | ExecutionException | TimeoutException e) {
+            client.shutdown();
+            throw new CacheException(
+                ErrorCode.CONNECTION_ERROR,
+                "Failed to subscribe to Redis channel '" + channelName + "': " + e.getMessage(),
+                e
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            client.shutdown();
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Interrupted while subscribing to Redis", e);
+        }
+    }
+    
+    /**
+     * Publishes a message and waits until Redis has accepted it.
+     *
+     * @param message The message payload
+     * @return The number of subscribers that received the message
+     * @throws CacheException if the message cannot be published
+     */
+    public long publish(byte[] message) throws CacheException {
+        try {
+            Long receivers = publisher.async().publish(channel, message)
+                .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return receivers == null ? 0 : receivers;
+        } catch (TimeoutException e) {
+            throw new CacheException(ErrorCode.TIMEOUT_ERROR, "Redis publish timed out after " + timeout.toMillis() + "ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Interrupted while publishing to Redis", e);
+        } catch (ExecutionException | RedisException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            throw new CacheException(ErrorCode.CONNECTION_ERROR, "Redis publish failed: " + cause.getMessage(), cause);
+        }
+    }
+    
+    @Override
+    public void close() {
+        try {
+            subscriber.close();
+            publisher.close();
+        } finally {
+            client.shutdown();
+        }
+    }
+}
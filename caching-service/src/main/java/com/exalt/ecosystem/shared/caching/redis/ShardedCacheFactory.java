@@ -0,0 +1,251 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import com.exalt.ecosystem.shared.caching.Cache;
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory for creating caches sharded over several Redis servers.
+ * <p>
+ * Every cache is a {@link ShardedRedisCache} over the factory's nodes,
+ * which are routed to with the same consistent-hash ring in every
+ * process configured with the same node addresses. Nodes added or
+ * removed through the factory are added to or removed from all of its
+ * caches. Bulk operations of all caches share one pool of daemon threads
+ * for their per-shard calls.
+ */
+public class ShardedCacheFactory implements CacheFactory {
+    
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    
+    private final Map<String, ShardedRedisCache<?, ?>> caches = new ConcurrentHashMap<>();
+    private final List<String> nodes;
+    private final int virtualNodes;
+    private final ExecutorService fanOutExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "sharded-cache-fan-out-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Creates a factory for caches sharded over the given servers.
+     *
+     * @param nodeAddresses The Redis connection strings of the servers
+     */
+    public ShardedCacheFactory(List<String> nodeAddresses) {
+        this(nodeAddresses, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+    }
+    
+    /**
+     * Creates a factory for caches sharded over the given servers.
+     *
+     * @param nodeAddresses The Redis connection strings of the servers
+     * @param virtualNodes  The number of ring points per server; more points spread keys more evenly
+     */
+    public ShardedCacheFactory(List<String> nodeAddresses, int virtualNodes) {
+        if (nodeAddresses == null || nodeAddresses.isEmpty()) {
+            throw new IllegalArgumentException("At least one node address is required");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive");
+        }
+        this.nodes = new ArrayList<>(new LinkedHashSet<>(nodeAddresses));
+        this.virtualNodes = virtualNodes;
+    }
+    
+    @Override
+    public synchronized <K, V> Cache<K, V> createCache(String name, CacheConfig config) throws CacheException {
+        if (name == null || name.isEmpty()) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache name cannot be null or empty"
+            );
+        }
+        
+        if (config == null) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache configuration cannot be null"
+            );
+        }
+        
+        if (caches.containsKey(name)) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache with name '" + name + "' already exists"
+            );
+        }
+        
+        ShardedRedisCache<K, V> cache = new ShardedRedisCache<>(name, config, nodes, virtualNodes, fanOutExecutor);
+        caches.put(name, cache);
+        
+        return cache;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Cache<K, V> getOrCreateCache(String name, CacheConfig config) throws CacheException {
+        if (name == null || name.isEmpty()) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache name cannot be null or empty"
+            );
+        }
+        
+        if (config == null) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache configuration cannot be null"
+            );
+        }
+        
+        Cache<?, ?> cache = caches.get(name);
+        
+        if (cache == null) {
+            return createCache(name, config);
+        }
+        
+        return (Cache<K, V>) cache;
+    }
+    
+    @Override
+    public boolean removeCache(String name) throws CacheException {
+        if (name == null || name.isEmpty()) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache name cannot be null or empty"
+            );
+        }
+        
+        Cache<?, ?> cache = caches.remove(name);
+        
+        if (cache != null) {
+            try {
+                cache.clear();
+                cache.close();
+                return true;
+            } catch (CacheException e) {
+                throw new CacheException(
+                    CacheException.ErrorCode.UNKNOWN_ERROR,
+                    "Error clearing cache during removal: " + e.getMessage(),
+                    e
+                );
+            }
+        }
+        
+        return false;
+    }
+    
+    @Override
+    public boolean cacheExists(String name) throws CacheException {
+        if (name == null || name.isEmpty()) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache name cannot be null or empty"
+            );
+        }
+        
+        return caches.containsKey(name);
+    }
+    
+    /**
+     * Gets the addresses of the servers caches are sharded over.
+     *
+     * @return The server addresses
+     */
+    public synchronized List<String> getNodes() {
+        return Collections.unmodifiableList(new ArrayList<>(nodes));
+    }
+    
+    /**
+     * Adds a server to all caches of this factory and to the caches it
+     * creates from now on. Only the keys the new server takes over move;
+     * see {@link ShardedRedisCache#addNode(String)}.
+     *
+     * @param nodeAddress The Redis connection string of the server
+     * @return The number of keys that moved to the new server, summed over all caches
+     * @throws CacheException if the server is already a node or cannot be reached
+     */
+    public synchronized long addNode(String nodeAddress) throws CacheException {
+        if (nodes.contains(nodeAddress)) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Node " + nodeAddress + " is already part of the ring"
+            );
+        }
+        
+        long moved = 0;
+        List<ShardedRedisCache<?, ?>> updated = new ArrayList<>();
+        try {
+            for (ShardedRedisCache<?, ?> cache : caches.values()) {
+                moved += cache.addNode(nodeAddress);
+                updated.add(cache);
+            }
+        } catch (CacheException e) {
+            // Keep all caches on the same ring
+            for (ShardedRedisCache<?, ?> cache : updated) {
+                cache.removeNode(nodeAddress);
+            }
+            throw e;
+        }
+        nodes.add(nodeAddress);
+        return moved;
+    }
+    
+    /**
+     * Removes a server from all caches of this factory. Its keys are
+     * routed to the remaining servers from now on.
+     *
+     * @param nodeAddress The Redis connection string of the server
+     * @return true if the server was a node
+     * @throws CacheException if it is the last node
+     */
+    public synchronized boolean removeNode(String nodeAddress) throws CacheException {
+        if (!nodes.contains(nodeAddress)) {
+            return false;
+        }
+        if (nodes.size() == 1) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cannot remove the last node " + nodeAddress
+            );
+        }
+        
+        nodes.remove(nodeAddress);
+        for (ShardedRedisCache<?, ?> cache : caches.values()) {
+            cache.removeNode(nodeAddress);
+        }
+        return true;
+    }
+    
+    /**
+     * Closes the connections of all caches created by this factory.
+     * Unlike {@link #removeCache(String)}, the data stays in Redis because it
+     * is shared with other instances of the service.
+     */
+    @Override
+    public void close() throws CacheException {
+        for (Map.Entry<String, ShardedRedisCache<?, ?>> entry : caches.entrySet()) {
+            try {
+                entry.getValue().close();
+            } catch (CacheException e) {
+                // Log the error but continue closing other caches
+                System.err.println("Error closing cache '" + entry.getKey() + "': " + e.getMessage());
+            }
+        }
+        
+        caches.clear();
+        fanOutExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,518 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import com.exalt.ecosystem.shared.caching.AbstractCache;
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheException.ErrorCode;
+import com.exalt.ecosystem.shared.caching.RemovalCause;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache partitioned over several Redis servers.
+ * <p>
+ * Each server holds one shard, a {@link RedisCache} with its own
+ * pipelined connection, and keys are routed to shards by a
+ * {@link ConsistentHashRing} over the server addresses. Single-key
+ * operations go to the owning shard only. Bulk operations split their
+ * keys by shard and run the per-shard calls in parallel, so a batch
+ * costs about one round-trip to the slowest shard instead of one per
+ * shard.
+ * <p>
+ * Servers can be added and removed at runtime. Only the keys whose owner
+ * changes move: after an addition they are deleted from their previous
+ * shards and reloaded into the new one on demand, after a removal the
+ * keys of the removed shard are reloaded into the remaining ones. The
+ * connection of a removed shard stays open for
+ * {@value #RETIRED_SHARD_GRACE_MILLIS} ms, so operations that were routed
+ * to it just before the removal can complete. A write
+ * that races a resize may leave a stale copy on a shard that no longer
+ * owns the key, which is served again only if the ring changes back
+ * before the copy expires.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+public class ShardedRedisCache<K, V> extends AbstractCache<K, V> {
+    
+    /** How long a removed shard stays open for operations routed to it before the removal */
+    static final long RETIRED_SHARD_GRACE_MILLIS = 30_000;
+    
+    private final Executor fanOutExecutor;
+    private final Object resizeLock = new Object();
+    private final Set<RedisCache<K, V>> retiredShards = ConcurrentHashMap.newKeySet();
+    private volatile Topology<K, V> topology;
+    
+    /**
+     * Creates a sharded cache over the given servers.
+     *
+     * @param name           The name of the cache
+     * @param config         The cache configuration; its connection string is ignored
+     * @param nodes          The addresses of the servers
+     * @param virtualNodes   The number of ring points per server
+     * @param fanOutExecutor The executor running per-shard calls of bulk operations
+     * @throws CacheException if there are no servers or one cannot be reached
+     */
+    ShardedRedisCache(String name, CacheConfig config, List<String> nodes, int virtualNodes, Executor fanOutExecutor)
+            throws CacheException {
+        super(name, config);
+        if (nodes.isEmpty()) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Sharded cache '" + name + "' needs at least one node");
+        }
+        this.fanOutExecutor = fanOutExecutor;
+        
+        Map<String, RedisCache<K, V>> shards = new LinkedHashMap<>();
+        try {
+            for (String node : nodes) {
+                shards.put(node, new RedisCache<>(name, config, node));
+            }
+        } catch (CacheException e) {
+            for (RedisCache<K, V> shard : shards.values()) {
+                closeQuietly(shard);
+            }
+            throw e;
+        }
+        this.topology = new Topology<>(new ConsistentHashRing(nodes, virtualNodes), shards);
+    }
+    
+    @Override
+    public V get(K key) throws CacheException {
+        V value = getQuietly(key);
+        
+        if (value == null) {
+            statsCounter.recordMisses(1);
+        } else {
+            statsCounter.recordHits(1);
+        }
+        
+        return value;
+    }
+    
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) throws CacheException {
+        if (keys == null) {
+            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache keys cannot be null");
+        }
+        
+        Set<K> distinctKeys = new LinkedHashSet<>(keys);
+        Map<K, V> found = new LinkedHashMap<>();
+        for (Map<K, V> shardResult : fanOut(groupKeys(distinctKeys), RedisCache::getAll)) {
+            found.putAll(shardResult);
+        }
+        
+        // Return the entries in the order the keys were requested
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : distinctKeys) {
+            V value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        
+        statsCounter.recordHits(result.size());
+        statsCounter.recordMisses(distinctKeys.size() - result.size());
+        return result;
+    }
+    
+    @Override
+    public void put(K key, V value) throws CacheException {
+        shardFor(key).put(key, value);
+        forgetAbsent(key);
+    }
+    
+    @Override
+    public void put(K key, V value, long ttl, TimeUnit timeUnit) throws CacheException {
+        shardFor(key).put(key, value, ttl, timeUnit);
+        forgetAbsent(key);
+    }
+    
+    @Override
+    public void putAll(Map<K, V> entries) throws CacheException {
+        validateEntries(entries);
+        
+        fanOut(groupEntries(entries), (shard, group) -> {
+            shard.putAll(group);
+            return null;
+        });
+        forgetAbsent(entries.keySet());
+    }
+    
+    @Override
+    public void putAll(Map<K, V> entries, long ttl, TimeUnit timeUnit) throws CacheException {
+        validateEntries(entries);
+        
+        if (ttl <= 0) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "TTL must be positive");
+        }
+        
+        fanOut(groupEntries(entries), (shard, group) -> {
+            shard.putAll(group, ttl, timeUnit);
+            return null;
+        });
+        forgetAbsent(entries.keySet());
+    }
+    
+    @Override
+    public boolean containsKey(K key) throws CacheException {
+        return shardFor(key).containsKey(key);
+    }
+    
+    @Override
+    public boolean remove(K key) throws CacheException {
+        forgetAbsent(key);
+        if (shardFor(key).remove(key)) {
+            statsCounter.recordRemovals(RemovalCause.EXPLICIT, 1);
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public int removeAll(Collection<K> keys) throws CacheException {
+        if (keys == null) {
+            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache keys cannot be null");
+        }
+        
+        forgetAbsent(keys);
+        int removed = 0;
+        for (int count : fanOut(groupKeys(new LinkedHashSet<>(keys)), RedisCache::removeAll)) {
+            removed += count;
+        }
+        
+        statsCounter.recordRemovals(RemovalCause.EXPLICIT, removed);
+        return removed;
+    }
+    
+    @Override
+    public void clear() throws CacheException {
+        forgetAllAbsent();
+        fanOut(topology.shards.values(), (shard, ignored) -> {
+            shard.clear();
+            return null;
+        });
+    }
+    
+    /**
+     * Counts the entries of this cache on all shards.
+     * Walks every shard's keys with SCAN and should not be called on hot paths.
+     */
+    @Override
+    public long size() throws CacheException {
+        long size = 0;
+        for (long count : fanOut(topology.shards.values(), (shard, ignored) -> shard.size())) {
+            size += count;
+        }
+        return size;
+    }
+    
+    @Override
+    protected V getQuietly(K key) throws CacheException {
+        return shardFor(key).getQuietly(key);
+    }
+    
+    @Override
+    public void close() throws CacheException {
+        synchronized (resizeLock) {
+            List<RedisCache<K, V>> shards = new ArrayList<>(topology.shards.values());
+            for (RedisCache<K, V> retired : retiredShards) {
+                if (retiredShards.remove(retired)) {
+                    shards.add(retired);
+                }
+            }
+            
+            CacheException failure = null;
+            for (RedisCache<K, V> shard : shards) {
+                try {
+                    shard.close();
+                } catch (CacheException e) {
+                    failure = failure == null ? e : failure;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+    
+    /**
+     * Gets the addresses of the servers the cache is sharded over.
+     *
+     * @return The server addresses
+     */
+    public List<String> getNodes() {
+        return topology.ring.nodes();
+    }
+    
+    /**
+     * Gets the address of the server owning a key.
+     *
+     * @param key The cache key
+     * @return The server address
+     * @throws CacheException if the key is null or cannot be serialized
+     */
+    public String nodeFor(K key) throws CacheException {
+        Topology<K, V> current = topology;
+        return current.ring.nodeFor(current.encodeKey(key));
+    }
+    
+    /**
+     * Adds a server. Any entries of this cache the server still holds from
+     * an earlier membership are cleared first, then keys are routed to it,
+     * and finally the keys it took over are deleted from their previous
+     * shards, which walks every shard's keys with SCAN.
+     *
+     * @param node The server address
+     * @return The number of keys deleted from the previous shards
+     * @throws CacheException if the server is already a shard or cannot be reached; the ring is then unchanged
+     */
+    long addNode(String node) throws CacheException {
+        synchronized (resizeLock) {
+            Topology<K, V> current = topology;
+            if (current.shards.containsKey(node)) {
+                throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Node " + node + " is already a shard of cache '" + name + "'");
+            }
+            
+            RedisCache<K, V> added = new RedisCache<>(name, config, node);
+            try {
+                added.clear();
+            } catch (CacheException e) {
+                closeQuietly(added);
+                throw e;
+            }
+            
+            Map<String, RedisCache<K, V>> shards = new LinkedHashMap<>(current.shards);
+            shards.put(node, added);
+            ConsistentHashRing ring = current.ring.withNode(node);
+            topology = new Topology<>(ring, shards);
+            
+            long moved = 0;
+            try {
+                for (long count : fanOut(current.shards.values(), (shard, ignored) ->
+                        shard.removeKeysIf(key -> node.equals(ring.nodeFor(key))))) {
+                    moved += count;
+                }
+            } catch (CacheException e) {
+                // The node is in use already; the copies left behind are only served if it is removed again
+                System.err.println("Error removing moved keys of cache '" + name + "': " + e.getMessage());
+            }
+            return moved;
+        }
+    }
+    
+    /**
+     * Removes a server. Its keys are routed to the remaining servers from
+     * now on; the entries it holds are left in place. Its connection is
+     * closed after {@value #RETIRED_SHARD_GRACE_MILLIS} ms, or when the
+     * cache is closed.
+     *
+     * @param node The server address
+     * @return true if the server was a shard
+     * @throws CacheException if it is the last shard
+     */
+    boolean removeNode(String node) throws CacheException {
+        synchronized (resizeLock) {
+            Topology<K, V> current = topology;
+            RedisCache<K, V> removed = current.shards.get(node);
+            if (removed == null) {
+                return false;
+            }
+            if (current.shards.size() == 1) {
+                throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Cannot remove the last node of cache '" + name + "'");
+            }
+            
+            Map<String, RedisCache<K, V>> shards = new LinkedHashMap<>(current.shards);
+            shards.remove(node);
+            topology = new Topology<>(current.ring.withoutNode(node), shards);
+            retire(removed);
+            return true;
+        }
+    }
+    
+    /**
+     * Closes a removed shard once the operations that read the previous
+     * topology have had time to finish with it.
+     *
+     * @param shard The removed shard
+     */
+    private void retire(RedisCache<K, V> shard) {
+        retiredShards.add(shard);
+        CompletableFuture.delayedExecutor(RETIRED_SHARD_GRACE_MILLIS, TimeUnit.MILLISECONDS).execute(() -> {
+            if (retiredShards.remove(shard)) {
+                closeQuietly(shard);
+            }
+        });
+    }
+    
+    private RedisCache<K, V> shardFor(K key) throws CacheException {
+        Topology<K, V> current = topology;
+        return current.shards.get(current.ring.nodeFor(current.encodeKey(key)));
+    }
+    
+    private Map<RedisCache<K, V>, List<K>> groupKeys(Collection<K> keys) throws CacheException {
+        Topology<K, V> current = topology;
+        Map<RedisCache<K, V>, List<K>> groups = new LinkedHashMap<>();
+        for (K key : keys) {
+            RedisCache<K, V> shard = current.shards.get(current.ring.nodeFor(current.encodeKey(key)));
+            groups.computeIfAbsent(shard, ignored -> new ArrayList<>()).add(key);
+        }
+        return groups;
+    }
+    
+    private Map<RedisCache<K, V>, Map<K, V>> groupEntries(Map<K, V> entries) throws CacheException {
+        Topology<K, V> current = topology;
+        Map<RedisCache<K, V>, Map<K, V>> groups = new LinkedHashMap<>();
+        for (Map.Entry<K, V> entry : entries.entrySet()) {
+            RedisCache<K, V> shard = current.shards.get(current.ring.nodeFor(current.encodeKey(entry.getKey())));
+            groups.computeIfAbsent(shard, ignored -> new LinkedHashMap<>()).put(entry.getKey(), entry.getValue());
+        }
+        return groups;
+    }
+    
+    private <R> List<R> fanOut(Collection<RedisCache<K, V>> shards, ShardOperation<K, V, Void, R> operation)
+            throws CacheException {
+        Map<RedisCache<K, V>, Void> groups = new LinkedHashMap<>();
+        for (RedisCache<K, V> shard : shards) {
+            groups.put(shard, null);
+        }
+        return fanOut(groups, operation);
+    }
+    
+    /**
+     * Runs an operation on every shard of a batch in parallel. The first
+     * shard runs on the calling thread, the others on the fan-out executor.
+     * Waits for all shards even if one fails, then rethrows the first failure,
+     * whether a CacheException or a RuntimeException.
+     *
+     * @param groups    The part of the batch for each shard
+     * @param operation The operation to run per shard
+     * @return The results of the shards
+     * @throws CacheException if the operation failed on any shard
+     */
+    private <G, R> List<R> fanOut(Map<RedisCache<K, V>, G> groups, ShardOperation<K, V, G, R> operation)
+            throws CacheException {
+        List<Map.Entry<RedisCache<K, V>, G>> parts = new ArrayList<>(groups.entrySet());
+        if (parts.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        List<CompletableFuture<R>> futures = new ArrayList<>(parts.size() - 1);
+        for (Map.Entry<RedisCache<K, V>, G> part : parts.subList(1, parts.size())) {
+            futures.add(submit(part.getKey(), part.getValue(), operation));
+        }
+        
+        List<R> results = new ArrayList<>(parts.size());
+        Exception failure = null;
+        try {
+            results.add(operation.apply(parts.get(0).getKey(), parts.get(0).getValue()));
+        } catch (CacheException | RuntimeException e) {
+            failure = e;
+        }
+        
+        for (CompletableFuture<R> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = unwrap(e);
+                }
+            }
+        }
+        
+        if (failure instanceof CacheException) {
+            throw (CacheException) failure;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+        return results;
+    }
+    
+    private <G, R> CompletableFuture<R> submit(RedisCache<K, V> shard, G group, ShardOperation<K, V, G, R> operation) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                future.complete(operation.apply(shard, group));
+            } catch (CacheException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        };
+        
+        try {
+            fanOutExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // The executor is shut down or saturated; run this shard on the calling thread
+            task.run();
+        }
+        return future;
+    }
+    
+    /**
+     * Gets the failure of a shard run on the fan-out executor.
+     *
+     * @return A CacheException, or the RuntimeException the shard threw
+     */
+    private Exception unwrap(CompletionException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof CacheException) {
+            CacheException shardFailure = (CacheException) cause;
+            return new CacheException(shardFailure.getErrorCode(), shardFailure.getMessage(), shardFailure);
+        }
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new CacheException(ErrorCode.UNKNOWN_ERROR, "Shard operation failed: " + cause.getMessage(), cause);
+    }
+    
+    private static void closeQuietly(RedisCache<?, ?> shard) {
+        try {
+            shard.close();
+        } catch (CacheException | RuntimeException e) {
+            // Log the error; the shard is being discarded anyway
+            System.err.println("Error closing shard of cache '" + shard.getName() + "': " + e.getMessage());
+        }
+    }
+    
+    /**
+     * An operation on one shard of a batch.
+     */
+    @FunctionalInterface
+    private interface ShardOperation<K, V, G, R> {
+        R apply(RedisCache<K, V> shard, G group) throws CacheException;
+    }
+    
+    /**
+     * The ring and the shard of each of its nodes, replaced as a whole when
+     * a node is added or removed so that readers always see a matching pair.
+     */
+    private static final class Topology<K, V> {
+        final ConsistentHashRing ring;
+        final Map<String, RedisCache<K, V>> shards;
+        
+        Topology(ConsistentHashRing ring, Map<String, RedisCache<K, V>> shards) {
+            this.ring = ring;
+            this.shards = Collections.unmodifiableMap(shards);
+        }
+        
+        /**
+         * Encodes a key for routing. Every shard encodes keys the same way,
+         * and routing on the encoded form lets rebalancing route the keys
+         * it finds with SCAN.
+         */
+        byte[] encodeKey(K key) throws CacheException {
+            return shards.values().iterator().next().encodeKey(key);
+        }
+    }
+}
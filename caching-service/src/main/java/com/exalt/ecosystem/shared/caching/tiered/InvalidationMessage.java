@@ -0,0 +1,123 @@
+package com.exalt.ecosystem.shared.caching.tiered;
+
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheException.ErrorCode;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Wire format of the invalidations a {@link TieredCache} publishes.
+ * <p>
+ * Layout: one type byte, the 16-byte id of the publishing node, a key
+ * count and then each serialized key prefixed by its length. A clear
+ * message carries no keys.
+ */
+final class InvalidationMessage {
+    
+    private static final byte TYPE_KEYS = 1;
+    private static final byte TYPE_CLEAR = 2;
+    
+    private final UUID origin;
+    private final boolean clear;
+    private final List<byte[]> keys;
+    
+    private InvalidationMessage(UUID origin, boolean clear, List<byte[]> keys) {
+        this.origin = origin;
+        this.clear = clear;
+        this.keys = keys;
+    }
+    
+    /**
+     * Creates a message invalidating the given keys.
+     *
+     * @param origin The id of the publishing node
+     * @param keys   The serialized keys
+     * @return The message
+     */
+    static InvalidationMessage keys(UUID origin, List<byte[]> keys) {
+        return new InvalidationMessage(origin, false, keys);
+    }
+    
+    /**
+     * Creates a message invalidating every key of the cache.
+     *
+     * @param origin The id of the publishing node
+     * @return The message
+     */
+    static InvalidationMessage clear(UUID origin) {
+        return new InvalidationMessage(origin, true, Collections.emptyList());
+    }
+    
+    UUID getOrigin() {
+        return origin;
+    }
+    
+    boolean isClear() {
+        return clear;
+    }
+    
+    List<byte[]> getKeys() {
+        return keys;
+    }
+    
+    /**
+     * Encodes this message into its wire format.
+     *
+     * @return The encoded message
+     */
+    byte[] encode() {
+        int length = 1 + 16 + 4;
+        for (byte[] key : keys) {
+            length += 4 + key.length;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(clear ? TYPE_CLEAR : TYPE_KEYS);
+        buffer.putLong(origin.getMostSignificantBits());
+        buffer.putLong(origin.getLeastSignificantBits());
+        buffer.putInt(keys.size());
+        for (byte[] key : keys) {
+            buffer.putInt(key.length);
+            buffer.put(key);
+        }
+        return buffer.array();
+    }
+    
+    /**
+     * Decodes a message from its wire format.
+     *
+     * @param bytes The encoded message
+     * @return The message
+     * @throws CacheException if the bytes are not a valid message
+     */
+    static InvalidationMessage decode(byte[] bytes) throws CacheException {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte type = buffer.get();
+            if (type != TYPE_KEYS && type != TYPE_CLEAR) {
+                throw new CacheException(ErrorCode.SERIALIZATION_ERROR, "Unknown invalidation message type: " + type);
+            }
+            
+            UUID origin = new UUID(buffer.getLong(), buffer.getLong());
+            int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining() / 4) {
+                throw new CacheException(ErrorCode.SERIALIZATION_ERROR, "Invalid invalidation key count: " + count);
+            }
+            
+            List<byte[]> keys = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[buffer.getInt()];
+                buffer.get(key);
+                keys.add(key);
+            }
+            return new InvalidationMessage(origin, type == TYPE_CLEAR, keys);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new CacheException(ErrorCode.SERIALIZATION_ERROR, "Truncated invalidation message", e);
+        }
+    }
+}
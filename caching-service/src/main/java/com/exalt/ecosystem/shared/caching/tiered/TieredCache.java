@@ -0,0 +1,447 @@
+package com.exalt.ecosystem.shared.caching.tiered;
+
+import com.exalt.ecosystem.shared.caching.AbstractCache;
+import com.exalt.ecosystem.shared.caching.CacheClock;
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheEntry;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheSerializer;
+import com.exalt.ecosystem.shared.caching.CacheSerializers;
+import com.exalt.ecosystem.shared.caching.RemovalCause;
+import com.exalt.ecosystem.shared.caching.local.InMemoryCache;
+import com.exalt.ecosystem.shared.caching.redis.RedisCache;
+import com.exalt.ecosystem.shared.caching.redis.RedisMessageChannel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-tier near cache: an {@link InMemoryCache} (L1) in front of a
+ * {@link RedisCache} (L2).
+ * <p>
+ * Reads are served from the local tier and fall back to Redis, copying
+ * remote hits into the local tier. Writes go through to Redis first and
+ * then to the local tier, and every write, removal or clear is announced on
+ * the Redis channel {@code cache-invalidation:<cache name>}. Other nodes
+ * drop the affected keys from their local tier as soon as the message
+ * arrives, typically within a millisecond or two.
+ * <p>
+ * Pub/sub delivery is at-most-once, so {@link CacheConfig#getNearCacheTtlSeconds()}
+ * caps how long a local copy can outlive a lost invalidation. Expiry in
+ * Redis is not announced at all, so a copy of a remote hit also never
+ * outlives the remaining TTL read along with the value. Keys are published
+ * with the configured key serializer, or with Java serialization when none
+ * is set. Tiered caches do not write behind; a configured
+ * {@link CacheConfig#getCacheWriter() cache writer} is ignored.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+public class TieredCache<K, V> extends AbstractCache<K, V> {
+    
+    /** Prefix of the pub/sub channel carrying invalidations for a cache */
+    public static final String CHANNEL_PREFIX = "cache-invalidation:";
+    
+    /** Number of invalidation counters keys are striped over; a power of two */
+    private static final int EPOCH_STRIPES = 64;
+    
+    private final UUID nodeId = UUID.randomUUID();
+    private final InMemoryCache<K, V> local;
+    private final RedisCache<K, V> remote;
+    private final CacheSerializer<K> keySerializer;
+    private final AtomicLongArray epochs = new AtomicLongArray(EPOCH_STRIPES);
+    private final RedisMessageChannel channel;
+    
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    
+    /**
+     * Creates a new tiered cache with the specified name and configuration.
+     * The local tier uses the size and eviction settings, the remote tier
+     * and the invalidation channel use the connection settings.
+     *
+     * @param name   The name of the cache
+     * @param config The cache configuration
+     * @throws CacheException if Redis cannot be reached
+     */
+    @SuppressWarnings("unchecked")
+    public TieredCache(String name, CacheConfig config) throws CacheException {
+        super(name, config);
+        this.keySerializer = config.getKeySerializer() != null
+            ? (CacheSerializer<K>) config.getKeySerializer()
+            : (CacheSerializer<K>) CacheSerializers.java();
+        this.local = new InMemoryCache<>(name, localConfig(config));
+        this.remote = new RedisCache<>(name, config);
+        
+        try {
+            this.channel = new RedisMessageChannel(CHANNEL_PREFIX + name, config, this::onInvalidation);
+        } catch (CacheException e) {
+            remote.close();
+            throw e;
+        }
+    }
+    
+    @Override
+    public V get(K key) throws CacheException {
+        V value = local.get(key);
+        
+        if (value != null) {
+            localHits.increment();
+            statsCounter.recordHits(1);
+            return value;
+        }
+        
+        localMisses.increment();
+        long epoch = epoch(key);
+        CacheEntry<V> entry = remote.getEntry(key);
+        
+        if (entry == null) {
+            remoteMisses.increment();
+            statsCounter.recordMisses(1);
+            return null;
+        }
+        
+        remoteHits.increment();
+        statsCounter.recordHits(1);
+        putLocalCopy(key, entry);
+        
+        // The key was written or invalidated while Redis was read; the copy may be stale
+        if (epoch(key) != epoch) {
+            local.invalidate(key);
+        }
+        return entry.getValue();
+    }
+    
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) throws CacheException {
+        Map<K, V> result = local.getAll(keys);
+        localHits.add(result.size());
+        statsCounter.recordHits(result.size());
+        
+        List<K> missing = new ArrayList<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            if (!result.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        
+        if (missing.isEmpty()) {
+            return result;
+        }
+        
+        localMisses.add(missing.size());
+        long[] before = new long[missing.size()];
+        for (int i = 0; i < before.length; i++) {
+            before[i] = epoch(missing.get(i));
+        }
+        
+        Map<K, CacheEntry<V>> found = remote.getAllEntries(missing);
+        remoteHits.add(found.size());
+        remoteMisses.add(missing.size() - found.size());
+        statsCounter.recordHits(found.size());
+        statsCounter.recordMisses(missing.size() - found.size());
+        
+        for (int i = 0; i < before.length; i++) {
+            K key = missing.get(i);
+            CacheEntry<V> entry = found.get(key);
+            if (entry == null) {
+                continue;
+            }
+            putLocalCopy(key, entry);
+            if (epoch(key) != before[i]) {
+                local.invalidate(key);
+            }
+            result.put(key, entry.getValue());
+        }
+        
+        return result;
+    }
+    
+    @Override
+    public void put(K key, V value) throws CacheException {
+        remote.put(key, value);
+        forgetAbsent(key);
+        advanceEpoch(key);
+        putLocal(key, value, -1);
+        publish(List.of(key));
+    }
+    
+    @Override
+    public void put(K key, V value, long ttl, TimeUnit timeUnit) throws CacheException {
+        remote.put(key, value, ttl, timeUnit);
+        forgetAbsent(key);
+        advanceEpoch(key);
+        putLocal(key, value, timeUnit.toMillis(ttl));
+        publish(List.of(key));
+    }
+    
+    @Override
+    public void putAll(Map<K, V> entries) throws CacheException {
+        remote.putAll(entries);
+        forgetAbsent(entries.keySet());
+        entries.keySet().forEach(this::advanceEpoch);
+        putAllLocal(entries, -1);
+        publish(entries.keySet());
+    }
+    
+    @Override
+    public void putAll(Map<K, V> entries, long ttl, TimeUnit timeUnit) throws CacheException {
+        remote.putAll(entries, ttl, timeUnit);
+        forgetAbsent(entries.keySet());
+        entries.keySet().forEach(this::advanceEpoch);
+        putAllLocal(entries, timeUnit.toMillis(ttl));
+        publish(entries.keySet());
+    }
+    
+    @Override
+    public boolean containsKey(K key) throws CacheException {
+        return local.containsKey(key) || remote.containsKey(key);
+    }
+    
+    @Override
+    protected V getQuietly(K key) throws CacheException {
+        V value = local.get(key);
+        return value != null ? value : remote.get(key);
+    }
+    
+    @Override
+    public boolean remove(K key) throws CacheException {
+        forgetAbsent(key);
+        boolean removed = remote.remove(key);
+        advanceEpoch(key);
+        removed |= local.remove(key);
+        publish(List.of(key));
+        
+        if (removed) {
+            statsCounter.recordRemovals(RemovalCause.EXPLICIT, 1);
+        }
+        return removed;
+    }
+    
+    @Override
+    public int removeAll(Collection<K> keys) throws CacheException {
+        forgetAbsent(keys);
+        int removed = remote.removeAll(keys);
+        keys.forEach(this::advanceEpoch);
+        local.removeAll(keys);
+        publish(keys);
+        statsCounter.recordRemovals(RemovalCause.EXPLICIT, removed);
+        return removed;
+    }
+    
+    @Override
+    public void clear() throws CacheException {
+        forgetAllAbsent();
+        remote.clear();
+        advanceAllEpochs();
+        local.clear();
+        channel.publish(InvalidationMessage.clear(nodeId).encode());
+    }
+    
+    /**
+     * Gets the number of entries in the remote tier, which holds every
+     * entry of the cache.
+     */
+    @Override
+    public long size() throws CacheException {
+        return remote.size();
+    }
+    
+    @Override
+    public void close() throws CacheException {
+        try {
+            channel.close();
+        } finally {
+            try {
+                remote.close();
+            } finally {
+                local.close();
+            }
+        }
+    }
+    
+    /**
+     * Removes expired entries from the local tier.
+     */
+    public void cleanUp() {
+        local.cleanUp();
+    }
+    
+    /**
+     * Gets a snapshot of the per-tier hit and miss counts.
+     *
+     * @return The tier statistics
+     */
+    public TieredCacheStats getTierStats() {
+        return new TieredCacheStats(
+            localHits.sum(),
+            localMisses.sum(),
+            remoteHits.sum(),
+            remoteMisses.sum(),
+            invalidations.sum()
+        );
+    }
+    
+    /**
+     * Applies an invalidation published by another node.
+     * Runs on the Redis client's event loop, so it only touches the local tier.
+     *
+     * @param payload The encoded invalidation message
+     */
+    private void onInvalidation(byte[] payload) {
+        try {
+            InvalidationMessage message = InvalidationMessage.decode(payload);
+            if (nodeId.equals(message.getOrigin())) {
+                return;
+            }
+            
+            invalidations.increment();
+            if (message.isClear()) {
+                advanceAllEpochs();
+                forgetAllAbsent();
+                local.clear();
+                return;
+            }
+            
+            List<K> keys = new ArrayList<>(message.getKeys().size());
+            for (byte[] key : message.getKeys()) {
+                K decoded = keySerializer.deserialize(key);
+                advanceEpoch(decoded);
+                keys.add(decoded);
+            }
+            // Writes are announced too, so another node's put also ends a remembered absence here
+            forgetAbsent(keys);
+            local.removeAll(keys);
+        } catch (CacheException | RuntimeException e) {
+            // Log the error; the near cache TTL bounds how long the local copy can stay stale
+            System.err.println("Error applying invalidation for cache '" + name + "': " + e.getMessage());
+        }
+    }
+    
+    private void publish(Collection<K> keys) throws CacheException {
+        if (keys.isEmpty()) {
+            return;
+        }
+        
+        List<byte[]> serialized = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            serialized.add(keySerializer.serialize(key));
+        }
+        channel.publish(InvalidationMessage.keys(nodeId, serialized).encode());
+    }
+    
+    private void putLocal(K key, V value, long ttlMillis) throws CacheException {
+        long localTtl = localTtlMillis(ttlMillis);
+        if (localTtl > 0) {
+            local.put(key, value, localTtl, TimeUnit.MILLISECONDS);
+        } else {
+            local.put(key, value);
+        }
+    }
+    
+    /**
+     * Copies a remote hit into the local tier. The copy expires no later
+     * than the Redis key, since nothing is published when Redis expires it.
+     *
+     * @param key   The cache key
+     * @param entry The remote entry with its remaining TTL
+     */
+    private void putLocalCopy(K key, CacheEntry<V> entry) throws CacheException {
+        long expirationTime = entry.getExpirationTime();
+        if (expirationTime < 0) {
+            putLocal(key, entry.getValue(), -1);
+            return;
+        }
+        
+        long remainingMillis = expirationTime - CacheClock.currentTimeMillis();
+        if (remainingMillis > 0) {
+            putLocal(key, entry.getValue(), remainingMillis);
+        }
+    }
+    
+    private void putAllLocal(Map<K, V> entries, long ttlMillis) throws CacheException {
+        long localTtl = localTtlMillis(ttlMillis);
+        if (localTtl > 0) {
+            local.putAll(entries, localTtl, TimeUnit.MILLISECONDS);
+        } else {
+            local.putAll(entries);
+        }
+    }
+    
+    /**
+     * Derives the configuration of the local tier. It holds copies of
+     * remote entries and is filled by reads and peer invalidations, so
+     * hooks meant for the cache as a whole stay off it: a writer would
+     * write every remote hit back and delete every invalidated key from
+     * the backing store, and statistics and absent keys are already kept
+     * by this cache.
+     *
+     * @param config The configuration of the tiered cache
+     * @return The configuration of the local tier
+     */
+    private static CacheConfig localConfig(CacheConfig config) {
+        return new CacheConfig(config)
+            .setCacheWriter(null)
+            .setSnapshotDirectory(null)
+            .setRecordStats(false)
+            .setNegativeMaxSize(0);
+    }
+    
+    /**
+     * Resolves the TTL of a local copy: the entry's own TTL, or the default
+     * TTL if it has none, capped by the near cache TTL.
+     *
+     * @param ttlMillis The entry's TTL in milliseconds, or -1 if it has none
+     * @return The local TTL in milliseconds, or -1 for no expiration
+     */
+    private long localTtlMillis(long ttlMillis) {
+        if (ttlMillis <= 0 && config.getDefaultTtlSeconds() > 0) {
+            ttlMillis = TimeUnit.SECONDS.toMillis(config.getDefaultTtlSeconds());
+        }
+        
+        long nearTtl = config.getNearCacheTtlSeconds();
+        if (nearTtl > 0) {
+            long nearTtlMillis = TimeUnit.SECONDS.toMillis(nearTtl);
+            if (ttlMillis <= 0 || nearTtlMillis < ttlMillis) {
+                return nearTtlMillis;
+            }
+        }
+        return ttlMillis;
+    }
+    
+    /**
+     * Gets the invalidation counter of the stripe a key belongs to.
+     * Remote reads compare it before and after, so a copy is only kept
+     * locally if no write or invalidation for the key raced with the read.
+     */
+    private long epoch(K key) {
+        return epochs.get(stripe(key));
+    }
+    
+    private void advanceEpoch(K key) {
+        if (key != null) {
+            epochs.incrementAndGet(stripe(key));
+        }
+    }
+    
+    private void advanceAllEpochs() {
+        for (int i = 0; i < EPOCH_STRIPES; i++) {
+            epochs.incrementAndGet(i);
+        }
+    }
+    
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (EPOCH_STRIPES - 1);
+    }
+}
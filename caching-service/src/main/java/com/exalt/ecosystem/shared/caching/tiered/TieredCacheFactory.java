@@ -0,0 +1,156 @@
+package com.exalt.ecosystem.shared.caching.tiered;
+
+import com.exalt.ecosystem.shared.caching.Cache;
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Factory for creating tiered (in-memory over Redis) cache instances.
+ * Runs a background maintenance task per cache that removes expired
+ * entries from the local tier, and releases each cache's Redis
+ * connections when the cache is removed or the factory is closed.
+ */
+public class TieredCacheFactory implements CacheFactory {
+    
+    /** Interval between background clean-up runs of each cache's local tier */
+    private static final long CLEANUP_INTERVAL_MILLIS = 1000;
+    
+    private final Map<String, TieredCache<?, ?>> caches = new ConcurrentHashMap<>();
+    private final Map<String, ScheduledFuture<?>> cleanupTasks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenanceExecutor =
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tiered-cache-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    
+    @Override
+    public <K, V> Cache<K, V> createCache(String name, CacheConfig config) throws CacheException {
+        if (name == null || name.isEmpty()) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache name cannot be null or empty"
+            );
+        }
+        
+        if (config == null) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache configuration cannot be null"
+            );
+        }
+        
+        if (caches.containsKey(name)) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache with name '" + name + "' already exists"
+            );
+        }
+        
+        TieredCache<K, V> cache = new TieredCache<>(name, config);
+        caches.put(name, cache);
+        cleanupTasks.put(name, maintenanceExecutor.scheduleWithFixedDelay(
+            cache::cleanUp, CLEANUP_INTERVAL_MILLIS, CLEANUP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS));
+        
+        return cache;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Cache<K, V> getOrCreateCache(String name, CacheConfig config) throws CacheException {
+        if (name == null || name.isEmpty()) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache name cannot be null or empty"
+            );
+        }
+        
+        if (config == null) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache configuration cannot be null"
+            );
+        }
+        
+        Cache<?, ?> cache = caches.get(name);
+        
+        if (cache == null) {
+            return createCache(name, config);
+        }
+        
+        return (Cache<K, V>) cache;
+    }
+    
+    @Override
+    public boolean removeCache(String name) throws CacheException {
+        if (name == null || name.isEmpty()) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache name cannot be null or empty"
+            );
+        }
+        
+        Cache<?, ?> cache = caches.remove(name);
+        ScheduledFuture<?> cleanupTask = cleanupTasks.remove(name);
+        
+        if (cleanupTask != null) {
+            cleanupTask.cancel(false);
+        }
+        
+        if (cache != null) {
+            try {
+                cache.clear();
+                cache.close();
+                return true;
+            } catch (CacheException e) {
+                throw new CacheException(
+                    CacheException.ErrorCode.UNKNOWN_ERROR,
+                    "Error clearing cache during removal: " + e.getMessage(),
+                    e
+                );
+            }
+        }
+        
+        return false;
+    }
+    
+    @Override
+    public boolean cacheExists(String name) throws CacheException {
+        if (name == null || name.isEmpty()) {
+            throw new CacheException(
+                CacheException.ErrorCode.UNKNOWN_ERROR,
+                "Cache name cannot be null or empty"
+            );
+        }
+        
+        return caches.containsKey(name);
+    }
+    
+    /**
+     * Closes the connections of all caches created by this factory.
+     * The data stays in Redis because it is shared with other nodes.
+     */
+    @Override
+    public void close() throws CacheException {
+        for (Map.Entry<String, TieredCache<?, ?>> entry : caches.entrySet()) {
+            try {
+                entry.getValue().close();
+            } catch (CacheException e) {
+                // Log the error but continue closing other caches
+                System.err.println("Error closing cache '" + entry.getKey() + "': " + e.getMessage());
+            }
+        }
+        
+        caches.clear();
+        cleanupTasks.clear();
+        maintenanceExecutor.shutdownNow();
+    }
+}
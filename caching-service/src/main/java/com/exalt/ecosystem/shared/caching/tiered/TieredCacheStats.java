@@ -0,0 +1,121 @@
+package com.exalt.ecosystem.shared.caching.tiered;
+
+/**
+ * Point-in-time hit and miss counts of the two tiers of a {@link TieredCache}.
+ * Every lookup counts against the local tier; only local misses reach the
+ * remote tier.
+ */
+public class TieredCacheStats {
+    
+    private final long localHitCount;
+    private final long localMissCount;
+    private final long remoteHitCount;
+    private final long remoteMissCount;
+    private final long invalidationCount;
+    
+    /**
+     * Creates a new statistics snapshot.
+     *
+     * @param localHitCount     Lookups served by the local tier
+     * @param localMissCount    Lookups the local tier could not serve
+     * @param remoteHitCount    Local misses served by the remote tier
+     * @param remoteMissCount   Local misses the remote tier could not serve
+     * @param invalidationCount Invalidation messages received from other nodes
+     */
+    public TieredCacheStats(long localHitCount, long localMissCount, long remoteHitCount,
+                            long remoteMissCount, long invalidationCount) {
+        this.localHitCount = localHitCount;
+        this.localMissCount = localMissCount;
+        this.remoteHitCount = remoteHitCount;
+        this.remoteMissCount = remoteMissCount;
+        this.invalidationCount = invalidationCount;
+    }
+    
+    /**
+     * Gets the number of lookups served by the local tier.
+     *
+     * @return The count
+     */
+    public long getLocalHitCount() {
+        return localHitCount;
+    }
+    
+    /**
+     * Gets the number of lookups the local tier could not serve.
+     *
+     * @return The count
+     */
+    public long getLocalMissCount() {
+        return localMissCount;
+    }
+    
+    /**
+     * Gets the number of local misses served by the remote tier.
+     *
+     * @return The count
+     */
+    public long getRemoteHitCount() {
+        return remoteHitCount;
+    }
+    
+    /**
+     * Gets the number of local misses the remote tier could not serve.
+     *
+     * @return The count
+     */
+    public long getRemoteMissCount() {
+        return remoteMissCount;
+    }
+    
+    /**
+     * Gets the number of invalidation messages received from other nodes.
+     *
+     * @return The count
+     */
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+    
+    /**
+     * Gets the share of lookups served by the local tier.
+     *
+     * @return The local hit ratio, or 1.0 if there were no lookups
+     */
+    public double getLocalHitRatio() {
+        return ratio(localHitCount, localMissCount);
+    }
+    
+    /**
+     * Gets the share of local misses served by the remote tier.
+     *
+     * @return The remote hit ratio, or 1.0 if there were no remote lookups
+     */
+    public double getRemoteHitRatio() {
+        return ratio(remoteHitCount, remoteMissCount);
+    }
+    
+    /**
+     * Gets the share of lookups served by either tier.
+     *
+     * @return The overall hit ratio, or 1.0 if there were no lookups
+     */
+    public double getHitRatio() {
+        return ratio(localHitCount + remoteHitCount, remoteMissCount);
+    }
+    
+    private static double ratio(long hits, long misses) {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+    
+    @Override
+    public String toString() {
+        return "TieredCacheStats{" +
+            "localHitCount=" + localHitCount +
+            ", localMissCount=" + localMissCount +
+            ", remoteHitCount=" + remoteHitCount +
+            ", remoteMissCount=" + remoteMissCount +
+            ", invalidationCount=" + invalidationCount +
+            '}';
+    }
+}
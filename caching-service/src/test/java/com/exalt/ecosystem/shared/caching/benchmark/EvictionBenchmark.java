@@ -0,0 +1,73 @@
+package com.exalt.ecosystem.shared.caching.benchmark;
+
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheConfig.EvictionPolicy;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.local.InMemoryCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures put and get latency of a full {@link InMemoryCache} as the
+ * maximum size grows. With constant-time eviction bookkeeping the
+ * average time per operation should stay flat across all sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class EvictionBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int maxSize;
+
+    @Param({"LRU", "LFU", "FIFO", "RANDOM"})
+    private EvictionPolicy policy;
+
+    private InMemoryCache<Integer, Integer> cache;
+    private int nextKey;
+
+    @Setup(Level.Trial)
+    public void setUp() throws CacheException {
+        cache = new InMemoryCache<>("eviction-benchmark",
+            new CacheConfig(maxSize, maxSize).setEvictionPolicy(policy));
+
+        for (int i = 0; i < maxSize; i++) {
+            cache.put(i, i);
+        }
+        nextKey = maxSize;
+    }
+
+    /**
+     * Inserts a new key into a full cache, so every call evicts one entry.
+     */
+    @Benchmark
+    public void putWithEviction() throws CacheException {
+        int key = nextKey++;
+        cache.put(key, key);
+    }
+
+    /**
+     * Reads a key from anywhere in the currently cached range.
+     */
+    @Benchmark
+    public Integer get() throws CacheException {
+        int key = nextKey - 1 - ThreadLocalRandom.current().nextInt(maxSize);
+        return cache.get(key);
+    }
+}
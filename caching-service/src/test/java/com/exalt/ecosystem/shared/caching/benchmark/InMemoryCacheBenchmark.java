@@ -0,0 +1,149 @@
+package com.exalt.ecosystem.shared.caching.benchmark;
+
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheConfig.EvictionPolicy;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.local.InMemoryCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link InMemoryCache} get, put and getOrPut throughput for every
+ * eviction policy, with and without a TTL, under uniform and Zipfian key
+ * distributions. The key space is twice the cache size, so puts evict and
+ * reads miss at a rate set by the distribution.
+ * <p>
+ * Keys are drawn from a pre-generated sequence, so generating them costs
+ * nothing during measurement. {@link InMemoryCacheBenchmarkMatrix} runs
+ * this benchmark at 1, 4, 16 and 64 threads and writes a single JSON
+ * result file that can be compared across commits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class InMemoryCacheBenchmark {
+
+    private static final int MAX_SIZE = 100_000;
+    private static final int KEY_SPACE = 2 * MAX_SIZE;
+    private static final int SAMPLES = 1 << 20;
+
+    /** Skew of the Zipfian distribution, as used by YCSB */
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    /**
+     * How keys are drawn from the key space.
+     */
+    public enum KeyDistribution {
+        /** Every key is equally likely */
+        UNIFORM,
+        /** A few hot keys take most of the accesses */
+        ZIPFIAN
+    }
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    private KeyDistribution distribution;
+
+    @Param({"LRU", "LFU", "FIFO", "RANDOM"})
+    private EvictionPolicy policy;
+
+    /** Default TTL in seconds; -1 runs without expiration bookkeeping */
+    @Param({"-1", "300"})
+    private long ttlSeconds;
+
+    private InMemoryCache<Integer, Integer> cache;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() throws CacheException {
+        cache = new InMemoryCache<>("in-memory-benchmark",
+            new CacheConfig(MAX_SIZE, MAX_SIZE)
+                .setEvictionPolicy(policy)
+                .setDefaultTtlSeconds(ttlSeconds));
+
+        keys = sampleKeys(distribution, new Random(42));
+        for (Integer key : keys) {
+            cache.put(key, key);
+        }
+    }
+
+    @Benchmark
+    public Integer get(KeyCursor cursor) throws CacheException {
+        return cache.get(cursor.next(keys));
+    }
+
+    @Benchmark
+    public void put(KeyCursor cursor) throws CacheException {
+        Integer key = cursor.next(keys);
+        cache.put(key, key);
+    }
+
+    @Benchmark
+    public Integer getOrPut(KeyCursor cursor) throws CacheException {
+        Integer key = cursor.next(keys);
+        return cache.getOrPut(key, () -> key);
+    }
+
+    /**
+     * Position of a thread in the key sequence. Threads start at random
+     * offsets so they do not access the same keys in lockstep.
+     */
+    @State(Scope.Thread)
+    public static class KeyCursor {
+        private int index = ThreadLocalRandom.current().nextInt(SAMPLES);
+
+        Integer next(Integer[] keys) {
+            return keys[index++ & (SAMPLES - 1)];
+        }
+    }
+
+    private static Integer[] sampleKeys(KeyDistribution distribution, Random random) {
+        Integer[] boxed = new Integer[KEY_SPACE];
+        for (int i = 0; i < KEY_SPACE; i++) {
+            boxed[i] = i;
+        }
+
+        double[] cumulative = null;
+        if (distribution == KeyDistribution.ZIPFIAN) {
+            cumulative = new double[KEY_SPACE];
+            double sum = 0;
+            for (int rank = 0; rank < KEY_SPACE; rank++) {
+                sum += 1.0 / Math.pow(rank + 1, ZIPF_EXPONENT);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < KEY_SPACE; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+
+        Integer[] samples = new Integer[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            int key;
+            if (cumulative == null) {
+                key = random.nextInt(KEY_SPACE);
+            } else {
+                int index = Arrays.binarySearch(cumulative, random.nextDouble());
+                key = Math.min(index >= 0 ? index : -index - 1, KEY_SPACE - 1);
+            }
+            samples[i] = boxed[key];
+        }
+        return samples;
+    }
+}
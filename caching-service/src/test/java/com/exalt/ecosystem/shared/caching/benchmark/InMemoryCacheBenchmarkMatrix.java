@@ -0,0 +1,49 @@
+package com.exalt.ecosystem.shared.caching.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the selected benchmarks, by default {@link InMemoryCacheBenchmark},
+ * once per thread count and writes all results to one file.
+ * <p>
+ * Accepts the regular JMH command line; {@code -rf} and {@code -rff}
+ * select the format and path of the combined result file, which defaults
+ * to {@code jmh-result.json}. Every result records its thread count and
+ * parameters, so files from different commits can be compared directly.
+ */
+public final class InMemoryCacheBenchmarkMatrix {
+
+    private static final int[] THREADS = {1, 4, 16, 64};
+
+    private InMemoryCacheBenchmarkMatrix() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ResultFormatType format = commandLine.getResultFormat().orElse(ResultFormatType.JSON);
+        String resultFile = commandLine.getResult().orElse("jmh-result.json");
+
+        List<RunResult> results = new ArrayList<>();
+        for (int threads : THREADS) {
+            OptionsBuilder builder = new OptionsBuilder();
+            builder.parent(commandLine);
+            if (commandLine.getIncludes().isEmpty()) {
+                builder.include(InMemoryCacheBenchmark.class.getSimpleName());
+            }
+            Options options = builder.threads(threads).build();
+            results.addAll(new Runner(options).run());
+        }
+
+        // Each run writes its own results; replace them with the combined set
+        ResultFormatFactory.getInstance(format, resultFile).writeOut(results);
+    }
+}
@@ -0,0 +1,138 @@
+package com.exalt.ecosystem.shared.caching.benchmark;
+
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheConfig.StorageMode;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheSerializers;
+import com.exalt.ecosystem.shared.caching.local.InMemoryCache;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares on-heap and off-heap {@link InMemoryCache} storage holding
+ * about 1 GB of values: one million 1 KB byte arrays. Each operation is
+ * a read of a random key, or, one time in ten, a put of a fresh value.
+ * <p>
+ * Besides throughput, every iteration reports the number of collections
+ * ({@code gcCount}) and the total time the collectors reported
+ * ({@code gcTimeMillis}), which approximates the GC pause time with
+ * stop-the-world collectors. With the values off-heap the old generation
+ * holds only the key index, so collections should be shorter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-XX:MaxDirectMemorySize=2g", "-XX:+UseG1GC"})
+public class OffHeapBenchmark {
+
+    private static final int ENTRIES = 1_000_000;
+    private static final int VALUE_SIZE = 1024;
+
+    @Param({"ON_HEAP", "OFF_HEAP"})
+    private StorageMode storageMode;
+
+    private InMemoryCache<Integer, byte[]> cache;
+
+    @Setup(Level.Trial)
+    public void setUp() throws CacheException {
+        cache = new InMemoryCache<>("off-heap-benchmark",
+            new CacheConfig(ENTRIES, ENTRIES)
+                .setStorageMode(storageMode)
+                .setOffHeapCapacityBytes(1536L * 1024 * 1024)
+                .setValueSerializer(CacheSerializers.bytes()));
+
+        for (int i = 0; i < ENTRIES; i++) {
+            cache.put(i, newValue());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws CacheException {
+        cache.clear();
+    }
+
+    /**
+     * Reads a random key, or one time in ten replaces it with a fresh value.
+     */
+    @Benchmark
+    public byte[] readMostly(GcCounters gc) throws CacheException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int key = random.nextInt(ENTRIES);
+        if (random.nextInt(10) == 0) {
+            byte[] value = newValue();
+            cache.put(key, value);
+            return value;
+        }
+        return cache.get(key);
+    }
+
+    private static byte[] newValue() {
+        byte[] value = new byte[VALUE_SIZE];
+        ThreadLocalRandom.current().nextBytes(value);
+        return value;
+    }
+
+    /**
+     * Collector activity during an iteration. Each benchmark thread reports
+     * its share, so the counters JMH sums across threads add up to the totals.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class GcCounters {
+        public double gcCount;
+        public double gcTimeMillis;
+
+        private long startCount;
+        private long startTime;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            startCount = totalCount();
+            startTime = totalTime();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop(BenchmarkParams params) {
+            gcCount = (double) (totalCount() - startCount) / params.getThreads();
+            gcTimeMillis = (double) (totalTime() - startTime) / params.getThreads();
+        }
+
+        private static long totalCount() {
+            long count = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, collector.getCollectionCount());
+            }
+            return count;
+        }
+
+        private static long totalTime() {
+            long time = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                time += Math.max(0, collector.getCollectionTime());
+            }
+            return time;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.exalt.ecosystem.shared.caching.benchmark;
+
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheSerializers;
+import com.exalt.ecosystem.shared.caching.redis.InProcessRedisServer;
+import com.exalt.ecosystem.shared.caching.redis.RedisCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares bulk, pipelined {@link RedisCache} operations against issuing
+ * one command per key. Runs against an {@link InProcessRedisServer}, so the
+ * numbers show the round-trip savings rather than Redis server throughput.
+ * Scores are batches per second; multiply by {@code batchSize} for keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisPipelineBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int batchSize;
+
+    private InProcessRedisServer server;
+    private RedisCache<String, String> cache;
+    private Map<String, String> entries;
+    private List<String> keys;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new InProcessRedisServer();
+        cache = new RedisCache<>("pipeline-benchmark", new CacheConfig()
+            .setConnectionString(server.getConnectionString())
+            .setValueSerializer(CacheSerializers.string()));
+
+        entries = new LinkedHashMap<>();
+        keys = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            entries.put("key-" + i, "value-" + i);
+            keys.add("key-" + i);
+        }
+        cache.putAll(entries);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        cache.close();
+        server.close();
+    }
+
+    /**
+     * Writes the batch with chunked MSET commands and a single flush.
+     */
+    @Benchmark
+    public void putAllPipelined() throws CacheException {
+        cache.putAll(entries);
+    }
+
+    /**
+     * Writes the batch one SET at a time, waiting for each reply.
+     */
+    @Benchmark
+    public void putPerCommand() throws CacheException {
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            cache.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Reads the batch with chunked MGET commands and a single flush.
+     */
+    @Benchmark
+    public Map<String, String> getAllPipelined() throws CacheException {
+        return cache.getAll(keys);
+    }
+
+    /**
+     * Reads the batch one GET at a time, waiting for each reply.
+     */
+    @Benchmark
+    public int getPerCommand() throws CacheException {
+        int found = 0;
+        for (String key : keys) {
+            if (cache.get(key) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,112 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import com.exalt.ecosystem.shared.caching.Cache;
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheSerializers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link InMemoryCacheFactory}.
+ */
+public class InMemoryCacheFactoryTest {
+
+    @Test
+    @DisplayName("Caches are snapshotted on close and warm-started from the snapshot")
+    public void restoresSnapshotOnCreate() throws Exception {
+        Path directory = Files.createTempDirectory("cache-snapshots");
+        CacheConfig config = new CacheConfig(100, 10_000)
+            .setSnapshotDirectory(directory)
+            .setKeySerializer(CacheSerializers.string())
+            .setValueSerializer(CacheSerializers.string());
+
+        InMemoryCacheFactory first = new InMemoryCacheFactory();
+        Cache<String, String> cache = first.createCache("users:v1", config);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("user-" + i, "profile-" + i);
+        }
+        cache.put("short-lived", "gone", 50, TimeUnit.MILLISECONDS);
+        first.close();
+
+        Path file = CacheSnapshot.fileFor(directory, "users:v1");
+        assertTrue(Files.exists(file));
+        Thread.sleep(100);
+
+        InMemoryCacheFactory second = new InMemoryCacheFactory();
+        Cache<String, String> restored = second.createCache("users:v1", config);
+        awaitSize(restored, 1000);
+        assertEquals("profile-42", restored.get("user-42"));
+        assertNull(restored.get("short-lived"));
+        second.close();
+
+        // A corrupt snapshot is rejected as a whole
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+
+        InMemoryCacheFactory third = new InMemoryCacheFactory();
+        Cache<String, String> cold = third.createCache("users:v1", config);
+        Thread.sleep(200);
+        assertEquals(0, cold.size());
+        third.close();
+    }
+
+    @Test
+    @DisplayName("Keys written or removed while a snapshot is restored are not brought back")
+    public void restoreSkipsKeysChangedSinceCreation() throws Exception {
+        Path directory = Files.createTempDirectory("cache-snapshots");
+        CacheConfig config = new CacheConfig(100, 10_000)
+            .setSnapshotDirectory(directory)
+            .setKeySerializer(CacheSerializers.string())
+            .setValueSerializer(CacheSerializers.string());
+
+        InMemoryCacheFactory first = new InMemoryCacheFactory();
+        Cache<String, String> cache = first.createCache("users:v1", config);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("user-" + i, "profile-" + i);
+        }
+        first.close();
+        Path file = CacheSnapshot.fileFor(directory, "users:v1");
+
+        // Every change lands before the restore reaches any key
+        InMemoryCache<String, String> warming = new InMemoryCache<>("users:v1", config);
+        CacheSnapshot<String, String> snapshot = new CacheSnapshot<>(file, warming, config);
+        warming.remove("user-1");
+        warming.put("user-2", "updated");
+        warming.invalidate("user-3");
+        warming.put("user-4", "short-lived", 50, TimeUnit.MILLISECONDS);
+        Thread.sleep(100);
+
+        snapshot.restore();
+        assertNull(warming.get("user-1"));
+        assertEquals("updated", warming.get("user-2"));
+        assertNull(warming.get("user-3"));
+        assertNull(warming.get("user-4"));
+        assertEquals("profile-5", warming.get("user-5"));
+        assertEquals(997, warming.size());
+        warming.close();
+
+        // Through the factory the removal races with the restore on its own thread
+        InMemoryCacheFactory second = new InMemoryCacheFactory();
+        Cache<String, String> restored = second.createCache("users:v1", config);
+        restored.remove("user-999");
+        awaitSize(restored, 999);
+        Thread.sleep(100);
+        assertNull(restored.get("user-999"));
+        assertEquals(999, restored.size());
+        second.close();
+    }
+
+    private static void awaitSize(Cache<?, ?> cache, long size) throws Exception {
+        for (int i = 0; i < 250 && cache.size() < size; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(size, cache.size());
+    }
+}
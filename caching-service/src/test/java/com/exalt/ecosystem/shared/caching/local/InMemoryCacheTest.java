@@ -0,0 +1,619 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheConfig.EvictionPolicy;
+import com.exalt.ecosystem.shared.caching.CacheEvent;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheSerializers;
+import com.exalt.ecosystem.shared.caching.CacheStats;
+import com.exalt.ecosystem.shared.caching.CacheWriter;
+import com.exalt.ecosystem.shared.caching.RemovalCause;
+import com.exalt.ecosystem.shared.caching.Weigher;
+import com.exalt.ecosystem.shared.caching.Weighers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link InMemoryCache}.
+ */
+public class InMemoryCacheTest {
+
+    private static final int THREADS = 1000;
+
+    @Test
+    @DisplayName("getOrPut runs the supplier once for concurrent callers")
+    public void getOrPutIsSingleFlight() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("single-flight", new CacheConfig());
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.getOrPut("hot-key", () -> {
+                        loads.incrementAndGet();
+                        sleep(100);
+                        return "value";
+                    }, 1, TimeUnit.MINUTES);
+                }));
+            }
+
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get(), "Supplier should run exactly once");
+    }
+
+    @Test
+    @DisplayName("getOrPutAsync shares one load between concurrent callers")
+    public void getOrPutAsyncIsSingleFlight() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("single-flight-async", new CacheConfig());
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(cache.getOrPutAsync("hot-key", key -> {
+                loads.incrementAndGet();
+                return pending;
+            }));
+        }
+
+        pending.complete("value");
+        for (CompletableFuture<String> result : results) {
+            assertEquals("value", result.get(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, loads.get(), "Loader should run exactly once");
+        assertEquals("value", cache.get("hot-key"));
+    }
+
+    @Test
+    @DisplayName("A failed load is reported to waiters and retried by the next caller")
+    public void failedLoadIsNotCached() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("single-flight-failure", new CacheConfig());
+
+        assertThrows(IllegalStateException.class, () -> cache.getOrPut("key", () -> {
+            throw new IllegalStateException("backend down");
+        }));
+        assertThrows(CacheException.class, () -> cache.getOrPut("key", () -> null));
+
+        assertEquals("value", cache.getOrPut("key", () -> "value"));
+    }
+
+    @Test
+    @DisplayName("getAll with a bulk loader fetches only the missing keys in one call")
+    public void getAllLoadsOnlyMissingKeys() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("bulk", new CacheConfig());
+        cache.putAll(Map.of("a", "cached-a", "b", "cached-b"));
+        List<Set<String>> loaderCalls = new ArrayList<>();
+
+        Map<String, String> values = cache.getAll(List.of("a", "b", "c", "d"), missing -> {
+            loaderCalls.add(missing);
+            Map<String, String> loaded = new HashMap<>();
+            missing.forEach(key -> loaded.put(key, "loaded-" + key));
+            return loaded;
+        });
+
+        assertEquals(List.of(Set.of("c", "d")), loaderCalls);
+        assertEquals(Map.of("a", "cached-a", "b", "cached-b", "c", "loaded-c", "d", "loaded-d"), values);
+        assertEquals("loaded-c", cache.get("c"));
+        assertEquals(2, cache.removeAll(List.of("a", "c", "missing")));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    @DisplayName("Statistics count hits, misses, loads and removals by cause")
+    public void recordsStatistics() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("stats",
+            new CacheConfig(10, 2).setRecordStats(true));
+
+        cache.put("a", "1");
+        cache.put("a", "2");
+        cache.get("a");
+        cache.get("missing");
+        cache.getOrPut("b", () -> "loaded");
+        assertThrows(IllegalStateException.class, () -> cache.getOrPut("c", () -> {
+            throw new IllegalStateException("backend down");
+        }));
+        cache.put("d", "evicts a");
+        cache.put("e", "expires", 1, TimeUnit.MILLISECONDS);
+        sleep(20);
+        cache.get("e");
+        cache.remove("d");
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(4, stats.getMissCount());
+        assertEquals(1, stats.getLoadSuccessCount());
+        assertEquals(1, stats.getLoadFailureCount());
+        assertTrue(stats.getTotalLoadTimeNanos() > 0);
+        assertEquals(1, stats.getRemovalCount(RemovalCause.REPLACED));
+        assertEquals(2, stats.getEvictionCount());
+        assertEquals(1, stats.getExpirationCount());
+        assertEquals(1, stats.getRemovalCount(RemovalCause.EXPLICIT));
+
+        InMemoryCache<String, String> untracked = new InMemoryCache<>("no-stats", new CacheConfig());
+        untracked.put("a", "1");
+        untracked.get("a");
+        assertEquals(CacheStats.empty(), untracked.stats());
+    }
+
+    @Test
+    @DisplayName("LRU evicts the least recently read key")
+    public void lruEvictsLeastRecentlyRead() throws Exception {
+        InMemoryCache<String, String> cache = boundedCache(EvictionPolicy.LRU, 3);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+
+        cache.get("a");
+        cache.put("d", "4");
+        assertCached(cache, "a", "c", "d");
+
+        cache.get("c");
+        cache.put("a", "1b");
+        cache.put("e", "5");
+        assertCached(cache, "a", "c", "e");
+    }
+
+    @Test
+    @DisplayName("LFU evicts the least frequently read key, the oldest first on ties")
+    public void lfuEvictsLeastFrequentlyRead() throws Exception {
+        InMemoryCache<String, String> cache = boundedCache(EvictionPolicy.LFU, 3);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        cache.get("c");
+
+        // b and c were both read once; b is older
+        cache.put("d", "4");
+        assertCached(cache, "a", "c", "d");
+
+        // d has not been read since it was added
+        cache.put("e", "5");
+        assertCached(cache, "a", "c", "e");
+
+        cache.get("e");
+        cache.get("e");
+        cache.get("e");
+        cache.put("f", "6");
+        assertCached(cache, "a", "e", "f");
+    }
+
+    @Test
+    @DisplayName("FIFO evicts in insertion order regardless of reads and overwrites")
+    public void fifoEvictsInInsertionOrder() throws Exception {
+        InMemoryCache<String, String> cache = boundedCache(EvictionPolicy.FIFO, 3);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        cache.get("a");
+        cache.put("a", "1b");
+
+        cache.put("d", "4");
+        assertCached(cache, "b", "c", "d");
+
+        cache.remove("c");
+        cache.put("e", "5");
+        cache.put("f", "6");
+        assertCached(cache, "d", "e", "f");
+    }
+
+    @Test
+    @DisplayName("RANDOM keeps the cache within maxSize across puts and removals")
+    public void randomStaysWithinMaxSize() throws Exception {
+        InMemoryCache<Integer, Integer> cache = boundedCache(EvictionPolicy.RANDOM, 50);
+
+        for (int i = 0; i < 5_000; i++) {
+            cache.put(i, i);
+            if (i % 7 == 0) {
+                cache.remove(i - 3);
+            }
+            assertTrue(cache.size() <= 50, "size " + cache.size() + " after " + i + " puts");
+        }
+        assertEquals(50, cache.size());
+
+        List<Integer> cached = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            if (cache.containsKey(i)) {
+                assertEquals(Integer.valueOf(i), cache.get(i));
+                cached.add(i);
+            }
+        }
+        assertEquals(50, cached.size());
+
+        assertEquals(20, cache.removeAll(cached.subList(0, 20)));
+        assertEquals(30, cache.size());
+        for (int i = 5_000; i < 5_100; i++) {
+            cache.put(i, i);
+            assertTrue(cache.size() <= 50);
+        }
+        assertEquals(50, cache.size());
+    }
+
+    @Test
+    @DisplayName("maxWeight bounds the summed entry weight and rejects oversized entries")
+    public void evictsByWeight() throws Exception {
+        InMemoryCache<String, byte[]> cache = new InMemoryCache<>("weighted",
+            new CacheConfig().setMaxWeight(1000).setWeigher((String key, byte[] value) -> value.length)
+                .setRecordStats(true));
+
+        cache.put("a", new byte[400]);
+        cache.put("b", new byte[400]);
+        assertEquals(800, cache.weightedSize());
+
+        cache.put("c", new byte[400]);
+        assertEquals(2, cache.size());
+        assertFalse(cache.containsKey("a"));
+        assertEquals(800, cache.weightedSize());
+
+        cache.put("b", new byte[100]);
+        assertEquals(500, cache.weightedSize());
+        cache.remove("c");
+        assertEquals(100, cache.weightedSize());
+
+        CacheException error = assertThrows(CacheException.class, () -> cache.put("huge", new byte[1001]));
+        assertEquals(CacheException.ErrorCode.CAPACITY_EXCEEDED, error.getErrorCode());
+        assertEquals(1, cache.stats().getEvictionCount());
+
+        Weigher<Object, Object> estimating = Weighers.estimating();
+        assertTrue(estimating.weigh("k", "v") < 1_000);
+        assertTrue(estimating.weigh("k", "v".repeat(10_000)) > 10_000);
+        assertTrue(estimating.weigh("k", new byte[10_000]) > 10_000);
+        ObjectNode tree = new ObjectMapper().createObjectNode();
+        tree.putArray("items").add("x".repeat(5_000)).add(42);
+        assertTrue(estimating.weigh("k", tree) > 5_000);
+    }
+
+    @Test
+    @DisplayName("Off-heap storage round-trips values and evicts when its slabs are full")
+    public void storesValuesOffHeap() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("off-heap",
+            new CacheConfig(16, 10_000)
+                .setStorageMode(CacheConfig.StorageMode.OFF_HEAP)
+                .setOffHeapCapacityBytes(64 * 1024)
+                .setOffHeapSlabSizeBytes(16 * 1024)
+                .setValueSerializer(CacheSerializers.string())
+                .setRecordStats(true));
+
+        String value = "v".repeat(1000);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key-" + i, value + i);
+        }
+        assertTrue(cache.size() > 0 && cache.size() < 1000);
+        assertTrue(cache.offHeapUsedBytes() <= 64 * 1024);
+        assertEquals(1000 - cache.size(), cache.stats().getEvictionCount());
+        assertEquals(value + 999, cache.get("key-999"));
+
+        cache.put("key-999", "replaced");
+        assertEquals("replaced", cache.get("key-999"));
+
+        CacheException error = assertThrows(CacheException.class, () -> cache.put("huge", "x".repeat(20_000)));
+        assertEquals(CacheException.ErrorCode.CAPACITY_EXCEEDED, error.getErrorCode());
+
+        // Emptied slabs can be reused by a different size class
+        cache.clear();
+        assertEquals(0, cache.offHeapUsedBytes());
+        for (int i = 0; i < 4; i++) {
+            cache.put("large-" + i, "x".repeat(10_000));
+        }
+        assertEquals(4, cache.size());
+        assertEquals("x".repeat(10_000), cache.get("large-0"));
+    }
+
+    @Test
+    @DisplayName("refreshAfter serves the current value and reloads it once in the background")
+    public void refreshesAheadOfExpiry() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("refresh",
+            new CacheConfig().setRefreshAfterSeconds(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.getOrPut("key", () -> "v1", 1, TimeUnit.MINUTES));
+        sleep(1100);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("v1", cache.getOrPut("key", () -> {
+                sleep(200);
+                return "v" + (1 + loads.incrementAndGet());
+            }, 1, TimeUnit.MINUTES));
+        }
+        for (int i = 0; i < 50 && !"v2".equals(cache.get("key")); i++) {
+            sleep(20);
+        }
+        assertEquals("v2", cache.get("key"));
+        assertEquals(1, loads.get());
+
+        // A failed refresh keeps serving the current value
+        sleep(1100);
+        assertEquals("v2", cache.getOrPut("key", () -> {
+            throw new IllegalStateException("backend down");
+        }, 1, TimeUnit.MINUTES));
+        sleep(100);
+        assertEquals("v2", cache.get("key"));
+    }
+
+    @Test
+    @DisplayName("An async refresh does not hold a refresh thread while its loader runs on the same executor")
+    public void refreshesAsyncWithoutBlockingTheExecutor() throws Exception {
+        ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+        try {
+            InMemoryCache<String, String> cache = new InMemoryCache<>("refresh-async",
+                new CacheConfig().setRefreshAfterSeconds(1).setRefreshExecutor(refreshExecutor));
+
+            assertEquals("v1", cache.getOrPutAsync("key", key -> CompletableFuture.completedFuture("v1")).get());
+            sleep(1100);
+
+            CompletableFuture<String> current = cache.getOrPutAsync("key",
+                key -> CompletableFuture.supplyAsync(() -> "v2", refreshExecutor));
+            assertEquals("v1", current.get(1, TimeUnit.SECONDS));
+            for (int i = 0; i < 50 && !"v2".equals(cache.get("key")); i++) {
+                sleep(20);
+            }
+            assertEquals("v2", cache.get("key"));
+        } finally {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Listeners receive created, updated, evicted, expired and removed events")
+    public void notifiesListeners() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("events", new CacheConfig(2, 2));
+        List<String> events = new CopyOnWriteArrayList<>();
+        cache.addListener(event -> events.add(event.getType() + " " + event.getKey() + "=" + event.getValue()));
+
+        cache.put("a", "1");
+        cache.put("a", "2");
+        cache.put("b", "1", 50, TimeUnit.MILLISECONDS);
+        cache.put("c", "1"); // evicts a, the least recently used
+        sleep(100);
+        cache.cleanUp();
+        cache.remove("c");
+
+        List<String> expected = List.of(
+            "CREATED a=1", "UPDATED a=2", "CREATED b=1", "EVICTED a=2", "CREATED c=1", "EXPIRED b=1", "REMOVED c=1");
+        for (int i = 0; i < 50 && events.size() < expected.size(); i++) {
+            sleep(20);
+        }
+        assertEquals(expected, events);
+        assertEquals(0, cache.droppedEventCount());
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("Write-behind coalesces writes per key and skips loaded values")
+    public void writesBehindInBatches() throws Exception {
+        List<Map<String, String>> writes = new CopyOnWriteArrayList<>();
+        List<String> deletes = new CopyOnWriteArrayList<>();
+        CacheWriter<String, String> writer = new CacheWriter<>() {
+            @Override
+            public void writeAll(Map<String, String> entries) {
+                writes.add(new HashMap<>(entries));
+            }
+
+            @Override
+            public void deleteAll(Collection<String> keys) {
+                deletes.addAll(keys);
+            }
+        };
+        InMemoryCache<String, String> cache = new InMemoryCache<>("write-behind",
+            new CacheConfig().setCacheWriter(writer).setWriteBehindIntervalMillis(60_000).setWriteBehindBatchSize(2));
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("a", "a" + i);
+        }
+        cache.putAll(Map.of("b", "b0", "c", "c0"));
+        cache.getOrPut("loaded", () -> "from the source");
+        cache.put("d", "d0");
+        cache.remove("d");
+        cache.close();
+
+        Map<String, String> written = new HashMap<>();
+        writes.forEach(written::putAll);
+        assertEquals(Map.of("a", "a9", "b", "b0", "c", "c0"), written);
+        assertEquals(2, writes.size());
+        assertEquals(List.of("d"), deletes);
+    }
+
+    @Test
+    @DisplayName("invalidate drops an entry without events, removal statistics or writer deletes")
+    public void invalidatesQuietly() throws Exception {
+        List<String> deletes = new CopyOnWriteArrayList<>();
+        CacheWriter<String, String> writer = new CacheWriter<>() {
+            @Override
+            public void writeAll(Map<String, String> entries) {
+            }
+
+            @Override
+            public void deleteAll(Collection<String> keys) {
+                deletes.addAll(keys);
+            }
+        };
+        InMemoryCache<String, String> cache = new InMemoryCache<>("invalidate",
+            new CacheConfig(2, 2).setRecordStats(true).setCacheWriter(writer));
+        List<String> events = new CopyOnWriteArrayList<>();
+        cache.addListener(event -> events.add(event.getType() + " " + event.getKey()));
+
+        cache.put("a", "1");
+        assertTrue(cache.invalidate("a"));
+        assertFalse(cache.invalidate("a"));
+        assertNull(cache.get("a"));
+        cache.put("b", "1");
+        cache.put("c", "1");
+        cache.put("d", "1"); // only b and c are left to evict
+        cache.close();
+
+        assertEquals(List.of("CREATED a", "CREATED b", "CREATED c", "EVICTED b", "CREATED d"), events);
+        assertEquals(0, cache.stats().getRemovalCount(RemovalCause.EXPLICIT));
+        assertEquals(List.of(), deletes);
+    }
+
+    @Test
+    @DisplayName("getOrPutOptional remembers absent keys for the negative TTL within their own capacity")
+    public void cachesAbsentKeys() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("negative",
+            new CacheConfig().setRecordStats(true).setNegativeTtlSeconds(1).setNegativeMaxSize(2));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertTrue(cache.getOrPutOptional("missing", () -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        }).isEmpty());
+        assertTrue(cache.getOrPutOptional("missing", () -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        }).isEmpty());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().getNegativeHitCount());
+        assertEquals(2, cache.stats().getMissCount());
+        assertEquals(0, cache.size());
+
+        // Removing a key forgets its absence
+        cache.remove("missing");
+        assertEquals(Optional.of("found"), cache.getOrPutOptional("missing", () -> Optional.of("found")));
+        assertEquals("found", cache.get("missing"));
+
+        // The oldest absences are forgotten beyond negativeMaxSize, values are not evicted
+        for (String key : List.of("a", "b", "c")) {
+            cache.getOrPutOptional(key, Optional::empty);
+        }
+        assertEquals(Optional.of("a1"), cache.getOrPutOptional("a", () -> Optional.of("a1")));
+        assertEquals(Optional.empty(), cache.getOrPutOptional("c", () -> Optional.of("c1")));
+        assertEquals(2, cache.size());
+
+        sleep(1100);
+        assertEquals(Optional.of("c1"), cache.getOrPutOptional("c", () -> Optional.of("c1")));
+    }
+
+    @Test
+    @DisplayName("A put forgets a remembered absence, so the loader runs once the value is evicted")
+    public void putForgetsAbsentKeys() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("negative-put",
+            new CacheConfig().setMaxSize(1).setEvictionPolicy(EvictionPolicy.FIFO).setNegativeTtlSeconds(60));
+
+        cache.getOrPutOptional("a", Optional::empty);
+        cache.getOrPutOptional("b", Optional::empty);
+        cache.put("a", "a1");
+        cache.putAll(Map.of("b", "b1"));
+        cache.put("c", "c1");
+        assertCached(cache, "c");
+
+        assertEquals(Optional.of("a2"), cache.getOrPutOptional("a", () -> Optional.of("a2")));
+        assertEquals(Optional.of("b2"), cache.getOrPutOptional("b", () -> Optional.of("b2")));
+    }
+
+    @Test
+    @DisplayName("getOrPut waiting on an Optional load that finds the key absent runs its own supplier")
+    public void getOrPutDoesNotShareAbsentResult() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("negative-shared", new CacheConfig());
+        AtomicInteger supplierCalls = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            Future<Optional<String>> absent = startAbsentLoad(executor, cache, "key", release);
+            Future<String> loaded = executor.submit(() -> cache.getOrPut("key", () -> {
+                supplierCalls.incrementAndGet();
+                return "value";
+            }));
+            sleep(100);
+            assertFalse(loaded.isDone(), "getOrPut should wait for the load in flight");
+
+            release.countDown();
+            assertEquals(Optional.empty(), absent.get(5, TimeUnit.SECONDS));
+            assertEquals("value", loaded.get(5, TimeUnit.SECONDS));
+            assertEquals(1, supplierCalls.get());
+            assertEquals("value", cache.get("key"));
+
+            CountDownLatch releaseAsync = new CountDownLatch(1);
+            Future<Optional<String>> absentAsync = startAbsentLoad(executor, cache, "async-key", releaseAsync);
+            CompletableFuture<String> loadedAsync = cache.getOrPutAsync("async-key",
+                key -> CompletableFuture.completedFuture("async-value"));
+            assertFalse(loadedAsync.isDone(), "getOrPutAsync should wait for the load in flight");
+
+            releaseAsync.countDown();
+            assertEquals(Optional.empty(), absentAsync.get(5, TimeUnit.SECONDS));
+            assertEquals("async-value", loadedAsync.get(5, TimeUnit.SECONDS));
+            assertEquals("async-value", cache.get("async-key"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @SafeVarargs
+    private static <K> void assertCached(InMemoryCache<K, ?> cache, K... keys) throws CacheException {
+        for (K key : keys) {
+            assertTrue(cache.containsKey(key), "Expected " + key + " to be cached");
+        }
+        assertEquals(keys.length, cache.size());
+    }
+
+    private static <K, V> InMemoryCache<K, V> boundedCache(EvictionPolicy policy, int maxSize) {
+        return new InMemoryCache<>(policy.name(),
+            new CacheConfig().setMaxSize(maxSize).setEvictionPolicy(policy));
+    }
+
+    /**
+     * Starts a getOrPutOptional whose loader finds the key absent once
+     * released, and waits until the load is in flight.
+     */
+    private static Future<Optional<String>> startAbsentLoad(ExecutorService executor,
+            InMemoryCache<String, String> cache, String key, CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        Future<Optional<String>> result = executor.submit(() -> cache.getOrPutOptional(key, () -> {
+            started.countDown();
+            await(release);
+            return Optional.empty();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return result;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link TimerWheel}, driven by explicit times instead of the clock.
+ */
+public class TimerWheelTest {
+
+    private static final long START = 1_700_000_123_457L;
+
+    @Test
+    @DisplayName("Keys on every level fire after their time and within one level-0 span")
+    public void firesKeysOnEveryLevel() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        Map<String, Long> times = Map.of(
+            "level-0", START + 30,
+            "level-1", START + TimeUnit.SECONDS.toMillis(10),
+            "level-2", START + TimeUnit.MINUTES.toMillis(20),
+            "level-3", START + TimeUnit.HOURS.toMillis(6));
+        times.forEach(wheel::schedule);
+
+        Map<String, Long> fired = run(wheel, START, START + TimeUnit.HOURS.toMillis(7), 16);
+
+        assertFiredOnTime(times, fired, 16);
+    }
+
+    @Test
+    @DisplayName("Rescheduling moves a key between levels and descheduling drops it")
+    public void reschedulesAndDeschedules() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        wheel.schedule("earlier", START + TimeUnit.MINUTES.toMillis(30));
+        wheel.schedule("later", START + 100);
+        wheel.schedule("dropped", START + 500);
+        wheel.schedule("dropped-late", START + TimeUnit.HOURS.toMillis(2));
+
+        wheel.schedule("earlier", START + 200);
+        wheel.schedule("later", START + TimeUnit.SECONDS.toMillis(20));
+        wheel.deschedule("dropped");
+        wheel.deschedule("dropped-late");
+        wheel.deschedule("unknown");
+
+        Map<String, Long> fired = run(wheel, START, START + TimeUnit.HOURS.toMillis(3), 8);
+
+        assertFiredOnTime(Map.of("earlier", START + 200, "later", START + TimeUnit.SECONDS.toMillis(20)), fired, 8);
+    }
+
+    @Test
+    @DisplayName("Keys beyond the top level wait in its farthest bucket until they are due")
+    public void holdsKeysBeyondTheHorizon() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        Map<String, Long> times = Map.of(
+            "month", START + TimeUnit.DAYS.toMillis(30),
+            "year", START + TimeUnit.DAYS.toMillis(365) + 12_345);
+        times.forEach(wheel::schedule);
+
+        long step = TimeUnit.MINUTES.toMillis(1);
+        Map<String, Long> fired = run(wheel, START, START + TimeUnit.DAYS.toMillis(366), step);
+
+        assertFiredOnTime(times, fired, step);
+    }
+
+    @Test
+    @DisplayName("A large jump visits each bucket once and expires exactly the keys that are due")
+    public void jumpsAcrossManyBuckets() {
+        TimerWheel<Integer> wheel = new TimerWheel<>(START);
+        Map<Integer, Long> times = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            // Spread over ten days, with a fixed stride that lands on every level
+            long time = START + (i * 86_413L) % TimeUnit.DAYS.toMillis(10);
+            times.put(i, time);
+            wheel.schedule(i, time);
+        }
+
+        long middle = START + TimeUnit.DAYS.toMillis(5);
+        List<Integer> expired = new ArrayList<>();
+        wheel.advance(middle, expired::add);
+        for (Map.Entry<Integer, Long> entry : times.entrySet()) {
+            assertEquals(entry.getValue() < middle, expired.contains(entry.getKey()), "key " + entry.getKey());
+        }
+
+        wheel.advance(START + TimeUnit.DAYS.toMillis(11), expired::add);
+        assertEquals(times.size(), expired.size());
+        assertEquals(times.size(), expired.stream().distinct().count());
+
+        // Going back in time is ignored, keys scheduled in the past fire on the next tick
+        wheel.advance(START, expired::add);
+        wheel.schedule(-1, START);
+        List<Integer> late = new ArrayList<>();
+        wheel.advance(START + TimeUnit.DAYS.toMillis(11) + TimerWheel.LEVEL_ZERO_SPAN_MILLIS, late::add);
+        assertEquals(List.of(-1), late);
+    }
+
+    @Test
+    @DisplayName("clear drops every scheduled key")
+    public void clearDropsAllKeys() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        wheel.schedule("a", START + 10);
+        wheel.schedule("b", START + TimeUnit.DAYS.toMillis(100));
+        wheel.clear();
+        wheel.schedule("c", START + 20);
+
+        Map<String, Long> fired = run(wheel, START, START + TimeUnit.DAYS.toMillis(101), TimeUnit.MINUTES.toMillis(1));
+
+        assertEquals(List.of("c"), List.copyOf(fired.keySet()));
+    }
+
+    /**
+     * Advances the wheel in fixed steps and records when each key fired.
+     */
+    private static <K> Map<K, Long> run(TimerWheel<K> wheel, long from, long to, long step) {
+        Map<K, Long> fired = new HashMap<>();
+        for (long now = from + step; now <= to; now += step) {
+            long time = now;
+            wheel.advance(now, key -> assertNull(fired.put(key, time), key + " fired twice"));
+        }
+        return fired;
+    }
+
+    private static <K> void assertFiredOnTime(Map<K, Long> times, Map<K, Long> fired, long step) {
+        assertEquals(times.keySet(), fired.keySet());
+        for (Map.Entry<K, Long> entry : times.entrySet()) {
+            long firedAt = fired.get(entry.getKey());
+            assertTrue(firedAt > entry.getValue(), entry.getKey() + " fired early");
+            assertTrue(firedAt <= entry.getValue() + TimerWheel.LEVEL_ZERO_SPAN_MILLIS + step,
+                entry.getKey() + " fired " + (firedAt - entry.getValue()) + "ms late");
+        }
+    }
+}
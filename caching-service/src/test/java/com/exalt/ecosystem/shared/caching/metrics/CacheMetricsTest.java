@@ -0,0 +1,55 @@
+package com.exalt.ecosystem.shared.caching.metrics;
+
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.local.InMemoryCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CacheMetrics}.
+ */
+public class CacheMetricsTest {
+
+    @Test
+    @DisplayName("Meters report hits, misses, evictions and negative hits as they are recorded")
+    public void exportsStatistics() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("users",
+            new CacheConfig(10, 2).setRecordStats(true).setNegativeTtlSeconds(60));
+        MeterRegistry registry = new SimpleMeterRegistry();
+        CacheMetrics.monitor(registry, cache, "team", "identity");
+
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("missing");
+        cache.put("b", "2");
+        cache.put("c", "evicts one");
+        cache.getOrPutOptional("absent", Optional::empty);
+        cache.getOrPutOptional("absent", Optional::empty);
+
+        assertEquals(1, count(registry, "cache.gets", "result", "hit"));
+        assertEquals(3, count(registry, "cache.gets", "result", "miss"));
+        assertEquals(1, count(registry, "cache.evictions", "cause", "size"));
+        assertEquals(0, count(registry, "cache.evictions", "cause", "expired"));
+        assertEquals(1, registry.get("cache.negative.hits").tags("cache", "users", "team", "identity")
+            .functionCounter().count());
+        assertEquals(1, count(registry, "cache.loads", "result", "failure"));
+        assertEquals(1, registry.get("cache.load.duration").functionTimer().count());
+
+        // Meters read the live counters, not a snapshot taken at an earlier read
+        cache.get("missing");
+        cache.getOrPutOptional("absent", Optional::empty);
+        assertEquals(5, count(registry, "cache.gets", "result", "miss"));
+        assertEquals(2, registry.get("cache.negative.hits").functionCounter().count());
+    }
+
+    private static double count(MeterRegistry registry, String name, String tagKey, String tagValue) {
+        return registry.get(name).tags("cache", "users", "team", "identity").tag(tagKey, tagValue)
+            .functionCounter().count();
+    }
+}
@@ -0,0 +1,451 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal in-process Redis stand-in speaking RESP2 over a loopback socket.
+ * <p>
+ * Supports the commands used by the cache implementations (GET, SET with
+ * EX/PX, MGET, MSET, DEL, EXISTS, PEXPIRE, PTTL, SCAN, DBSIZE, FLUSHALL and
+ * PUBLISH/SUBSCRIBE), so tests and benchmarks can run without a live Redis.
+ * Keys are held as ISO-8859-1 strings, which map bytes one-to-one.
+ */
+public class InProcessRedisServer implements AutoCloseable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final ServerSocket serverSocket;
+    private final Map<String, StoredValue> data = new ConcurrentHashMap<>();
+    private final Map<String, Set<Connection>> subscriptions = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = new CopyOnWriteArraySet<>();
+    private final Map<String, AtomicLong> commandCounts = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    /**
+     * Starts a server on a free loopback port.
+     *
+     * @throws IOException if the socket cannot be opened
+     */
+    public InProcessRedisServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "resp-server-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return The port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets a connection string pointing at this server.
+     *
+     * @return The connection string
+     */
+    public String getConnectionString() {
+        return "redis://127.0.0.1:" + getPort();
+    }
+
+    /**
+     * Gets how many times a command was received.
+     *
+     * @param command The command name, e.g. "MGET"
+     * @return The number of times the command was received
+     */
+    public long commandCount(String command) {
+        AtomicLong count = commandCounts.get(command.toUpperCase());
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Gets the number of keys currently stored, expired keys excluded.
+     *
+     * @return The number of keys
+     */
+    public int keyCount() {
+        data.entrySet().removeIf(entry -> entry.getValue().isExpired());
+        return data.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                Thread worker = new Thread(connection::serve, "resp-connection-" + socket.getPort());
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("In-process Redis accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Object execute(Connection connection, List<byte[]> args) {
+        String command = text(args.get(0)).toUpperCase();
+        commandCounts.computeIfAbsent(command, c -> new AtomicLong()).incrementAndGet();
+
+        switch (command) {
+            case "PING":
+                return Status.PONG;
+            case "SELECT":
+            case "CLIENT":
+                return Status.OK;
+            case "QUIT":
+                connection.closing = true;
+                return Status.OK;
+            case "GET":
+                return lookup(key(args.get(1)));
+            case "SET":
+                return set(args);
+            case "MGET": {
+                List<Object> values = new ArrayList<>();
+                for (int i = 1; i < args.size(); i++) {
+                    values.add(lookup(key(args.get(i))));
+                }
+                return values;
+            }
+            case "MSET":
+                for (int i = 1; i + 1 < args.size(); i += 2) {
+                    data.put(key(args.get(i)), new StoredValue(args.get(i + 1), -1));
+                }
+                return Status.OK;
+            case "DEL": {
+                long removed = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    StoredValue value = data.remove(key(args.get(i)));
+                    if (value != null && !value.isExpired()) {
+                        removed++;
+                    }
+                }
+                return removed;
+            }
+            case "EXISTS": {
+                long found = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    if (lookup(key(args.get(i))) != null) {
+                        found++;
+                    }
+                }
+                return found;
+            }
+            case "PEXPIRE": {
+                String key = key(args.get(1));
+                byte[] value = lookup(key);
+                if (value == null) {
+                    return 0L;
+                }
+                data.put(key, new StoredValue(value, System.currentTimeMillis() + Long.parseLong(text(args.get(2)))));
+                return 1L;
+            }
+            case "PTTL": {
+                StoredValue value = data.get(key(args.get(1)));
+                if (value == null || value.isExpired()) {
+                    return -2L;
+                }
+                return value.expireAt < 0 ? -1L : Math.max(0L, value.expireAt - System.currentTimeMillis());
+            }
+            case "SCAN":
+                return scan(args);
+            case "DBSIZE":
+                return (long) keyCount();
+            case "FLUSHALL":
+            case "FLUSHDB":
+                data.clear();
+                return Status.OK;
+            case "PUBLISH":
+                return publish(key(args.get(1)), args.get(2));
+            case "SUBSCRIBE":
+                for (int i = 1; i < args.size(); i++) {
+                    String channel = key(args.get(i));
+                    subscriptions.computeIfAbsent(channel, c -> new CopyOnWriteArraySet<>()).add(connection);
+                    connection.subscribed.add(channel);
+                    connection.write(List.of(bytes("subscribe"), args.get(i), (long) connection.subscribed.size()));
+                }
+                return null;
+            case "UNSUBSCRIBE":
+                for (int i = 1; i < args.size(); i++) {
+                    String channel = key(args.get(i));
+                    Set<Connection> subscribers = subscriptions.get(channel);
+                    if (subscribers != null) {
+                        subscribers.remove(connection);
+                    }
+                    connection.subscribed.remove(channel);
+                    connection.write(List.of(bytes("unsubscribe"), args.get(i), (long) connection.subscribed.size()));
+                }
+                return null;
+            default:
+                return new Error("ERR unknown command '" + command + "'");
+        }
+    }
+
+    private Object set(List<byte[]> args) {
+        long expireAt = -1;
+        for (int i = 3; i + 1 < args.size(); i++) {
+            String option = text(args.get(i)).toUpperCase();
+            if ("PX".equals(option)) {
+                expireAt = System.currentTimeMillis() + Long.parseLong(text(args.get(++i)));
+            } else if ("EX".equals(option)) {
+                expireAt = System.currentTimeMillis() + Long.parseLong(text(args.get(++i))) * 1000;
+            }
+        }
+        data.put(key(args.get(1)), new StoredValue(args.get(2), expireAt));
+        return Status.OK;
+    }
+
+    private Object scan(List<byte[]> args) {
+        Pattern pattern = null;
+        for (int i = 2; i + 1 < args.size(); i += 2) {
+            if ("MATCH".equalsIgnoreCase(text(args.get(i)))) {
+                pattern = globToRegex(key(args.get(i + 1)));
+            }
+        }
+
+        // The whole key space is returned in one page, so the cursor always ends at 0
+        List<Object> keys = new ArrayList<>();
+        for (Map.Entry<String, StoredValue> entry : data.entrySet()) {
+            if (!entry.getValue().isExpired() && (pattern == null || pattern.matcher(entry.getKey()).matches())) {
+                keys.add(entry.getKey().getBytes(StandardCharsets.ISO_8859_1));
+            }
+        }
+        return List.of(bytes("0"), keys);
+    }
+
+    private long publish(String channel, byte[] message) {
+        Set<Connection> subscribers = subscriptions.get(channel);
+        if (subscribers == null) {
+            return 0;
+        }
+
+        byte[] channelBytes = channel.getBytes(StandardCharsets.ISO_8859_1);
+        long delivered = 0;
+        for (Connection subscriber : subscribers) {
+            subscriber.write(List.of(bytes("message"), channelBytes, message));
+            delivered++;
+        }
+        return delivered;
+    }
+
+    private byte[] lookup(String key) {
+        StoredValue value = data.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (value.isExpired()) {
+            data.remove(key, value);
+            return null;
+        }
+        return value.bytes;
+    }
+
+    private static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '\\' && i + 1 < glob.length()) {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            } else if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static String key(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private enum Status {
+        OK, PONG
+    }
+
+    private static final class Error {
+        private final String message;
+
+        private Error(String message) {
+            this.message = message;
+        }
+    }
+
+    private static final class StoredValue {
+        private final byte[] bytes;
+        private final long expireAt;
+
+        private StoredValue(byte[] bytes, long expireAt) {
+            this.bytes = bytes;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired() {
+            return expireAt > 0 && System.currentTimeMillis() >= expireAt;
+        }
+    }
+
+    /**
+     * One client connection, served by its own thread.
+     */
+    private final class Connection {
+        private final Socket socket;
+        private final OutputStream out;
+        private final Set<String> subscribed = ConcurrentHashMap.newKeySet();
+        private volatile boolean closing;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        private void serve() {
+            try (InputStream in = new BufferedInputStream(socket.getInputStream())) {
+                List<byte[]> args;
+                while (!closing && (args = readCommand(in)) != null) {
+                    Object reply = execute(this, args);
+                    if (reply != null) {
+                        write(reply);
+                    }
+                }
+            } catch (IOException e) {
+                // Client went away
+            } finally {
+                for (String channel : subscribed) {
+                    Set<Connection> subscribers = subscriptions.get(channel);
+                    if (subscribers != null) {
+                        subscribers.remove(this);
+                    }
+                }
+                connections.remove(this);
+                close();
+            }
+        }
+
+        private synchronized void write(Object reply) {
+            try {
+                encode(reply);
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void encode(Object reply) throws IOException {
+            if (reply == null) {
+                out.write(bytes("$-1"));
+                out.write(CRLF);
+            } else if (reply instanceof Status) {
+                out.write(bytes("+" + reply));
+                out.write(CRLF);
+            } else if (reply instanceof Error) {
+                out.write(bytes("-" + ((Error) reply).message));
+                out.write(CRLF);
+            } else if (reply instanceof Long) {
+                out.write(bytes(":" + reply));
+                out.write(CRLF);
+            } else if (reply instanceof byte[]) {
+                byte[] value = (byte[]) reply;
+                out.write(bytes("$" + value.length));
+                out.write(CRLF);
+                out.write(value);
+                out.write(CRLF);
+            } else if (reply instanceof List) {
+                List<?> items = (List<?>) reply;
+                out.write(bytes("*" + items.size()));
+                out.write(CRLF);
+                for (Object item : items) {
+                    encode(item);
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported reply type: " + reply.getClass());
+            }
+        }
+
+        private List<byte[]> readCommand(InputStream in) throws IOException {
+            int marker = in.read();
+            if (marker == -1) {
+                return null;
+            }
+            if (marker != '*') {
+                throw new IOException("Expected RESP array but got '" + (char) marker + "'");
+            }
+
+            int count = Integer.parseInt(readLine(in));
+            List<byte[]> args = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (in.read() != '$') {
+                    throw new IOException("Expected RESP bulk string");
+                }
+                int length = Integer.parseInt(readLine(in));
+                byte[] arg = in.readNBytes(length);
+                in.skipNBytes(2);
+                args.add(arg);
+            }
+            return args;
+        }
+
+        private String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\r') {
+                if (c == -1) {
+                    throw new IOException("Unexpected end of stream");
+                }
+                line.append((char) c);
+            }
+            in.read();
+            return line.toString();
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
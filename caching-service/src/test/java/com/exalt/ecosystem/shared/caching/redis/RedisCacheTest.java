@@ -0,0 +1,153 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.CacheSerializers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RedisCache} against an {@link InProcessRedisServer}.
+ */
+public class RedisCacheTest {
+
+    private InProcessRedisServer server;
+    private RedisCache<String, String> cache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new InProcessRedisServer();
+        cache = new RedisCache<>("users", config());
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cache.close();
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Single-key operations round-trip through Redis")
+    public void singleKeyOperations() throws Exception {
+        assertNull(cache.get("alice"));
+
+        cache.put("alice", "admin");
+        assertEquals("admin", cache.get("alice"));
+        assertTrue(cache.containsKey("alice"));
+
+        assertTrue(cache.remove("alice"));
+        assertFalse(cache.remove("alice"));
+        assertFalse(cache.containsKey("alice"));
+    }
+
+    @Test
+    @DisplayName("Entries written with a TTL expire")
+    public void entriesExpire() throws Exception {
+        cache.put("session", "token", 50, TimeUnit.MILLISECONDS);
+        assertEquals("token", cache.get("session"));
+
+        Thread.sleep(100);
+        assertNull(cache.get("session"));
+    }
+
+    @Test
+    @DisplayName("Bulk operations are chunked into MGET, MSET and DEL batches")
+    public void bulkOperationsArePipelined() throws Exception {
+        int count = RedisCache.PIPELINE_BATCH_SIZE * 2 + 10;
+        Map<String, String> entries = new LinkedHashMap<>();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.put("user-" + i, "value-" + i);
+            keys.add("user-" + i);
+        }
+        keys.add("missing");
+
+        cache.putAll(entries);
+        assertEquals(3, server.commandCount("MSET"));
+        assertEquals(0, server.commandCount("SET"));
+
+        Map<String, String> found = cache.getAll(keys);
+        assertEquals(entries, found);
+        assertEquals(3, server.commandCount("MGET"));
+        assertEquals(0, server.commandCount("GET"));
+
+        assertEquals(count, cache.removeAll(keys));
+        assertEquals(3, server.commandCount("DEL"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("putAll with a TTL pipelines one SET per entry")
+    public void putAllWithTtl() throws Exception {
+        cache.putAll(Map.of("a", "1", "b", "2", "c", "3"), 50, TimeUnit.MILLISECONDS);
+        assertEquals(3, server.commandCount("SET"));
+        assertEquals(Map.of("a", "1", "b", "2", "c", "3"), cache.getAll(List.of("a", "b", "c")));
+
+        Thread.sleep(100);
+        assertTrue(cache.getAll(List.of("a", "b", "c")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("clear and size only see keys under the cache's own prefix")
+    public void clearIsScopedToCacheName() throws Exception {
+        try (RedisCache<String, String> other = new RedisCache<>("orders", config())) {
+            cache.putAll(Map.of("a", "1", "b", "2"));
+            other.put("a", "order");
+
+            assertEquals(2, cache.size());
+            cache.clear();
+
+            assertEquals(0, cache.size());
+            assertEquals("order", other.get("a"));
+            assertEquals(1, server.keyCount());
+        }
+    }
+
+    @Test
+    @DisplayName("getOrPut loads once and then serves from Redis")
+    public void getOrPutLoadsOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("loaded", cache.getOrPut("key", () -> {
+            loads.incrementAndGet();
+            return "loaded";
+        }));
+        assertEquals("loaded", cache.getOrPut("key", () -> {
+            loads.incrementAndGet();
+            return "reloaded";
+        }));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Connecting to an unreachable server fails with a connection error")
+    public void unreachableServer() throws Exception {
+        int port = server.getPort();
+        server.close();
+
+        CacheConfig config = new CacheConfig()
+            .setConnectionString("redis://127.0.0.1:" + port)
+            .setConnectionTimeout(500);
+        CacheException error = assertThrows(CacheException.class, () -> new RedisCache<String, String>("down", config));
+        assertEquals(CacheException.ErrorCode.CONNECTION_ERROR, error.getErrorCode());
+    }
+
+    private CacheConfig config() {
+        return new CacheConfig()
+            .setConnectionString(server.getConnectionString())
+            .setConnectionTimeout(2000)
+            .setValueSerializer(CacheSerializers.string());
+    }
+}
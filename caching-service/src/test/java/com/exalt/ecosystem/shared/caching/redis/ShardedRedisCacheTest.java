@@ -0,0 +1,125 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheSerializers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ShardedCacheFactory} and {@link ShardedRedisCache}
+ * against several {@link InProcessRedisServer}s.
+ */
+public class ShardedRedisCacheTest {
+
+    private static final int KEYS = 10_000;
+
+    private final List<InProcessRedisServer> servers = new ArrayList<>();
+    private ShardedCacheFactory factory;
+    private ShardedRedisCache<String, String> cache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            servers.add(new InProcessRedisServer());
+        }
+        for (InProcessRedisServer server : servers.subList(0, 3)) {
+            nodes.add(server.getConnectionString());
+        }
+        factory = new ShardedCacheFactory(nodes);
+        cache = (ShardedRedisCache<String, String>) factory.<String, String>createCache("users", new CacheConfig()
+            .setConnectionTimeout(2000)
+            .setValueSerializer(CacheSerializers.string()));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        factory.close();
+        for (InProcessRedisServer server : servers) {
+            server.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Keys are spread evenly and bulk calls reach every shard once")
+    public void spreadsKeysOverShards() throws Exception {
+        Map<String, String> entries = entries();
+        cache.putAll(entries);
+
+        for (InProcessRedisServer server : servers.subList(0, 3)) {
+            // One pipelined MSET per batch of the keys the shard owns
+            int batches = (server.keyCount() + RedisCache.PIPELINE_BATCH_SIZE - 1) / RedisCache.PIPELINE_BATCH_SIZE;
+            assertEquals(batches, server.commandCount("MSET"));
+            double share = (double) server.keyCount() / KEYS;
+            assertTrue(share > 0.25 && share < 0.42, "Uneven share " + share);
+        }
+        assertEquals(0, servers.get(3).keyCount());
+
+        assertEquals(entries, cache.getAll(entries.keySet()));
+        for (InProcessRedisServer server : servers.subList(0, 3)) {
+            assertTrue(server.commandCount("MGET") > 0);
+        }
+
+        assertEquals(KEYS, cache.removeAll(entries.keySet()));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Adding a node moves only the keys it takes over, removing it moves them back")
+    public void resizeMovesFewKeys() throws Exception {
+        Map<String, String> entries = entries();
+        cache.putAll(entries);
+        Map<String, String> owners = owners(entries);
+
+        String added = servers.get(3).getConnectionString();
+        long deleted = factory.addNode(added);
+
+        int moved = 0;
+        for (Map.Entry<String, String> owner : owners.entrySet()) {
+            String current = cache.nodeFor(owner.getKey());
+            if (!current.equals(owner.getValue())) {
+                assertEquals(added, current, "Keys must only move to the new node");
+                moved++;
+            }
+        }
+        // About a quarter of the keys move to the fourth node
+        double movedShare = (double) moved / KEYS;
+        assertTrue(movedShare > 0.15 && movedShare < 0.35, "Moved share " + movedShare);
+        assertEquals(moved, deleted);
+        assertEquals(KEYS - moved, cache.getAll(entries.keySet()).size());
+
+        cache.putAll(entries);
+        assertEquals(moved, servers.get(3).keyCount());
+
+        // The moved keys route back to shards that no longer hold them
+        assertTrue(factory.removeNode(added));
+        assertEquals(owners, owners(entries));
+        assertEquals(KEYS - moved, cache.getAll(entries.keySet()).size());
+    }
+
+    private static Map<String, String> entries() {
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            entries.put("user-" + i, "profile-" + i);
+        }
+        return entries;
+    }
+
+    private Map<String, String> owners(Map<String, String> entries) throws Exception {
+        Map<String, String> owners = new HashMap<>();
+        for (String key : entries.keySet()) {
+            owners.put(key, cache.nodeFor(key));
+        }
+        return owners;
+    }
+}
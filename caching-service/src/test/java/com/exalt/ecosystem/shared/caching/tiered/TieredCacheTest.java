@@ -0,0 +1,187 @@
+package com.exalt.ecosystem.shared.caching.tiered;
+
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheSerializers;
+import com.exalt.ecosystem.shared.caching.CacheWriter;
+import com.exalt.ecosystem.shared.caching.redis.InProcessRedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Simulates two service nodes sharing one {@link InProcessRedisServer},
+ * each with its own {@link TieredCache}.
+ */
+public class TieredCacheTest {
+
+    private static final long PROPAGATION_TIMEOUT_MILLIS = 2000;
+
+    private InProcessRedisServer server;
+    private TieredCache<String, String> nodeA;
+    private TieredCache<String, String> nodeB;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new InProcessRedisServer();
+        nodeA = new TieredCache<>("products", config());
+        nodeB = new TieredCache<>("products", config());
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        nodeA.close();
+        nodeB.close();
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Repeated reads are served from the local tier")
+    public void readsAreServedLocally() throws Exception {
+        nodeA.put("sku-1", "v1");
+        awaitInvalidations(nodeB, 1);
+
+        assertEquals("v1", nodeB.get("sku-1"));
+        long remoteReads = server.commandCount("GET");
+        for (int i = 0; i < 100; i++) {
+            assertEquals("v1", nodeB.get("sku-1"));
+        }
+
+        assertEquals(remoteReads, server.commandCount("GET"), "Hot reads should not reach Redis");
+        TieredCacheStats stats = nodeB.getTierStats();
+        assertEquals(100, stats.getLocalHitCount());
+        assertEquals(1, stats.getLocalMissCount());
+        assertEquals(1, stats.getRemoteHitCount());
+        assertEquals(100.0 / 101, stats.getLocalHitRatio(), 1e-9);
+        assertEquals(1.0, stats.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("A write on one node invalidates the local copy on the other")
+    public void writeInvalidatesOtherNode() throws Exception {
+        nodeA.put("sku-1", "v1");
+        assertEquals("v1", nodeB.get("sku-1"));
+
+        nodeA.put("sku-1", "v2");
+
+        awaitValue("v2", () -> nodeB.get("sku-1"));
+        assertTrue(nodeB.getTierStats().getInvalidationCount() >= 1);
+        assertEquals(0, nodeA.getTierStats().getInvalidationCount(), "A node ignores its own invalidations");
+    }
+
+    @Test
+    @DisplayName("Removals, bulk writes and clears propagate to the other node")
+    public void removalsAndClearsPropagate() throws Exception {
+        nodeA.putAll(Map.of("a", "1", "b", "2", "c", "3"));
+        assertEquals(Map.of("a", "1", "b", "2", "c", "3"), nodeB.getAll(List.of("a", "b", "c")));
+
+        nodeA.remove("a");
+        awaitValue(null, () -> nodeB.get("a"));
+
+        nodeA.putAll(Map.of("b", "20"));
+        awaitValue("20", () -> nodeB.get("b"));
+
+        nodeA.clear();
+        awaitValue(null, () -> nodeB.get("c"));
+        assertEquals(0, nodeB.size());
+    }
+
+    @Test
+    @DisplayName("A local copy read from Redis expires with the remote entry")
+    public void localCopyExpiresWithRemoteEntry() throws Exception {
+        nodeA.put("sku-1", "v1", 200, TimeUnit.MILLISECONDS);
+        nodeA.put("sku-2", "v2", 200, TimeUnit.MILLISECONDS);
+        awaitInvalidations(nodeB, 2);
+
+        assertEquals("v1", nodeB.get("sku-1"));
+        assertEquals(Map.of("sku-2", "v2"), nodeB.getAll(List.of("sku-2")));
+
+        Thread.sleep(300);
+
+        assertNull(nodeB.get("sku-1"), "Redis expiry is not announced, so the copy must expire on its own");
+        assertEquals(Map.of(), nodeB.getAll(List.of("sku-2")));
+        assertEquals(2, nodeB.getTierStats().getInvalidationCount());
+    }
+
+    @Test
+    @DisplayName("getOrPut on either node sees the value loaded by the other")
+    public void getOrPutSharesRemoteTier() throws Exception {
+        assertEquals("loaded", nodeA.getOrPut("key", () -> "loaded"));
+        assertEquals("loaded", nodeB.getOrPut("key", () -> "not expected"));
+    }
+
+    @Test
+    @DisplayName("The local tier never writes remote hits or peer invalidations to the cache writer")
+    public void localTierDoesNotWriteBehind() throws Exception {
+        List<String> written = new CopyOnWriteArrayList<>();
+        List<String> deleted = new CopyOnWriteArrayList<>();
+        CacheWriter<String, String> writer = new CacheWriter<>() {
+            @Override
+            public void writeAll(Map<String, String> entries) {
+                written.addAll(entries.keySet());
+            }
+
+            @Override
+            public void deleteAll(Collection<String> keys) {
+                deleted.addAll(keys);
+            }
+        };
+        nodeA.close();
+        nodeB.close();
+        nodeA = new TieredCache<>("products", config().setCacheWriter(writer).setWriteBehindIntervalMillis(10));
+        nodeB = new TieredCache<>("products", config().setCacheWriter(writer).setWriteBehindIntervalMillis(10));
+
+        nodeA.put("sku-1", "v1");
+        awaitInvalidations(nodeB, 1);
+        assertEquals("v1", nodeB.get("sku-1"));
+        nodeA.put("sku-1", "v2");
+        awaitValue("v2", () -> nodeB.get("sku-1"));
+        Thread.sleep(100);
+
+        assertEquals(List.of(), written);
+        assertEquals(List.of(), deleted);
+        assertEquals("v2", nodeA.get("sku-1"));
+    }
+
+    private CacheConfig config() {
+        return new CacheConfig()
+            .setConnectionString(server.getConnectionString())
+            .setKeySerializer(CacheSerializers.string())
+            .setValueSerializer(CacheSerializers.string());
+    }
+
+    /**
+     * Waits until a node has received the given number of invalidations.
+     */
+    private static void awaitInvalidations(TieredCache<?, ?> node, long count) throws Exception {
+        long deadline = System.currentTimeMillis() + PROPAGATION_TIMEOUT_MILLIS;
+        while (node.getTierStats().getInvalidationCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, node.getTierStats().getInvalidationCount());
+    }
+
+    /**
+     * Polls until the read returns the expected value, since invalidations
+     * arrive asynchronously.
+     */
+    private static void awaitValue(String expected, Callable<String> read) throws Exception {
+        long deadline = System.currentTimeMillis() + PROPAGATION_TIMEOUT_MILLIS;
+        String actual = read.call();
+        while (!Objects.equals(expected, actual) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+            actual = read.call();
+        }
+        assertEquals(expected, actual);
+    }
+}
@@ -25,6 +25,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -57,6 +58,11 @@ public class FileStorageService {
     @Autowired
     private ImageProcessingService imageProcessingService;
 
+    /**
+     * Leading bytes kept for content type detection; Tika's magic patterns lie within them
+     */
+    private static final int CONTENT_SNIFF_BYTES = 64 * 1024;
+
     private final Tika tika = new Tika();
 
     /**
@@ -65,6 +71,7 @@ public class FileStorageService {
     public FileUploadResponse uploadFile(MultipartFile file, FileUploadRequest request) {
         log.info("Processing file upload: {} (size: {} bytes)", file.getOriginalFilename(), file.getSize());
 
+        String storedPath = null;
         try {
             // Validate the file
             validateFile(file);
@@ -72,35 +79,38 @@ public class FileStorageService {
             // Generate unique file ID
             String fileId = UUID.randomUUID().toString();
 
-            // Detect content type
-            String contentType = detectContentType(file);
-
             // Generate safe filename
             String safeFilename = generateSafeFilename(file.getOriginalFilename(), fileId);
 
-            // Calculate checksum if required
-            String checksum = null;
-            if (request.isValidateChecksum()) {
-                checksum = calculateChecksum(file.getBytes());
+            // Store the file in a single pass that also computes the checksum if required
+            // and keeps the leading bytes for content type detection if the client sent none
+            MessageDigest digest = request.isValidateChecksum() ? createChecksumDigest() : null;
+            int sniffBytes = hasDeclaredContentType(file) ? 0 : CONTENT_SNIFF_BYTES;
+            UploadInputStream upload = new UploadInputStream(file.getInputStream(), digest, sniffBytes);
+            try (upload) {
+                storedPath = storeFile(upload, safeFilename, request);
             }
+            String checksum = upload.getChecksum();
+
+            // Detect content type
+            String contentType = detectContentType(file, upload.getHead());
 
             // Check for duplicates if checksum is available
             if (checksum != null) {
                 List<FileMetadata> duplicates = fileMetadataRepository.findByChecksum(checksum);
                 if (!duplicates.isEmpty() && request.isValidateChecksum()) {
                     log.warn("Duplicate file detected: {} (checksum: {})", file.getOriginalFilename(), checksum);
+                    // The checksum is only known once the file is stored, so remove the copy
+                    localStorageService.deleteFile(storedPath);
                     // Return existing file info instead of uploading duplicate
                     FileMetadata existing = duplicates.get(0);
                     return buildUploadResponse(existing, "File already exists (duplicate detected)");
                 }
             }
 
-            // Store the file
-            String storedPath = storeFile(file, safeFilename, request);
-
             // Create metadata record
             FileMetadata metadata = createFileMetadata(fileId, file, safeFilename, storedPath, 
-                                                     contentType, checksum, request);
+                                                     contentType, checksum, upload.getSize(), request);
 
             // Save metadata to database
             metadata = fileMetadataRepository.save(metadata);
@@ -125,6 +135,10 @@ public class FileStorageService {
 
         } catch (Exception e) {
             log.error("Failed to upload file: {}", file.getOriginalFilename(), e);
+            if (storedPath != null) {
+                // The metadata is rolled back with the transaction, so the stored copy must go too
+                localStorageService.deleteFile(storedPath);
+            }
             throw new FileStorageException("File upload failed: " + e.getMessage(), e);
         }
     }
@@ -267,19 +281,26 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Check whether the client sent a specific content type
+     */
+    private boolean hasDeclaredContentType(MultipartFile file) {
+        String contentType = file.getContentType();
+        return StringUtils.hasText(contentType) && !contentType.equals("application/octet-stream");
+    }
+
     /**
      * Detect file content type
      */
-    private String detectContentType(MultipartFile file) {
+    private String detectContentType(MultipartFile file, byte[] head) {
         try {
             // First try the multipart file's content type
-            String contentType = file.getContentType();
-            if (StringUtils.hasText(contentType) && !contentType.equals("application/octet-stream")) {
-                return contentType;
+            if (hasDeclaredContentType(file)) {
+                return file.getContentType();
             }
 
-            // Fall back to Tika detection
-            return tika.detect(file.getBytes());
+            // Fall back to Tika detection on the leading bytes
+            return tika.detect(head);
 
         } catch (Exception e) {
             log.warn("Failed to detect content type for file: {}", file.getOriginalFilename(), e);
@@ -303,9 +324,9 @@ public class FileStorageService {
     /**
      * Store file using appropriate storage backend
      */
-    private String storeFile(MultipartFile file, String filename, FileUploadRequest request) {
+    private String storeFile(InputStream content, String filename, FileUploadRequest request) {
         // For now, use local storage. Can be extended to support other backends
-        return localStorageService.storeFile(file, filename);
+        return localStorageService.storeFile(content, filename);
     }
 
     /**
@@ -313,14 +334,14 @@ public class FileStorageService {
      */
     private FileMetadata createFileMetadata(String fileId, MultipartFile file, String storedFilename, 
                                           String storedPath, String contentType, String checksum, 
-                                          FileUploadRequest request) {
+                                          long fileSize, FileUploadRequest request) {
         FileMetadata metadata = new FileMetadata();
         metadata.setFileId(fileId);
         metadata.setOriginalFilename(file.getOriginalFilename());
         metadata.setStoredFilename(storedFilename);
         metadata.setFilePath(storedPath);
         metadata.setContentType(contentType);
-        metadata.setFileSize(file.getSize());
+        metadata.setFileSize(fileSize);
         metadata.setChecksum(checksum);
         metadata.setStorageType(StorageType.LOCAL);
         metadata.setFileStatus(FileStatus.UPLOADING);
@@ -333,17 +354,11 @@ public class FileStorageService {
     }
 
     /**
-     * Calculate file checksum (MD5)
+     * Create the digest for the file checksum (MD5)
      */
-    private String calculateChecksum(byte[] fileBytes) {
+    private MessageDigest createChecksumDigest() {
         try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] digest = md.digest(fileBytes);
-            StringBuilder sb = new StringBuilder();
-            for (byte b : digest) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
+            return MessageDigest.getInstance("MD5");
         } catch (Exception e) {
             log.warn("Failed to calculate checksum", e);
             return null;
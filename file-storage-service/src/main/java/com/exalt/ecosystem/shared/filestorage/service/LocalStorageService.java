@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -29,6 +30,20 @@ public class LocalStorageService {
      * Store file in local filesystem with organized directory structure
      */
     public String storeFile(MultipartFile file, String filename) {
+        try {
+            return storeFile(file.getInputStream(), filename);
+        } catch (IOException e) {
+            log.error("Failed to read uploaded file: {}", filename, e);
+            throw new FileStorageException("Failed to store file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Store a stream in local filesystem with organized directory structure,
+     * copying it through a small buffer so that memory use does not depend on its size
+     */
+    public String storeFile(InputStream content, String filename) {
+        Path filePath = null;
         try {
             // Create date-based directory structure (yyyy/MM/dd)
             String dateBasedPath = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
@@ -38,7 +53,7 @@ public class LocalStorageService {
             Files.createDirectories(uploadPath);
 
             // Resolve the file path
-            Path filePath = uploadPath.resolve(filename);
+            filePath = uploadPath.resolve(filename);
 
             // Ensure we don't overwrite existing files
             int counter = 1;
@@ -52,7 +67,7 @@ public class LocalStorageService {
             }
 
             // Copy file to the target location
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            Files.copy(content, filePath, StandardCopyOption.REPLACE_EXISTING);
 
             String storedPath = filePath.toString();
             log.info("File stored locally: {} -> {}", filename, storedPath);
@@ -61,10 +76,25 @@ public class LocalStorageService {
 
         } catch (IOException e) {
             log.error("Failed to store file locally: {}", filename, e);
+            deletePartialFile(filePath);
             throw new FileStorageException("Failed to store file: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Delete what was written of a file whose copy failed
+     */
+    private void deletePartialFile(Path filePath) {
+        if (filePath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(filePath);
+        } catch (IOException e) {
+            log.warn("Failed to delete partially stored file: {}", filePath, e);
+        }
+    }
+
     /**
      * Delete file from local filesystem
      */
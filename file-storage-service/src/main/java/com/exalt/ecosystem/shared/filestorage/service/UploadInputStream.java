@@ -0,0 +1,122 @@
+package com.exalt.ecosystem.shared.filestorage.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Input stream that checksums, counts and keeps the first bytes of an
+ * upload for content type detection while the storage backend reads it,
+ * so an upload is read once and never held in memory as a whole
+ */
+final class UploadInputStream extends FilterInputStream {
+
+    private final MessageDigest digest;
+    private final byte[] head;
+    private int headLength;
+    private long size;
+    private String checksum;
+
+    /**
+     * @param in         The upload
+     * @param digest     The digest to update, or null to skip the checksum
+     * @param sniffBytes How many leading bytes to keep for content type detection
+     */
+    UploadInputStream(InputStream in, MessageDigest digest, int sniffBytes) {
+        super(in);
+        this.digest = digest;
+        this.head = new byte[sniffBytes];
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            if (digest != null) {
+                digest.update((byte) b);
+            }
+            if (headLength < head.length) {
+                head[headLength++] = (byte) b;
+            }
+            size++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            if (digest != null) {
+                digest.update(b, off, n);
+            }
+            if (headLength < head.length) {
+                int copied = Math.min(n, head.length - headLength);
+                System.arraycopy(b, off, head, headLength, copied);
+                headLength += copied;
+            }
+            size += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+
+        // Skipped bytes must still pass through the digest
+        byte[] discard = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(discard, 0, (int) Math.min(discard.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Get the number of bytes read so far
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Get the leading bytes kept for content type detection
+     */
+    byte[] getHead() {
+        return Arrays.copyOf(head, headLength);
+    }
+
+    /**
+     * Get the hex checksum of the bytes read, once the upload has been read to the end
+     */
+    String getChecksum() {
+        if (checksum == null && digest != null) {
+            checksum = HexFormat.of().formatHex(digest.digest());
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,252 @@
+package com.exalt.ecosystem.shared.filestorage.service;
+
+import com.exalt.ecosystem.shared.filestorage.config.FileStorageProperties;
+import com.exalt.ecosystem.shared.filestorage.dto.FileUploadRequest;
+import com.exalt.ecosystem.shared.filestorage.dto.FileUploadResponse;
+import com.exalt.ecosystem.shared.filestorage.exception.FileStorageException;
+import com.exalt.ecosystem.shared.filestorage.model.FileMetadata;
+import com.exalt.ecosystem.shared.filestorage.repository.FileMetadataRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the streaming upload path of FileStorageService
+ */
+public class FileStorageServiceTest {
+
+    private static final long UPLOAD_SIZE = 2L * 1024 * 1024 * 1024;
+
+    private static final long SMALL_UPLOAD_SIZE = 1024 * 1024;
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    @DisplayName("A streamed upload is stored with its checksum, size and sniffed content type")
+    public void streamsUpload() throws Exception {
+        FileStorageService service = createService(savingRepository(), SMALL_UPLOAD_SIZE);
+
+        FileUploadRequest request = FileUploadRequest.builder().uploadedBy("user-1").build();
+        FileUploadResponse response = service.uploadFile(new StreamedMultipartFile("backup.zip", SMALL_UPLOAD_SIZE), request);
+
+        assertEquals(md5(SMALL_UPLOAD_SIZE), response.getChecksum());
+        assertEquals(SMALL_UPLOAD_SIZE, response.getFileSize());
+        assertEquals("application/zip", response.getContentType());
+        assertEquals(SMALL_UPLOAD_SIZE, Files.size(storedFile()));
+    }
+
+    @Test
+    @DisplayName("A duplicate upload returns the existing file and deletes the stored copy")
+    public void deletesDuplicateCopy() throws Exception {
+        FileMetadata existing = new FileMetadata();
+        existing.setFileId("existing");
+        existing.setChecksum(md5(SMALL_UPLOAD_SIZE));
+        FileMetadataRepository repository = savingRepository();
+        when(repository.findByChecksum(existing.getChecksum())).thenReturn(List.of(existing));
+        FileStorageService service = createService(repository, SMALL_UPLOAD_SIZE);
+
+        FileUploadRequest request = FileUploadRequest.builder().uploadedBy("user-1").build();
+        FileUploadResponse response = service.uploadFile(new StreamedMultipartFile("backup.zip", SMALL_UPLOAD_SIZE), request);
+
+        assertEquals("existing", response.getFileId());
+        verify(repository, never()).save(any(FileMetadata.class));
+        assertEquals(0, storedFileCount());
+    }
+
+    @Test
+    @DisplayName("A stored file is deleted when its metadata cannot be saved")
+    public void deletesStoredFileWhenSaveFails() throws Exception {
+        FileMetadataRepository repository = mock(FileMetadataRepository.class);
+        when(repository.save(any(FileMetadata.class))).thenThrow(new IllegalStateException("Database unavailable"));
+        FileStorageService service = createService(repository, SMALL_UPLOAD_SIZE);
+
+        FileUploadRequest request = FileUploadRequest.builder().uploadedBy("user-1").build();
+        assertThrows(FileStorageException.class,
+            () -> service.uploadFile(new StreamedMultipartFile("backup.zip", SMALL_UPLOAD_SIZE), request));
+
+        assertEquals(0, storedFileCount());
+    }
+
+    @Test
+    @Tag("large")
+    @DisplayName("A 2 GB upload is stored, checksummed and sniffed in one pass under a 256 MB heap")
+    public void streamsLargeUpload() throws Exception {
+        // The large-tests profile runs this with -Xmx256m; with a bigger heap it proves nothing
+        assumeTrue(Runtime.getRuntime().maxMemory() <= 256L * 1024 * 1024, "Test needs a 256 MB heap");
+
+        FileStorageService service = createService(savingRepository(), UPLOAD_SIZE);
+
+        FileUploadRequest request = FileUploadRequest.builder().uploadedBy("user-1").build();
+        FileUploadResponse response = service.uploadFile(new StreamedMultipartFile("backup.zip", UPLOAD_SIZE), request);
+
+        assertEquals(md5(UPLOAD_SIZE), response.getChecksum());
+        assertEquals(UPLOAD_SIZE, response.getFileSize());
+        assertEquals("application/zip", response.getContentType());
+
+        Path file = storedFile();
+        assertEquals(UPLOAD_SIZE, Files.size(file));
+        Files.delete(file);
+    }
+
+    private FileStorageService createService(FileMetadataRepository repository, long maxFileSize) {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.getLocal().setUploadDir(uploadDir.toString());
+        properties.getValidation().setMaxFileSize(maxFileSize);
+        LocalStorageService localStorageService = new LocalStorageService();
+        ReflectionTestUtils.setField(localStorageService, "storageProperties", properties);
+
+        FileStorageService service = new FileStorageService();
+        ReflectionTestUtils.setField(service, "fileMetadataRepository", repository);
+        ReflectionTestUtils.setField(service, "storageProperties", properties);
+        ReflectionTestUtils.setField(service, "localStorageService", localStorageService);
+        ReflectionTestUtils.setField(service, "imageProcessingService", mock(ImageProcessingService.class));
+        return service;
+    }
+
+    private static FileMetadataRepository savingRepository() {
+        FileMetadataRepository repository = mock(FileMetadataRepository.class);
+        when(repository.save(any(FileMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        return repository;
+    }
+
+    private Path storedFile() throws IOException {
+        try (var stored = Files.walk(uploadDir)) {
+            return stored.filter(Files::isRegularFile).findFirst().orElseThrow();
+        }
+    }
+
+    private long storedFileCount() throws IOException {
+        try (var stored = Files.walk(uploadDir)) {
+            return stored.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static String md5(long size) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        try (InputStream content = new GeneratedInputStream(size)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = content.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Upload whose content is generated while it is read and that refuses to be buffered
+     */
+    private static final class StreamedMultipartFile implements MultipartFile {
+
+        private final String filename;
+        private final long size;
+
+        StreamedMultipartFile(String filename, long size) {
+            this.filename = filename;
+            this.size = size;
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return filename;
+        }
+
+        @Override
+        public String getContentType() {
+            return null;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            throw new UnsupportedOperationException("Uploads must be streamed");
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new GeneratedInputStream(size);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.copy(getInputStream(), dest.toPath());
+        }
+    }
+
+    /**
+     * Deterministic content starting with the ZIP signature
+     */
+    private static final class GeneratedInputStream extends InputStream {
+
+        private static final byte[] ZIP_SIGNATURE = {'P', 'K', 3, 4};
+
+        private final long size;
+        private long position;
+
+        GeneratedInputStream(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            if (position == size) {
+                return -1;
+            }
+            return byteAt(position++) & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position == size) {
+                return -1;
+            }
+            int n = (int) Math.min(len, size - position);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = byteAt(position++);
+            }
+            return n;
+        }
+
+        private static byte byteAt(long position) {
+            if (position < ZIP_SIGNATURE.length) {
+                return ZIP_SIGNATURE[(int) position];
+            }
+            return (byte) (position * 31 + (position >>> 13));
+        }
+    }
+}
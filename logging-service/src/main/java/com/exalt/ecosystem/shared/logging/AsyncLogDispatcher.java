@@ -0,0 +1,111 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes submitted log events to the sinks on a dedicated daemon thread.
+ * <p>
+ * Submitting only claims and fills a slot of a {@link LogRingBuffer}, so
+ * callers never run aggregator code and never lock. The dispatcher thread
+ * stamps the service name and offers each event to every {@link LogSink},
+ * which copies the events it routes into its own queue; aggregators run
+ * on the sinks' workers. Only when the dispatcher itself falls behind
+ * does the buffer apply its backpressure policy to the callers.
+ */
+final class AsyncLogDispatcher {
+    
+    /** Longest the dispatcher parks before re-checking the buffer */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private final LogRingBuffer buffer;
+    private final LogSink[] sinks;
+    private final String serviceName;
+    private final Thread thread;
+    
+    /**
+     * Creates a dispatcher and starts its thread.
+     *
+     * @param buffer      The buffer events are submitted to
+     * @param sinks       The sinks to route to
+     * @param serviceName The service name added to every event
+     */
+    AsyncLogDispatcher(LogRingBuffer buffer, List<LogSink> sinks, String serviceName) {
+        this.buffer = buffer;
+        this.sinks = sinks.toArray(new LogSink[0]);
+        this.serviceName = serviceName;
+        this.thread = new Thread(this::drain, "logging-dispatcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    /**
+     * Queues an event for delivery with the caller's {@link LogContext}.
+     * Safe to call from any number of threads.
+     *
+     * @param level    The log level
+     * @param message  The log message
+     * @param metadata Additional metadata for the log event
+     * @return true if the event was queued, false if it was dropped
+     */
+    boolean submit(String level, String message, Map<String, Object> metadata) {
+        return buffer.publish(level, message, metadata, LogContext.current(), System.currentTimeMillis());
+    }
+    
+    /**
+     * Queues a copy of an event built with a {@link LogEventBuilder}.
+     *
+     * @param event The event, with its timestamp set
+     * @return true if the event was queued, false if it was dropped
+     */
+    boolean submit(LogEvent event) {
+        return buffer.publish(event);
+    }
+    
+    LogRingBuffer getBuffer() {
+        return buffer;
+    }
+    
+    /**
+     * Stops accepting events, delivers the ones already buffered and stops
+     * the thread and the sinks' workers.
+     *
+     * @param timeoutMillis How long to wait for buffered events to be delivered
+     */
+    void close(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        buffer.close();
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (LogSink sink : sinks) {
+            sink.close(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+    }
+    
+    private void drain() {
+        LogEvent event = new LogEvent();
+        while (true) {
+            if (!buffer.poll(event)) {
+                if (!buffer.isClosed()) {
+                    buffer.awaitEvents(MAX_PARK_NANOS);
+                } else if (buffer.size() == 0) {
+                    return;
+                } else {
+                    // A producer claimed a slot before the close and is still filling it
+                    Thread.onSpinWait();
+                }
+                continue;
+            }
+            
+            event.setService(serviceName);
+            for (LogSink sink : sinks) {
+                sink.offer(event);
+            }
+            event.clear();
+        }
+    }
+}
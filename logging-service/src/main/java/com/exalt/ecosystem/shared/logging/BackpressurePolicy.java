@@ -0,0 +1,26 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.Locale;
+
+/**
+ * What a {@link LogRingBuffer} does with a log event published while it is full.
+ */
+public enum BackpressurePolicy {
+    /** Discard the oldest buffered event to make room for the new one */
+    DROP_OLDEST,
+    /** Discard the new event */
+    DROP_NEWEST,
+    /** Wait for room up to a timeout, then discard the new event */
+    BLOCK;
+    
+    /**
+     * Parses a policy from its configuration value, such as {@code drop-oldest}.
+     *
+     * @param value The configured value, case-insensitive, with dashes or underscores
+     * @return The policy
+     * @throws IllegalArgumentException if the value names no policy
+     */
+    public static BackpressurePolicy fromConfig(String value) {
+        return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
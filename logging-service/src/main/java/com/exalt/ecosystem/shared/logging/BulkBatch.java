@@ -0,0 +1,143 @@
+package com.exalt.ecosystem.shared.logging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A batch of log events serialized into an Elasticsearch {@code _bulk} request body.
+ * <p>
+ * Every event is streamed as an action line and a document line of
+ * NDJSON, optionally through gzip, as it is added; the events themselves
+ * are not kept. Documents come already encoded by a {@link JsonLogEncoder}
+ * and the action line is the same for every event, so adding allocates
+ * nothing beyond the growth of the body. The batch tracks its
+ * uncompressed size so it can be cut before it exceeds the bulk size limit.
+ */
+final class BulkBatch {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private final ByteArrayOutputStream compressed;
+    private final OutputStream compressor;
+    private final byte[] actionLine;
+    private final long createdAt = System.nanoTime();
+    private long uncompressedBytes;
+    private int actionCount;
+    
+    /**
+     * Creates an empty batch.
+     *
+     * @param actionLine The index action line written before every document, ending in a newline
+     * @param gzip       Whether to gzip the body
+     * @param sizeHint   The expected compressed size of the body in bytes
+     */
+    BulkBatch(byte[] actionLine, boolean gzip, int sizeHint) {
+        this.actionLine = actionLine;
+        this.compressed = new ByteArrayOutputStream(sizeHint);
+        try {
+            this.compressor = gzip ? new GZIPOutputStream(compressed, 8192) : compressed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Builds the action line that indexes a document into an index.
+     *
+     * @param indexName The index the events are written to
+     * @return The action line, ending in a newline
+     */
+    static byte[] indexActionLine(String indexName) {
+        JsonLogEncoder encoder = new JsonLogEncoder(64);
+        encoder.writeRaw("{\"index\":{\"_index\":".getBytes());
+        encoder.writeString(indexName);
+        encoder.writeRaw("}}\n".getBytes());
+        return encoder.toByteArray();
+    }
+    
+    /**
+     * Appends an event as an index action and its document.
+     *
+     * @param document The encoder holding the event's document, without a trailing newline
+     */
+    void add(JsonLogEncoder document) {
+        try {
+            compressor.write(actionLine);
+            document.writeTo(compressor);
+            compressor.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        uncompressedBytes += actionLine.length + document.length() + 1;
+        actionCount++;
+    }
+    
+    /**
+     * Gets the number of events in the batch.
+     *
+     * @return The event count
+     */
+    int actionCount() {
+        return actionCount;
+    }
+    
+    /**
+     * Gets the size of the body before compression.
+     *
+     * @return The uncompressed size in bytes
+     */
+    long uncompressedBytes() {
+        return uncompressedBytes;
+    }
+    
+    /**
+     * Gets the time since the batch was created.
+     *
+     * @return The age in nanoseconds
+     */
+    long ageNanos() {
+        return System.nanoTime() - createdAt;
+    }
+    
+    /**
+     * Completes the body. No events can be added afterwards.
+     *
+     * @return The request body, compressed if gzip is enabled
+     */
+    byte[] finish() {
+        try {
+            compressor.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+    
+    /**
+     * Counts the items of a {@code _bulk} response that failed.
+     *
+     * @param responseBody The response body
+     * @return The number of items with an error
+     */
+    static int countFailedItems(String responseBody) {
+        int failed = 0;
+        try {
+            for (JsonNode item : MAPPER.readTree(responseBody).path("items")) {
+                // Every item is an object with one field named after its action
+                JsonNode result = item.elements().hasNext() ? item.elements().next() : item;
+                if (result.has("error")) {
+                    failed++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return failed;
+    }
+}
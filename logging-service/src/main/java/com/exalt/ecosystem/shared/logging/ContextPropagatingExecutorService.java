@@ -0,0 +1,100 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Executor service that runs every task with the {@link LogContext}
+ * current at submission, see {@link LogContext#propagating(ExecutorService)}.
+ */
+final class ContextPropagatingExecutorService implements ExecutorService {
+    
+    private final ExecutorService delegate;
+    
+    ContextPropagatingExecutorService(ExecutorService delegate) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+    }
+    
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(LogContext.wrap(command));
+    }
+    
+    @Override
+    public Future<?> submit(Runnable task) {
+        return delegate.submit(LogContext.wrap(task));
+    }
+    
+    @Override
+    public <T> Future<T> submit(Runnable task, T result) {
+        return delegate.submit(LogContext.wrap(task), result);
+    }
+    
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return delegate.submit(LogContext.wrap(task));
+    }
+    
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        return delegate.invokeAll(wrapAll(tasks));
+    }
+    
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return delegate.invokeAll(wrapAll(tasks), timeout, unit);
+    }
+    
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+        return delegate.invokeAny(wrapAll(tasks));
+    }
+    
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return delegate.invokeAny(wrapAll(tasks), timeout, unit);
+    }
+    
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+    
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+    
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+    
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+    
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+    
+    private static <T> List<Callable<T>> wrapAll(Collection<? extends Callable<T>> tasks) {
+        List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            wrapped.add(LogContext.wrap(task));
+        }
+        return wrapped;
+    }
+}
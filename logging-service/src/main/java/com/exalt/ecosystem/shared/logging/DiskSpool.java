@@ -0,0 +1,331 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable first-in, first-out queue of bulk request bodies on local disk.
+ * <p>
+ * Records are appended to segment files with a {@link FileChannel} and
+ * forced to disk, each with its length, event count, flags and a CRC.
+ * The position of the next record to replay is kept in an offset file,
+ * so a restarted process resumes where the previous one stopped. A
+ * segment is deleted once it has been read past. When the segments
+ * exceed the disk budget, the oldest are deleted first and their unread
+ * events are counted as dropped, even while one of their records is
+ * being replayed; committing that record afterwards leaves the read
+ * position in the new oldest segment alone.
+ * <p>
+ * Only one record is held in memory at a time, however long the spool.
+ */
+final class DiskSpool implements AutoCloseable {
+    
+    /** Length, event count, flags and CRC of a record */
+    private static final int HEADER_BYTES = 16;
+    private static final String OFFSET_FILE = "spool.offset";
+    
+    private final Path directory;
+    private final long segmentBytes;
+    private final long maxBytes;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private FileChannel writeChannel;
+    private long readPosition;
+    private long totalBytes;
+    private long droppedEvents;
+    
+    /**
+     * A spooled bulk request body.
+     */
+    static final class Record {
+        final byte[] body;
+        final int actions;
+        final boolean gzipped;
+        private final long segment;
+        private final long end;
+        
+        private Record(byte[] body, int actions, boolean gzipped, long segment, long end) {
+            this.body = body;
+            this.actions = actions;
+            this.gzipped = gzipped;
+            this.segment = segment;
+            this.end = end;
+        }
+    }
+    
+    /**
+     * Opens the spool in a directory, resuming any records left by a previous process.
+     *
+     * @param directory    The directory holding the segment files
+     * @param segmentBytes The size at which a new segment is started
+     * @param maxBytes     The most disk space the segments may take
+     * @throws IOException if the directory cannot be read or written
+     */
+    DiskSpool(Path directory, long segmentBytes, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(path -> path.getFileName().toString().endsWith(".seg")).sorted().forEach(files::add);
+        }
+        for (Path file : files) {
+            Segment segment = new Segment(file, Files.size(file));
+            segments.add(segment);
+            totalBytes += segment.size;
+        }
+        
+        Path offsetFile = directory.resolve(OFFSET_FILE);
+        if (Files.exists(offsetFile) && !segments.isEmpty()) {
+            String[] offset = Files.readString(offsetFile, StandardCharsets.US_ASCII).trim().split(":");
+            // Segments before the recorded one were fully read; the offset only applies to its own segment
+            while (!segments.isEmpty() && segments.peekFirst().id < Long.parseLong(offset[0])) {
+                deleteOldest();
+            }
+            if (!segments.isEmpty() && segments.peekFirst().id == Long.parseLong(offset[0])) {
+                readPosition = Long.parseLong(offset[1]);
+            }
+        }
+        
+        // Never append to a segment a crash may have left with a torn record
+        startSegment(segments.isEmpty() ? 0 : segments.peekLast().id + 1);
+    }
+    
+    /**
+     * Appends a bulk request body and forces it to disk.
+     *
+     * @param body    The request body
+     * @param actions The number of events in the body
+     * @param gzipped Whether the body is gzipped
+     */
+    synchronized void append(byte[] body, int actions, boolean gzipped) {
+        Segment last = segments.peekLast();
+        try {
+            if (last.size > 0 && last.size + HEADER_BYTES + body.length > segmentBytes) {
+                writeChannel.close();
+                startSegment(last.id + 1);
+                last = segments.peekLast();
+            }
+            
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(body.length)
+                .putInt(actions)
+                .putInt(gzipped ? 1 : 0)
+                .putInt((int) crc.getValue());
+            header.flip();
+            ByteBuffer[] record = {header, ByteBuffer.wrap(body)};
+            while (record[1].hasRemaining()) {
+                writeChannel.write(record);
+            }
+            writeChannel.force(false);
+            last.size += HEADER_BYTES + body.length;
+            totalBytes += HEADER_BYTES + body.length;
+        } catch (IOException e) {
+            discardTornRecord(last);
+            throw new UncheckedIOException(e);
+        }
+        
+        while (totalBytes > maxBytes && segments.size() > 1) {
+            droppedEvents += countUnread(segments.peekFirst());
+            deleteOldest();
+        }
+    }
+    
+    /**
+     * Reads the oldest record without removing it.
+     *
+     * @return The record, or null if the spool is empty
+     */
+    synchronized Record peek() {
+        while (true) {
+            Segment first = segments.peekFirst();
+            if (readPosition + HEADER_BYTES > first.size) {
+                if (first == segments.peekLast()) {
+                    return null;
+                }
+                deleteOldest();
+                continue;
+            }
+            
+            try (FileChannel channel = FileChannel.open(first.path, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                readFully(channel, header, readPosition);
+                header.flip();
+                int length = header.getInt();
+                int actions = header.getInt();
+                boolean gzipped = (header.getInt() & 1) != 0;
+                int checksum = header.getInt();
+                
+                long end = readPosition + HEADER_BYTES + length;
+                if (length < 0 || end > first.size) {
+                    // Torn by a crash while appending; nothing after it in this segment is readable
+                    readPosition = first.size;
+                    continue;
+                }
+                ByteBuffer body = ByteBuffer.allocate(length);
+                readFully(channel, body, readPosition + HEADER_BYTES);
+                CRC32 crc = new CRC32();
+                crc.update(body.array());
+                if ((int) crc.getValue() != checksum) {
+                    droppedEvents += actions;
+                    readPosition = end;
+                    continue;
+                }
+                return new Record(body.array(), actions, gzipped, first.id, end);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+    
+    /**
+     * Removes a record returned by {@link #peek()} and records the new read
+     * offset. If its segment was deleted over the disk budget since, there
+     * is nothing left to remove.
+     *
+     * @param record The oldest record
+     */
+    synchronized void commit(Record record) {
+        if (segments.peekFirst().id != record.segment) {
+            // Delivered after all, so it was counted as dropped by mistake
+            droppedEvents -= record.actions;
+            return;
+        }
+        readPosition = record.end;
+        try {
+            Path temporary = directory.resolve(OFFSET_FILE + ".tmp");
+            Files.writeString(temporary, segments.peekFirst().id + ":" + readPosition, StandardCharsets.US_ASCII);
+            Files.move(temporary, directory.resolve(OFFSET_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Checks whether every record has been read.
+     *
+     * @return true if there is nothing to replay
+     */
+    synchronized boolean isEmpty() {
+        return segments.size() == 1 && readPosition >= segments.peekFirst().size;
+    }
+    
+    /**
+     * Gets the disk space taken by the segments, including records already read.
+     *
+     * @return The size in bytes
+     */
+    synchronized long sizeBytes() {
+        return totalBytes;
+    }
+    
+    /**
+     * Gets the number of events deleted unread to stay within the disk budget, or unreadable.
+     *
+     * @return The dropped event count since opening
+     */
+    synchronized long getDroppedEventCount() {
+        return droppedEvents;
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        writeChannel.close();
+    }
+    
+    private void startSegment(long id) throws IOException {
+        Path path = directory.resolve(String.format("spool-%020d.seg", id));
+        writeChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segments.add(new Segment(path, writeChannel.size()));
+    }
+    
+    /**
+     * Cuts off what a failed append left past the end of the last segment,
+     * so the next record starts where its size says. If the channel cannot
+     * be truncated, appends move on to a new segment and the torn bytes
+     * stay beyond the size the reader stops at.
+     */
+    private void discardTornRecord(Segment last) {
+        try {
+            writeChannel.truncate(last.size);
+        } catch (IOException e) {
+            try {
+                writeChannel.close();
+                startSegment(segments.peekLast().id + 1);
+            } catch (IOException ignored) {
+                // The next append fails on the closed channel and tries again
+            }
+        }
+    }
+    
+    private void deleteOldest() {
+        Segment oldest = segments.pollFirst();
+        totalBytes -= oldest.size;
+        readPosition = 0;
+        try {
+            Files.deleteIfExists(oldest.path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private long countUnread(Segment segment) {
+        long unread = 0;
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            for (long position = readPosition; position + HEADER_BYTES <= segment.size; ) {
+                header.clear();
+                readFully(channel, header, position);
+                header.flip();
+                int length = header.getInt();
+                unread += header.getInt();
+                position += HEADER_BYTES + length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return unread;
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of spool segment");
+            }
+        }
+    }
+    
+    /**
+     * A segment file and its size.
+     */
+    private static final class Segment {
+        final Path path;
+        final long id;
+        long size;
+        
+        Segment(Path path, long size) {
+            this.path = path;
+            String name = path.getFileName().toString();
+            this.id = Long.parseLong(name.substring("spool-".length(), name.length() - ".seg".length()));
+            this.size = size;
+        }
+    }
+}
@@ -1,27 +1,117 @@
 package com.exalt.ecosystem.shared.logging;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Implementation of LogAggregator that sends logs to Elasticsearch.
+ * <p>
+ * Events are encoded with a {@link JsonLogEncoder} and streamed into a
+ * gzipped NDJSON {@code _bulk} body as they arrive; events with inline
+ * fields are encoded without building a map. The body is sent once it
+ * holds {@code elastic.bulk.max.actions} events or
+ * {@code elastic.bulk.max.bytes} uncompressed bytes, or once its first
+ * event is {@code elastic.bulk.linger.ms} old. Requests go through one
+ * asynchronous HTTP client that keeps its connections open. At most
+ * {@code elastic.bulk.max.in.flight} requests are outstanding; beyond
+ * that, sending waits for a response, which holds up only the worker of
+ * this aggregator's {@link LogSink} instead of growing the heap.
+ * <p>
+ * If {@code elastic.spool.dir} is set, bulk bodies that cannot be
+ * delivered because Elasticsearch is unreachable, overloaded or failing
+ * are written to a {@link DiskSpool} there instead of being lost. While
+ * the spool holds anything, new bodies are appended to it too, so no
+ * requests are wasted on a sink that is down; bodies that were in flight
+ * when it failed may end up behind newer ones. A
+ * replay thread retries the oldest spooled body every
+ * {@code elastic.spool.retry.ms} and drains the spool once it succeeds.
+ * Segments are {@code elastic.spool.segment.bytes} long and together
+ * stay within {@code elastic.spool.max.bytes}; the oldest are deleted
+ * beyond that. Bodies still spooled at shutdown are replayed by the next
+ * process using the same directory.
  */
 public class ElasticSearchAggregator implements LogAggregator {
     
-    private String elasticUrl;
-    private String indexName;
-    private ExecutorService executor;
-    private boolean initialized = false;
+    private final ReentrantLock batchLock = new ReentrantLock();
+    private final LongAdder sentEvents = new LongAdder();
+    private final LongAdder failedEvents = new LongAdder();
+    private final JsonLogEncoder encoder = new JsonLogEncoder();
+    private String bulkUrl;
+    private byte[] actionLine;
+    private int maxActions;
+    private long maxBytes;
+    private long lingerNanos;
+    private int maxInFlight;
+    private boolean gzip;
+    private Duration requestTimeout;
+    private HttpClient httpClient;
+    private Semaphore inFlight;
+    private ScheduledExecutorService lingerScheduler;
+    private ScheduledExecutorService replayScheduler;
+    private DiskSpool spool;
+    private BulkBatch batch;
+    /** Size of the last body sent, used to size the next batch; written outside the batch lock */
+    private volatile int lastBatchBytes = 8192;
+    private volatile boolean initialized = false;
     
     @Override
     public void initialize(Map<String, String> config) {
-        elasticUrl = config.getOrDefault("elastic.url", "http://localhost:9200");
-        indexName = config.getOrDefault("elastic.index", "microecommerce-logs");
-        int threadPoolSize = Integer.parseInt(config.getOrDefault("elastic.threadpool.size", "2"));
+        String elasticUrl = config.getOrDefault("elastic.url", "http://localhost:9200");
+        String indexName = config.getOrDefault("elastic.index", "microecommerce-logs");
+        actionLine = BulkBatch.indexActionLine(indexName);
+        bulkUrl = (elasticUrl.endsWith("/") ? elasticUrl : elasticUrl + "/") + "_bulk";
+        maxActions = Integer.parseInt(config.getOrDefault("elastic.bulk.max.actions", "1000"));
+        maxBytes = Long.parseLong(config.getOrDefault("elastic.bulk.max.bytes", String.valueOf(5 * 1024 * 1024)));
+        long lingerMillis = Long.parseLong(config.getOrDefault("elastic.bulk.linger.ms", "1000"));
+        lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        maxInFlight = Integer.parseInt(config.getOrDefault("elastic.bulk.max.in.flight", "2"));
+        gzip = Boolean.parseBoolean(config.getOrDefault("elastic.bulk.gzip", "true"));
+        requestTimeout = Duration.ofMillis(Long.parseLong(config.getOrDefault("elastic.request.timeout.ms", "10000")));
         
-        executor = Executors.newFixedThreadPool(threadPoolSize);
+        httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(requestTimeout)
+            .build();
+        inFlight = new Semaphore(maxInFlight);
+        lingerScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "elasticsearch-bulk-linger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Check a few times per linger period, so a batch waits at most a little longer than the linger time
+        long checkMillis = Math.max(1, lingerMillis / 4);
+        lingerScheduler.scheduleWithFixedDelay(this::flushIfLingered, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        
+        String spoolDir = config.get("elastic.spool.dir");
+        if (spoolDir != null && !spoolDir.isEmpty()) {
+            long segmentBytes = Long.parseLong(config.getOrDefault("elastic.spool.segment.bytes", String.valueOf(16 * 1024 * 1024)));
+            long spoolMaxBytes = Long.parseLong(config.getOrDefault("elastic.spool.max.bytes", String.valueOf(1024L * 1024 * 1024)));
+            long retryMillis = Long.parseLong(config.getOrDefault("elastic.spool.retry.ms", "5000"));
+            try {
+                spool = new DiskSpool(Paths.get(spoolDir), segmentBytes, spoolMaxBytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open log spool in " + spoolDir, e);
+            }
+            replayScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "elasticsearch-spool-replay");
+                thread.setDaemon(true);
+                return thread;
+            });
+            replayScheduler.scheduleWithFixedDelay(this::replaySpool, 0, retryMillis, TimeUnit.MILLISECONDS);
+        }
         initialized = true;
     }
     
@@ -31,27 +121,256 @@ public class ElasticSearchAggregator implements LogAggregator {
             throw new IllegalStateException("ElasticSearchAggregator not initialized");
         }
         
-        executor.submit(() -> {
+        BulkBatch full;
+        batchLock.lock();
+        try {
+            encoder.reset();
+            encoder.encode(level, message, metadata);
+            full = addEncoded();
+        } finally {
+            batchLock.unlock();
+        }
+        
+        if (full != null) {
+            send(full);
+        }
+    }
+    
+    @Override
+    public void aggregate(LogEvent event) {
+        if (!initialized) {
+            throw new IllegalStateException("ElasticSearchAggregator not initialized");
+        }
+        
+        BulkBatch full;
+        batchLock.lock();
+        try {
+            encoder.reset();
+            encoder.encode(event);
+            full = addEncoded();
+        } finally {
+            batchLock.unlock();
+        }
+        
+        if (full != null) {
+            send(full);
+        }
+    }
+    
+    /**
+     * Sends the events collected so far without waiting for the linger time.
+     */
+    public void flush() {
+        BulkBatch pending;
+        batchLock.lock();
+        try {
+            pending = batch;
+            batch = null;
+        } finally {
+            batchLock.unlock();
+        }
+        
+        if (pending != null) {
+            send(pending);
+        }
+    }
+    
+    /**
+     * Gets the number of events Elasticsearch accepted.
+     *
+     * @return The sent event count
+     */
+    public long getSentEventCount() {
+        return sentEvents.sum();
+    }
+    
+    /**
+     * Gets the number of events lost to failed or rejected bulk requests,
+     * or deleted from the spool to stay within its disk budget.
+     *
+     * @return The failed event count
+     */
+    public long getFailedEventCount() {
+        return failedEvents.sum() + (spool != null ? spool.getDroppedEventCount() : 0);
+    }
+    
+    /**
+     * Gets the disk space taken by spooled bulk bodies.
+     *
+     * @return The spool size in bytes, 0 if spooling is disabled
+     */
+    public long getSpooledBytes() {
+        return spool != null ? spool.sizeBytes() : 0;
+    }
+    
+    /**
+     * Adds the document held by the encoder to the batch. Called with the batch lock held.
+     *
+     * @return The batch if it is now full and must be sent, otherwise null
+     */
+    private BulkBatch addEncoded() {
+        if (batch == null) {
+            batch = new BulkBatch(actionLine, gzip, lastBatchBytes);
+        }
+        batch.add(encoder);
+        if (batch.actionCount() >= maxActions || batch.uncompressedBytes() >= maxBytes) {
+            BulkBatch full = batch;
+            batch = null;
+            return full;
+        }
+        return null;
+    }
+    
+    private void flushIfLingered() {
+        try {
+            BulkBatch pending = null;
+            batchLock.lock();
             try {
-                // In a real implementation, this would use the Elasticsearch Java client
-                // to send the log data to Elasticsearch
-                System.out.println("Sending log to Elasticsearch: " + level + " - " + message);
-            } catch (Exception e) {
-                System.err.println("Failed to send log to Elasticsearch: " + e.getMessage());
+                if (batch != null && batch.ageNanos() >= lingerNanos) {
+                    pending = batch;
+                    batch = null;
+                }
+            } finally {
+                batchLock.unlock();
             }
-        });
+            
+            if (pending != null) {
+                send(pending);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to flush logs to Elasticsearch: " + e.getMessage());
+        }
+    }
+    
+    private void send(BulkBatch full) {
+        int actions = full.actionCount();
+        byte[] body = full.finish();
+        lastBatchBytes = body.length;
+        
+        if (spool != null && !spool.isEmpty()) {
+            // Queue behind the spooled bodies until the replay has caught up
+            spoolBody(body, actions);
+            return;
+        }
+        
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedEvents.add(actions);
+            return;
+        }
+        
+        httpClient.sendAsync(bulkRequest(body, gzip), HttpResponse.BodyHandlers.ofString())
+            .whenComplete((response, error) -> {
+                try {
+                    if (spool != null && (error != null || isRetriable(response.statusCode()))) {
+                        spoolBody(body, actions);
+                    } else {
+                        recordResponse(actions, response, error);
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            });
+    }
+    
+    /**
+     * Appends a bulk body to the spool. A body the spool cannot take, for
+     * example because the disk is full, is lost and counted as failed.
+     */
+    private void spoolBody(byte[] body, int actions) {
+        try {
+            spool.append(body, actions, gzip);
+        } catch (RuntimeException e) {
+            failedEvents.add(actions);
+            System.err.println("Failed to spool " + actions + " logs for Elasticsearch: " + e.getMessage());
+        }
+    }
+    
+    private void replaySpool() {
+        try {
+            DiskSpool.Record record;
+            while ((record = spool.peek()) != null) {
+                HttpResponse<String> response;
+                try {
+                    response = httpClient.send(bulkRequest(record.body, record.gzipped), HttpResponse.BodyHandlers.ofString());
+                } catch (IOException e) {
+                    // Still unreachable; retry on the next run
+                    return;
+                }
+                if (isRetriable(response.statusCode())) {
+                    return;
+                }
+                recordResponse(record.actions, response, null);
+                spool.commit(record);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to replay spooled logs to Elasticsearch: " + e.getMessage());
+        }
+    }
+    
+    private HttpRequest bulkRequest(byte[] body, boolean gzipped) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(bulkUrl))
+            .timeout(requestTimeout)
+            .header("Content-Type", "application/x-ndjson")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (gzipped) {
+            request.header("Content-Encoding", "gzip");
+        }
+        return request.build();
+    }
+    
+    private static boolean isRetriable(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+    
+    private void recordResponse(int actions, HttpResponse<String> response, Throwable error) {
+        if (error != null) {
+            failedEvents.add(actions);
+            System.err.println("Failed to send logs to Elasticsearch: " + error.getMessage());
+        } else if (response.statusCode() >= 300) {
+            failedEvents.add(actions);
+            System.err.println("Elasticsearch rejected " + actions + " logs with status " + response.statusCode());
+        } else if (response.body().contains("\"errors\":true")) {
+            int failed = BulkBatch.countFailedItems(response.body());
+            sentEvents.add(actions - failed);
+            failedEvents.add(failed);
+            System.err.println("Elasticsearch rejected " + failed + " of " + actions + " logs in a bulk request");
+        } else {
+            sentEvents.add(actions);
+        }
     }
     
     @Override
     public void shutdown() {
-        if (executor != null) {
-            executor.shutdown();
+        if (!initialized) {
+            return;
+        }
+        initialized = false;
+        lingerScheduler.shutdownNow();
+        flush();
+        
+        // Wait for the outstanding requests by taking every permit
+        try {
+            if (inFlight.tryAcquire(maxInFlight, 5, TimeUnit.SECONDS)) {
+                inFlight.release(maxInFlight);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        if (spool != null) {
+            replayScheduler.shutdownNow();
             try {
-                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
-                }
+                replayScheduler.awaitTermination(5, TimeUnit.SECONDS);
+                spool.close();
             } catch (InterruptedException e) {
-                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.err.println("Failed to close log spool: " + e.getMessage());
             }
         }
     }
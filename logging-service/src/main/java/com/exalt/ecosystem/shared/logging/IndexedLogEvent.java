@@ -0,0 +1,92 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.Map;
+
+/**
+ * An immutable copy of a log event kept by a {@link RecentLogIndex}, as
+ * returned by {@link LoggingService#searchRecent(LogQuery)}.
+ */
+public final class IndexedLogEvent {
+    
+    private final long sequence;
+    private final long timestamp;
+    private final String level;
+    private final String service;
+    private final String message;
+    private final Map<String, Object> fields;
+    /** Index terms of the event, without its level */
+    final String[] terms;
+    final int estimatedBytes;
+    
+    IndexedLogEvent(long sequence, long timestamp, String level, String service, String message,
+                    Map<String, Object> fields, String[] terms, int estimatedBytes) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.level = level;
+        this.service = service;
+        this.message = message;
+        this.fields = fields;
+        this.terms = terms;
+        this.estimatedBytes = estimatedBytes;
+    }
+    
+    /**
+     * Gets the position of the event in the order the index received events.
+     *
+     * @return The sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+    
+    /**
+     * Gets the time the event was submitted.
+     *
+     * @return The time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    /**
+     * Gets the log level, in upper case.
+     *
+     * @return The log level
+     */
+    public String getLevel() {
+        return level;
+    }
+    
+    /**
+     * Gets the name of the service that logged the event.
+     *
+     * @return The service name, or null if unknown
+     */
+    public String getService() {
+        return service;
+    }
+    
+    /**
+     * Gets the log message.
+     *
+     * @return The log message
+     */
+    public String getMessage() {
+        return message;
+    }
+    
+    /**
+     * Gets the metadata, inline and context fields of the event.
+     *
+     * @return An unmodifiable map of the fields
+     */
+    public Map<String, Object> getFields() {
+        return fields;
+    }
+    
+    @Override
+    public String toString() {
+        return "IndexedLogEvent{sequence=" + sequence + ", timestamp=" + timestamp + ", level=" + level
+            + ", service=" + service + ", message=" + message + ", fields=" + fields + "}";
+    }
+}
@@ -0,0 +1,433 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Encodes log events as single-line JSON documents into a reusable byte buffer.
+ * <p>
+ * Strings are escaped and converted to UTF-8 directly into the buffer and
+ * integers are formatted digit by digit, so encoding a {@link LogEvent}
+ * whose fields are strings, integers and booleans is meant to allocate
+ * nothing once the buffer has grown to fit. Doubles with a fraction are formatted with
+ * {@link Double#toString(double)}, which allocates a short string, and
+ * metadata values other than strings, numbers, booleans, maps and
+ * iterables are written as their {@code toString()}.
+ * <p>
+ * An encoder is not thread-safe; each thread or batch uses its own.
+ */
+public final class JsonLogEncoder {
+    
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] TRUE = "true".getBytes();
+    private static final byte[] FALSE = "false".getBytes();
+    private static final byte[] NULL = "null".getBytes();
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes();
+    
+    private byte[] buffer;
+    private int length;
+    
+    /**
+     * Creates an encoder with a 1 KB buffer.
+     */
+    public JsonLogEncoder() {
+        this(1024);
+    }
+    
+    /**
+     * Creates an encoder.
+     *
+     * @param initialCapacity The initial buffer size in bytes
+     */
+    public JsonLogEncoder(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+    
+    /**
+     * Encodes an event with its inline fields, metadata, context and the
+     * standard {@code timestamp} and {@code service} fields, appending it
+     * to the buffer. Each name is written once, with the precedence of
+     * {@link LogEvent#toMetadata()}: a later inline field replaces an
+     * earlier one, inline fields replace metadata, and both replace the
+     * context. Fields named like a standard field are left out.
+     *
+     * @param event The event
+     */
+    public void encode(LogEvent event) {
+        writeByte('{');
+        writeName("@timestamp", true);
+        writeLong(event.getTimestamp());
+        writeName("level", false);
+        writeString(event.getLevel());
+        writeName("message", false);
+        writeString(event.getMessage());
+        writeName("timestamp", false);
+        writeLong(event.getTimestamp());
+        if (event.getService() != null) {
+            writeName("service", false);
+            writeString(event.getService());
+        }
+        for (int i = 0; i < event.fieldCount; i++) {
+            String name = event.fieldNames[i];
+            if (isReserved(name) || isInlineField(event, name, i + 1)) {
+                continue;
+            }
+            writeName(name, false);
+            long primitive = event.primitiveValues[i];
+            switch (event.fieldTypes[i]) {
+                case LogEvent.LONG:
+                    writeLong(primitive);
+                    break;
+                case LogEvent.DOUBLE:
+                    writeDouble(Double.longBitsToDouble(primitive));
+                    break;
+                case LogEvent.BOOLEAN:
+                    writeRaw(primitive != 0 ? TRUE : FALSE);
+                    break;
+                default:
+                    writeString(event.stringValues[i]);
+                    break;
+            }
+        }
+        Map<String, Object> metadata = event.getMetadata();
+        if (metadata != null) {
+            for (Map.Entry<String, Object> field : metadata.entrySet()) {
+                String name = field.getKey();
+                if (!isReserved(name) && !isInlineField(event, name, 0)) {
+                    writeName(name, false);
+                    writeValue(field.getValue());
+                }
+            }
+        }
+        LogContext context = event.getContext();
+        for (int i = 0; i < context.size(); i++) {
+            String name = context.getKey(i);
+            if (!isReserved(name) && !event.hasField(name)) {
+                writeName(name, false);
+                writeString(context.getValue(i));
+            }
+        }
+        writeByte('}');
+    }
+    
+    /**
+     * Encodes an event given as a metadata map, appending it to the buffer.
+     * A numeric {@code timestamp} entry is also written as {@code @timestamp}.
+     * Entries named {@code level} or {@code message}, or {@code @timestamp}
+     * when it is written, are left out, so every name appears once.
+     *
+     * @param level    The log level
+     * @param message  The log message
+     * @param metadata The metadata of the event, written as document fields
+     */
+    public void encode(String level, String message, Map<String, Object> metadata) {
+        writeByte('{');
+        Object timestamp = metadata.get("timestamp");
+        boolean hasTimestamp = timestamp instanceof Number;
+        if (hasTimestamp) {
+            writeName("@timestamp", true);
+            writeLong(((Number) timestamp).longValue());
+        }
+        writeName("level", !hasTimestamp);
+        writeString(level);
+        writeName("message", false);
+        writeString(message);
+        for (Map.Entry<String, Object> field : metadata.entrySet()) {
+            String name = field.getKey();
+            if ("level".equals(name) || "message".equals(name) || hasTimestamp && "@timestamp".equals(name)) {
+                continue;
+            }
+            writeName(name, false);
+            writeValue(field.getValue());
+        }
+        writeByte('}');
+    }
+    
+    /**
+     * Appends bytes that are already valid JSON or line separators.
+     *
+     * @param bytes The bytes to append
+     */
+    public void writeRaw(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+    
+    /**
+     * Appends a single ASCII byte, such as a newline between documents.
+     *
+     * @param b The byte to append
+     */
+    public void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) b;
+    }
+    
+    /**
+     * Appends a JSON string, escaped and encoded as UTF-8.
+     *
+     * @param value The string, or null to write {@code null}
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeRaw(NULL);
+            return;
+        }
+        int chars = value.length();
+        // An escaped control character is the longest encoding of one char
+        ensureCapacity(chars * 6 + 2);
+        byte[] out = buffer;
+        int pos = length;
+        out[pos++] = '"';
+        for (int i = 0; i < chars; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    out[pos++] = (byte) c;
+                } else {
+                    pos = escape(out, pos, c);
+                }
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xc0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out[pos++] = (byte) (0xf0 | (codePoint >> 18));
+                out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                out[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired, as String.getBytes would replace it
+                out[pos++] = '?';
+            } else {
+                out[pos++] = (byte) (0xe0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                out[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        out[pos++] = '"';
+        length = pos;
+    }
+    
+    /**
+     * Appends an integer.
+     *
+     * @param value The value
+     */
+    public void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeRaw(MIN_LONG);
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int pos = length + digits;
+        length = pos;
+        do {
+            buffer[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+    }
+    
+    /**
+     * Appends a floating-point number. NaN and infinities, which JSON
+     * cannot represent, are written as strings.
+     *
+     * @param value The value
+     */
+    public void writeDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeString(Double.toString(value));
+        } else if (value == (long) value && Math.abs(value) < 1e15) {
+            writeLong((long) value);
+            writeByte('.');
+            writeByte('0');
+        } else {
+            writeRawAscii(Double.toString(value));
+        }
+    }
+    
+    /**
+     * Writes the encoded bytes to a stream.
+     *
+     * @param out The stream
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, length);
+    }
+    
+    /**
+     * Puts the encoded bytes into a buffer, such as a memory-mapped file.
+     *
+     * @param target The buffer, with at least {@link #length()} bytes remaining
+     */
+    public void writeTo(ByteBuffer target) {
+        target.put(buffer, 0, length);
+    }
+    
+    /**
+     * Copies the encoded bytes.
+     *
+     * @return A new array holding the encoded bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+    
+    /**
+     * Gets the number of encoded bytes.
+     *
+     * @return The length in bytes
+     */
+    public int length() {
+        return length;
+    }
+    
+    /**
+     * Discards the encoded bytes, keeping the buffer for reuse.
+     */
+    public void reset() {
+        length = 0;
+    }
+    
+    /**
+     * Checks whether a name is one of the fields {@link #encode(LogEvent)}
+     * writes for every event.
+     */
+    private static boolean isReserved(String name) {
+        if (name == null) {
+            return false;
+        }
+        switch (name) {
+            case "@timestamp":
+            case "level":
+            case "message":
+            case "timestamp":
+            case "service":
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Checks whether an event has an inline field of a name at or after an index.
+     */
+    private static boolean isInlineField(LogEvent event, String name, int from) {
+        for (int i = from; i < event.fieldCount; i++) {
+            if (event.fieldNames[i].equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void writeName(String name, boolean first) {
+        if (!first) {
+            writeByte(',');
+        }
+        writeString(name);
+        writeByte(':');
+    }
+    
+    private void writeValue(Object value) {
+        if (value == null) {
+            writeRaw(NULL);
+        } else if (value instanceof String) {
+            writeString((String) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            // BigDecimal, BigInteger and the like keep their exact digits
+            writeRawAscii(value.toString());
+        } else if (value instanceof Boolean) {
+            writeRaw((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Map) {
+            writeByte('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writeName(String.valueOf(entry.getKey()), first);
+                writeValue(entry.getValue());
+                first = false;
+            }
+            writeByte('}');
+        } else if (value instanceof Iterable) {
+            writeByte('[');
+            boolean first = true;
+            for (Object element : (Iterable<?>) value) {
+                if (!first) {
+                    writeByte(',');
+                }
+                writeValue(element);
+                first = false;
+            }
+            writeByte(']');
+        } else if (value instanceof Object[]) {
+            writeValue(Arrays.asList((Object[]) value));
+        } else {
+            writeString(value.toString());
+        }
+    }
+    
+    private void writeRawAscii(String text) {
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer[length++] = (byte) text.charAt(i);
+        }
+    }
+    
+    private static int escape(byte[] out, int pos, char c) {
+        out[pos++] = '\\';
+        switch (c) {
+            case '"':
+                out[pos++] = '"';
+                break;
+            case '\\':
+                out[pos++] = '\\';
+                break;
+            case '\n':
+                out[pos++] = 'n';
+                break;
+            case '\r':
+                out[pos++] = 'r';
+                break;
+            case '\t':
+                out[pos++] = 't';
+                break;
+            case '\b':
+                out[pos++] = 'b';
+                break;
+            case '\f':
+                out[pos++] = 'f';
+                break;
+            default:
+                out[pos++] = 'u';
+                out[pos++] = '0';
+                out[pos++] = '0';
+                out[pos++] = HEX[c >> 4];
+                out[pos++] = HEX[c & 0xf];
+                break;
+        }
+        return pos;
+    }
+    
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
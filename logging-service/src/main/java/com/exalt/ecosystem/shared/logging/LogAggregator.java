@@ -16,6 +16,28 @@ public interface LogAggregator {
      */
     void aggregate(String level, String message, Map<String, Object> metadata);
     
+    /**
+     * Send a log event to the aggregation system. The event is reused
+     * once this returns, so it must not be kept.
+     * <p>
+     * The default implementation collects the event's fields into a map
+     * and calls {@link #aggregate(String, String, Map)}; aggregators that
+     * can read the inline fields directly override it to avoid that.
+     * 
+     * @param event The log event
+     */
+    default void aggregate(LogEvent event) {
+        aggregate(event.getLevel(), event.getMessage(), event.toMetadata());
+    }
+    
+    /**
+     * Called when every event queued for the aggregator has been
+     * delivered, so aggregators that buffer writes can flush them. The
+     * default implementation does nothing.
+     */
+    default void endOfBatch() {
+    }
+    
     /**
      * Initialize the aggregator with the given configuration.
      * 
@@ -0,0 +1,322 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Immutable set of correlation fields, such as trace, span and request
+ * IDs, that is stamped into every log line written while it is current.
+ * <p>
+ * A context is made current for a scope on one thread and the previous
+ * one is restored when the scope ends:
+ * <pre>
+ * try (LogContext.Scope scope = LogContext.current().with("traceId", traceId).open()) {
+ *     log.info("Order placed");
+ * }
+ * </pre>
+ * The current context is kept in a plain {@link ThreadLocal} that is
+ * never inherited, so platform and virtual threads alike only hold a
+ * reference while a scope is open. Work handed to other threads takes
+ * the context along through the {@code wrap} methods or an executor
+ * returned by {@link #propagating(ExecutorService)}.
+ * Without a current context, reading it is one thread-local lookup and
+ * wrapping returns the task itself.
+ */
+public final class LogContext {
+    
+    private static final LogContext EMPTY = new LogContext(new String[0], new String[0]);
+    private static final ThreadLocal<LogContext> CURRENT = new ThreadLocal<>();
+    
+    private final String[] keys;
+    private final String[] values;
+    
+    private LogContext(String[] keys, String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+    
+    /**
+     * Gets the context without fields.
+     *
+     * @return The empty context
+     */
+    public static LogContext empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Gets the context of the current thread.
+     *
+     * @return The current context, the empty context if no scope is open
+     */
+    public static LogContext current() {
+        LogContext context = CURRENT.get();
+        return context != null ? context : EMPTY;
+    }
+    
+    /**
+     * Creates a context with one more field, replacing a field of the same name.
+     *
+     * @param key   The field name
+     * @param value The field value
+     * @return The new context
+     */
+    public LogContext with(String key, String value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        int index = indexOf(key);
+        if (index >= 0) {
+            String[] replaced = values.clone();
+            replaced[index] = value;
+            return new LogContext(keys, replaced);
+        }
+        String[] addedKeys = new String[keys.length + 1];
+        String[] addedValues = new String[keys.length + 1];
+        System.arraycopy(keys, 0, addedKeys, 0, keys.length);
+        System.arraycopy(values, 0, addedValues, 0, keys.length);
+        addedKeys[keys.length] = key;
+        addedValues[keys.length] = value;
+        return new LogContext(addedKeys, addedValues);
+    }
+    
+    /**
+     * Makes this context current on this thread until the returned scope is closed.
+     *
+     * @return The scope, to be closed on the same thread
+     */
+    public Scope open() {
+        LogContext previous = CURRENT.get();
+        CURRENT.set(this);
+        return new Scope(previous);
+    }
+    
+    /**
+     * Runs a task with this context current.
+     *
+     * @param task The task
+     */
+    public void run(Runnable task) {
+        try (Scope scope = open()) {
+            task.run();
+        }
+    }
+    
+    /**
+     * Calls a task with this context current.
+     *
+     * @param task The task
+     * @param <T>  The result type
+     * @return The result of the task
+     * @throws Exception if the task throws
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        try (Scope scope = open()) {
+            return task.call();
+        }
+    }
+    
+    /**
+     * Checks whether the context has no fields.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+    
+    /**
+     * Gets the number of fields.
+     *
+     * @return The field count
+     */
+    public int size() {
+        return keys.length;
+    }
+    
+    /**
+     * Gets the name of a field.
+     *
+     * @param index The field index, below {@link #size()}
+     * @return The field name
+     */
+    public String getKey(int index) {
+        return keys[index];
+    }
+    
+    /**
+     * Gets the value of a field.
+     *
+     * @param index The field index, below {@link #size()}
+     * @return The field value
+     */
+    public String getValue(int index) {
+        return values[index];
+    }
+    
+    /**
+     * Gets the value of a field by name.
+     *
+     * @param key The field name
+     * @return The field value, or null if the context has no such field
+     */
+    public String get(String key) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+    
+    /**
+     * Copies the fields into a map, in the order they were added.
+     *
+     * @return An unmodifiable map of the fields
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], values[i]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+    
+    /**
+     * Binds a task to the current context, so it runs with that context
+     * on whichever thread executes it.
+     *
+     * @param task The task
+     * @return The bound task, or the task itself if no context is current
+     */
+    public static Runnable wrap(Runnable task) {
+        LogContext captured = current();
+        if (captured.isEmpty()) {
+            return task;
+        }
+        return () -> captured.run(task);
+    }
+    
+    /**
+     * Binds a task to the current context.
+     *
+     * @param task The task
+     * @param <T>  The result type
+     * @return The bound task, or the task itself if no context is current
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        LogContext captured = current();
+        if (captured.isEmpty()) {
+            return task;
+        }
+        return () -> captured.call(task);
+    }
+    
+    /**
+     * Binds a supplier to the current context, for example for
+     * {@code CompletableFuture.supplyAsync(LogContext.wrapSupplier(supplier), executor)}.
+     *
+     * @param supplier The supplier
+     * @param <T>      The result type
+     * @return The bound supplier, or the supplier itself if no context is current
+     */
+    public static <T> Supplier<T> wrapSupplier(Supplier<T> supplier) {
+        LogContext captured = current();
+        if (captured.isEmpty()) {
+            return supplier;
+        }
+        return () -> {
+            try (Scope scope = captured.open()) {
+                return supplier.get();
+            }
+        };
+    }
+    
+    /**
+     * Binds a function to the current context, for example for a
+     * {@code CompletableFuture.thenApply} stage that may run on the
+     * thread completing the previous stage.
+     *
+     * @param function The function
+     * @param <T>      The argument type
+     * @param <R>      The result type
+     * @return The bound function, or the function itself if no context is current
+     */
+    public static <T, R> Function<T, R> wrapFunction(Function<T, R> function) {
+        LogContext captured = current();
+        if (captured.isEmpty()) {
+            return function;
+        }
+        return argument -> {
+            try (Scope scope = captured.open()) {
+                return function.apply(argument);
+            }
+        };
+    }
+    
+    /**
+     * Wraps an executor so every task runs with the context that was
+     * current when it was submitted. Suits the asynchronous methods of
+     * {@code CompletableFuture} that take an executor.
+     *
+     * @param executor The executor
+     * @return The propagating executor
+     */
+    public static Executor propagating(Executor executor) {
+        Objects.requireNonNull(executor, "executor");
+        return task -> executor.execute(wrap(task));
+    }
+    
+    /**
+     * Wraps an executor service so every task runs with the context that
+     * was current when it was submitted. Shutting down the returned
+     * service shuts down the wrapped one.
+     *
+     * @param executor The executor service
+     * @return The propagating executor service
+     */
+    public static ExecutorService propagating(ExecutorService executor) {
+        return new ContextPropagatingExecutorService(executor);
+    }
+    
+    @Override
+    public String toString() {
+        return "LogContext" + toMap();
+    }
+    
+    private int indexOf(String key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static void restore(LogContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+    
+    /**
+     * An open scope of a context, restoring the previous context when closed.
+     */
+    public static final class Scope implements AutoCloseable {
+        
+        private final LogContext previous;
+        
+        private Scope(LogContext previous) {
+            this.previous = previous;
+        }
+        
+        @Override
+        public void close() {
+            restore(previous);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A log event held in a {@link LogRingBuffer} slot.
+ * <p>
+ * Events are reused: the ring buffer owns one per slot and consumers copy
+ * them into an event of their own, so an instance must not be kept after
+ * it has been handled.
+ * <p>
+ * Besides an optional metadata map, an event carries up to
+ * {@link #MAX_FIELDS} fields inline, in parallel arrays of names, types,
+ * primitive values and references. Numbers and booleans are stored
+ * without boxing, so events built with {@link LogEventBuilder} and
+ * encoded with {@link JsonLogEncoder} need no per-event objects.
+ * <p>
+ * The {@link LogContext} current when the event was submitted is kept by
+ * reference; its fields are added to the event unless the event has a
+ * field of the same name.
+ */
+public final class LogEvent {
+    
+    /** Number of fields an event holds inline */
+    public static final int MAX_FIELDS = 16;
+    
+    static final byte STRING = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte BOOLEAN = 3;
+    
+    private String level;
+    private String message;
+    private Map<String, Object> metadata;
+    private long timestamp;
+    private String service;
+    private LogContext context;
+    
+    final String[] fieldNames = new String[MAX_FIELDS];
+    final byte[] fieldTypes = new byte[MAX_FIELDS];
+    final long[] primitiveValues = new long[MAX_FIELDS];
+    final String[] stringValues = new String[MAX_FIELDS];
+    int fieldCount;
+    
+    /**
+     * Gets the log level.
+     *
+     * @return The log level
+     */
+    public String getLevel() {
+        return level;
+    }
+    
+    /**
+     * Gets the log message.
+     *
+     * @return The log message
+     */
+    public String getMessage() {
+        return message;
+    }
+    
+    /**
+     * Gets the metadata passed with the event, without the inline and standard fields.
+     *
+     * @return The metadata, or null if none was passed
+     */
+    public Map<String, Object> getMetadata() {
+        return metadata;
+    }
+    
+    /**
+     * Gets the time the event was submitted.
+     *
+     * @return The time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    /**
+     * Gets the name of the service that logged the event.
+     *
+     * @return The service name, or null before the event is dispatched
+     */
+    public String getService() {
+        return service;
+    }
+    
+    /**
+     * Gets the correlation context the event was submitted in.
+     *
+     * @return The context, empty if none was current
+     */
+    public LogContext getContext() {
+        return context != null ? context : LogContext.empty();
+    }
+    
+    /**
+     * Gets the number of inline fields.
+     *
+     * @return The field count
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+    
+    /**
+     * Gets the name of an inline field.
+     *
+     * @param index The field index, below {@link #getFieldCount()}
+     * @return The field name
+     */
+    public String getFieldName(int index) {
+        return fieldNames[index];
+    }
+    
+    /**
+     * Gets the value of an inline field. Numbers and booleans are boxed.
+     *
+     * @param index The field index, below {@link #getFieldCount()}
+     * @return The field value
+     */
+    public Object getFieldValue(int index) {
+        switch (fieldTypes[index]) {
+            case LONG:
+                return primitiveValues[index];
+            case DOUBLE:
+                return Double.longBitsToDouble(primitiveValues[index]);
+            case BOOLEAN:
+                return primitiveValues[index] != 0;
+            default:
+                return stringValues[index];
+        }
+    }
+    
+    /**
+     * Collects the context, the metadata, the inline fields and the
+     * standard {@code timestamp} and {@code service} fields into a new
+     * map, later ones replacing earlier ones of the same name.
+     *
+     * @return The event's fields
+     */
+    public Map<String, Object> toMetadata() {
+        Map<String, Object> fields = new HashMap<>();
+        if (context != null) {
+            for (int i = 0; i < context.size(); i++) {
+                fields.put(context.getKey(i), context.getValue(i));
+            }
+        }
+        if (metadata != null) {
+            fields.putAll(metadata);
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            fields.put(fieldNames[i], getFieldValue(i));
+        }
+        fields.put("timestamp", timestamp);
+        fields.put("service", service);
+        return fields;
+    }
+    
+    void set(String level, String message, Map<String, Object> metadata, long timestamp) {
+        this.level = level;
+        this.message = message;
+        this.metadata = metadata;
+        this.timestamp = timestamp;
+        this.service = null;
+        this.context = null;
+        this.fieldCount = 0;
+    }
+    
+    void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+    
+    void setMetadata(Map<String, Object> metadata) {
+        this.metadata = metadata;
+    }
+    
+    void setService(String service) {
+        this.service = service;
+    }
+    
+    void setContext(LogContext context) {
+        this.context = context;
+    }
+    
+    /**
+     * Checks whether the event has an inline or metadata field, not counting its context.
+     */
+    boolean hasField(String name) {
+        for (int i = 0; i < fieldCount; i++) {
+            if (name.equals(fieldNames[i])) {
+                return true;
+            }
+        }
+        return metadata != null && metadata.containsKey(name);
+    }
+    
+    boolean addField(String name, byte type, long primitive, String string) {
+        if (fieldCount == MAX_FIELDS) {
+            return false;
+        }
+        fieldNames[fieldCount] = name;
+        fieldTypes[fieldCount] = type;
+        primitiveValues[fieldCount] = primitive;
+        stringValues[fieldCount] = string;
+        fieldCount++;
+        return true;
+    }
+    
+    void copyFrom(LogEvent other) {
+        level = other.level;
+        message = other.message;
+        metadata = other.metadata;
+        timestamp = other.timestamp;
+        service = other.service;
+        context = other.context;
+        fieldCount = other.fieldCount;
+        System.arraycopy(other.fieldNames, 0, fieldNames, 0, fieldCount);
+        System.arraycopy(other.fieldTypes, 0, fieldTypes, 0, fieldCount);
+        System.arraycopy(other.primitiveValues, 0, primitiveValues, 0, fieldCount);
+        System.arraycopy(other.stringValues, 0, stringValues, 0, fieldCount);
+    }
+    
+    void clear() {
+        Arrays.fill(fieldNames, 0, fieldCount, null);
+        Arrays.fill(stringValues, 0, fieldCount, null);
+        set(null, null, null, 0);
+    }
+}
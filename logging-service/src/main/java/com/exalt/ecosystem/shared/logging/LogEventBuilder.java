@@ -0,0 +1,126 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reusable builder of structured log events that creates no objects per event.
+ * <p>
+ * Fields are stored inline in a {@link LogEvent}, numbers and booleans
+ * unboxed, and submitting copies the event into a ring buffer slot. A
+ * builder is meant to be reused by one thread; {@link LoggingService#event(String, String)}
+ * hands out one per thread. Fields beyond {@link LogEvent#MAX_FIELDS}
+ * go to a metadata map, which is allocated for that event.
+ * <pre>
+ * LoggingService.event("INFO", "Order placed")
+ *     .with("orderId", orderId)
+ *     .with("amount", amount)
+ *     .submit();
+ * </pre>
+ */
+public final class LogEventBuilder {
+    
+    private final LogEvent event = new LogEvent();
+    
+    /**
+     * Starts a new event, discarding the fields of the previous one.
+     *
+     * @param level   The log level
+     * @param message The log message
+     * @return This builder
+     */
+    public LogEventBuilder begin(String level, String message) {
+        event.clear();
+        event.set(level, message, null, 0);
+        return this;
+    }
+    
+    /**
+     * Adds a string field.
+     *
+     * @param name  The field name
+     * @param value The field value
+     * @return This builder
+     */
+    public LogEventBuilder with(String name, String value) {
+        if (!event.addField(name, LogEvent.STRING, 0, value)) {
+            overflow(name, value);
+        }
+        return this;
+    }
+    
+    /**
+     * Adds an integer field.
+     *
+     * @param name  The field name
+     * @param value The field value
+     * @return This builder
+     */
+    public LogEventBuilder with(String name, long value) {
+        if (!event.addField(name, LogEvent.LONG, value, null)) {
+            overflow(name, value);
+        }
+        return this;
+    }
+    
+    /**
+     * Adds a floating-point field.
+     *
+     * @param name  The field name
+     * @param value The field value
+     * @return This builder
+     */
+    public LogEventBuilder with(String name, double value) {
+        if (!event.addField(name, LogEvent.DOUBLE, Double.doubleToRawLongBits(value), null)) {
+            overflow(name, value);
+        }
+        return this;
+    }
+    
+    /**
+     * Adds a boolean field.
+     *
+     * @param name  The field name
+     * @param value The field value
+     * @return This builder
+     */
+    public LogEventBuilder with(String name, boolean value) {
+        if (!event.addField(name, LogEvent.BOOLEAN, value ? 1 : 0, null)) {
+            overflow(name, value);
+        }
+        return this;
+    }
+    
+    /**
+     * Submits the event to the {@link LoggingService} with the current {@link LogContext}.
+     *
+     * @return true if the event was queued, false if it was dropped
+     */
+    public boolean submit() {
+        event.setTimestamp(System.currentTimeMillis());
+        event.setContext(LogContext.current());
+        return LoggingService.submitLogEvent(event);
+    }
+    
+    /**
+     * Publishes the event to a ring buffer with the current {@link LogContext}.
+     *
+     * @param buffer The buffer to publish to
+     * @return true if the event was buffered, false if it was dropped
+     */
+    public boolean publishTo(LogRingBuffer buffer) {
+        event.setTimestamp(System.currentTimeMillis());
+        event.setContext(LogContext.current());
+        return buffer.publish(event);
+    }
+    
+    private void overflow(String name, Object value) {
+        Map<String, Object> metadata = event.getMetadata();
+        if (metadata == null) {
+            // A new map per event, as the previous one may still be queued
+            metadata = new HashMap<>();
+            event.setMetadata(metadata);
+        }
+        metadata.put(name, value);
+    }
+}
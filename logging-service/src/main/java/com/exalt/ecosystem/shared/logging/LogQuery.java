@@ -0,0 +1,204 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query over the events kept by a {@link RecentLogIndex}, run with
+ * {@link LoggingService#searchRecent(LogQuery)}.
+ * <p>
+ * Every condition that is set must hold. Text matches events whose
+ * message contains all of its words, compared case-insensitively; field
+ * values are compared as strings.
+ * <pre>
+ * LoggingService.searchRecent(new LogQuery()
+ *     .minLevel("WARN")
+ *     .text("payment failed")
+ *     .withKey("orderId")
+ *     .limit(20));
+ * </pre>
+ */
+public final class LogQuery {
+    
+    /** Default number of events returned */
+    public static final int DEFAULT_LIMIT = 100;
+    
+    private int minLevel = -1;
+    private String service;
+    private final List<String> keys = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final Map<String, String> fieldValues = new LinkedHashMap<>();
+    private long since = Long.MIN_VALUE;
+    private long until = Long.MAX_VALUE;
+    private int limit = DEFAULT_LIMIT;
+    
+    /**
+     * Matches events of at least a level. Levels other than TRACE, DEBUG,
+     * INFO, WARN and ERROR always match.
+     *
+     * @param level The lowest level
+     * @return This query
+     * @throws IllegalArgumentException if the level is unknown
+     */
+    public LogQuery minLevel(String level) {
+        int rank = LogRoute.rank(level);
+        if (rank < 0) {
+            throw new IllegalArgumentException("Unknown log level: " + level);
+        }
+        minLevel = rank;
+        return this;
+    }
+    
+    /**
+     * Matches events logged by a service.
+     *
+     * @param service The service name
+     * @return This query
+     */
+    public LogQuery service(String service) {
+        this.service = service;
+        return this;
+    }
+    
+    /**
+     * Matches events that have a metadata, inline or context field.
+     *
+     * @param key The field name
+     * @return This query
+     */
+    public LogQuery withKey(String key) {
+        keys.add(key);
+        return this;
+    }
+    
+    /**
+     * Matches events with a field of the given value.
+     *
+     * @param key   The field name
+     * @param value The value, compared with the string form of the field
+     * @return This query
+     */
+    public LogQuery field(String key, String value) {
+        if (fieldValues.put(key, value) == null) {
+            keys.add(key);
+        }
+        return this;
+    }
+    
+    /**
+     * Matches events whose message contains every word of a text.
+     *
+     * @param text The words
+     * @return This query
+     */
+    public LogQuery text(String text) {
+        for (String token : RecentLogIndex.tokenize(text)) {
+            tokens.add(token);
+        }
+        return this;
+    }
+    
+    /**
+     * Matches events submitted at or after a time.
+     *
+     * @param timestamp The time in milliseconds since the epoch
+     * @return This query
+     */
+    public LogQuery since(long timestamp) {
+        since = timestamp;
+        return this;
+    }
+    
+    /**
+     * Matches events submitted before a time.
+     *
+     * @param timestamp The time in milliseconds since the epoch
+     * @return This query
+     */
+    public LogQuery until(long timestamp) {
+        until = timestamp;
+        return this;
+    }
+    
+    /**
+     * Sets the most events returned, newest first.
+     *
+     * @param limit The limit, {@value #DEFAULT_LIMIT} by default
+     * @return This query
+     */
+    public LogQuery limit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        this.limit = limit;
+        return this;
+    }
+    
+    int getMinLevel() {
+        return minLevel;
+    }
+    
+    int getLimit() {
+        return limit;
+    }
+    
+    /**
+     * Collects the index terms every matching event has, apart from its level.
+     */
+    List<String> terms() {
+        List<String> terms = new ArrayList<>();
+        if (service != null) {
+            terms.add(RecentLogIndex.SERVICE + service);
+        }
+        for (String key : keys) {
+            String value = fieldValues.get(key);
+            if (value != null && value.length() <= RecentLogIndex.MAX_TOKEN_LENGTH) {
+                terms.add(RecentLogIndex.fieldTerm(key, value));
+            } else {
+                terms.add(RecentLogIndex.KEY + key);
+            }
+        }
+        for (String token : tokens) {
+            terms.add(RecentLogIndex.TOKEN + token);
+        }
+        return terms;
+    }
+    
+    /**
+     * Checks a candidate event against every condition.
+     */
+    boolean matches(IndexedLogEvent event, List<String> terms) {
+        if (event.getTimestamp() < since || event.getTimestamp() >= until) {
+            return false;
+        }
+        if (minLevel > 0) {
+            int level = LogRoute.rank(event.getLevel());
+            if (level >= 0 && level < minLevel) {
+                return false;
+            }
+        }
+        for (String term : terms) {
+            if (!contains(event.terms, term)) {
+                return false;
+            }
+        }
+        for (Map.Entry<String, String> field : fieldValues.entrySet()) {
+            Object value = event.getFields().get(field.getKey());
+            if (value == null || !field.getValue().equals(String.valueOf(value))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean contains(String[] terms, String term) {
+        for (String candidate : terms) {
+            if (candidate.equals(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,256 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Samples and rate-limits log lines per level and message template.
+ * <p>
+ * A level can be sampled with {@code logging.sample.<level>}, the
+ * fraction of lines kept (default 1), and limited with
+ * {@code logging.ratelimit.<level>.per.second} lines per second per
+ * message template, with bursts of up to {@code logging.ratelimit.<level>.burst}
+ * lines (default one second's worth). The template is the message or
+ * format string passed to the logger, so {@code "Payment {} failed"} is
+ * limited as one call site whatever its arguments. A template logged at
+ * several levels shares one bucket, refilled at the rate of each line's
+ * level. At most {@code logging.ratelimit.max.templates} templates
+ * (default 10000) are tracked; lines with further templates are not limited.
+ * <p>
+ * Every template has a token bucket kept as its theoretical arrival
+ * time in one {@link AtomicLong} (the generic cell rate algorithm), so a
+ * check is a map lookup and a single CAS, and sampling is one random
+ * draw; neither locks. Levels without settings cost one array read.
+ * <p>
+ * Every {@code logging.ratelimit.summary.interval.ms} (default 60000)
+ * the number of suppressed lines is logged in one summary line, with the
+ * templates that were limited most.
+ */
+final class LogRateLimiter implements AutoCloseable {
+    
+    static final int DEBUG = 0;
+    static final int INFO = 1;
+    static final int WARN = 2;
+    static final int ERROR = 3;
+    
+    private static final String[] LEVEL_NAMES = {"debug", "info", "warn", "error"};
+    private static final int SUMMARY_TEMPLATES = 10;
+    private static final org.slf4j.Logger summaryLog = org.slf4j.LoggerFactory.getLogger(LogRateLimiter.class);
+    
+    private final double[] sampleRates = new double[LEVEL_NAMES.length];
+    /** Nanoseconds between lines at the sustained rate, 0 if the level is not limited */
+    private final long[] emissionIntervals = new long[LEVEL_NAMES.length];
+    /** How far ahead of now a bucket's arrival time may run before lines are suppressed */
+    private final long[] burstTolerances = new long[LEVEL_NAMES.length];
+    private final LongAdder[] sampledOut = new LongAdder[LEVEL_NAMES.length];
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final int maxTemplates;
+    private final ScheduledExecutorService summaryScheduler;
+    private volatile long lastSummaryNanos = System.nanoTime();
+    
+    /**
+     * Creates a limiter from the logging configuration.
+     *
+     * @param config The configuration properties
+     */
+    LogRateLimiter(Map<String, String> config) {
+        for (int level = 0; level < LEVEL_NAMES.length; level++) {
+            String name = LEVEL_NAMES[level];
+            sampleRates[level] = Double.parseDouble(config.getOrDefault("logging.sample." + name, "1"));
+            sampledOut[level] = new LongAdder();
+            
+            double perSecond = Double.parseDouble(config.getOrDefault("logging.ratelimit." + name + ".per.second", "0"));
+            if (perSecond > 0) {
+                double burst = Double.parseDouble(
+                    config.getOrDefault("logging.ratelimit." + name + ".burst", String.valueOf(Math.max(1, perSecond))));
+                emissionIntervals[level] = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+                burstTolerances[level] = (long) (emissionIntervals[level] * Math.max(0, burst - 1));
+            }
+        }
+        maxTemplates = Integer.parseInt(config.getOrDefault("logging.ratelimit.max.templates", "10000"));
+        
+        long summaryMillis = Long.parseLong(config.getOrDefault("logging.ratelimit.summary.interval.ms", "60000"));
+        summaryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "logging-rate-limit-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        summaryScheduler.scheduleWithFixedDelay(this::logSummary, summaryMillis, summaryMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Checks whether any level is sampled or limited by the configuration.
+     *
+     * @param config The configuration properties
+     * @return true if a limiter is needed
+     */
+    static boolean isConfigured(Map<String, String> config) {
+        for (String key : config.keySet()) {
+            if (key.startsWith("logging.sample.") || key.startsWith("logging.ratelimit.")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Decides whether a log line is written. Safe to call from any number of threads.
+     *
+     * @param level    The level, one of the constants of this class
+     * @param template The message or format string of the line
+     * @return true if the line is written, false if it is suppressed
+     */
+    boolean permits(int level, String template) {
+        return permits(level, template, System.nanoTime());
+    }
+    
+    boolean permits(int level, String template, long nowNanos) {
+        double sampleRate = sampleRates[level];
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampledOut[level].increment();
+            return false;
+        }
+        
+        long interval = emissionIntervals[level];
+        if (interval == 0) {
+            return true;
+        }
+        Bucket bucket = bucket(level, template, nowNanos);
+        if (bucket == null) {
+            return true;
+        }
+        
+        long tolerance = burstTolerances[level];
+        while (true) {
+            long arrival = bucket.arrival.get();
+            long base = arrival - nowNanos > 0 ? arrival : nowNanos;
+            if (base - nowNanos > tolerance) {
+                bucket.suppressed.increment();
+                return false;
+            }
+            if (bucket.arrival.compareAndSet(arrival, base + interval)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Logs the number of lines suppressed since the previous summary, if any.
+     */
+    void logSummary() {
+        try {
+            String summary = summarize();
+            if (summary != null) {
+                summaryLog.warn(summary);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to log rate limit summary: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Builds the summary of the lines suppressed since the previous one and resets the counts.
+     *
+     * @return The summary line, or null if nothing was suppressed
+     */
+    String summarize() {
+        long now = System.nanoTime();
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(now - lastSummaryNanos);
+        lastSummaryNanos = now;
+        
+        long total = 0;
+        StringBuilder sampled = new StringBuilder();
+        for (int level = 0; level < LEVEL_NAMES.length; level++) {
+            long count = sampledOut[level].sumThenReset();
+            if (count > 0) {
+                total += count;
+                sampled.append(sampled.length() == 0 ? "" : ", ").append(LEVEL_NAMES[level]).append('=').append(count);
+            }
+        }
+        
+        List<Map.Entry<Bucket, Long>> limited = new ArrayList<>();
+        for (Bucket bucket : buckets.values()) {
+            long count = bucket.suppressed.sumThenReset();
+            if (count > 0) {
+                total += count;
+                limited.add(Map.entry(bucket, count));
+            } else if (bucket.arrival.get() - now <= 0) {
+                // Idle with a full bucket; tracking it again later starts from the same state
+                buckets.remove(bucket.template, bucket);
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+        
+        limited.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        StringBuilder summary = new StringBuilder("Suppressed ").append(total)
+            .append(" log lines in the last ").append(seconds).append(" s");
+        if (sampled.length() > 0) {
+            summary.append("; sampled out: ").append(sampled);
+        }
+        if (!limited.isEmpty()) {
+            summary.append("; rate limited:");
+            for (int i = 0; i < Math.min(SUMMARY_TEMPLATES, limited.size()); i++) {
+                Bucket bucket = limited.get(i).getKey();
+                summary.append(i == 0 ? " " : ", ").append(limited.get(i).getValue()).append(" x ")
+                    .append(LEVEL_NAMES[bucket.level]).append(" \"").append(bucket.template).append('"');
+            }
+            if (limited.size() > SUMMARY_TEMPLATES) {
+                summary.append(" and ").append(limited.size() - SUMMARY_TEMPLATES).append(" more templates");
+            }
+        }
+        return summary.toString();
+    }
+    
+    /**
+     * Stops the summary thread after logging a last summary.
+     */
+    @Override
+    public void close() {
+        summaryScheduler.shutdownNow();
+        logSummary();
+    }
+    
+    private Bucket bucket(int level, String template, long nowNanos) {
+        String key = template != null ? template : "null";
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxTemplates) {
+                return null;
+            }
+            Bucket created = new Bucket(key, level, nowNanos);
+            bucket = buckets.putIfAbsent(key, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        return bucket;
+    }
+    
+    /**
+     * Token bucket of one message template.
+     */
+    private static final class Bucket {
+        final String template;
+        /** The level the template was first limited at, for the summary */
+        final int level;
+        /** When the next line is due at the sustained rate, in {@link System#nanoTime()} units; the bucket is full once it has passed */
+        final AtomicLong arrival;
+        final LongAdder suppressed = new LongAdder();
+        
+        Bucket(String template, int level, long nowNanos) {
+            this.template = template;
+            this.level = level;
+            this.arrival = new AtomicLong(nowNanos);
+        }
+    }
+}
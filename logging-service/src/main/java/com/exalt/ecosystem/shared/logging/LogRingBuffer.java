@@ -0,0 +1,302 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, lock-free ring buffer of log events for many producers and one consumer.
+ * <p>
+ * Slots are pre-allocated {@link LogEvent}s. A producer claims a slot by
+ * advancing the tail with a CAS, fills it, and publishes it by writing
+ * the slot's sequence number; the consumer copies published slots out in
+ * order and advances the head. When the buffer is full the
+ * {@link BackpressurePolicy} decides whether the oldest event is skipped,
+ * the new event is dropped, or the producer waits for a bounded time.
+ * Every discarded event is counted.
+ * <p>
+ * The consumer may park in {@link #awaitEvents(long)}; producers only
+ * pay for a wake-up while it is parked. Slots keep their last event until
+ * they are reused.
+ */
+public final class LogRingBuffer {
+    
+    /** Producer spins before it starts parking while waiting for room */
+    private static final int SPIN_TRIES = 100;
+    
+    /** Producer park time between checks for room */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    
+    private final LogEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final BackpressurePolicy policy;
+    private final long blockTimeoutNanos;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile Thread waitingConsumer;
+    private volatile boolean closed;
+    
+    /**
+     * Creates a ring buffer.
+     *
+     * @param bufferSize         The number of slots, rounded up to a power of two
+     * @param policy             What to do when the buffer is full
+     * @param blockTimeoutMillis How long a producer waits for room under {@link BackpressurePolicy#BLOCK}
+     */
+    public LogRingBuffer(int bufferSize, BackpressurePolicy policy, long blockTimeoutMillis) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize) - 1) << 1;
+        this.slots = new LogEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new LogEvent();
+            // A slot is published for sequence s once it holds s; start one lap behind
+            sequences.set(i, i - capacity);
+        }
+        this.mask = capacity - 1;
+        this.policy = policy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, blockTimeoutMillis));
+    }
+    
+    /**
+     * Publishes an event. Safe to call from any number of threads.
+     *
+     * @param level     The log level
+     * @param message   The log message
+     * @param metadata  The metadata of the event; must not be changed afterwards
+     * @param timestamp The time of the event in milliseconds since the epoch
+     * @return true if the event was buffered, false if it was dropped
+     */
+    public boolean publish(String level, String message, Map<String, Object> metadata, long timestamp) {
+        return publish(level, message, metadata, null, timestamp);
+    }
+    
+    /**
+     * Publishes an event submitted in a correlation context. Safe to call
+     * from any number of threads.
+     *
+     * @param level     The log level
+     * @param message   The log message
+     * @param metadata  The metadata of the event; must not be changed afterwards
+     * @param context   The context of the event, or null for none
+     * @param timestamp The time of the event in milliseconds since the epoch
+     * @return true if the event was buffered, false if it was dropped
+     */
+    public boolean publish(String level, String message, Map<String, Object> metadata, LogContext context, long timestamp) {
+        long t = claim();
+        if (t < 0) {
+            return false;
+        }
+        LogEvent slot = slots[(int) t & mask];
+        slot.set(level, message, metadata, timestamp);
+        slot.setContext(context);
+        commit(t);
+        return true;
+    }
+    
+    /**
+     * Publishes a copy of an event, including its inline fields. Safe to
+     * call from any number of threads; the event can be reused as soon as
+     * this returns.
+     *
+     * @param event The event to copy
+     * @return true if the event was buffered, false if it was dropped
+     */
+    public boolean publish(LogEvent event) {
+        long t = claim();
+        if (t < 0) {
+            return false;
+        }
+        slots[(int) t & mask].copyFrom(event);
+        commit(t);
+        return true;
+    }
+    
+    /**
+     * Claims the next slot, applying the backpressure policy while the buffer is full.
+     *
+     * @return The sequence of the claimed slot, or -1 if the event was dropped
+     */
+    private long claim() {
+        long deadline = 0;
+        int tries = 0;
+        while (true) {
+            if (closed) {
+                dropped.increment();
+                return -1;
+            }
+            
+            long t = tail.get();
+            long h = head.get();
+            if (t - h <= mask) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    return t;
+                }
+                continue;
+            }
+            
+            switch (policy) {
+                case DROP_NEWEST:
+                    dropped.increment();
+                    return -1;
+                case DROP_OLDEST:
+                    // Only skip a published slot, so its producer is never overwritten while filling it
+                    if (sequences.get((int) h & mask) == h && head.compareAndSet(h, h + 1)) {
+                        dropped.increment();
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                    break;
+                default:
+                    if (tries++ < SPIN_TRIES) {
+                        Thread.onSpinWait();
+                        break;
+                    }
+                    long now = System.nanoTime();
+                    if (deadline == 0) {
+                        deadline = now + blockTimeoutNanos;
+                    }
+                    if (now - deadline >= 0) {
+                        dropped.increment();
+                        return -1;
+                    }
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    break;
+            }
+        }
+    }
+    
+    private void commit(long t) {
+        // A full volatile write, so the check of waitingConsumer below cannot pass it
+        sequences.set((int) t & mask, t);
+        published.increment();
+        
+        Thread waiter = waitingConsumer;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+    
+    /**
+     * Moves the oldest published event into the given event. Must only be
+     * called by one thread at a time.
+     *
+     * @param into The event to copy into
+     * @return true if an event was taken, false if the buffer is empty
+     */
+    public boolean poll(LogEvent into) {
+        while (true) {
+            long h = head.get();
+            int index = (int) h & mask;
+            if (sequences.get(index) != h) {
+                return false;
+            }
+            
+            into.copyFrom(slots[index]);
+            // Fails only if a producer skipped this event under DROP_OLDEST; the copy may be torn then
+            if (head.compareAndSet(h, h + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Parks the consumer until an event is published, the buffer is closed,
+     * or the time runs out.
+     *
+     * @param maxNanos The longest time to wait
+     */
+    public void awaitEvents(long maxNanos) {
+        waitingConsumer = Thread.currentThread();
+        // Re-check after announcing the wait so a concurrent publish is not missed
+        if (isEmpty() && !closed) {
+            LockSupport.parkNanos(this, maxNanos);
+        }
+        waitingConsumer = null;
+    }
+    
+    /**
+     * Stops accepting events and wakes the consumer. Buffered events can still be polled.
+     */
+    public void close() {
+        closed = true;
+        Thread waiter = waitingConsumer;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+    
+    /**
+     * Checks whether {@link #close()} was called.
+     *
+     * @return true if the buffer no longer accepts events
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+    
+    /**
+     * Checks whether no published event is waiting to be polled.
+     *
+     * @return true if the buffer is empty
+     */
+    public boolean isEmpty() {
+        long h = head.get();
+        return sequences.get((int) h & mask) != h;
+    }
+    
+    /**
+     * Gets the number of claimed slots, including events still being published.
+     *
+     * @return The number of buffered events
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, slots.length));
+    }
+    
+    /**
+     * Gets the number of slots.
+     *
+     * @return The capacity
+     */
+    public int capacity() {
+        return slots.length;
+    }
+    
+    /**
+     * Gets the backpressure policy.
+     *
+     * @return The policy applied when the buffer is full
+     */
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+    
+    /**
+     * Gets the number of events buffered since creation.
+     *
+     * @return The published event count
+     */
+    public long getPublishedCount() {
+        return published.sum();
+    }
+    
+    /**
+     * Gets the number of events discarded since creation: skipped oldest
+     * events, rejected new events, and events published after closing.
+     *
+     * @return The dropped event count
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
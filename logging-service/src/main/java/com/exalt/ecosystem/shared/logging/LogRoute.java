@@ -0,0 +1,119 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Rule deciding which log events a sink receives.
+ * <p>
+ * An event matches if its level is at least the minimum level, it has
+ * every required metadata key and none of the excluded ones. Keys are
+ * looked up among the event's inline fields, its metadata map and its
+ * {@link LogContext}.
+ * Levels other than TRACE, DEBUG, INFO, WARN and ERROR always pass the
+ * level check.
+ */
+final class LogRoute {
+    
+    private static final String[] LEVELS = {"TRACE", "DEBUG", "INFO", "WARN", "ERROR"};
+    
+    private final int minLevel;
+    private final String[] requiredKeys;
+    private final String[] excludedKeys;
+    
+    /**
+     * Creates a rule.
+     *
+     * @param minLevel     The lowest level routed, or null for all levels
+     * @param requiredKeys The keys an event must have
+     * @param excludedKeys The keys an event must not have
+     * @throws IllegalArgumentException if the level is unknown
+     */
+    LogRoute(String minLevel, String[] requiredKeys, String[] excludedKeys) {
+        this.minLevel = minLevel != null ? rank(minLevel.trim()) : 0;
+        if (this.minLevel < 0) {
+            throw new IllegalArgumentException("Unknown log level: " + minLevel);
+        }
+        this.requiredKeys = requiredKeys.clone();
+        this.excludedKeys = excludedKeys.clone();
+    }
+    
+    /**
+     * Reads the rule of a sink from {@code logging.sink.<name>.min.level},
+     * {@code .require.keys} and {@code .exclude.keys}, the latter two
+     * comma-separated.
+     *
+     * @param config The configuration properties
+     * @param name   The sink name
+     * @return The rule
+     */
+    static LogRoute fromConfig(Map<String, String> config, String name) {
+        String prefix = "logging.sink." + name + ".";
+        return new LogRoute(
+            config.get(prefix + "min.level"),
+            keys(config.get(prefix + "require.keys")),
+            keys(config.get(prefix + "exclude.keys")));
+    }
+    
+    /**
+     * Checks whether an event is routed to the sink.
+     *
+     * @param event The event
+     * @return true if the sink receives the event
+     */
+    boolean matches(LogEvent event) {
+        if (minLevel > 0) {
+            int level = rank(event.getLevel());
+            if (level >= 0 && level < minLevel) {
+                return false;
+            }
+        }
+        for (String key : requiredKeys) {
+            if (!hasKey(event, key)) {
+                return false;
+            }
+        }
+        for (String key : excludedKeys) {
+            if (hasKey(event, key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean hasKey(LogEvent event, String key) {
+        return event.hasField(key) || event.getContext().get(key) != null;
+    }
+    
+    /**
+     * Ranks a level from TRACE (0) to ERROR (4).
+     *
+     * @param level The level name, case-insensitive
+     * @return The rank, or -1 if the level is unknown
+     */
+    static int rank(String level) {
+        if (level == null) {
+            return -1;
+        }
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (LEVELS[i].equalsIgnoreCase(level)) {
+                return i;
+            }
+        }
+        // Common aliases of the standard levels
+        if ("WARNING".equalsIgnoreCase(level)) {
+            return 3;
+        }
+        if ("FATAL".equalsIgnoreCase(level)) {
+            return 4;
+        }
+        return -1;
+    }
+    
+    private static String[] keys(String value) {
+        if (value == null || value.isBlank()) {
+            return new String[0];
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).filter(key -> !key.isEmpty()).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,152 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One destination of the log event stream: an aggregator with its own
+ * routing rule, bounded queue and worker thread.
+ * <p>
+ * The dispatcher offers every event to every sink; a sink copies the
+ * events its {@link LogRoute} matches into its {@link LogRingBuffer}, and
+ * its worker hands them to the aggregator. A slow aggregator therefore
+ * only fills its own queue. The queue is configured with
+ * {@code logging.sink.<name>.buffer.size} (default 8192),
+ * {@code .policy} (default {@code drop-newest}) and
+ * {@code .block.timeout.ms} (default 10); under the {@code block} policy
+ * a full queue holds up the dispatcher, and with it the other sinks, for
+ * up to that timeout.
+ */
+final class LogSink {
+    
+    private static final Logger log = LoggerFactory.getLogger(LogSink.class);
+    
+    /** Longest the worker parks before re-checking the queue */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private final String name;
+    private final LogAggregator aggregator;
+    private final LogRoute route;
+    private final LogRingBuffer queue;
+    private final LongAdder routed = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Thread worker;
+    private volatile long lagMillis;
+    
+    /**
+     * Creates a sink and starts its worker.
+     *
+     * @param name       The sink name
+     * @param aggregator The initialized aggregator events are delivered to
+     * @param route      The rule selecting the events of the sink
+     * @param queue      The queue between the dispatcher and the worker
+     */
+    LogSink(String name, LogAggregator aggregator, LogRoute route, LogRingBuffer queue) {
+        this.name = name;
+        this.aggregator = aggregator;
+        this.route = route;
+        this.queue = queue;
+        this.worker = new Thread(this::drain, "logging-sink-" + name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+    
+    /**
+     * Creates a sink configured by the {@code logging.sink.<name>.*} properties.
+     *
+     * @param name       The sink name
+     * @param aggregator The initialized aggregator events are delivered to
+     * @param config     The configuration properties
+     * @return The started sink
+     */
+    static LogSink fromConfig(String name, LogAggregator aggregator, Map<String, String> config) {
+        String prefix = "logging.sink." + name + ".";
+        int bufferSize = Integer.parseInt(config.getOrDefault(prefix + "buffer.size", "8192"));
+        long blockTimeout = Long.parseLong(config.getOrDefault(prefix + "block.timeout.ms", "10"));
+        BackpressurePolicy policy = BackpressurePolicy.fromConfig(config.getOrDefault(prefix + "policy", "drop-newest"));
+        return new LogSink(name, aggregator, LogRoute.fromConfig(config, name), new LogRingBuffer(bufferSize, policy, blockTimeout));
+    }
+    
+    /**
+     * Queues a copy of an event if the sink's rule matches it. Called by the dispatcher thread only.
+     *
+     * @param event The event
+     */
+    void offer(LogEvent event) {
+        if (route.matches(event)) {
+            routed.increment();
+            queue.publish(event);
+        }
+    }
+    
+    String getName() {
+        return name;
+    }
+    
+    /**
+     * Takes a snapshot of the sink's counters.
+     *
+     * @return The metrics
+     */
+    SinkMetrics metrics() {
+        return new SinkMetrics(name, System.nanoTime(), routed.sum(), delivered.sum(),
+            queue.getDroppedCount(), failed.sum(), queue.size(), lagMillis);
+    }
+    
+    /**
+     * Stops accepting events, delivers the ones already queued and stops the worker.
+     *
+     * @param timeoutMillis How long to wait for queued events to be delivered
+     */
+    void close(long timeoutMillis) {
+        queue.close();
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void drain() {
+        LogEvent event = new LogEvent();
+        boolean pending = false;
+        while (true) {
+            if (!queue.poll(event)) {
+                if (pending) {
+                    // The queue has run dry; let a buffering aggregator write what it holds
+                    endOfBatch();
+                    pending = false;
+                } else if (!queue.isClosed()) {
+                    queue.awaitEvents(MAX_PARK_NANOS);
+                } else if (queue.size() == 0) {
+                    return;
+                } else {
+                    // The dispatcher claimed a slot before the close and is still filling it
+                    Thread.onSpinWait();
+                }
+                continue;
+            }
+            
+            try {
+                aggregator.aggregate(event);
+                delivered.increment();
+            } catch (Exception e) {
+                failed.increment();
+                log.error("Failed to aggregate log in sink " + name, e);
+            }
+            lagMillis = System.currentTimeMillis() - event.getTimestamp();
+            pending = true;
+            event.clear();
+        }
+    }
+    
+    private void endOfBatch() {
+        try {
+            aggregator.endOfBatch();
+        } catch (Exception e) {
+            log.error("Failed to flush logs in sink " + name, e);
+        }
+    }
+}
@@ -1,25 +1,63 @@
 package com.exalt.ecosystem.shared.logging;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Main entry point for the Logging Service.
  * Manages logging configuration and aggregation.
+ * <p>
+ * Submitted events pass through a bounded, lock-free {@link LogRingBuffer}
+ * to a single dispatcher thread, which routes them to one {@link LogSink}
+ * per aggregator; every sink has its own queue and worker thread, so
+ * logging never runs aggregator code in the caller's thread and a slow
+ * aggregator does not hold up the others. Initialization and shutdown
+ * are synchronized; submitting only reads one volatile field.
  */
 public class LoggingService {
     
     private static final Logger log = LoggerFactory.getLogger(LoggingService.class);
     private static final Map<String, LogAggregator> aggregators = new ConcurrentHashMap<>();
     private static final Map<String, String> config = new ConcurrentHashMap<>();
+    private static final ThreadLocal<LogEventBuilder> BUILDERS = ThreadLocal.withInitial(LogEventBuilder::new);
     
-    private static boolean initialized = false;
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final long DEFAULT_BLOCK_TIMEOUT_MILLIS = 10;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+    
+    private static volatile boolean initialized = false;
+    private static volatile AsyncLogDispatcher dispatcher;
+    private static volatile List<LogSink> sinks = List.of();
+    private static volatile LogRateLimiter rateLimiter;
     
     /**
      * Initialize the logging service with the given configuration.
+     * <p>
+     * The event buffer is configured with {@code logging.buffer.size}
+     * (default 8192 events), {@code logging.buffer.policy} ({@code block},
+     * the default, {@code drop-oldest} or {@code drop-newest}) and
+     * {@code logging.buffer.block.timeout.ms} (default 10), the longest a
+     * caller waits for room under the {@code block} policy.
+     * <p>
+     * {@code logging.aggregator.type} lists the aggregators events are
+     * routed to, comma-separated: {@code elasticsearch} (the default),
+     * {@code file}, {@code stdout} and {@code index}, which keeps recent
+     * events searchable through {@link #searchRecent(LogQuery)}. Each
+     * gets a {@link LogSink} configured by the
+     * {@code logging.sink.<type>.*} properties, which select the events it
+     * receives by level and metadata keys and size its queue.
+     * <p>
+     * Lines written through {@link Logger} can be sampled and rate-limited
+     * per level and message template with the {@code logging.sample.*}
+     * and {@code logging.ratelimit.*} properties described in
+     * {@link LogRateLimiter}.
      * 
      * @param configuration Configuration properties
+     * @throws IllegalArgumentException if an aggregator type or sink setting is unknown
      */
     public static synchronized void initialize(Map<String, String> configuration) {
         if (initialized) {
@@ -29,54 +67,197 @@ public class LoggingService {
         
         config.putAll(configuration);
         
-        // Set up default log aggregator if enabled
+        // Read the buffer and rate limit settings first, so a bad one fails before any sink is running
+        LogRingBuffer buffer;
+        LogRateLimiter limiter;
+        try {
+            buffer = createBuffer();
+            limiter = LogRateLimiter.isConfigured(config) ? new LogRateLimiter(config) : null;
+        } catch (RuntimeException e) {
+            config.clear();
+            throw e;
+        }
+        
+        // Set up the log aggregators if enabled
         if (Boolean.parseBoolean(config.getOrDefault("logging.aggregation.enabled", "true"))) {
-            String aggregatorType = config.getOrDefault("logging.aggregator.type", "elasticsearch");
-            
-            LogAggregator aggregator;
-            if ("elasticsearch".equalsIgnoreCase(aggregatorType)) {
-                aggregator = new ElasticSearchAggregator();
-            } else {
-                log.warn("Unknown aggregator type: {}. Using ElasticSearchAggregator as default.", aggregatorType);
-                aggregator = new ElasticSearchAggregator();
+            List<LogSink> created = new ArrayList<>();
+            try {
+                for (String type : config.getOrDefault("logging.aggregator.type", "elasticsearch").split(",")) {
+                    type = type.trim().toLowerCase(Locale.ROOT);
+                    if (type.isEmpty() || aggregators.containsKey(type)) {
+                        continue;
+                    }
+                    LogAggregator aggregator = createAggregator(type);
+                    aggregator.initialize(config);
+                    aggregators.put(type, aggregator);
+                    created.add(LogSink.fromConfig(type, aggregator, config));
+                }
+            } catch (RuntimeException e) {
+                for (LogSink sink : created) {
+                    sink.close(SHUTDOWN_TIMEOUT_MILLIS);
+                }
+                shutdownAggregators();
+                if (limiter != null) {
+                    limiter.close();
+                }
+                config.clear();
+                throw e;
             }
-            
-            aggregator.initialize(config);
-            aggregators.put(aggregatorType, aggregator);
+            sinks = List.copyOf(created);
+        }
+        
+        rateLimiter = limiter;
+        
+        if (!sinks.isEmpty()) {
+            dispatcher = new AsyncLogDispatcher(
+                buffer,
+                sinks,
+                config.getOrDefault("service.name", "unknown")
+            );
         }
         
         initialized = true;
         log.info("LoggingService initialized successfully");
     }
     
+    private static LogAggregator createAggregator(String type) {
+        switch (type) {
+            case "elasticsearch":
+                return new ElasticSearchAggregator();
+            case "file":
+                return new RollingFileAggregator();
+            case "stdout":
+                return new StdoutJsonAggregator();
+            case "index":
+                return new RecentLogIndex();
+            default:
+                throw new IllegalArgumentException("Unknown aggregator type: " + type);
+        }
+    }
+    
+    private static LogRingBuffer createBuffer() {
+        int bufferSize = Integer.parseInt(
+            config.getOrDefault("logging.buffer.size", String.valueOf(DEFAULT_BUFFER_SIZE)));
+        long blockTimeout = Long.parseLong(
+            config.getOrDefault("logging.buffer.block.timeout.ms", String.valueOf(DEFAULT_BLOCK_TIMEOUT_MILLIS)));
+        
+        String policyName = config.getOrDefault("logging.buffer.policy", "block");
+        BackpressurePolicy policy;
+        try {
+            policy = BackpressurePolicy.fromConfig(policyName);
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown buffer policy: {}. Using block as default.", policyName);
+            policy = BackpressurePolicy.BLOCK;
+        }
+        
+        return new LogRingBuffer(bufferSize, policy, blockTimeout);
+    }
+    
     /**
      * Submit a log event to all configured aggregators.
+     * <p>
+     * The event is queued and delivered asynchronously; the standard
+     * {@code timestamp} and {@code service} fields are added on delivery,
+     * without changing the map, along with the fields of the caller's
+     * {@link LogContext}. The metadata map must not be changed
+     * after it is submitted. When the buffer is full, the configured
+     * backpressure policy decides which event is dropped.
      * 
      * @param level The log level
      * @param message The log message
      * @param metadata Additional metadata for the log event
      */
     public static void submitLogEvent(String level, String message, Map<String, Object> metadata) {
-        if (!initialized) {
-            System.err.println("LoggingService not initialized");
+        AsyncLogDispatcher current = dispatcher;
+        if (current == null) {
+            if (!initialized) {
+                System.err.println("LoggingService not initialized");
+            }
             return;
         }
         
-        if (metadata == null) {
-            metadata = new HashMap<>();
+        current.submit(level, message, metadata);
+    }
+    
+    /**
+     * Starts a structured log event with this thread's reusable builder.
+     * Fields are added inline without boxing and the event is queued by
+     * {@link LogEventBuilder#submit()} with the caller's {@link LogContext},
+     * so no per-event objects are created.
+     * The builder must not be used again until the event is submitted.
+     * 
+     * @param level The log level
+     * @param message The log message
+     * @return The builder for the event
+     */
+    public static LogEventBuilder event(String level, String message) {
+        return BUILDERS.get().begin(level, message);
+    }
+    
+    static boolean submitLogEvent(LogEvent event) {
+        AsyncLogDispatcher current = dispatcher;
+        if (current == null) {
+            if (!initialized) {
+                System.err.println("LoggingService not initialized");
+            }
+            return false;
         }
         
-        // Add standard metadata
-        metadata.put("timestamp", System.currentTimeMillis());
-        metadata.put("service", config.getOrDefault("service.name", "unknown"));
-        
-        for (LogAggregator aggregator : aggregators.values()) {
-            try {
-                aggregator.aggregate(level, message, metadata);
-            } catch (Exception e) {
-                log.error("Failed to aggregate log", e);
-            }
+        return current.submit(event);
+    }
+    
+    /**
+     * Gets the number of log events dropped because the buffer was full
+     * or the service was shutting down.
+     * 
+     * @return The dropped event count since initialization
+     */
+    public static long getDroppedEventCount() {
+        AsyncLogDispatcher current = dispatcher;
+        return current != null ? current.getBuffer().getDroppedCount() : 0;
+    }
+    
+    /**
+     * Gets the number of log events waiting to be delivered.
+     * 
+     * @return The buffered event count
+     */
+    public static int getBufferedEventCount() {
+        AsyncLogDispatcher current = dispatcher;
+        return current != null ? current.getBuffer().size() : 0;
+    }
+    
+    /**
+     * Gets the delivery metrics of every sink, in configuration order.
+     * 
+     * @return The metrics by sink name
+     */
+    public static Map<String, SinkMetrics> getSinkMetrics() {
+        Map<String, SinkMetrics> metrics = new LinkedHashMap<>();
+        for (LogSink sink : sinks) {
+            metrics.put(sink.getName(), sink.metrics());
+        }
+        return metrics;
+    }
+    
+    /**
+     * Searches the recent events kept in memory by the {@code index}
+     * aggregator. Events show up once the index's sink has delivered
+     * them, normally within milliseconds of being submitted.
+     * 
+     * @param query The query
+     * @return The matching events, newest first; empty if the index aggregator is not configured
+     */
+    public static List<IndexedLogEvent> searchRecent(LogQuery query) {
+        LogAggregator index = aggregators.get("index");
+        if (!(index instanceof RecentLogIndex)) {
+            return List.of();
         }
+        return ((RecentLogIndex) index).search(query);
+    }
+    
+    static LogRateLimiter getRateLimiter() {
+        return rateLimiter;
     }
     
     /**
@@ -87,6 +268,22 @@ public class LoggingService {
             return;
         }
         
+        if (dispatcher != null) {
+            // Deliver what is buffered before the aggregators go away
+            dispatcher.close(SHUTDOWN_TIMEOUT_MILLIS);
+            dispatcher = null;
+        }
+        sinks = List.of();
+        shutdownAggregators();
+        if (rateLimiter != null) {
+            rateLimiter.close();
+            rateLimiter = null;
+        }
+        initialized = false;
+        log.info("LoggingService shut down successfully");
+    }
+    
+    private static void shutdownAggregators() {
         for (LogAggregator aggregator : aggregators.values()) {
             try {
                 aggregator.shutdown();
@@ -94,9 +291,6 @@ public class LoggingService {
                 log.error("Failed to shut down aggregator", e);
             }
         }
-        
         aggregators.clear();
-        initialized = false;
-        log.info("LoggingService shut down successfully");
     }
 }
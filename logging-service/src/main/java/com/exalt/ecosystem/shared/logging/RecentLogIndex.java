@@ -0,0 +1,327 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementation of LogAggregator that keeps the most recent events in
+ * memory under an inverted index, so that they can be searched with
+ * {@link LoggingService#searchRecent(LogQuery)} without waiting for
+ * Elasticsearch to ingest them.
+ * <p>
+ * Configured as the {@code index} aggregator type, it is fed by the
+ * worker of its own sink, so indexing never runs on the threads that
+ * log. Events are kept in order of arrival, at most
+ * {@code index.max.events} of them (default 100,000) with an estimated
+ * size of at most {@code index.max.bytes} (default 64 MB); the oldest
+ * are evicted first, together with their postings.
+ * <p>
+ * The index maps the level, the service, every field name, every field
+ * value of up to {@value #MAX_TOKEN_LENGTH} characters and the first
+ * {@value #MAX_TOKENS} words of the message to the sequence
+ * numbers of the events that have them, oldest first. A query walks the
+ * shortest posting list of its conditions, or the levels it accepts,
+ * from the newest event back and checks each candidate against the whole
+ * query, so it only scans every event when it has no condition at all.
+ */
+public class RecentLogIndex implements LogAggregator {
+    
+    /** Number of message words indexed per event */
+    static final int MAX_TOKENS = 32;
+    /** Words are indexed and queried up to this length, field values only up to it */
+    static final int MAX_TOKEN_LENGTH = 64;
+    
+    static final String SERVICE = "s:";
+    static final String KEY = "k:";
+    static final String FIELD = "f:";
+    static final String TOKEN = "t:";
+    
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Postings> levels = new HashMap<>();
+    private IndexedLogEvent[] events;
+    private long maxBytes;
+    private long bytes;
+    private long firstSequence;
+    private long nextSequence;
+    private volatile boolean initialized = false;
+    
+    @Override
+    public synchronized void initialize(Map<String, String> config) {
+        int maxEvents = Integer.parseInt(config.getOrDefault("index.max.events", "100000"));
+        maxBytes = Long.parseLong(config.getOrDefault("index.max.bytes", String.valueOf(64 * 1024 * 1024)));
+        if (maxEvents <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("index.max.events and index.max.bytes must be positive");
+        }
+        events = new IndexedLogEvent[maxEvents];
+        initialized = true;
+    }
+    
+    @Override
+    public synchronized void aggregate(String level, String message, Map<String, Object> metadata) {
+        if (!initialized) {
+            throw new IllegalStateException("RecentLogIndex not initialized");
+        }
+        Object timestamp = metadata.get("timestamp");
+        Object service = metadata.get("service");
+        add(timestamp instanceof Number ? ((Number) timestamp).longValue() : System.currentTimeMillis(),
+            level, service != null ? service.toString() : null, message, metadata);
+    }
+    
+    @Override
+    public synchronized void aggregate(LogEvent event) {
+        if (!initialized) {
+            throw new IllegalStateException("RecentLogIndex not initialized");
+        }
+        add(event.getTimestamp(), event.getLevel(), event.getService(), event.getMessage(), event.toMetadata());
+    }
+    
+    /**
+     * Finds the most recent events matching a query.
+     *
+     * @param query The query
+     * @return The matching events, newest first, at most the query's limit
+     */
+    public synchronized List<IndexedLogEvent> search(LogQuery query) {
+        if (!initialized) {
+            return List.of();
+        }
+        List<String> terms = query.terms();
+        
+        Postings shortest = null;
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                return List.of();
+            }
+            if (shortest == null || list.size() < shortest.size()) {
+                shortest = list;
+            }
+        }
+        List<Postings> sources = new ArrayList<>();
+        if (query.getMinLevel() > 0) {
+            int total = 0;
+            for (Map.Entry<String, Postings> level : levels.entrySet()) {
+                int rank = LogRoute.rank(level.getKey());
+                if (rank < 0 || rank >= query.getMinLevel()) {
+                    sources.add(level.getValue());
+                    total += level.getValue().size();
+                }
+            }
+            if (shortest != null && shortest.size() < total) {
+                sources = List.of(shortest);
+            }
+        } else if (shortest != null) {
+            sources.add(shortest);
+        }
+        
+        List<IndexedLogEvent> results = new ArrayList<>();
+        if (terms.isEmpty() && query.getMinLevel() <= 0) {
+            for (long sequence = nextSequence - 1; sequence >= firstSequence && results.size() < query.getLimit(); sequence--) {
+                IndexedLogEvent event = event(sequence);
+                if (query.matches(event, terms)) {
+                    results.add(event);
+                }
+            }
+            return results;
+        }
+        
+        // Merge the candidate lists from their newest entries back
+        int[] positions = new int[sources.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = sources.get(i).size() - 1;
+        }
+        while (results.size() < query.getLimit()) {
+            int newest = -1;
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] >= 0 && (newest < 0
+                        || sources.get(i).get(positions[i]) > sources.get(newest).get(positions[newest]))) {
+                    newest = i;
+                }
+            }
+            if (newest < 0) {
+                break;
+            }
+            IndexedLogEvent event = event(sources.get(newest).get(positions[newest]--));
+            if (query.matches(event, terms)) {
+                results.add(event);
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Gets the number of events kept.
+     *
+     * @return The event count
+     */
+    public synchronized int size() {
+        return (int) (nextSequence - firstSequence);
+    }
+    
+    /**
+     * Gets the estimated memory taken by the kept events and their postings.
+     *
+     * @return The estimate in bytes
+     */
+    public synchronized long getEstimatedBytes() {
+        return bytes;
+    }
+    
+    @Override
+    public synchronized void shutdown() {
+        if (!initialized) {
+            return;
+        }
+        initialized = false;
+        postings.clear();
+        levels.clear();
+        events = null;
+        bytes = 0;
+        firstSequence = nextSequence;
+    }
+    
+    /**
+     * Splits text into the lower-case words the index uses.
+     *
+     * @param text The text
+     * @return The words, in order and with repeats, at most {@value #MAX_TOKENS}
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length() && tokens.size() < MAX_TOKENS; i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                String token = text.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH));
+                tokens.add(token.toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+    
+    /**
+     * Builds the index term of a field value.
+     */
+    static String fieldTerm(String key, String value) {
+        return FIELD + key + '=' + value;
+    }
+    
+    private void add(long timestamp, String level, String service, String message, Map<String, Object> metadata) {
+        Map<String, Object> fields = new HashMap<>(metadata);
+        fields.remove("timestamp");
+        fields.remove("service");
+        String normalizedLevel = level != null ? level.toUpperCase(Locale.ROOT) : "UNKNOWN";
+        
+        Set<String> terms = new LinkedHashSet<>();
+        if (service != null) {
+            terms.add(SERVICE + service);
+        }
+        int size = 160 + chars(message) + chars(service);
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            String value = String.valueOf(field.getValue());
+            terms.add(KEY + field.getKey());
+            if (value.length() <= MAX_TOKEN_LENGTH) {
+                terms.add(fieldTerm(field.getKey(), value));
+            }
+            size += 64 + chars(field.getKey()) + chars(value);
+        }
+        for (String token : tokenize(message)) {
+            terms.add(TOKEN + token);
+        }
+        // Each term costs a posting slot and, while it is new, a map entry and key
+        size += terms.size() * 24;
+        
+        while (size() > 0 && (size() == events.length || bytes + size > maxBytes)) {
+            evictOldest();
+        }
+        long sequence = nextSequence++;
+        IndexedLogEvent event = new IndexedLogEvent(sequence, timestamp, normalizedLevel, service, message,
+            Collections.unmodifiableMap(fields), terms.toArray(new String[0]), size);
+        events[slot(sequence)] = event;
+        bytes += size;
+        for (String term : event.terms) {
+            postings.computeIfAbsent(term, key -> new Postings()).add(sequence);
+        }
+        levels.computeIfAbsent(normalizedLevel, key -> new Postings()).add(sequence);
+    }
+    
+    private void evictOldest() {
+        long sequence = firstSequence++;
+        IndexedLogEvent event = events[slot(sequence)];
+        events[slot(sequence)] = null;
+        bytes -= event.estimatedBytes;
+        // The oldest event is the head of every posting list it is on
+        for (String term : event.terms) {
+            removeHead(postings, term);
+        }
+        removeHead(levels, event.getLevel());
+    }
+    
+    private static void removeHead(Map<String, Postings> index, String term) {
+        Postings list = index.get(term);
+        list.removeFirst();
+        if (list.size() == 0) {
+            index.remove(term);
+        }
+    }
+    
+    private IndexedLogEvent event(long sequence) {
+        return events[slot(sequence)];
+    }
+    
+    private int slot(long sequence) {
+        return (int) (sequence % events.length);
+    }
+    
+    private static int chars(String value) {
+        return value != null ? 40 + 2 * value.length() : 0;
+    }
+    
+    /**
+     * Ascending sequence numbers of the events that have one term.
+     */
+    private static final class Postings {
+        private long[] sequences = new long[4];
+        private int head;
+        private int tail;
+        
+        void add(long sequence) {
+            if (tail == sequences.length) {
+                if (head > sequences.length / 2) {
+                    System.arraycopy(sequences, head, sequences, 0, tail - head);
+                } else {
+                    long[] grown = new long[sequences.length * 2];
+                    System.arraycopy(sequences, head, grown, 0, tail - head);
+                    sequences = grown;
+                }
+                tail -= head;
+                head = 0;
+            }
+            sequences[tail++] = sequence;
+        }
+        
+        void removeFirst() {
+            head++;
+        }
+        
+        int size() {
+            return tail - head;
+        }
+        
+        long get(int index) {
+            return sequences[head + index];
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Implementation of LogAggregator that writes logs to local files as one
+ * JSON document per line, through memory-mapped segments.
+ * <p>
+ * Segments are named {@code <file.prefix>-<number>.log} in {@code file.dir}
+ * (defaults {@code application} and {@code logs}). Each is created at
+ * its full size of {@code file.max.bytes} (default 100 MB) and mapped
+ * into memory, so writing a line is a copy into the mapping, with no
+ * system call; the unwritten rest of a segment reads as zero bytes. The
+ * operating system writes the pages back, so a crash of the process
+ * loses no lines, while a crash of the machine may.
+ * <p>
+ * A segment is closed once the next line does not fit, or once it is
+ * {@code file.roll.interval.ms} old if set. The next segment is always
+ * created and mapped ahead of time on a background thread, so rolling
+ * over only swaps buffers. A second background thread gzips closed
+ * segments into {@code .log.gz} files, unless {@code file.compress} is
+ * false, in which case it truncates them to their content, and deletes
+ * the oldest segments beyond {@code file.max.files} (default 10). The
+ * segment open at shutdown is truncated and left uncompressed; it is
+ * compressed on the next start.
+ * <p>
+ * A closed segment is unmapped before its file is truncated or deleted,
+ * rather than when the garbage collector gets to its buffer.
+ */
+public class RollingFileAggregator implements LogAggregator {
+    
+    /** Unsafe.invokeCleaner bound to the Unsafe instance, or null where it is not accessible */
+    private static final MethodHandle UNMAPPER = findUnmapper();
+    
+    private final JsonLogEncoder encoder = new JsonLogEncoder();
+    /** Segment files, oldest first; only used by the closing thread after initialization */
+    private final Deque<Path> files = new ArrayDeque<>();
+    private Path directory;
+    private String prefix;
+    private long segmentBytes;
+    private int maxFiles;
+    private long rollIntervalMillis;
+    private boolean compress;
+    private ExecutorService preparer;
+    private ExecutorService closer;
+    private Segment current;
+    private Future<Segment> next;
+    private long nextNumber;
+    private volatile boolean initialized = false;
+    
+    @Override
+    public synchronized void initialize(Map<String, String> config) {
+        directory = Paths.get(config.getOrDefault("file.dir", "logs"));
+        prefix = config.getOrDefault("file.prefix", "application");
+        segmentBytes = Long.parseLong(config.getOrDefault("file.max.bytes", String.valueOf(100 * 1024 * 1024)));
+        maxFiles = Integer.parseInt(config.getOrDefault("file.max.files", "10"));
+        rollIntervalMillis = Long.parseLong(config.getOrDefault("file.roll.interval.ms", "0"));
+        compress = Boolean.parseBoolean(config.getOrDefault("file.compress", "true"));
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("file.max.bytes must be between 1 and " + Integer.MAX_VALUE);
+        }
+        
+        List<Path> leftovers = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> listing = Files.list(directory)) {
+                listing.filter(path -> number(path) >= 0).sorted(Comparator.comparingLong(this::number)).forEach(files::add);
+            }
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(".log")) {
+                    leftovers.add(file);
+                }
+            }
+            nextNumber = files.isEmpty() ? 0 : number(files.peekLast()) + 1;
+            current = openSegment(nextNumber++);
+            files.add(current.path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open log files in " + directory, e);
+        }
+        
+        preparer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "logging-file-prepare");
+            thread.setDaemon(true);
+            return thread;
+        });
+        closer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "logging-file-close");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Segments of an earlier process were either not closed by it or closed by its shutdown
+        for (Path leftover : leftovers) {
+            closer.execute(() -> closeLeftover(leftover));
+        }
+        // A process that restarts without rolling would otherwise add a segment on every start
+        closer.execute(this::deleteExpired);
+        prepareNext();
+        initialized = true;
+    }
+    
+    @Override
+    public synchronized void aggregate(String level, String message, Map<String, Object> metadata) {
+        if (!initialized) {
+            throw new IllegalStateException("RollingFileAggregator not initialized");
+        }
+        encoder.reset();
+        encoder.encode(level, message, metadata);
+        write(rollIntervalMillis > 0 ? System.currentTimeMillis() : 0);
+    }
+    
+    @Override
+    public synchronized void aggregate(LogEvent event) {
+        if (!initialized) {
+            throw new IllegalStateException("RollingFileAggregator not initialized");
+        }
+        encoder.reset();
+        encoder.encode(event);
+        write(event.getTimestamp());
+    }
+    
+    /**
+     * Gets the segment currently written to.
+     *
+     * @return The path of the current segment
+     */
+    public synchronized Path getCurrentFile() {
+        return current.path;
+    }
+    
+    @Override
+    public synchronized void shutdown() {
+        if (!initialized) {
+            return;
+        }
+        initialized = false;
+        Segment last = current;
+        closer.execute(() -> closeSegment(last, false));
+        closer.shutdown();
+        preparer.shutdown();
+        boolean interrupted = false;
+        try {
+            Segment unused = next.get();
+            unused.release();
+            unused.channel.close();
+            Files.deleteIfExists(unused.path);
+        } catch (IOException | ExecutionException e) {
+            System.err.println("Failed to delete unused log segment: " + e.getMessage());
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        // The closing thread is a daemon, so the last segment is only closed if shutdown waits for it
+        try {
+            if (!closer.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println("Timed out closing log segments in " + directory);
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void write(long timestamp) {
+        encoder.writeByte('\n');
+        int length = encoder.length();
+        if (current.buffer.remaining() < length
+                || (rollIntervalMillis > 0 && timestamp - current.openedAt >= rollIntervalMillis)) {
+            roll(length);
+        }
+        encoder.writeTo(current.buffer);
+    }
+    
+    private void roll(int needed) {
+        Segment opened;
+        try {
+            opened = next.get();
+            if (opened.buffer.remaining() < needed) {
+                // A line longer than a segment gets a segment of its own size
+                MappedByteBuffer larger = opened.channel.map(FileChannel.MapMode.READ_WRITE, 0, needed);
+                opened.release();
+                opened.buffer = larger;
+            }
+        } catch (ExecutionException e) {
+            prepareNext();
+            throw new UncheckedIOException("Cannot roll over log segment in " + directory, new IOException(e.getCause()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot roll over log segment in " + directory, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rolling over log segment", e);
+        }
+        opened.openedAt = System.currentTimeMillis();
+        
+        Segment closed = current;
+        current = opened;
+        prepareNext();
+        closer.execute(() -> {
+            files.add(opened.path);
+            closeSegment(closed, compress);
+            deleteExpired();
+        });
+    }
+    
+    private void prepareNext() {
+        long number = nextNumber++;
+        next = preparer.submit(() -> openSegment(number));
+    }
+    
+    private Segment openSegment(long number) throws IOException {
+        Path path = directory.resolve(String.format("%s-%06d.log", prefix, number));
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Mapping past the end of the file extends it to the segment size
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        return new Segment(path, channel, buffer);
+    }
+    
+    private void closeSegment(Segment segment, boolean gzip) {
+        int length = segment.buffer.position();
+        try {
+            if (gzip) {
+                compress(segment.path, segment.buffer, length);
+                segment.release();
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            } else {
+                segment.buffer.force();
+                segment.release();
+                segment.channel.truncate(length);
+                segment.channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to close log segment " + segment.path + ": " + e.getMessage());
+        }
+    }
+    
+    private void closeLeftover(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            // Content ends at the last newline; a segment that was not closed is padded with zeros
+            int length = buffer.limit();
+            while (length > 0 && buffer.get(length - 1) != '\n') {
+                length--;
+            }
+            if (compress) {
+                compress(path, buffer, length);
+            }
+            unmap(buffer);
+            if (compress) {
+                Files.deleteIfExists(path);
+            } else if (length < channel.size()) {
+                channel.truncate(length);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to close log segment " + path + ": " + e.getMessage());
+        }
+    }
+    
+    private static void compress(Path path, ByteBuffer content, int length) throws IOException {
+        Path target = path.resolveSibling(path.getFileName() + ".gz");
+        Path temporary = path.resolveSibling(path.getFileName() + ".gz.tmp");
+        ByteBuffer source = content.duplicate();
+        source.position(0).limit(length);
+        byte[] chunk = new byte[64 * 1024];
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary), chunk.length)) {
+            while (source.hasRemaining()) {
+                int count = Math.min(chunk.length, source.remaining());
+                source.get(chunk, 0, count);
+                out.write(chunk, 0, count);
+            }
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private void deleteExpired() {
+        while (files.size() > maxFiles) {
+            Path oldest = files.pollFirst();
+            try {
+                Files.deleteIfExists(oldest);
+                Files.deleteIfExists(oldest.resolveSibling(oldest.getFileName() + ".gz"));
+            } catch (IOException e) {
+                System.err.println("Failed to delete log segment " + oldest + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Unmaps a buffer at once. Touching it afterwards crashes the JVM, so
+     * no reference to it may be left. Where the JDK's cleaner is not
+     * accessible the mapping is left to the garbage collector.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (UNMAPPER == null) {
+            return;
+        }
+        try {
+            UNMAPPER.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable e) {
+            System.err.println("Failed to unmap log segment: " + e);
+        }
+    }
+    
+    private static MethodHandle findUnmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+    
+    private long number(Path path) {
+        String name = path.getFileName().toString();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - ".gz".length());
+        }
+        if (!name.startsWith(prefix + "-") || !name.endsWith(".log")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length() + 1, name.length() - ".log".length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * A mapped segment file.
+     */
+    private static final class Segment {
+        final Path path;
+        final FileChannel channel;
+        MappedByteBuffer buffer;
+        long openedAt = System.currentTimeMillis();
+        
+        Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+        
+        /**
+         * Drops the reference to the mapping and unmaps it.
+         */
+        void release() {
+            MappedByteBuffer mapped = buffer;
+            buffer = null;
+            unmap(mapped);
+        }
+    }
+}
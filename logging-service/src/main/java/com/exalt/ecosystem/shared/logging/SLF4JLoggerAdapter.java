@@ -1,7 +1,17 @@
 package com.exalt.ecosystem.shared.logging;
 
+import org.slf4j.spi.LoggingEventBuilder;
+
 /**
  * Adapter that converts SLF4J Logger to our custom Logger interface.
+ * <p>
+ * When {@link LoggingService} is configured to sample or rate-limit
+ * lines, every enabled line is checked with its {@link LogRateLimiter}
+ * first; otherwise the check is one volatile read.
+ * <p>
+ * The fields of the current {@link LogContext} are added to every line
+ * as SLF4J key-value pairs, which structured backends write as fields.
+ * Without a context, lines go to the plain SLF4J methods.
  */
 public class SLF4JLoggerAdapter implements Logger {
     
@@ -13,62 +23,146 @@ public class SLF4JLoggerAdapter implements Logger {
     
     @Override
     public void debug(String message) {
-        logger.debug(message);
+        if (permits(LogRateLimiter.DEBUG, message)) {
+            LogContext context = LogContext.current();
+            if (context.isEmpty()) {
+                logger.debug(message);
+            } else {
+                stamp(logger.atDebug(), context).log(message);
+            }
+        }
     }
     
     @Override
     public void debug(String message, Object... args) {
-        logger.debug(message, args);
+        if (permits(LogRateLimiter.DEBUG, message)) {
+            LogContext context = LogContext.current();
+            if (context.isEmpty()) {
+                logger.debug(message, args);
+            } else {
+                stamp(logger.atDebug(), context).log(message, args);
+            }
+        }
     }
     
     @Override
     public void debug(String message, Throwable throwable) {
-        logger.debug(message, throwable);
+        if (permits(LogRateLimiter.DEBUG, message)) {
+            LogContext context = LogContext.current();
+            if (context.isEmpty()) {
+                logger.debug(message, throwable);
+            } else {
+                stamp(logger.atDebug(), context).setCause(throwable).log(message);
+            }
+        }
     }
     
     @Override
     public void info(String message) {
-        logger.info(message);
+        if (permits(LogRateLimiter.INFO, message)) {
+            LogContext context = LogContext.current();
+            if (context.isEmpty()) {
+                logger.info(message);
+            } else {
+                stamp(logger.atInfo(), context).log(message);
+            }
+        }
     }
     
     @Override
     public void info(String message, Object... args) {
-        logger.info(message, args);
+        if (permits(LogRateLimiter.INFO, message)) {
+            LogContext context = LogContext.current();
+            if (context.isEmpty()) {
+                logger.info(message, args);
+            } else {
+                stamp(logger.atInfo(), context).log(message, args);
+            }
+        }
     }
     
     @Override
     public void info(String message, Throwable throwable) {
-        logger.info(message, throwable);
+        if (permits(LogRateLimiter.INFO, message)) {
+            LogContext context = LogContext.current();
+            if (context.isEmpty()) {
+                logger.info(message, throwable);
+            } else {
+                stamp(logger.atInfo(), context).setCause(throwable).log(message);
+            }
+        }
     }
     
     @Override
     public void warn(String message) {
-        logger.warn(message);
+        if (permits(LogRateLimiter.WARN, message)) {
+            LogContext context = LogContext.current();
+            if (context.isEmpty()) {
+                logger.warn(message);
+            } else {
+                stamp(logger.atWarn(), context).log(message);
+            }
+        }
     }
     
     @Override
     public void warn(String message, Object... args) {
-        logger.warn(message, args);
+        if (permits(LogRateLimiter.WARN, message)) {
+            LogContext context = LogContext.current();
+            if (context.isEmpty()) {
+                logger.warn(message, args);
+            } else {
+                stamp(logger.atWarn(), context).log(message, args);
+            }
+        }
     }
     
     @Override
     public void warn(String message, Throwable throwable) {
-        logger.warn(message, throwable);
+        if (permits(LogRateLimiter.WARN, message)) {
+            LogContext context = LogContext.current();
+            if (context.isEmpty()) {
+                logger.warn(message, throwable);
+            } else {
+                stamp(logger.atWarn(), context).setCause(throwable).log(message);
+            }
+        }
     }
     
     @Override
     public void error(String message) {
-        logger.error(message);
+        if (permits(LogRateLimiter.ERROR, message)) {
+            LogContext context = LogContext.current();
+            if (context.isEmpty()) {
+                logger.error(message);
+            } else {
+                stamp(logger.atError(), context).log(message);
+            }
+        }
     }
     
     @Override
     public void error(String message, Object... args) {
-        logger.error(message, args);
+        if (permits(LogRateLimiter.ERROR, message)) {
+            LogContext context = LogContext.current();
+            if (context.isEmpty()) {
+                logger.error(message, args);
+            } else {
+                stamp(logger.atError(), context).log(message, args);
+            }
+        }
     }
     
     @Override
     public void error(String message, Throwable throwable) {
-        logger.error(message, throwable);
+        if (permits(LogRateLimiter.ERROR, message)) {
+            LogContext context = LogContext.current();
+            if (context.isEmpty()) {
+                logger.error(message, throwable);
+            } else {
+                stamp(logger.atError(), context).setCause(throwable).log(message);
+            }
+        }
     }
     
     @Override
@@ -90,4 +184,33 @@ public class SLF4JLoggerAdapter implements Logger {
     public boolean isErrorEnabled() {
         return logger.isErrorEnabled();
     }
+    
+    private static LoggingEventBuilder stamp(LoggingEventBuilder builder, LogContext context) {
+        for (int i = 0; i < context.size(); i++) {
+            builder = builder.addKeyValue(context.getKey(i), context.getValue(i));
+        }
+        return builder;
+    }
+    
+    private boolean permits(int level, String template) {
+        LogRateLimiter limiter = LoggingService.getRateLimiter();
+        if (limiter == null) {
+            return true;
+        }
+        // Lines the level filters out anyway must not take tokens or count as suppressed
+        return isEnabled(level) && limiter.permits(level, template);
+    }
+    
+    private boolean isEnabled(int level) {
+        switch (level) {
+            case LogRateLimiter.DEBUG:
+                return logger.isDebugEnabled();
+            case LogRateLimiter.INFO:
+                return logger.isInfoEnabled();
+            case LogRateLimiter.WARN:
+                return logger.isWarnEnabled();
+            default:
+                return logger.isErrorEnabled();
+        }
+    }
 }
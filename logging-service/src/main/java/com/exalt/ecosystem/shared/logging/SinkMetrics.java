@@ -0,0 +1,118 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the delivery counters of one log sink.
+ * <p>
+ * Counters are cumulative since the sink was started; throughput over a
+ * period is the difference between two snapshots, see
+ * {@link #deliveredPerSecond(SinkMetrics)}.
+ */
+public final class SinkMetrics {
+    
+    private final String name;
+    private final long snapshotNanos;
+    private final long routedCount;
+    private final long deliveredCount;
+    private final long droppedCount;
+    private final long failedCount;
+    private final int queuedCount;
+    private final long lagMillis;
+    
+    SinkMetrics(String name, long snapshotNanos, long routedCount, long deliveredCount,
+                long droppedCount, long failedCount, int queuedCount, long lagMillis) {
+        this.name = name;
+        this.snapshotNanos = snapshotNanos;
+        this.routedCount = routedCount;
+        this.deliveredCount = deliveredCount;
+        this.droppedCount = droppedCount;
+        this.failedCount = failedCount;
+        this.queuedCount = queuedCount;
+        this.lagMillis = lagMillis;
+    }
+    
+    /**
+     * Gets the name of the sink.
+     *
+     * @return The sink name, its aggregator type
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Gets the number of events that matched the sink's routing rule.
+     *
+     * @return The routed event count
+     */
+    public long getRoutedCount() {
+        return routedCount;
+    }
+    
+    /**
+     * Gets the number of events handed to the sink's aggregator without error.
+     *
+     * @return The delivered event count
+     */
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+    
+    /**
+     * Gets the number of routed events discarded because the sink's queue was full.
+     *
+     * @return The dropped event count
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+    
+    /**
+     * Gets the number of events the sink's aggregator failed on.
+     *
+     * @return The failed event count
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+    
+    /**
+     * Gets the number of events waiting in the sink's queue.
+     *
+     * @return The queued event count
+     */
+    public int getQueuedCount() {
+        return queuedCount;
+    }
+    
+    /**
+     * Gets the time between the submission and the delivery of the last delivered event.
+     *
+     * @return The delivery lag in milliseconds
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+    
+    /**
+     * Computes the delivery rate since an earlier snapshot of the same sink.
+     *
+     * @param earlier The earlier snapshot
+     * @return The delivered events per second, 0 if no time has passed
+     */
+    public double deliveredPerSecond(SinkMetrics earlier) {
+        long elapsed = snapshotNanos - earlier.snapshotNanos;
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return (deliveredCount - earlier.deliveredCount) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+    
+    @Override
+    public String toString() {
+        return "SinkMetrics{name=" + name + ", routed=" + routedCount + ", delivered=" + deliveredCount
+            + ", dropped=" + droppedCount + ", failed=" + failedCount + ", queued=" + queuedCount
+            + ", lagMillis=" + lagMillis + "}";
+    }
+}
@@ -0,0 +1,94 @@
+package com.exalt.ecosystem.shared.logging;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Implementation of LogAggregator that writes logs to standard output as
+ * one JSON document per line, for container platforms that collect the
+ * output of their processes.
+ * <p>
+ * Lines are encoded with a {@link JsonLogEncoder} into a 64 KB buffer
+ * that is written out whenever the sink's queue runs dry.
+ */
+public class StdoutJsonAggregator implements LogAggregator {
+    
+    private final JsonLogEncoder encoder = new JsonLogEncoder();
+    private final OutputStream target;
+    private OutputStream out;
+    private volatile boolean initialized = false;
+    
+    /**
+     * Creates an aggregator writing to the process's standard output.
+     */
+    public StdoutJsonAggregator() {
+        this(new FileOutputStream(FileDescriptor.out));
+    }
+    
+    /**
+     * Creates an aggregator writing to a stream instead of standard output.
+     *
+     * @param target The stream lines are written to
+     */
+    public StdoutJsonAggregator(OutputStream target) {
+        this.target = target;
+    }
+    
+    @Override
+    public void initialize(Map<String, String> config) {
+        out = new BufferedOutputStream(target, 64 * 1024);
+        initialized = true;
+    }
+    
+    @Override
+    public synchronized void aggregate(String level, String message, Map<String, Object> metadata) {
+        if (!initialized) {
+            throw new IllegalStateException("StdoutJsonAggregator not initialized");
+        }
+        encoder.reset();
+        encoder.encode(level, message, metadata);
+        write();
+    }
+    
+    @Override
+    public synchronized void aggregate(LogEvent event) {
+        if (!initialized) {
+            throw new IllegalStateException("StdoutJsonAggregator not initialized");
+        }
+        encoder.reset();
+        encoder.encode(event);
+        write();
+    }
+    
+    @Override
+    public synchronized void endOfBatch() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    @Override
+    public synchronized void shutdown() {
+        if (!initialized) {
+            return;
+        }
+        initialized = false;
+        endOfBatch();
+    }
+    
+    private void write() {
+        encoder.writeByte('\n');
+        try {
+            encoder.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.exalt.ecosystem.shared.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link DiskSpool}.
+ */
+public class DiskSpoolTest {
+
+    @Test
+    @DisplayName("A reopened spool resumes after the last committed record")
+    public void resumesAfterRestart() throws Exception {
+        Path directory = Files.createTempDirectory("log-spool");
+        try (DiskSpool spool = new DiskSpool(directory, 64, 1 << 20)) {
+            for (int i = 0; i < 5; i++) {
+                spool.append(body(i), i + 1, false);
+            }
+            spool.commit(spool.peek());
+            spool.commit(spool.peek());
+        }
+
+        try (DiskSpool spool = new DiskSpool(directory, 64, 1 << 20)) {
+            for (int i = 2; i < 5; i++) {
+                DiskSpool.Record record = spool.peek();
+                assertArrayEquals(body(i), record.body);
+                assertEquals(i + 1, record.actions);
+                spool.commit(record);
+            }
+            assertNull(spool.peek());
+            assertTrue(spool.isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Beyond the disk budget the oldest segments are deleted and their events counted")
+    public void deletesOldestOverBudget() throws Exception {
+        Path directory = Files.createTempDirectory("log-spool");
+        try (DiskSpool spool = new DiskSpool(directory, 64, 200)) {
+            // Each record takes 16 + 40 bytes, so every segment holds one
+            for (int i = 0; i < 10; i++) {
+                spool.append(body(i), 10, false);
+            }
+            assertTrue(spool.sizeBytes() <= 200);
+            assertEquals(70, spool.getDroppedEventCount());
+            assertArrayEquals(body(7), spool.peek().body);
+        }
+    }
+
+    @Test
+    @DisplayName("Committing a record whose segment was deleted over budget keeps the read position")
+    public void commitsRecordOfDeletedSegment() throws Exception {
+        Path directory = Files.createTempDirectory("log-spool");
+        try (DiskSpool spool = new DiskSpool(directory, 64, 200)) {
+            spool.append(body(0), 10, false);
+            spool.append(body(1), 10, false);
+            DiskSpool.Record replayed = spool.peek();
+
+            // Appending while the record is being sent deletes its segment
+            for (int i = 2; i < 5; i++) {
+                spool.append(body(i), 10, false);
+            }
+            spool.commit(replayed);
+
+            assertEquals(10, spool.getDroppedEventCount());
+            for (int i = 2; i < 5; i++) {
+                DiskSpool.Record record = spool.peek();
+                assertArrayEquals(body(i), record.body);
+                spool.commit(record);
+            }
+            assertTrue(spool.isEmpty());
+        }
+    }
+
+    private static byte[] body(int i) {
+        return String.format("%-40s", "body-" + i).getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,145 @@
+package com.exalt.ecosystem.shared.logging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ElasticSearchAggregator} against an {@link InProcessElasticsearch}.
+ */
+public class ElasticSearchAggregatorTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private InProcessElasticsearch elasticsearch;
+    private ElasticSearchAggregator aggregator;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        elasticsearch = new InProcessElasticsearch();
+        aggregator = new ElasticSearchAggregator();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        aggregator.shutdown();
+        elasticsearch.close();
+    }
+
+    @Test
+    @DisplayName("Events are shipped as gzipped NDJSON bulk requests of at most max.actions events")
+    public void shipsBatchesByCount() throws Exception {
+        aggregator.initialize(config("500", "60000"));
+
+        for (int i = 0; i < 1200; i++) {
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("timestamp", 1_700_000_000_000L + i);
+            metadata.put("orderId", i);
+            aggregator.aggregate("INFO", "Order \"" + i + "\" placed", metadata);
+        }
+        aggregator.shutdown();
+
+        List<String> bodies = elasticsearch.getBodies();
+        assertEquals(3, bodies.size());
+        assertEquals(3, elasticsearch.getGzippedRequestCount());
+        assertEquals(1200, aggregator.getSentEventCount());
+
+        // Two requests may be in flight, so batches can arrive in any order
+        Set<Integer> orderIds = new HashSet<>();
+        for (String body : bodies) {
+            assertTrue(body.endsWith("\n"));
+            String[] lines = body.split("\n");
+            assertTrue(lines.length == 1000 || lines.length == 400);
+            for (int i = 0; i < lines.length; i += 2) {
+                assertEquals("logs", MAPPER.readTree(lines[i]).path("index").path("_index").asText());
+                JsonNode document = MAPPER.readTree(lines[i + 1]);
+                int orderId = document.path("orderId").asInt();
+                assertEquals("INFO", document.path("level").asText());
+                assertEquals("Order \"" + orderId + "\" placed", document.path("message").asText());
+                assertEquals(1_700_000_000_000L + orderId, document.path("@timestamp").asLong());
+                orderIds.add(orderId);
+            }
+        }
+        assertEquals(1200, orderIds.size());
+    }
+
+    @Test
+    @DisplayName("A partial batch is shipped once it is older than the linger time")
+    public void shipsLingeringBatch() throws Exception {
+        aggregator.initialize(config("1000", "50"));
+
+        aggregator.aggregate("WARN", "Disk almost full", new HashMap<>());
+        aggregator.aggregate("ERROR", "Disk full", new HashMap<>());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (aggregator.getSentEventCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, aggregator.getSentEventCount());
+        assertEquals(1, elasticsearch.getBodies().size());
+        assertEquals(4, elasticsearch.getBodies().get(0).split("\n").length);
+    }
+
+    @Test
+    @DisplayName("Batches are spooled to disk while Elasticsearch fails and replayed in order once it recovers")
+    public void spoolsDuringOutage() throws Exception {
+        Path spoolDir = Files.createTempDirectory("log-spool");
+        Map<String, String> config = config("100", "60000");
+        config.put("elastic.spool.dir", spoolDir.toString());
+        config.put("elastic.spool.retry.ms", "50");
+        aggregator.initialize(config);
+
+        elasticsearch.setStatus(503);
+        for (int i = 0; i < 300; i++) {
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("orderId", i);
+            aggregator.aggregate("INFO", "Order placed", metadata);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (aggregator.getSpooledBytes() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(aggregator.getSpooledBytes() > 0);
+        assertEquals(0, aggregator.getSentEventCount());
+        assertEquals(0, aggregator.getFailedEventCount());
+
+        elasticsearch.setStatus(200);
+        while (aggregator.getSentEventCount() < 300 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(300, aggregator.getSentEventCount());
+
+        // Batches in flight when the outage started may be replayed after newer ones
+        Set<Integer> orderIds = new HashSet<>();
+        for (String body : elasticsearch.getBodies()) {
+            String[] lines = body.split("\n");
+            assertEquals(200, lines.length);
+            for (int i = 1; i < lines.length; i += 2) {
+                orderIds.add(MAPPER.readTree(lines[i]).path("orderId").asInt());
+            }
+        }
+        assertEquals(300, orderIds.size());
+    }
+
+    private Map<String, String> config(String maxActions, String lingerMillis) {
+        Map<String, String> config = new HashMap<>();
+        config.put("elastic.url", elasticsearch.getUrl());
+        config.put("elastic.index", "logs");
+        config.put("elastic.bulk.max.actions", maxActions);
+        config.put("elastic.bulk.linger.ms", lingerMillis);
+        return config;
+    }
+}
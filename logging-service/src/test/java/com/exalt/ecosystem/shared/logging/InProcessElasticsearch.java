@@ -0,0 +1,112 @@
+package com.exalt.ecosystem.shared.logging;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Minimal stand-in for an Elasticsearch node that accepts {@code _bulk}
+ * requests on a local port and records their decompressed bodies.
+ * Requests are acknowledged without errors, or answered with a
+ * configured error status to simulate an outage.
+ */
+public class InProcessElasticsearch implements AutoCloseable {
+
+    private static final byte[] BULK_RESPONSE = "{\"took\":1,\"errors\":false,\"items\":[]}"
+        .getBytes(StandardCharsets.UTF_8);
+
+    static {
+        // Without it the server's separate header and body writes stall on delayed ACKs, about 40 ms per request
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final AtomicInteger gzippedRequests = new AtomicInteger();
+    private volatile boolean recordBodies = true;
+    private volatile int status = 200;
+
+    public InProcessElasticsearch() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/_bulk", this::handleBulk);
+        server.setExecutor(Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "in-process-elasticsearch");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Gets the bodies of all bulk requests received so far, decompressed.
+     */
+    public List<String> getBodies() {
+        return new ArrayList<>(bodies);
+    }
+
+    public int getGzippedRequestCount() {
+        return gzippedRequests.get();
+    }
+
+    /**
+     * Stops keeping request bodies, for long benchmark runs.
+     */
+    public void discardBodies() {
+        recordBodies = false;
+    }
+
+    /**
+     * Sets the status of the responses; bodies of requests answered with
+     * an error status are not recorded.
+     */
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    private void handleBulk(HttpExchange exchange) throws IOException {
+        if (status != 200) {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+
+        boolean gzipped = "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+        if (gzipped) {
+            gzippedRequests.incrementAndGet();
+        }
+        try (InputStream in = gzipped ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+            byte[] body = in.readAllBytes();
+            if (recordBodies) {
+                bodies.add(new String(body, StandardCharsets.UTF_8));
+            }
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, BULK_RESPONSE.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(BULK_RESPONSE);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
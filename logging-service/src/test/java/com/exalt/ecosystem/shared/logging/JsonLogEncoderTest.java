@@ -0,0 +1,135 @@
+package com.exalt.ecosystem.shared.logging;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link JsonLogEncoder} and events built with {@link LogEventBuilder}.
+ */
+public class JsonLogEncoderTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectMapper STRICT_MAPPER = new ObjectMapper()
+        .enable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION);
+
+    @Test
+    @DisplayName("An event built with inline fields encodes to the JSON Jackson reads back")
+    public void encodesBuiltEvent() throws Exception {
+        LogRingBuffer buffer = new LogRingBuffer(4, BackpressurePolicy.DROP_NEWEST, 0);
+        String message = "Quote \" backslash \\ tab \t newline \n bell \u0007 \u00E9 \u20AC \uD83D\uDE00 lone \uD800";
+        LogEventBuilder builder = new LogEventBuilder().begin("WARN", message)
+            .with("orderId", "o-1")
+            .with("count", Long.MIN_VALUE)
+            .with("negative", -42)
+            .with("ratio", 0.25)
+            .with("whole", 3.0)
+            .with("missing", Double.NaN)
+            .with("express", true);
+        for (int i = 0; i < LogEvent.MAX_FIELDS; i++) {
+            builder.with("extra" + i, i);
+        }
+        assertTrue(builder.publishTo(buffer));
+
+        LogEvent event = new LogEvent();
+        assertTrue(buffer.poll(event));
+        event.setService("orders");
+        JsonLogEncoder encoder = new JsonLogEncoder(16);
+        encoder.encode(event);
+        JsonNode document = MAPPER.readTree(encoder.toByteArray());
+
+        assertEquals("WARN", document.path("level").asText());
+        assertEquals(message.replace('\uD800', '?'), document.path("message").asText());
+        assertEquals(event.getTimestamp(), document.path("@timestamp").asLong());
+        assertEquals("orders", document.path("service").asText());
+        assertEquals("o-1", document.path("orderId").asText());
+        assertEquals(Long.MIN_VALUE, document.path("count").asLong());
+        assertEquals(-42, document.path("negative").asLong());
+        assertEquals(0.25, document.path("ratio").asDouble());
+        assertEquals(3.0, document.path("whole").asDouble());
+        assertEquals("NaN", document.path("missing").asText());
+        assertTrue(document.path("express").asBoolean());
+        // Fields beyond the inline ones go to the metadata map
+        assertEquals(LogEvent.MAX_FIELDS, event.getFieldCount());
+        assertEquals(15, document.path("extra15").asLong());
+    }
+
+    @Test
+    @DisplayName("Metadata maps encode like Jackson, including nested values")
+    public void encodesMetadata() throws Exception {
+        Map<String, Object> metadata = Map.of(
+            "timestamp", 1_700_000_000_000L,
+            "user", Map.of("id", 7, "roles", List.of("admin", "ops")),
+            "note", "\u00FCn\u00EFcode");
+        JsonLogEncoder encoder = new JsonLogEncoder();
+        encoder.encode("INFO", "Hello", metadata);
+        encoder.writeByte('\n');
+
+        String line = new String(encoder.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(line.endsWith("}\n"));
+        JsonNode document = MAPPER.readTree(line);
+        assertEquals(1_700_000_000_000L, document.path("@timestamp").asLong());
+        assertEquals(MAPPER.valueToTree(metadata.get("user")), document.path("user"));
+        assertEquals("\u00FCn\u00EFcode", document.path("note").asText());
+
+        encoder.reset();
+        assertEquals(0, encoder.length());
+    }
+
+    @Test
+    @DisplayName("Colliding field names are written once, with the precedence of LogEvent.toMetadata")
+    public void writesEachFieldOnce() throws Exception {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("orderId", "from-metadata");
+        metadata.put("sku", "s-1");
+        metadata.put("level", "FATAL");
+        metadata.put("message", "from-metadata");
+        metadata.put("timestamp", 1L);
+        metadata.put("@timestamp", 2L);
+
+        LogEvent event = new LogEvent();
+        event.set("WARN", "Stock low", metadata, 1_700_000_000_000L);
+        event.setService("orders");
+        event.setContext(LogContext.empty().with("orderId", "from-context").with("traceId", "t-1")
+            .with("message", "from-context").with("service", "from-context"));
+        event.addField("orderId", LogEvent.STRING, 0, "first");
+        event.addField("count", LogEvent.LONG, 1, null);
+        event.addField("orderId", LogEvent.STRING, 0, "o-1");
+        event.addField("level", LogEvent.STRING, 0, "DEBUG");
+        event.addField("@timestamp", LogEvent.LONG, 3, null);
+        event.addField("service", LogEvent.STRING, 0, "from-field");
+
+        JsonLogEncoder encoder = new JsonLogEncoder();
+        encoder.encode(event);
+        JsonNode document = STRICT_MAPPER.readTree(encoder.toByteArray());
+
+        assertEquals("WARN", document.path("level").asText());
+        assertEquals("Stock low", document.path("message").asText());
+        assertEquals(1_700_000_000_000L, document.path("@timestamp").asLong());
+        assertEquals(1_700_000_000_000L, document.path("timestamp").asLong());
+        assertEquals("orders", document.path("service").asText());
+        assertEquals("o-1", document.path("orderId").asText());
+        assertEquals(1, document.path("count").asLong());
+        assertEquals("s-1", document.path("sku").asText());
+        assertEquals("t-1", document.path("traceId").asText());
+        assertEquals(9, document.size());
+
+        Map<String, Object> fields = event.toMetadata();
+        encoder.reset();
+        encoder.encode("INFO", "Hello", fields);
+        document = STRICT_MAPPER.readTree(encoder.toByteArray());
+        assertEquals("INFO", document.path("level").asText());
+        assertEquals("Hello", document.path("message").asText());
+        assertEquals(1_700_000_000_000L, document.path("@timestamp").asLong());
+        assertEquals("o-1", document.path("orderId").asText());
+    }
+}
@@ -0,0 +1,82 @@
+package com.exalt.ecosystem.shared.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LogContext}.
+ */
+public class LogContextTest {
+
+    @Test
+    @DisplayName("Scopes nest and restore the previous context when closed")
+    public void nestsScopes() {
+        assertTrue(LogContext.current().isEmpty());
+        LogContext request = LogContext.empty().with("traceId", "t-1").with("requestId", "r-1");
+        try (LogContext.Scope outer = request.open()) {
+            try (LogContext.Scope inner = LogContext.current().with("requestId", "r-2").open()) {
+                assertEquals(Map.of("traceId", "t-1", "requestId", "r-2"), LogContext.current().toMap());
+            }
+            assertSame(request, LogContext.current());
+        }
+        assertTrue(LogContext.current().isEmpty());
+        assertEquals("r-1", request.get("requestId"));
+    }
+
+    @Test
+    @DisplayName("Wrapped tasks run in the submitter's context on other threads")
+    public void propagatesAcrossThreads() throws Exception {
+        ExecutorService pool = LogContext.propagating(Executors.newFixedThreadPool(2));
+        try {
+            Runnable task = () -> { };
+            assertSame(task, LogContext.wrap(task));
+
+            try (LogContext.Scope scope = LogContext.empty().with("traceId", "t-7").open()) {
+                assertEquals("t-7", pool.submit(() -> LogContext.current().get("traceId")).get());
+                CompletableFuture<String> future = CompletableFuture
+                    .supplyAsync(() -> LogContext.current().get("traceId"), pool)
+                    .thenApplyAsync(LogContext.wrapFunction(id -> id + "/" + LogContext.current().get("traceId")));
+                assertEquals("t-7/t-7", future.get(5, TimeUnit.SECONDS));
+            }
+            assertNull(pool.submit(() -> LogContext.current().get("traceId")).get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Events carry the context of their submitter, with their own fields taking precedence")
+    public void stampsEvents() {
+        LogRingBuffer buffer = new LogRingBuffer(8, BackpressurePolicy.DROP_NEWEST, 0);
+        LogEventBuilder builder = new LogEventBuilder();
+        try (LogContext.Scope scope = LogContext.empty().with("traceId", "t-3").with("orderId", "from-context").open()) {
+            builder.begin("INFO", "Order placed").with("orderId", "o-1").publishTo(buffer);
+            buffer.publish("WARN", "Stock low", Map.of("sku", "s-1"), LogContext.current(), 0);
+        }
+        builder.begin("INFO", "Outside").publishTo(buffer);
+
+        LogEvent event = new LogEvent();
+        JsonLogEncoder encoder = new JsonLogEncoder();
+        assertTrue(buffer.poll(event));
+        encoder.encode(event);
+        String json = new String(encoder.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(json.endsWith(",\"orderId\":\"o-1\",\"traceId\":\"t-3\"}"), json);
+
+        assertTrue(buffer.poll(event));
+        assertEquals("t-3", event.toMetadata().get("traceId"));
+        assertTrue(new LogRoute(null, new String[] {"traceId"}, new String[0]).matches(event));
+
+        assertTrue(buffer.poll(event));
+        assertTrue(event.getContext().isEmpty());
+        assertFalse(event.toMetadata().containsKey("traceId"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.exalt.ecosystem.shared.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LogRateLimiter}.
+ */
+public class LogRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Each template gets its burst, then the sustained rate, and suppressed lines are summarized")
+    public void limitsPerTemplate() {
+        try (LogRateLimiter limiter = new LogRateLimiter(Map.of(
+                "logging.ratelimit.warn.per.second", "10",
+                "logging.ratelimit.warn.burst", "5"))) {
+            long now = System.nanoTime();
+            int permitted = 0;
+            for (int i = 0; i < 100; i++) {
+                if (limiter.permits(LogRateLimiter.WARN, "Payment {} failed", now)) {
+                    permitted++;
+                }
+            }
+            assertEquals(5, permitted);
+            // Another template has a bucket of its own, and unlimited levels pass
+            assertTrue(limiter.permits(LogRateLimiter.WARN, "Stock {} low", now));
+            assertTrue(limiter.permits(LogRateLimiter.ERROR, "Payment {} failed", now));
+
+            // Half a second refills five tokens at ten per second
+            permitted = 0;
+            for (int i = 0; i < 100; i++) {
+                if (limiter.permits(LogRateLimiter.WARN, "Payment {} failed", now + SECOND / 2)) {
+                    permitted++;
+                }
+            }
+            assertEquals(5, permitted);
+
+            String summary = limiter.summarize();
+            assertTrue(summary.startsWith("Suppressed 190 log lines"), summary);
+            assertTrue(summary.contains("190 x warn \"Payment {} failed\""), summary);
+            assertNull(limiter.summarize());
+        }
+    }
+
+    @Test
+    @DisplayName("Sampled levels keep about the configured fraction of lines")
+    public void samplesLevel() {
+        try (LogRateLimiter limiter = new LogRateLimiter(Map.of("logging.sample.debug", "0.1"))) {
+            int kept = 0;
+            for (int i = 0; i < 100_000; i++) {
+                if (limiter.permits(LogRateLimiter.DEBUG, "Cache miss for {}")) {
+                    kept++;
+                }
+            }
+            assertTrue(kept > 9_000 && kept < 11_000, "kept " + kept);
+            assertTrue(limiter.permits(LogRateLimiter.INFO, "Cache miss for {}"));
+            assertTrue(limiter.summarize().contains("sampled out: debug=" + (100_000 - kept)));
+        }
+    }
+}
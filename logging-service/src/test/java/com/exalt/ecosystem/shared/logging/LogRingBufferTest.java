@@ -0,0 +1,97 @@
+package com.exalt.ecosystem.shared.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LogRingBuffer}.
+ */
+public class LogRingBufferTest {
+
+    @Test
+    @DisplayName("Events from concurrent producers all arrive, in order per producer")
+    public void deliversEventsFromManyProducers() throws Exception {
+        LogRingBuffer buffer = new LogRingBuffer(64, BackpressurePolicy.BLOCK, TimeUnit.SECONDS.toMillis(10));
+        int producers = 8;
+        int perProducer = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String level = "P" + p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    buffer.publish(level, "message", Map.of(), i);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        long[] next = new long[producers];
+        LogEvent event = new LogEvent();
+        int received = 0;
+        while (received < producers * perProducer) {
+            if (buffer.poll(event)) {
+                int producer = Integer.parseInt(event.getLevel().substring(1));
+                assertEquals(next[producer]++, event.getTimestamp());
+                received++;
+            } else {
+                buffer.awaitEvents(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(buffer.isEmpty());
+        assertEquals(producers * perProducer, buffer.getPublishedCount());
+        assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("A full buffer drops by policy and counts the drops")
+    public void appliesBackpressurePolicy() {
+        assertEquals(List.of(0L, 1L, 2L, 3L), fillAndDrain(BackpressurePolicy.DROP_NEWEST));
+        assertEquals(List.of(6L, 7L, 8L, 9L), fillAndDrain(BackpressurePolicy.DROP_OLDEST));
+
+        long start = System.nanoTime();
+        assertEquals(List.of(0L, 1L, 2L, 3L), fillAndDrain(BackpressurePolicy.BLOCK));
+        // Six publishes waited for room until the timeout
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(6 * 20));
+
+        LogRingBuffer closed = new LogRingBuffer(4, BackpressurePolicy.BLOCK, 20);
+        closed.close();
+        assertFalse(closed.publish("INFO", "late", null, 0));
+        assertEquals(1, closed.getDroppedCount());
+    }
+
+    private static List<Long> fillAndDrain(BackpressurePolicy policy) {
+        LogRingBuffer buffer = new LogRingBuffer(4, policy, 20);
+        for (long i = 0; i < 10; i++) {
+            buffer.publish("INFO", "message", null, i);
+        }
+        assertEquals(4, buffer.size());
+        assertEquals(6, buffer.getDroppedCount());
+
+        List<Long> timestamps = new ArrayList<>();
+        LogEvent event = new LogEvent();
+        while (buffer.poll(event)) {
+            timestamps.add(event.getTimestamp());
+        }
+        return timestamps;
+    }
+}
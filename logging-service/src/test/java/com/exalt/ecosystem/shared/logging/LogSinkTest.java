@@ -0,0 +1,144 @@
+package com.exalt.ecosystem.shared.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for routing log events to {@link LogSink}s through {@link LoggingService}.
+ */
+public class LogSinkTest {
+
+    @Test
+    @DisplayName("Events reach every sink whose level and key rules match")
+    public void routesByLevelAndKeys() throws Exception {
+        Path directory = Files.createTempDirectory("log-sinks");
+        try (InProcessElasticsearch elasticsearch = new InProcessElasticsearch()) {
+            Map<String, String> config = new HashMap<>();
+            config.put("logging.aggregator.type", "file, elasticsearch");
+            config.put("logging.sink.file.min.level", "warn");
+            config.put("logging.sink.elasticsearch.require.keys", "orderId");
+            config.put("file.dir", directory.toString());
+            config.put("elastic.url", elasticsearch.getUrl());
+            config.put("elastic.index", "logs");
+            LoggingService.initialize(config);
+            try {
+                LoggingService.event("INFO", "Order placed").with("orderId", 1).submit();
+                LoggingService.event("WARN", "Stock low").with("sku", "s-1").submit();
+                LoggingService.submitLogEvent("ERROR", "Payment failed", Map.of("orderId", 2));
+
+                Map<String, SinkMetrics> metrics = awaitDelivered(2, 2);
+                assertEquals(List.of("file", "elasticsearch"), List.copyOf(metrics.keySet()));
+                assertEquals(2, metrics.get("file").getRoutedCount());
+                assertEquals(0, metrics.get("file").getDroppedCount());
+                assertEquals(0, metrics.get("elasticsearch").getQueuedCount());
+            } finally {
+                LoggingService.shutdown();
+            }
+
+            List<String> lines;
+            try (var files = Files.list(directory)) {
+                Path file = files.findFirst().orElseThrow();
+                lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            }
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).contains("\"message\":\"Stock low\""));
+            assertTrue(lines.get(1).contains("\"message\":\"Payment failed\""));
+
+            String bulk = String.join("", elasticsearch.getBodies());
+            assertTrue(bulk.contains("Order placed"));
+            assertTrue(bulk.contains("Payment failed"));
+            assertFalse(bulk.contains("Stock low"));
+        }
+    }
+
+    @Test
+    @DisplayName("A stalled sink drops its own events without holding up the dispatcher")
+    public void isolatesSlowSink() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        LogAggregator stalled = new LogAggregator() {
+            @Override
+            public void aggregate(String level, String message, Map<String, Object> metadata) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void initialize(Map<String, String> config) {
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+        LogSink sink = new LogSink("stalled", stalled, new LogRoute(null, new String[0], new String[0]),
+            new LogRingBuffer(16, BackpressurePolicy.DROP_NEWEST, 0));
+
+        LogEvent event = new LogEvent();
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            event.set("INFO", "message", null, System.currentTimeMillis());
+            sink.offer(event);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+
+        SinkMetrics metrics = sink.metrics();
+        assertEquals(1000, metrics.getRoutedCount());
+        // The worker holds one event and the queue the next 16
+        assertTrue(metrics.getDroppedCount() >= 1000 - 17, metrics.toString());
+
+        release.countDown();
+        sink.close(TimeUnit.SECONDS.toMillis(5));
+        assertEquals(1000 - metrics.getDroppedCount(), sink.metrics().getDeliveredCount());
+    }
+
+    @Test
+    @DisplayName("An unknown aggregator type fails initialization instead of falling back")
+    public void rejectsUnknownType() {
+        Map<String, String> config = Map.of("logging.aggregator.type", "stdout,kafka");
+        assertThrows(IllegalArgumentException.class, () -> LoggingService.initialize(config));
+        assertTrue(LoggingService.getSinkMetrics().isEmpty());
+    }
+
+    @Test
+    @DisplayName("A bad buffer setting fails initialization before any sink starts, so a retry sets them all up")
+    public void retriesAfterBadBufferSetting() {
+        assertThrows(NumberFormatException.class, () -> LoggingService.initialize(
+            Map.of("logging.aggregator.type", "stdout", "logging.buffer.size", "large")));
+        assertTrue(LoggingService.getSinkMetrics().isEmpty());
+
+        try {
+            LoggingService.initialize(Map.of("logging.aggregator.type", "stdout"));
+            assertEquals(Set.of("stdout"), LoggingService.getSinkMetrics().keySet());
+        } finally {
+            LoggingService.shutdown();
+        }
+    }
+
+    private static Map<String, SinkMetrics> awaitDelivered(long file, long elasticsearch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            Map<String, SinkMetrics> metrics = LoggingService.getSinkMetrics();
+            if (metrics.get("file").getDeliveredCount() == file
+                    && metrics.get("elasticsearch").getDeliveredCount() == elasticsearch) {
+                return metrics;
+            }
+            assertTrue(System.nanoTime() < deadline, metrics.toString());
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.exalt.ecosystem.shared.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RecentLogIndex}.
+ */
+public class RecentLogIndexTest {
+
+    @Test
+    @DisplayName("Queries combine level, service, keys, words and field values, newest first")
+    public void searchesRecentEvents() {
+        RecentLogIndex index = new RecentLogIndex();
+        index.initialize(Map.of());
+        index.aggregate("INFO", "Order placed", Map.of("timestamp", 1L, "service", "orders", "orderId", "o-1"));
+        index.aggregate("WARN", "Payment declined by issuer", Map.of("timestamp", 2L, "service", "payments", "orderId", "o-1"));
+        index.aggregate("ERROR", "Payment FAILED: timeout", Map.of("timestamp", 3L, "service", "payments", "orderId", "o-2"));
+        index.aggregate("DEBUG", "Cache miss", Map.of("timestamp", 4L, "service", "orders"));
+
+        assertEquals(List.of("Payment FAILED: timeout", "Payment declined by issuer"),
+            messages(index.search(new LogQuery().minLevel("WARN"))));
+        assertEquals(List.of("Payment FAILED: timeout"), messages(index.search(new LogQuery().text("payment failed"))));
+        assertEquals(List.of("Payment declined by issuer", "Order placed"),
+            messages(index.search(new LogQuery().field("orderId", "o-1"))));
+        assertEquals(List.of("Cache miss", "Order placed"), messages(index.search(new LogQuery().service("orders"))));
+        assertEquals(List.of("Order placed"),
+            messages(index.search(new LogQuery().withKey("orderId").minLevel("info").until(2))));
+        assertEquals(List.of("Cache miss"), messages(index.search(new LogQuery().limit(1))));
+        assertTrue(index.search(new LogQuery().text("refund")).isEmpty());
+        assertEquals("payments", index.search(new LogQuery().text("timeout")).get(0).getService());
+    }
+
+    @Test
+    @DisplayName("The oldest events and their postings are evicted beyond the event and size caps")
+    public void capsMemory() {
+        RecentLogIndex index = new RecentLogIndex();
+        index.initialize(Map.of("index.max.events", "100"));
+        for (int i = 0; i < 1000; i++) {
+            index.aggregate("INFO", "Order placed batch" + (i / 100), Map.of("timestamp", (long) i, "orderId", "o-" + i));
+        }
+        assertEquals(100, index.size());
+        assertTrue(index.search(new LogQuery().text("batch8")).isEmpty());
+        assertEquals(100, index.search(new LogQuery().text("batch9").limit(1000)).size());
+        assertEquals(List.of(999L), index.search(new LogQuery().limit(1)).stream()
+            .map(IndexedLogEvent::getTimestamp).collect(Collectors.toList()));
+
+        RecentLogIndex small = new RecentLogIndex();
+        small.initialize(Map.of("index.max.bytes", "10000"));
+        for (int i = 0; i < 1000; i++) {
+            small.aggregate("INFO", "Order placed", Map.of("timestamp", (long) i, "orderId", "o-" + i));
+        }
+        assertTrue(small.getEstimatedBytes() <= 10000);
+        assertTrue(small.size() > 10 && small.size() < 100, String.valueOf(small.size()));
+        assertEquals(999L, small.search(new LogQuery().withKey("orderId").limit(1)).get(0).getTimestamp());
+    }
+
+    @Test
+    @DisplayName("Events submitted to the logging service become searchable through the index sink")
+    public void indexesThroughSink() throws Exception {
+        LoggingService.initialize(Map.of("logging.aggregator.type", "index", "service.name", "orders"));
+        try {
+            try (LogContext.Scope scope = LogContext.empty().with("traceId", "t-9").open()) {
+                LoggingService.event("ERROR", "Inventory sync failed").with("sku", "s-1").submit();
+            }
+            LogQuery query = new LogQuery().field("traceId", "t-9").service("orders");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            List<IndexedLogEvent> found = LoggingService.searchRecent(query);
+            while (found.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+                found = LoggingService.searchRecent(query);
+            }
+            assertEquals(1, found.size());
+            assertEquals("s-1", found.get(0).getFields().get("sku"));
+        } finally {
+            LoggingService.shutdown();
+        }
+        assertTrue(LoggingService.searchRecent(new LogQuery()).isEmpty());
+    }
+
+    private static List<String> messages(List<IndexedLogEvent> events) {
+        return events.stream().map(IndexedLogEvent::getMessage).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,150 @@
+package com.exalt.ecosystem.shared.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RollingFileAggregator}.
+ */
+public class RollingFileAggregatorTest {
+
+    @Test
+    @DisplayName("Full segments are rolled over and compressed, and lines stay in order")
+    public void rollsAndCompresses() throws Exception {
+        Path directory = Files.createTempDirectory("log-segments");
+        RollingFileAggregator aggregator = new RollingFileAggregator();
+        aggregator.initialize(Map.of("file.dir", directory.toString(), "file.max.bytes", "4096", "file.max.files", "100"));
+        for (int i = 0; i < 1000; i++) {
+            aggregator.aggregate("INFO", "Order placed", Map.of("orderId", i));
+        }
+        aggregator.shutdown();
+
+        List<Path> segments = list(directory);
+        assertTrue(segments.size() > 10, segments.toString());
+        for (Path segment : segments.subList(0, segments.size() - 1)) {
+            assertTrue(segment.toString().endsWith(".log.gz"), segment.toString());
+        }
+        assertTrue(segments.get(segments.size() - 1).toString().endsWith(".log"));
+
+        List<String> lines = readAll(segments);
+        assertEquals(1000, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertTrue(lines.get(i).contains("\"orderId\":" + i + "}"), lines.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("A restart compresses the previous segments and keeps only max.files segments")
+    public void resumesNumbering() throws Exception {
+        Path directory = Files.createTempDirectory("log-segments");
+        Map<String, String> config = Map.of("file.dir", directory.toString(), "file.max.bytes", "4096", "file.max.files", "3");
+        for (int run = 0; run < 2; run++) {
+            RollingFileAggregator aggregator = new RollingFileAggregator();
+            aggregator.initialize(config);
+            for (int i = 0; i < 10; i++) {
+                aggregator.aggregate("INFO", "Run " + run, Map.of("line", i));
+            }
+            aggregator.shutdown();
+        }
+
+        List<Path> segments = list(directory);
+        assertEquals(List.of("application-000000.log.gz", "application-000001.log"),
+            segments.stream().map(path -> path.getFileName().toString()).collect(Collectors.toList()));
+        List<String> lines = readAll(segments);
+        assertEquals(20, lines.size());
+        assertTrue(lines.get(0).contains("Run 0"));
+        assertTrue(lines.get(19).contains("Run 1"));
+    }
+
+    @Test
+    @DisplayName("Restarts keep only max.files segments even when nothing rolls")
+    public void restartsKeepMaxFiles() throws Exception {
+        Path directory = Files.createTempDirectory("log-segments");
+        Map<String, String> config = Map.of("file.dir", directory.toString(), "file.max.bytes", "4096", "file.max.files", "3");
+        RollingFileAggregator aggregator = new RollingFileAggregator();
+        aggregator.initialize(config);
+        for (int i = 0; i < 200; i++) {
+            aggregator.aggregate("INFO", "Order placed", Map.of("orderId", i));
+        }
+        aggregator.shutdown();
+        assertEquals(3, list(directory).size());
+
+        for (int run = 0; run < 3; run++) {
+            aggregator = new RollingFileAggregator();
+            aggregator.initialize(config);
+            aggregator.shutdown();
+        }
+
+        List<Path> segments = list(directory);
+        assertEquals(3, segments.size(), segments.toString());
+        assertTrue(segments.get(2).toString().endsWith(".log"), segments.toString());
+    }
+
+    @Test
+    @DisplayName("Closed segments drop and unmap their buffers, compressed or truncated")
+    public void releasesClosedSegments() throws Exception {
+        for (String compress : List.of("true", "false")) {
+            Path directory = Files.createTempDirectory("log-segments");
+            RollingFileAggregator aggregator = new RollingFileAggregator();
+            aggregator.initialize(Map.of("file.dir", directory.toString(), "file.max.bytes", "4096",
+                "file.max.files", "100", "file.compress", compress));
+            List<Object> segments = new ArrayList<>();
+            segments.add(field(aggregator, "current"));
+            for (int i = 0; i < 500; i++) {
+                aggregator.aggregate("INFO", "Order placed", Map.of("orderId", i));
+                Object current = field(aggregator, "current");
+                if (current != segments.get(segments.size() - 1)) {
+                    segments.add(current);
+                }
+            }
+            aggregator.shutdown();
+
+            assertTrue(segments.size() > 5, "Only " + segments.size() + " segments");
+            for (Object segment : segments) {
+                assertNull(field(segment, "buffer"), "Closed segment still references its buffer");
+            }
+            assertEquals(500, readAll(list(directory)).size());
+        }
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> readAll(List<Path> segments) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Path segment : segments) {
+            try (InputStream in = segment.toString().endsWith(".gz")
+                    ? new GZIPInputStream(Files.newInputStream(segment))
+                    : Files.newInputStream(segment)) {
+                String content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                assertEquals(-1, content.indexOf('\0'));
+                content.lines().forEach(lines::add);
+            }
+        }
+        return lines;
+    }
+
+    private static Object field(Object target, String name) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+}
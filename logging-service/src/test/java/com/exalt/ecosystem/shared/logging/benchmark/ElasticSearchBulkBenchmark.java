@@ -0,0 +1,81 @@
+package com.exalt.ecosystem.shared.logging.benchmark;
+
+import com.exalt.ecosystem.shared.logging.ElasticSearchAggregator;
+import com.exalt.ecosystem.shared.logging.InProcessElasticsearch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many events per second {@link ElasticSearchAggregator}
+ * ships to an {@link InProcessElasticsearch} on the loopback interface,
+ * comparing single-event requests ({@code maxActions = 1}) with bulk
+ * batches.
+ * <p>
+ * Only the bounded number of requests can be in flight, so once they are
+ * taken the measured thread waits for responses and the score is the
+ * end-to-end shipping rate rather than the rate of serialization alone.
+ * No JMH result has been recorded for it yet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ElasticSearchBulkBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int maxActions;
+
+    @Param({"true", "false"})
+    private boolean gzip;
+
+    private InProcessElasticsearch elasticsearch;
+    private ElasticSearchAggregator aggregator;
+    private Map<String, Object> metadata;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        elasticsearch = new InProcessElasticsearch();
+        elasticsearch.discardBodies();
+
+        Map<String, String> config = new HashMap<>();
+        config.put("elastic.url", elasticsearch.getUrl());
+        config.put("elastic.bulk.max.actions", String.valueOf(maxActions));
+        config.put("elastic.bulk.gzip", String.valueOf(gzip));
+        aggregator = new ElasticSearchAggregator();
+        aggregator.initialize(config);
+
+        metadata = new HashMap<>();
+        metadata.put("timestamp", System.currentTimeMillis());
+        metadata.put("service", "order-service");
+        metadata.put("requestId", "3f2c9a61-7d1e-4b8a-9c55-0e6f1d2a7b40");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        aggregator.shutdown();
+        elasticsearch.close();
+    }
+
+    @Benchmark
+    public void aggregate() {
+        aggregator.aggregate("INFO", "Order 1042 placed for customer 77 with 3 items", metadata);
+    }
+}
@@ -0,0 +1,80 @@
+package com.exalt.ecosystem.shared.logging.benchmark;
+
+import com.exalt.ecosystem.shared.logging.BackpressurePolicy;
+import com.exalt.ecosystem.shared.logging.JsonLogEncoder;
+import com.exalt.ecosystem.shared.logging.LogContext;
+import com.exalt.ecosystem.shared.logging.LogEvent;
+import com.exalt.ecosystem.shared.logging.LogEventBuilder;
+import com.exalt.ecosystem.shared.logging.LogRingBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a correlation context adds to building, queuing and
+ * encoding an event, and to handing a task to another thread.
+ * <p>
+ * With {@code none} no {@link LogContext} is open, which should cost
+ * one thread-local lookup per event and nothing per task; with
+ * {@code active} a trace and a span ID are open and written into every
+ * event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogContextBenchmark {
+
+    @Param({"none", "active"})
+    private String context;
+
+    private final LogEventBuilder builder = new LogEventBuilder();
+    private final LogRingBuffer buffer = new LogRingBuffer(1024, BackpressurePolicy.DROP_OLDEST, 0);
+    private final LogEvent event = new LogEvent();
+    private final JsonLogEncoder encoder = new JsonLogEncoder();
+    private final Runnable task = () -> { };
+    private LogContext.Scope scope;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        if ("active".equals(context)) {
+            scope = LogContext.empty().with("traceId", "4bf92f3577b34da6a3ce929d0e0e4736").with("spanId", "00f067aa0ba902b7").open();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (scope != null) {
+            scope.close();
+            scope = null;
+        }
+    }
+
+    @Benchmark
+    public int event() {
+        builder.begin("INFO", "Order placed").with("orderId", "o-1234").publishTo(buffer);
+        buffer.poll(event);
+        encoder.reset();
+        encoder.encode(event);
+        return encoder.length();
+    }
+
+    @Benchmark
+    public Runnable wrap() {
+        return LogContext.wrap(task);
+    }
+}
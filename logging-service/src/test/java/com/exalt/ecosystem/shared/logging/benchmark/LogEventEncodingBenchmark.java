@@ -0,0 +1,108 @@
+package com.exalt.ecosystem.shared.logging.benchmark;
+
+import com.exalt.ecosystem.shared.logging.BackpressurePolicy;
+import com.exalt.ecosystem.shared.logging.JsonLogEncoder;
+import com.exalt.ecosystem.shared.logging.LogEvent;
+import com.exalt.ecosystem.shared.logging.LogEventBuilder;
+import com.exalt.ecosystem.shared.logging.LogRingBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost and allocation of turning a log call into JSON.
+ * <p>
+ * {@code builder} builds an event with inline fields, passes it through
+ * a {@link LogRingBuffer} and encodes it with a {@link JsonLogEncoder},
+ * which is the path of {@code LoggingService.event(...).submit()}.
+ * {@code map} encodes the same fields from a metadata map with boxed
+ * values, and {@code jackson} serializes that map with Jackson, as the
+ * aggregators did before. Run through {@link #main(String[])} so the GC
+ * profiler reports {@code gc.alloc.rate.norm}, the bytes allocated per
+ * operation. {@code builder} is expected to report 0 once warmed up; any
+ * other figure points at an allocation on that path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class LogEventEncodingBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final LogEventBuilder builder = new LogEventBuilder();
+    private final LogRingBuffer buffer = new LogRingBuffer(1024, BackpressurePolicy.DROP_OLDEST, 0);
+    private final LogEvent event = new LogEvent();
+    private final JsonLogEncoder encoder = new JsonLogEncoder();
+    private long orderNumber;
+
+    @Benchmark
+    public int builder() {
+        builder.begin("INFO", "Order placed")
+            .with("orderId", "o-1234")
+            .with("customerId", orderNumber++)
+            .with("items", 3)
+            .with("express", true)
+            .publishTo(buffer);
+        buffer.poll(event);
+        encoder.reset();
+        encoder.encode(event);
+        return encoder.length();
+    }
+
+    @Benchmark
+    public int map() {
+        encoder.reset();
+        encoder.encode("INFO", "Order placed", metadata());
+        return encoder.length();
+    }
+
+    @Benchmark
+    public byte[] jackson() throws Exception {
+        Map<String, Object> document = metadata();
+        document.put("level", "INFO");
+        document.put("message", "Order placed");
+        return MAPPER.writeValueAsBytes(document);
+    }
+
+    private Map<String, Object> metadata() {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("timestamp", System.currentTimeMillis());
+        metadata.put("orderId", "o-1234");
+        metadata.put("customerId", orderNumber++);
+        metadata.put("items", 3);
+        metadata.put("express", true);
+        return metadata;
+    }
+
+    /**
+     * Runs the selected benchmarks, by default this one, with the GC profiler.
+     * Accepts the regular JMH command line.
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(LogEventEncodingBenchmark.class.getSimpleName());
+        }
+        new Runner(builder.addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package com.exalt.ecosystem.shared.logging.benchmark;
+
+import com.exalt.ecosystem.shared.logging.Logger;
+import com.exalt.ecosystem.shared.logging.LoggerFactory;
+import com.exalt.ecosystem.shared.logging.LoggingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost the rate limiter adds to a {@link Logger} call.
+ * <p>
+ * With {@code limited}, debug lines are sampled at 10% and warn lines
+ * limited to 100 per second per template, so nearly every call is
+ * suppressed, as during an incident; with {@code none} no limiter is
+ * configured. Lines the SLF4J backend filters out never reach the
+ * limiter, so {@code debug} only measures sampling when DEBUG is enabled;
+ * the suppressed {@code warn} calls show the limiter's own cost under
+ * contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogRateLimiterBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(LogRateLimiterBenchmark.class);
+
+    @Param({"none", "limited"})
+    private String limits;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, String> config = new HashMap<>();
+        config.put("logging.aggregation.enabled", "false");
+        if ("limited".equals(limits)) {
+            config.put("logging.sample.debug", "0.1");
+            config.put("logging.ratelimit.warn.per.second", "100");
+        }
+        LoggingService.initialize(config);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        LoggingService.shutdown();
+    }
+
+    @Benchmark
+    public void debug() {
+        log.debug("Cache miss for {}", "product-42");
+    }
+
+    @Benchmark
+    public void warn() {
+        log.warn("Payment {} failed", "p-42");
+    }
+}
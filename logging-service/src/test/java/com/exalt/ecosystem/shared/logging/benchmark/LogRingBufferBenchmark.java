@@ -0,0 +1,104 @@
+package com.exalt.ecosystem.shared.logging.benchmark;
+
+import com.exalt.ecosystem.shared.logging.BackpressurePolicy;
+import com.exalt.ecosystem.shared.logging.LogEvent;
+import com.exalt.ecosystem.shared.logging.LogRingBuffer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast producer threads publish log events into a
+ * {@link LogRingBuffer} drained by one consumer thread, for every
+ * backpressure policy.
+ * <p>
+ * The consumer does no work per event, so with enough producers the
+ * buffer fills and the policy decides the outcome. The
+ * {@code published} and {@code dropped} counters report how many
+ * publishes succeeded and how many events were discarded.
+ * {@link LogRingBufferBenchmarkMatrix} runs this benchmark at 1 to 64
+ * threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class LogRingBufferBenchmark {
+
+    private static final Map<String, Object> METADATA = Map.of("requestId", "r-42");
+
+    @Param({"DROP_OLDEST", "DROP_NEWEST", "BLOCK"})
+    private BackpressurePolicy policy;
+
+    @Param({"8192"})
+    private int bufferSize;
+
+    private LogRingBuffer buffer;
+    private Thread consumer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        buffer = new LogRingBuffer(bufferSize, policy, 10);
+        consumer = new Thread(() -> {
+            LogEvent event = new LogEvent();
+            while (!buffer.isClosed() || !buffer.isEmpty()) {
+                if (!buffer.poll(event)) {
+                    buffer.awaitEvents(TimeUnit.MILLISECONDS.toNanos(10));
+                }
+            }
+        }, "log-ring-buffer-benchmark-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        buffer.close();
+        consumer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Benchmark
+    public boolean publish(Outcomes outcomes) {
+        boolean accepted = buffer.publish("INFO", "Order placed", METADATA, System.currentTimeMillis());
+        if (accepted) {
+            outcomes.published++;
+        } else {
+            outcomes.dropped++;
+        }
+        return accepted;
+    }
+
+    /**
+     * Per-thread counts of accepted and rejected publishes. Under
+     * DROP_OLDEST every publish is accepted and the events skipped to make
+     * room are only visible in {@link LogRingBuffer#getDroppedCount()}.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long published;
+        public long dropped;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            published = 0;
+            dropped = 0;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.exalt.ecosystem.shared.logging.benchmark;
+
+import com.exalt.ecosystem.shared.logging.IndexedLogEvent;
+import com.exalt.ecosystem.shared.logging.LogQuery;
+import com.exalt.ecosystem.shared.logging.RecentLogIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures indexing and querying a full {@link RecentLogIndex} of
+ * 100,000 events, one in a hundred of them errors.
+ * <p>
+ * {@code index} adds an event, evicting the oldest, as the index sink's
+ * worker does. The queries ask for the 100 newest matches: of a level
+ * that is rare, of a word in every message combined with a field value,
+ * and of a word only in the oldest events, which walks a posting list to
+ * its end. Each should take well under a millisecond.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class RecentLogIndexBenchmark {
+
+    private static final int EVENTS = 100_000;
+
+    private final RecentLogIndex index = new RecentLogIndex();
+    private final LogQuery errors = new LogQuery().minLevel("ERROR");
+    private final LogQuery orderPayments = new LogQuery().text("payment").field("customerId", "c-42");
+    private final LogQuery oldest = new LogQuery().text("warmup");
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index.initialize(Map.of("index.max.events", String.valueOf(EVENTS), "index.max.bytes", String.valueOf(256 * 1024 * 1024)));
+        for (int i = 0; i < EVENTS / 2; i++) {
+            index.aggregate("INFO", "Payment authorized during warmup", metadata());
+        }
+        for (int i = 0; i < EVENTS / 2; i++) {
+            index();
+        }
+    }
+
+    @Benchmark
+    public void index() {
+        long i = sequence++;
+        index.aggregate(i % 100 == 0 ? "ERROR" : "INFO", "Payment authorized for order", metadata());
+    }
+
+    @Benchmark
+    public List<IndexedLogEvent> searchLevel() {
+        return index.search(errors);
+    }
+
+    @Benchmark
+    public List<IndexedLogEvent> searchTextAndField() {
+        return index.search(orderPayments);
+    }
+
+    @Benchmark
+    public List<IndexedLogEvent> searchOldest() {
+        return index.search(oldest);
+    }
+
+    private Map<String, Object> metadata() {
+        return Map.of(
+            "timestamp", System.currentTimeMillis(),
+            "service", "payments",
+            "orderId", "o-" + sequence,
+            "customerId", "c-" + sequence % 1000);
+    }
+}
@@ -0,0 +1,92 @@
+package com.exalt.ecosystem.shared.logging.benchmark;
+
+import com.exalt.ecosystem.shared.logging.BackpressurePolicy;
+import com.exalt.ecosystem.shared.logging.LogEvent;
+import com.exalt.ecosystem.shared.logging.LogEventBuilder;
+import com.exalt.ecosystem.shared.logging.LogRingBuffer;
+import com.exalt.ecosystem.shared.logging.RollingFileAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how many events per second the file sink's worker can write.
+ * <p>
+ * Each operation takes one event of about 150 bytes from a
+ * {@link LogRingBuffer} and writes it into the mapped segment, as the
+ * sink's worker does, with 64 MB segments so that rolling
+ * over, compression and deletion of old segments are part of the run.
+ * The target is above 1,000,000 events per second. Compression runs on
+ * its own thread, so with {@code compress} on it competes with the
+ * worker for a core unless one is spare. No JMH result has been recorded
+ * for either setting yet; run the benchmark to get the figures.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RollingFileAggregatorBenchmark {
+
+    @Param({"true", "false"})
+    private String compress;
+
+    private final LogEventBuilder builder = new LogEventBuilder();
+    private final LogRingBuffer buffer = new LogRingBuffer(1024, BackpressurePolicy.DROP_OLDEST, 0);
+    private final LogEvent event = new LogEvent();
+    private RollingFileAggregator aggregator;
+    private Path directory;
+    private long orderNumber;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("log-segments");
+        aggregator = new RollingFileAggregator();
+        aggregator.initialize(Map.of(
+            "file.dir", directory.toString(),
+            "file.max.bytes", String.valueOf(64 * 1024 * 1024),
+            "file.max.files", "4",
+            "file.compress", compress));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        aggregator.shutdown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void aggregate() {
+        builder.begin("INFO", "Order placed")
+            .with("orderId", "o-1234")
+            .with("customerId", orderNumber++)
+            .with("items", 3)
+            .with("express", true)
+            .publishTo(buffer);
+        buffer.poll(event);
+        aggregator.aggregate(event);
+    }
+}